@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aop.testfixture.interceptor.NopInterceptor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AbstractBeanFactoryPointcutAdvisor}.
+ */
+class AbstractBeanFactoryPointcutAdvisorTests {
+
+	@Test
+	void getAdviceForPrototype() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(NopInterceptor.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		beanFactory.registerBeanDefinition("advice", bd);
+		DefaultBeanFactoryPointcutAdvisor advisor = createAdvisor(beanFactory, "advice");
+
+		assertThat(advisor.getAdvice()).isInstanceOf(NopInterceptor.class).isSameAs(advisor.getAdvice());
+	}
+
+	@Test
+	void getAdviceWhileSingletonIsCreatedConcurrently() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		DefaultBeanFactoryPointcutAdvisor advisor1 = createAdvisor(beanFactory, "advice1");
+		DefaultBeanFactoryPointcutAdvisor advisor2 = createAdvisor(beanFactory, "advice2");
+		CountDownLatch singletonEntered = new CountDownLatch(1);
+		CountDownLatch adviceEntered = new CountDownLatch(1);
+
+		RootBeanDefinition advice1 = new RootBeanDefinition(NopInterceptor.class, () -> {
+			adviceEntered.countDown();
+			// Waits for the singleton being created on the other thread
+			beanFactory.getBean("singleton");
+			return new NopInterceptor();
+		});
+		advice1.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		beanFactory.registerBeanDefinition("advice1", advice1);
+		RootBeanDefinition advice2 = new RootBeanDefinition(NopInterceptor.class);
+		advice2.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		beanFactory.registerBeanDefinition("advice2", advice2);
+		beanFactory.registerBeanDefinition("singleton", new RootBeanDefinition(Object.class, () -> {
+			singletonEntered.countDown();
+			await(adviceEntered);
+			// Lazily resolves another advisor's advice during singleton creation
+			advisor2.getAdvice();
+			return new Object();
+		}));
+
+		Thread creating = new Thread(() -> beanFactory.getBean("singleton"));
+		Thread resolving = new Thread(advisor1::getAdvice);
+		creating.start();
+		assertThat(singletonEntered.await(10, TimeUnit.SECONDS)).isTrue();
+		resolving.start();
+		creating.join(10000);
+		resolving.join(10000);
+
+		assertThat(creating.isAlive()).as("Deadlock on singleton creation").isFalse();
+		assertThat(resolving.isAlive()).as("Deadlock on advice resolution").isFalse();
+		assertThat(advisor1.getAdvice()).isInstanceOf(NopInterceptor.class);
+		assertThat(advisor2.getAdvice()).isInstanceOf(NopInterceptor.class);
+	}
+
+	private static DefaultBeanFactoryPointcutAdvisor createAdvisor(
+			DefaultListableBeanFactory beanFactory, String adviceBeanName) {
+
+		DefaultBeanFactoryPointcutAdvisor advisor = new DefaultBeanFactoryPointcutAdvisor();
+		advisor.setAdviceBeanName(adviceBeanName);
+		advisor.setBeanFactory(beanFactory);
+		return advisor;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Latch not released");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
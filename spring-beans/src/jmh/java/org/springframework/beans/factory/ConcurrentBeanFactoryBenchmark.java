@@ -18,13 +18,16 @@ package org.springframework.beans.factory;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.infra.Blackhole;
 
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
@@ -34,7 +37,7 @@ import org.springframework.beans.propertyeditors.CustomDateEditor;
 import static org.springframework.core.testfixture.io.ResourceTestUtils.qualifiedResource;
 
 /**
- * Benchmark for creating prototype beans in a concurrent fashion.
+ * Benchmark for creating prototype beans and distinct singletons in a concurrent fashion.
  * This benchmark requires to customize the number of worker threads {@code -t <int>} on the
  * CLI when running this particular benchmark to leverage concurrency.
  *
@@ -61,12 +64,46 @@ public class ConcurrentBeanFactoryBenchmark {
 
 	}
 
+	@State(Scope.Benchmark)
+	public static class SingletonCreationState {
+
+		public DefaultListableBeanFactory factory;
+
+		public final AtomicLong counter = new AtomicLong();
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.factory = new DefaultListableBeanFactory();
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown() {
+			this.factory.destroySingletons();
+		}
+	}
+
+
 	@Benchmark
 	public void concurrentBeanCreation(BenchmarkState state, Blackhole bh) {
 		bh.consume(state.factory.getBean("bean1"));
 		bh.consume(state.factory.getBean("bean2"));
 	}
 
+	/**
+	 * Creates a distinct singleton per invocation, with some work in its factory,
+	 * as with lazy singletons being initialized from concurrent request threads.
+	 * Throughput scales with the number of worker threads since each singleton
+	 * is created within its own lock rather than a registry-wide one.
+	 */
+	@Benchmark
+	public void concurrentSingletonCreation(SingletonCreationState state, Blackhole bh) {
+		String beanName = "singleton" + state.counter.getAndIncrement();
+		bh.consume(state.factory.getSingleton(beanName, () -> {
+			Blackhole.consumeCPU(1000);
+			return beanName;
+		}));
+	}
+
 
 	public static class ConcurrentBean {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.beans.factory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
@@ -25,11 +28,14 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericTypeAwareAutowireCandidateResolver;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.testfixture.beans.LifecycleBean;
 import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.ResolvableType;
 
 /**
  * Benchmark for retrieving various bean types from the {@link DefaultListableBeanFactory}.
@@ -133,10 +139,90 @@ public class DefaultListableBeanFactoryBenchmark {
 		return state.beanFactory.getBean(B.class);
 	}
 
+	@State(Scope.Benchmark)
+	public static class TypeIndexState extends Shared {
+
+		@Param({"1000", "6000"})
+		public int beanCount;
+
+		public ResolvableType stringListType = ResolvableType.forClassWithGenerics(List.class, String.class);
+
+		@Setup
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			for (int i = 0; i < this.beanCount; i++) {
+				this.beanFactory.registerBeanDefinition("a" + i, new RootBeanDefinition(A.class));
+				RootBeanDefinition listDefinition = new RootBeanDefinition(ArrayList.class);
+				listDefinition.setTargetType(ResolvableType.forClassWithGenerics(List.class,
+						(i % 2 == 0 ? String.class : Integer.class)));
+				this.beanFactory.registerBeanDefinition("list" + i, listDefinition);
+			}
+			this.beanFactory.freezeConfiguration();
+		}
+	}
+
+	@Benchmark
+	public Object beanNamesForGenericTypeManyBeans(TypeIndexState state) {
+		return state.beanFactory.getBeanNamesForType(state.stringListType);
+	}
+
+	@Benchmark
+	public Object beanNamesForTypeAfterLateRegistration(TypeIndexState state) {
+		DefaultListableBeanFactory beanFactory = state.beanFactory;
+		beanFactory.registerSingleton("late", new B());
+		String[] beanNames = beanFactory.getBeanNamesForType(A.class);
+		beanFactory.destroySingleton("late");
+		return beanNames;
+	}
+
+	@State(Scope.Benchmark)
+	public static class GenericCandidateState extends Shared {
+
+		@Param({"10", "100"})
+		public int beanCount;
+
+		public DependencyDescriptor descriptor;
+
+		@Setup
+		public void setup() throws NoSuchFieldException {
+			this.beanFactory = new DefaultListableBeanFactory();
+			this.beanFactory.setAutowireCandidateResolver(new GenericTypeAwareAutowireCandidateResolver());
+			this.beanFactory.registerBeanDefinition("stringRepository", new RootBeanDefinition(StringRepository.class));
+			for (int i = 0; i < this.beanCount; i++) {
+				this.beanFactory.registerBeanDefinition("integerRepository" + i,
+						new RootBeanDefinition(IntegerRepository.class));
+			}
+			this.beanFactory.freezeConfiguration();
+			this.beanFactory.preInstantiateSingletons();
+			this.descriptor = new DependencyDescriptor(
+					RepositoryConsumer.class.getDeclaredField("repository"), true);
+		}
+	}
+
+	// Generic candidate matching: run with "-prof gc" for allocation rates
+	@Benchmark
+	public Object resolveGenericDependency(GenericCandidateState state) {
+		return state.beanFactory.resolveDependency(state.descriptor, null);
+	}
+
 	static class A {
 	}
 
 	static class B {
 	}
 
+	interface Repository<T> {
+	}
+
+	static class StringRepository implements Repository<String> {
+	}
+
+	static class IntegerRepository implements Repository<Integer> {
+	}
+
+	static class RepositoryConsumer {
+
+		Repository<String> repository;
+	}
+
 }
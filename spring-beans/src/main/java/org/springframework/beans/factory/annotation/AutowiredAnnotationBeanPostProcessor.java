@@ -21,7 +21,6 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -608,7 +607,7 @@ public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationA
 	/**
 	 * Class representing injection information about an annotated field.
 	 */
-	private class AutowiredFieldElement extends InjectionMetadata.InjectedElement {
+	private class AutowiredFieldElement extends MethodHandleInjectedElement {
 
 		private final boolean required;
 
@@ -639,8 +638,7 @@ public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationA
 				value = resolveFieldValue(field, bean, beanName);
 			}
 			if (value != null) {
-				ReflectionUtils.makeAccessible(field);
-				field.set(bean, value);
+				injectField(bean, value);
 			}
 		}
 
@@ -685,7 +683,7 @@ public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationA
 	/**
 	 * Class representing injection information about an annotated method.
 	 */
-	private class AutowiredMethodElement extends InjectionMetadata.InjectedElement {
+	private class AutowiredMethodElement extends MethodHandleInjectedElement {
 
 		private final boolean required;
 
@@ -719,13 +717,7 @@ public class AutowiredAnnotationBeanPostProcessor implements SmartInstantiationA
 				arguments = resolveMethodArguments(method, bean, beanName);
 			}
 			if (arguments != null) {
-				try {
-					ReflectionUtils.makeAccessible(method);
-					method.invoke(bean, arguments);
-				}
-				catch (InvocationTargetException ex) {
-					throw ex.getTargetException();
-				}
+				injectMethod(bean, arguments);
 			}
 		}
 
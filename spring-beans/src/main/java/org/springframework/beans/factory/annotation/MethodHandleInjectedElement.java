@@ -0,0 +1,178 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.annotation;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.springframework.beans.PropertyValues;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link InjectionMetadata.InjectedElement} variant that writes fields and
+ * invokes methods through a {@link MethodHandle} instead of core reflection.
+ *
+ * <p>The method handle is created on first injection and kept for the lifetime
+ * of the element, i.e. as long as the injection metadata for the containing
+ * class is cached. Where no method handle is available, e.g. for a final field
+ * on JDK 8, or where the given values would not pass reflective invocation as-is,
+ * the element falls back to reflection, with the same exceptions thrown as by
+ * a reflective {@link InjectionMetadata.InjectedElement}.
+ *
+ * @since 5.3.23
+ * @see org.springframework.beans.factory.support.MethodHandleInstantiationStrategy
+ */
+public abstract class MethodHandleInjectedElement extends InjectionMetadata.InjectedElement {
+
+	private static final MethodType FIELD_INJECTION_TYPE =
+			MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final MethodType METHOD_INJECTION_TYPE =
+			MethodType.methodType(void.class, Object.class, Object[].class);
+
+	/** Marker for a member without a method handle. */
+	private static final MethodHandle NO_METHOD_HANDLE = MethodHandles.constant(Object.class, null);
+
+
+	@Nullable
+	private volatile MethodHandle methodHandle;
+
+
+	protected MethodHandleInjectedElement(Member member, @Nullable PropertyDescriptor pd) {
+		super(member, pd);
+	}
+
+
+	/**
+	 * Inject the resource obtained from {@link #getResourceToInject},
+	 * like the reflective {@link InjectionMetadata.InjectedElement}.
+	 */
+	@Override
+	protected void inject(Object target, @Nullable String requestingBeanName, @Nullable PropertyValues pvs)
+			throws Throwable {
+
+		if (this.isField) {
+			injectField(target, getResourceToInject(target, requestingBeanName));
+		}
+		else {
+			if (checkPropertySkipping(pvs)) {
+				return;
+			}
+			injectMethod(target, getResourceToInject(target, requestingBeanName));
+		}
+	}
+
+	/**
+	 * Set the field of this element on the given target to the given value.
+	 * @param target the target instance
+	 * @param value the field value to set
+	 * @throws Throwable if the field cannot be set
+	 */
+	protected final void injectField(Object target, @Nullable Object value) throws Throwable {
+		Field field = (Field) this.member;
+		MethodHandle methodHandle = getMethodHandle();
+		if (methodHandle != NO_METHOD_HANDLE && ClassUtils.isAssignableValue(field.getType(), value)) {
+			methodHandle.invokeExact(target, value);
+		}
+		else {
+			ReflectionUtils.makeAccessible(field);
+			field.set(target, value);
+		}
+	}
+
+	/**
+	 * Invoke the method of this element on the given target with the given arguments.
+	 * @param target the target instance
+	 * @param args the method arguments
+	 * @throws Throwable if the method cannot be invoked or throws an exception itself
+	 */
+	protected final void injectMethod(Object target, Object... args) throws Throwable {
+		Method method = (Method) this.member;
+		MethodHandle methodHandle = getMethodHandle();
+		if (methodHandle != NO_METHOD_HANDLE && isApplicable(method, args)) {
+			methodHandle.invokeExact(target, args);
+		}
+		else {
+			try {
+				ReflectionUtils.makeAccessible(method);
+				method.invoke(target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+	private boolean isApplicable(Method method, Object[] args) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		if (args.length != parameterTypes.length) {
+			return false;
+		}
+		for (int i = 0; i < args.length; i++) {
+			if (!ClassUtils.isAssignableValue(parameterTypes[i], args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private MethodHandle getMethodHandle() {
+		MethodHandle methodHandle = this.methodHandle;
+		if (methodHandle == null) {
+			methodHandle = createMethodHandle();
+			this.methodHandle = methodHandle;
+		}
+		return methodHandle;
+	}
+
+	private MethodHandle createMethodHandle() {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			boolean isStatic = Modifier.isStatic(this.member.getModifiers());
+			if (this.isField) {
+				Field field = (Field) this.member;
+				ReflectionUtils.makeAccessible(field);
+				MethodHandle methodHandle = lookup.unreflectSetter(field);
+				if (isStatic) {
+					methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+				}
+				return methodHandle.asType(FIELD_INJECTION_TYPE);
+			}
+			Method method = (Method) this.member;
+			ReflectionUtils.makeAccessible(method);
+			MethodHandle methodHandle = lookup.unreflect(method).asFixedArity();
+			if (isStatic) {
+				methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+			}
+			return methodHandle.asSpreader(Object[].class, method.getParameterCount()).asType(METHOD_INJECTION_TYPE);
+		}
+		catch (ReflectiveOperationException | RuntimeException ex) {
+			// e.g. a final field or a member not accessible through a method handle
+			return NO_METHOD_HANDLE;
+		}
+	}
+
+}
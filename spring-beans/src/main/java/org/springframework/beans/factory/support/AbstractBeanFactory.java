@@ -183,6 +183,10 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	/** Application startup metrics. **/
 	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
 
+	/** Application startup metrics for the current thread, if differing. */
+	private final ThreadLocal<ApplicationStartup> threadApplicationStartup =
+			new NamedThreadLocal<>("Thread-bound ApplicationStartup");
+
 	/**
 	 * Create a new AbstractBeanFactory.
 	 */
@@ -300,7 +304,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 				markBeanAsCreated(beanName);
 			}
 
-			StartupStep beanCreation = this.applicationStartup.start("spring.beans.instantiate")
+			StartupStep beanCreation = getApplicationStartup().start("spring.beans.instantiate")
 					.tag("beanName", name);
 			try {
 				if (requiredType != null) {
@@ -1069,9 +1073,29 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		this.applicationStartup = applicationStartup;
 	}
 
+	/**
+	 * Return the {@code ApplicationStartup} for this bean factory, or the one
+	 * bound to the current thread through {@link #setThreadApplicationStartup}.
+	 */
 	@Override
 	public ApplicationStartup getApplicationStartup() {
-		return this.applicationStartup;
+		ApplicationStartup threadApplicationStartup = this.threadApplicationStartup.get();
+		return (threadApplicationStartup != null ? threadApplicationStartup : this.applicationStartup);
+	}
+
+	/**
+	 * Bind the given {@code ApplicationStartup} to the current thread, e.g. for
+	 * recording the steps of a worker thread separately.
+	 * @param applicationStartup the thread-bound instance, or {@code null} to unbind
+	 * @since 5.3.23
+	 */
+	void setThreadApplicationStartup(@Nullable ApplicationStartup applicationStartup) {
+		if (applicationStartup != null) {
+			this.threadApplicationStartup.set(applicationStartup);
+		}
+		else {
+			this.threadApplicationStartup.remove();
+		}
 	}
 
 	/**
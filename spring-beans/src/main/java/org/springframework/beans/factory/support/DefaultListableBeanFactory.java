@@ -140,6 +140,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private static final Map<String, Reference<DefaultListableBeanFactory>> serializableFactories =
 			new ConcurrentHashMap<>(8);
 
+	/** Maximum number of outdated beans to re-evaluate against the by-type cache. */
+	private static final int MAX_INCREMENTAL_BY_TYPE_UPDATES = 64;
+
 	/** Optional id for this factory, for serialization purposes. */
 	@Nullable
 	private String serializationId;
@@ -150,6 +153,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether to allow eager class loading even for lazy-init beans. */
 	private boolean allowEagerClassLoading = true;
 
+	/** Number of threads for pre-instantiating singletons. */
+	private int preInstantiationParallelism = 1;
+
 	/** Optional OrderComparator for dependency Lists and arrays. */
 	@Nullable
 	private Comparator<Object> dependencyComparator;
@@ -172,6 +178,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Map of singleton-only bean names, keyed by dependency type. */
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/** Names of beans whose by-type mappings need to be re-evaluated, in registration order. */
+	private final Set<String> pendingByTypeUpdates = new LinkedHashSet<>(16);
+
+	/** Whether there are any pending by-type updates (for a quick check without locking). */
+	private volatile boolean byTypeUpdatesPending;
+
 	/** List of bean definition names, in registration order. */
 	private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
 
@@ -269,6 +281,40 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set the number of threads to use for pre-instantiating singletons.
+	 * <p>Default is 1, creating all non-lazy singletons one after another on the
+	 * calling thread. A higher value builds a dependency graph from the merged
+	 * bean definitions (depends-on relationships, factory beans, bean references
+	 * in constructor arguments and property values, as well as the autowire
+	 * candidates for autowired constructors, factory methods and properties)
+	 * and creates independent singletons on a {@link java.util.concurrent.ForkJoinPool}
+	 * with the given parallelism, each one after the singletons that it
+	 * depends on. Singletons in circular references (and singletons depending
+	 * on them) are created sequentially afterwards.
+	 * <p>Dependencies which are only resolved at creation time, e.g. for
+	 * {@code @Autowired} fields, are obtained on demand by the creating thread,
+	 * waiting for a concurrent creation of the same singleton to complete.
+	 * <p><b>NOTE:</b> Only enable this if the initialization of all non-lazy
+	 * singletons is thread-safe and does not rely on thread-bound state or on
+	 * locks held by the bootstrap thread. Singleton creation still goes through
+	 * the regular singleton locking in {@link DefaultSingletonBeanRegistry}.
+	 * @since 5.3.23
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be greater than 0");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to use for pre-instantiating singletons.
+	 * @since 5.3.23
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -324,6 +370,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware
 			setAutowireCandidateResolver(otherListableFactory.getAutowireCandidateResolver().cloneIfNecessary());
@@ -541,6 +588,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		if (!isConfigurationFrozen() || type == null || !allowEagerInit) {
 			return doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, allowEagerInit);
 		}
+		applyByTypeUpdates();
 		Map<Class<?>, String[]> cache =
 				(includeNonSingletons ? this.allBeanNamesByType : this.singletonBeanNamesByType);
 		String[] resolvedBeanNames = cache.get(type);
@@ -561,84 +609,124 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		for (String beanName : this.beanDefinitionNames) {
 			// Only consider bean as eligible if the bean name is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
-				try {
-					RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
-					// Only check bean definition if it is complete.
-					if (!mbd.isAbstract() && (allowEagerInit ||
-							(mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading()) &&
-									!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
-						boolean isFactoryBean = isFactoryBean(beanName, mbd);
-						BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
-						boolean matchFound = false;
-						boolean allowFactoryBeanInit = (allowEagerInit || containsSingleton(beanName));
-						boolean isNonLazyDecorated = (dbd != null && !mbd.isLazyInit());
-						if (!isFactoryBean) {
-							if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
-								matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
-							}
-						}
-						else {
-							if (includeNonSingletons || isNonLazyDecorated ||
-									(allowFactoryBeanInit && isSingleton(beanName, mbd, dbd))) {
-								matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
-							}
-							if (!matchFound) {
-								// In case of FactoryBean, try to match FactoryBean instance itself next.
-								beanName = FACTORY_BEAN_PREFIX + beanName;
-								if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
-									matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
-								}
-							}
-						}
-						if (matchFound) {
-							result.add(beanName);
-						}
-					}
-				}
-				catch (CannotLoadBeanClassException | BeanDefinitionStoreException ex) {
-					if (allowEagerInit) {
-						throw ex;
-					}
-					// Probably a placeholder: let's ignore it for type matching purposes.
-					LogMessage message = (ex instanceof CannotLoadBeanClassException ?
-							LogMessage.format("Ignoring bean class loading failure for bean '%s'", beanName) :
-							LogMessage.format("Ignoring unresolvable metadata in bean definition '%s'", beanName));
-					logger.trace(message, ex);
-					// Register exception, in case the bean was accidentally unresolvable.
-					onSuppressedException(ex);
-				}
-				catch (NoSuchBeanDefinitionException ex) {
-					// Bean definition got removed while we were iterating -> ignore.
+				String matchingName = matchBeanDefinitionForType(beanName, type, includeNonSingletons, allowEagerInit);
+				if (matchingName != null) {
+					result.add(matchingName);
 				}
 			}
 		}
 
 		// Check manually registered singletons too.
 		for (String beanName : this.manualSingletonNames) {
-			try {
-				// In case of FactoryBean, match object created by FactoryBean.
-				if (isFactoryBean(beanName)) {
-					if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
-						result.add(beanName);
-						// Match found for this bean: do not match FactoryBean itself anymore.
-						continue;
+			String matchingName = matchManualSingletonForType(beanName, type, includeNonSingletons);
+			if (matchingName != null) {
+				result.add(matchingName);
+			}
+		}
+
+		return StringUtils.toStringArray(result);
+	}
+
+	/**
+	 * Check whether the given bean definition or manually registered singleton
+	 * matches the given type, eagerly initializing FactoryBeans if necessary.
+	 * @param beanName the name of the bean to check
+	 * @param type the type to match
+	 * @param includeNonSingletons whether to include prototype or scoped beans too
+	 * @return the matching bean name (possibly with a FactoryBean prefix),
+	 * or {@code null} if the bean does not match (or does not exist)
+	 * @since 5.3.23
+	 */
+	@Nullable
+	private String matchBeanForType(String beanName, ResolvableType type, boolean includeNonSingletons) {
+		if (containsBeanDefinition(beanName)) {
+			return (!isAlias(beanName) ? matchBeanDefinitionForType(beanName, type, includeNonSingletons, true) : null);
+		}
+		if (this.manualSingletonNames.contains(beanName)) {
+			return matchManualSingletonForType(beanName, type, includeNonSingletons);
+		}
+		return null;
+	}
+
+	@Nullable
+	private String matchBeanDefinitionForType(
+			String beanName, ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
+
+		try {
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			// Only check bean definition if it is complete.
+			if (!mbd.isAbstract() && (allowEagerInit ||
+					(mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading()) &&
+							!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
+				boolean isFactoryBean = isFactoryBean(beanName, mbd);
+				BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
+				boolean matchFound = false;
+				boolean allowFactoryBeanInit = (allowEagerInit || containsSingleton(beanName));
+				boolean isNonLazyDecorated = (dbd != null && !mbd.isLazyInit());
+				if (!isFactoryBean) {
+					if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
+						matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+					}
+				}
+				else {
+					if (includeNonSingletons || isNonLazyDecorated ||
+							(allowFactoryBeanInit && isSingleton(beanName, mbd, dbd))) {
+						matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+					}
+					if (!matchFound) {
+						// In case of FactoryBean, try to match FactoryBean instance itself next.
+						beanName = FACTORY_BEAN_PREFIX + beanName;
+						if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
+							matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+						}
 					}
-					// In case of FactoryBean, try to match FactoryBean itself next.
-					beanName = FACTORY_BEAN_PREFIX + beanName;
 				}
-				// Match raw bean instance (might be raw FactoryBean).
-				if (isTypeMatch(beanName, type)) {
-					result.add(beanName);
+				if (matchFound) {
+					return beanName;
 				}
 			}
-			catch (NoSuchBeanDefinitionException ex) {
-				// Shouldn't happen - probably a result of circular reference resolution...
-				logger.trace(LogMessage.format(
-						"Failed to check manually registered singleton with name '%s'", beanName), ex);
+		}
+		catch (CannotLoadBeanClassException | BeanDefinitionStoreException ex) {
+			if (allowEagerInit) {
+				throw ex;
 			}
+			// Probably a placeholder: let's ignore it for type matching purposes.
+			LogMessage message = (ex instanceof CannotLoadBeanClassException ?
+					LogMessage.format("Ignoring bean class loading failure for bean '%s'", beanName) :
+					LogMessage.format("Ignoring unresolvable metadata in bean definition '%s'", beanName));
+			logger.trace(message, ex);
+			// Register exception, in case the bean was accidentally unresolvable.
+			onSuppressedException(ex);
 		}
+		catch (NoSuchBeanDefinitionException ex) {
+			// Bean definition got removed while we were iterating -> ignore.
+		}
+		return null;
+	}
 
-		return StringUtils.toStringArray(result);
+	@Nullable
+	private String matchManualSingletonForType(String beanName, ResolvableType type, boolean includeNonSingletons) {
+		try {
+			// In case of FactoryBean, match object created by FactoryBean.
+			if (isFactoryBean(beanName)) {
+				if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
+					// Match found for this bean: do not match FactoryBean itself anymore.
+					return beanName;
+				}
+				// In case of FactoryBean, try to match FactoryBean itself next.
+				beanName = FACTORY_BEAN_PREFIX + beanName;
+			}
+			// Match raw bean instance (might be raw FactoryBean).
+			if (isTypeMatch(beanName, type)) {
+				return beanName;
+			}
+		}
+		catch (NoSuchBeanDefinitionException ex) {
+			// Shouldn't happen - probably a result of circular reference resolution...
+			logger.trace(LogMessage.format(
+					"Failed to check manually registered singleton with name '%s'", beanName), ex);
+		}
+		return null;
 	}
 
 	private boolean isSingleton(String beanName, RootBeanDefinition mbd, @Nullable BeanDefinitionHolder dbd) {
@@ -894,7 +982,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
 		this.mergedBeanDefinitionHolders.clear();
-		clearByTypeCache();
+		if (!isConfigurationFrozen()) {
+			// With a frozen configuration, merged bean definitions are retained
+			// and therefore the by-type mappings remain valid as well.
+			clearByTypeCache();
+		}
 	}
 
 	@Override
@@ -929,31 +1021,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged(
-									(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					getBean(beanName);
-				}
+		if (this.preInstantiationParallelism > 1) {
+			new ParallelSingletonPreInstantiator(this, this.preInstantiationParallelism).preInstantiate(beanNames);
+		}
+		else {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -978,6 +1051,50 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Determine whether the given merged bean definition is to be
+	 * pre-instantiated: a non-abstract, non-lazy singleton.
+	 * @since 5.3.23
+	 */
+	static boolean isPreInstantiationCandidate(RootBeanDefinition mbd) {
+		return (!mbd.isAbstract() && mbd.isSingleton() && !mbd.isLazyInit());
+	}
+
+	/**
+	 * Pre-instantiate the given singleton if applicable, including the object
+	 * of a {@link SmartFactoryBean} which is marked for eager initialization.
+	 * @param beanName the name of the bean
+	 * @since 5.3.23
+	 * @see #preInstantiateSingletons()
+	 */
+	void preInstantiateSingleton(String beanName) {
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		if (isPreInstantiationCandidate(bd)) {
+			if (isFactoryBean(beanName)) {
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					FactoryBean<?> factory = (FactoryBean<?>) bean;
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged(
+								(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else {
+				getBean(beanName);
+			}
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
@@ -1054,7 +1171,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			resetBeanDefinition(beanName);
 		}
 		else if (isConfigurationFrozen()) {
-			clearByTypeCache();
+			updateByTypeCache(beanName);
 		}
 	}
 
@@ -1148,7 +1265,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		super.registerSingleton(beanName, singletonObject);
 		updateManualSingletonNames(set -> set.add(beanName), set -> !this.beanDefinitionMap.containsKey(beanName));
-		clearByTypeCache();
+		updateByTypeCache(beanName);
 	}
 
 	@Override
@@ -1162,7 +1279,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
 		removeManualSingletonName(beanName);
-		clearByTypeCache();
+		updateByTypeCache(beanName);
 	}
 
 	private void removeManualSingletonName(String beanName) {
@@ -1198,8 +1315,171 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	 * Remove any assumptions about by-type mappings.
 	 */
 	private void clearByTypeCache() {
-		this.allBeanNamesByType.clear();
-		this.singletonBeanNamesByType.clear();
+		synchronized (this.pendingByTypeUpdates) {
+			this.pendingByTypeUpdates.clear();
+			this.byTypeUpdatesPending = false;
+			this.allBeanNamesByType.clear();
+			this.singletonBeanNamesByType.clear();
+		}
+	}
+
+	/**
+	 * Mark the by-type mappings for the given bean as outdated. Instead of
+	 * clearing the entire by-type cache, the given bean will be re-evaluated
+	 * against each cached type on the next by-type lookup.
+	 * @param beanName the name of the bean that got registered, replaced or removed
+	 * @since 5.3.23
+	 * @see #applyByTypeUpdates()
+	 */
+	private void updateByTypeCache(String beanName) {
+		if (this.allBeanNamesByType.isEmpty() && this.singletonBeanNamesByType.isEmpty()) {
+			return;
+		}
+		synchronized (this.pendingByTypeUpdates) {
+			this.pendingByTypeUpdates.add(beanName);
+			this.byTypeUpdatesPending = true;
+		}
+	}
+
+	/**
+	 * Re-evaluate the by-type mappings for all beans marked as outdated,
+	 * including the beans that use an outdated bean as their factory bean.
+	 * Falls back to clearing the entire by-type cache for a large number of
+	 * outdated beans, e.g. when destroying all singletons one by one.
+	 * @since 5.3.23
+	 * @see #updateByTypeCache(String)
+	 */
+	private void applyByTypeUpdates() {
+		if (!this.byTypeUpdatesPending) {
+			return;
+		}
+		Set<String> beanNames;
+		synchronized (this.pendingByTypeUpdates) {
+			if (this.pendingByTypeUpdates.isEmpty()) {
+				return;
+			}
+			beanNames = new LinkedHashSet<>(this.pendingByTypeUpdates);
+			this.pendingByTypeUpdates.clear();
+			this.byTypeUpdatesPending = false;
+		}
+		if (beanNames.size() > MAX_INCREMENTAL_BY_TYPE_UPDATES) {
+			clearByTypeCache();
+			return;
+		}
+		addFactoryMethodDependents(beanNames);
+		Map<String, Integer> registrationOrder = null;
+		try {
+			for (String beanName : beanNames) {
+				for (Map.Entry<Class<?>, String[]> entry : this.allBeanNamesByType.entrySet()) {
+					registrationOrder = updateByTypeEntry(this.allBeanNamesByType, entry.getKey(),
+							beanName, true, registrationOrder);
+				}
+				for (Map.Entry<Class<?>, String[]> entry : this.singletonBeanNamesByType.entrySet()) {
+					registrationOrder = updateByTypeEntry(this.singletonBeanNamesByType, entry.getKey(),
+							beanName, false, registrationOrder);
+				}
+			}
+		}
+		catch (RuntimeException ex) {
+			// Let the next lookup re-evaluate all beans, exposing the exception again.
+			clearByTypeCache();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Add the names of all beans whose type is determined through a factory
+	 * method on one of the given beans (recursively).
+	 */
+	private void addFactoryMethodDependents(Set<String> beanNames) {
+		List<String> factoryBeanNames = new ArrayList<>(beanNames);
+		for (int i = 0; i < factoryBeanNames.size(); i++) {
+			String factoryBeanName = factoryBeanNames.get(i);
+			for (String bdName : this.beanDefinitionNames) {
+				BeanDefinition bd = this.beanDefinitionMap.get(bdName);
+				// Ensure bd is non-null due to potential concurrent modification of beanDefinitionMap.
+				if (bd != null && factoryBeanName.equals(bd.getFactoryBeanName()) && beanNames.add(bdName)) {
+					factoryBeanNames.add(bdName);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Re-evaluate the given bean against a single by-type cache entry,
+	 * keeping the matching bean names in registration order.
+	 * @return the registration order of all beans, if computed already
+	 */
+	@Nullable
+	private Map<String, Integer> updateByTypeEntry(Map<Class<?>, String[]> cache, Class<?> type,
+			String beanName, boolean includeNonSingletons, @Nullable Map<String, Integer> registrationOrder) {
+
+		String matchingName = matchBeanForType(beanName, ResolvableType.forRawClass(type), includeNonSingletons);
+		String factoryBeanName = FACTORY_BEAN_PREFIX + beanName;
+		while (true) {
+			String[] beanNames = cache.get(type);
+			if (beanNames == null) {
+				return registrationOrder;
+			}
+			int index = -1;
+			for (int i = 0; i < beanNames.length; i++) {
+				if (beanNames[i].equals(beanName) || beanNames[i].equals(factoryBeanName)) {
+					index = i;
+					break;
+				}
+			}
+			String[] updatedNames;
+			if (index >= 0) {
+				if (beanNames[index].equals(matchingName)) {
+					return registrationOrder;
+				}
+				if (matchingName != null) {
+					updatedNames = beanNames.clone();
+					updatedNames[index] = matchingName;
+				}
+				else {
+					updatedNames = new String[beanNames.length - 1];
+					System.arraycopy(beanNames, 0, updatedNames, 0, index);
+					System.arraycopy(beanNames, index + 1, updatedNames, index, beanNames.length - index - 1);
+				}
+			}
+			else {
+				if (matchingName == null) {
+					return registrationOrder;
+				}
+				if (registrationOrder == null) {
+					registrationOrder = determineRegistrationOrder();
+				}
+				int order = registrationOrder.getOrDefault(beanName, Integer.MAX_VALUE);
+				int insertionIndex = 0;
+				while (insertionIndex < beanNames.length && registrationOrder.getOrDefault(
+						BeanFactoryUtils.transformedBeanName(beanNames[insertionIndex]), Integer.MAX_VALUE) < order) {
+					insertionIndex++;
+				}
+				updatedNames = new String[beanNames.length + 1];
+				System.arraycopy(beanNames, 0, updatedNames, 0, insertionIndex);
+				updatedNames[insertionIndex] = matchingName;
+				System.arraycopy(beanNames, insertionIndex, updatedNames, insertionIndex + 1,
+						beanNames.length - insertionIndex);
+			}
+			if (cache.replace(type, beanNames, updatedNames)) {
+				return registrationOrder;
+			}
+		}
+	}
+
+	private Map<String, Integer> determineRegistrationOrder() {
+		List<String> beanDefinitionNames = this.beanDefinitionNames;
+		Set<String> manualSingletonNames = this.manualSingletonNames;
+		Map<String, Integer> registrationOrder =
+				CollectionUtils.newHashMap(beanDefinitionNames.size() + manualSingletonNames.size());
+		for (String beanName : beanDefinitionNames) {
+			registrationOrder.putIfAbsent(beanName, registrationOrder.size());
+		}
+		for (String beanName : manualSingletonNames) {
+			registrationOrder.putIfAbsent(beanName, registrationOrder.size());
+		}
+		return registrationOrder;
 	}
 
 
@@ -17,7 +17,6 @@
 package org.springframework.beans.factory.support;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -32,6 +31,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -78,7 +78,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Map<String, Object> singletonObjects = new ConcurrentHashMap<>(256);
 
 	/** Cache of singleton factories: bean name to ObjectFactory. */
-	private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<>(16);
+	private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>(16);
 
 	/** Cache of early singleton objects: bean name to bean instance. */
 	private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
@@ -90,16 +90,22 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Set<String> singletonsCurrentlyInCreation =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
-	/** Names of beans currently excluded from in creation checks. */
-	private final Set<String> inCreationCheckExclusions =
-			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
+	/** Names of beans currently excluded from in creation checks, per thread. */
+	private final ThreadLocal<Set<String>> inCreationCheckExclusions =
+			new NamedThreadLocal<>("Beans excluded from in creation checks");
 
-	/** Collection of suppressed Exceptions, available for associating related causes. */
-	@Nullable
-	private Set<Exception> suppressedExceptions;
+	/** Per-bean-name locks held during singleton creation. */
+	private final SingletonCreationLocks singletonCreationLocks = new SingletonCreationLocks();
+
+	/** Mutex exposed to external collaborators, not involved in singleton creation. */
+	private final Object singletonMutex = new Object();
+
+	/** Collection of suppressed Exceptions per thread, available for associating related causes. */
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions during singleton creation");
 
 	/** Flag that indicates whether we're currently within destroySingletons. */
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
 
 	/** Disposable bean instances: bean name to disposable instance. */
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<>();
@@ -118,13 +124,21 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		Assert.notNull(beanName, "Bean name must not be null");
 		Assert.notNull(singletonObject, "Singleton object must not be null");
-		synchronized (this.singletonObjects) {
-			Object oldObject = this.singletonObjects.get(beanName);
-			if (oldObject != null) {
-				throw new IllegalStateException("Could not register object [" + singletonObject +
-						"] under bean name '" + beanName + "': there is already object [" + oldObject + "] bound");
+		boolean locked = this.singletonCreationLocks.acquire(beanName);
+		try {
+			synchronized (this.singletonObjects) {
+				Object oldObject = this.singletonObjects.get(beanName);
+				if (oldObject != null) {
+					throw new IllegalStateException("Could not register object [" + singletonObject +
+							"] under bean name '" + beanName + "': there is already object [" + oldObject + "] bound");
+				}
+				addSingleton(beanName, singletonObject);
+			}
+		}
+		finally {
+			if (locked) {
+				this.singletonCreationLocks.release(beanName);
 			}
-			addSingleton(beanName, singletonObject);
 		}
 	}
 
@@ -178,13 +192,15 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	@Nullable
 	protected Object getSingleton(String beanName, boolean allowEarlyReference) {
-		// Quick check for existing instance without full singleton lock
+		// Quick check for existing instance without singleton lock
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
 			singletonObject = this.earlySingletonObjects.get(beanName);
 			if (singletonObject == null && allowEarlyReference) {
-				synchronized (this.singletonObjects) {
-					// Consistent creation of early reference within full singleton lock
+				// Consistent creation of early reference within the singleton lock for the bean,
+				// waiting for a concurrent creation of the bean in another thread to complete
+				boolean locked = this.singletonCreationLocks.acquire(beanName);
+				try {
 					singletonObject = this.singletonObjects.get(beanName);
 					if (singletonObject == null) {
 						singletonObject = this.earlySingletonObjects.get(beanName);
@@ -192,12 +208,19 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 							ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
 							if (singletonFactory != null) {
 								singletonObject = singletonFactory.getObject();
-								this.earlySingletonObjects.put(beanName, singletonObject);
-								this.singletonFactories.remove(beanName);
+								synchronized (this.singletonObjects) {
+									this.earlySingletonObjects.put(beanName, singletonObject);
+									this.singletonFactories.remove(beanName);
+								}
 							}
 						}
 					}
 				}
+				finally {
+					if (locked) {
+						this.singletonCreationLocks.release(beanName);
+					}
+				}
 			}
 		}
 		return singletonObject;
@@ -206,6 +229,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/**
 	 * Return the (raw) singleton object registered under the given name,
 	 * creating and registering a new one if none registered yet.
+	 * <p>An existing singleton is returned without any locking. Otherwise, the
+	 * singleton gets created within a lock for the given bean name, so that the
+	 * creation of different singletons in different threads can proceed in
+	 * parallel while concurrent requests for the same singleton wait for it.
 	 * @param beanName the name of the bean
 	 * @param singletonFactory the ObjectFactory to lazily create the singleton
 	 * with, if necessary
@@ -213,8 +240,13 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		synchronized (this.singletonObjects) {
-			Object singletonObject = this.singletonObjects.get(beanName);
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		boolean locked = this.singletonCreationLocks.acquire(beanName);
+		try {
+			singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
 				if (this.singletonsCurrentlyInDestruction) {
 					throw new BeanCreationNotAllowedException(beanName,
@@ -226,9 +258,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 				beforeSingletonCreation(beanName);
 				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
+				boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
 				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
+					this.suppressedExceptions.set(new LinkedHashSet<>());
 				}
 				try {
 					singletonObject = singletonFactory.getObject();
@@ -244,7 +276,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 				catch (BeanCreationException ex) {
 					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
+						for (Exception suppressedException : this.suppressedExceptions.get()) {
 							ex.addRelatedCause(suppressedException);
 						}
 					}
@@ -252,7 +284,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 				finally {
 					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+						this.suppressedExceptions.remove();
 					}
 					afterSingletonCreation(beanName);
 				}
@@ -262,6 +294,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			}
 			return singletonObject;
 		}
+		finally {
+			if (locked) {
+				this.singletonCreationLocks.release(beanName);
+			}
+		}
 	}
 
 	/**
@@ -274,10 +311,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see BeanCreationException#getRelatedCauses()
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null && this.suppressedExceptions.size() < SUPPRESSED_EXCEPTIONS_LIMIT) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null && suppressedExceptions.size() < SUPPRESSED_EXCEPTIONS_LIMIT) {
+			suppressedExceptions.add(ex);
 		}
 	}
 
@@ -285,7 +321,6 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * Remove the bean with the given name from the singleton cache of this factory,
 	 * to be able to clean up eager registration of a singleton if creation failed.
 	 * @param beanName the name of the bean
-	 * @see #getSingletonMutex()
 	 */
 	protected void removeSingleton(String beanName) {
 		synchronized (this.singletonObjects) {
@@ -316,19 +351,40 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	}
 
 
+	/**
+	 * Explicitly control the in-creation status of the specified bean.
+	 * <p>As of 5.3.23, an exclusion from in-creation checks only applies to the
+	 * current thread: other threads requesting a singleton which is in creation
+	 * wait for its creation to complete instead.
+	 * @param beanName the name of the bean
+	 * @param inCreation whether the bean is currently in creation
+	 */
 	public void setCurrentlyInCreation(String beanName, boolean inCreation) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		Set<String> exclusions = this.inCreationCheckExclusions.get();
 		if (!inCreation) {
-			this.inCreationCheckExclusions.add(beanName);
+			if (exclusions == null) {
+				exclusions = new HashSet<>(4);
+				this.inCreationCheckExclusions.set(exclusions);
+			}
+			exclusions.add(beanName);
 		}
-		else {
-			this.inCreationCheckExclusions.remove(beanName);
+		else if (exclusions != null) {
+			exclusions.remove(beanName);
+			if (exclusions.isEmpty()) {
+				this.inCreationCheckExclusions.remove();
+			}
 		}
 	}
 
 	public boolean isCurrentlyInCreation(String beanName) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		return (!this.inCreationCheckExclusions.contains(beanName) && isActuallyInCreation(beanName));
+		return (!isExcludedFromCreationCheck(beanName) && isActuallyInCreation(beanName));
+	}
+
+	private boolean isExcludedFromCreationCheck(String beanName) {
+		Set<String> exclusions = this.inCreationCheckExclusions.get();
+		return (exclusions != null && exclusions.contains(beanName));
 	}
 
 	protected boolean isActuallyInCreation(String beanName) {
@@ -351,7 +407,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see #isSingletonCurrentlyInCreation
 	 */
 	protected void beforeSingletonCreation(String beanName) {
-		if (!this.inCreationCheckExclusions.contains(beanName) && !this.singletonsCurrentlyInCreation.add(beanName)) {
+		if (!isExcludedFromCreationCheck(beanName) && !this.singletonsCurrentlyInCreation.add(beanName)) {
 			throw new BeanCurrentlyInCreationException(beanName);
 		}
 	}
@@ -363,7 +419,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see #isSingletonCurrentlyInCreation
 	 */
 	protected void afterSingletonCreation(String beanName) {
-		if (!this.inCreationCheckExclusions.contains(beanName) && !this.singletonsCurrentlyInCreation.remove(beanName)) {
+		if (!isExcludedFromCreationCheck(beanName) && !this.singletonsCurrentlyInCreation.remove(beanName)) {
 			throw new IllegalStateException("Singleton '" + beanName + "' isn't currently in creation");
 		}
 	}
@@ -622,15 +678,44 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	}
 
 	/**
-	 * Exposes the singleton mutex to subclasses and external collaborators.
-	 * <p>Subclasses should synchronize on the given Object if they perform
-	 * any sort of extended singleton creation phase. In particular, subclasses
-	 * should <i>not</i> have their own mutexes involved in singleton creation,
-	 * to avoid the potential for deadlocks in lazy-init situations.
+	 * Acquire the creation lock for the given singleton bean name.
+	 * <p>To be used by subclasses for any sort of extended singleton creation
+	 * phase, in order to participate in deadlock avoidance with regular
+	 * singleton creation.
+	 * @param beanName the name of the bean
+	 * @return {@code true} if the lock has been acquired and needs to be released
+	 * through {@link #releaseSingletonLock}, or {@code false} if the lock is held
+	 * by another thread which in turn waits for the current thread, in which case
+	 * the caller needs to proceed leniently, as for a nested creation step
+	 * @since 5.3.23
+	 */
+	protected final boolean acquireSingletonLock(String beanName) {
+		return this.singletonCreationLocks.acquire(beanName);
+	}
+
+	/**
+	 * Release the creation lock for the given singleton bean name,
+	 * as previously acquired through {@link #acquireSingletonLock}.
+	 * @param beanName the name of the bean
+	 * @since 5.3.23
+	 */
+	protected final void releaseSingletonLock(String beanName) {
+		this.singletonCreationLocks.release(beanName);
+	}
+
+	/**
+	 * Exposes the singleton mutex to external collaborators.
+	 * <p>As of 5.3.23, singleton creation does not happen within this mutex
+	 * anymore but rather within a lock per bean name: see
+	 * {@link #acquireSingletonLock}. Holding this mutex therefore does not
+	 * prevent concurrent singleton creation, and collaborators should not
+	 * hold it while obtaining beans from the factory: a bean created on
+	 * another thread may need the same mutex, leading to a deadlock.
+	 * Use a local monitor for coordinating lazy lookups instead.
 	 */
 	@Override
 	public final Object getSingletonMutex() {
-		return this.singletonObjects;
+		return this.singletonMutex;
 	}
 
 }
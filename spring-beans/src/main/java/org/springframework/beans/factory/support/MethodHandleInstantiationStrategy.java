@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.core.KotlinDetector;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Instantiation strategy that invokes constructors and factory methods through
+ * {@link MethodHandle MethodHandles} instead of core reflection, with a handle
+ * created once per constructor or factory method and cached for subsequent
+ * instantiations, e.g. of prototype beans.
+ *
+ * <p>Falls back to the reflective behavior of {@link SimpleInstantiationStrategy}
+ * for Kotlin classes and abstract classes, when running with a security manager,
+ * and for arguments that would not pass reflective invocation as-is, so that the
+ * exceptions thrown for invalid bean definitions remain the same. Method Injection is supported through
+ * CGLIB subclassing, as in the default {@link CglibSubclassingInstantiationStrategy}.
+ *
+ * <p>Can be set on an {@link AbstractAutowireCapableBeanFactory} through
+ * {@link AbstractAutowireCapableBeanFactory#setInstantiationStrategy}.
+ *
+ * @since 5.3.23
+ * @see org.springframework.beans.factory.annotation.MethodHandleInjectedElement
+ */
+public class MethodHandleInstantiationStrategy extends CglibSubclassingInstantiationStrategy {
+
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+	private static final MethodType FACTORY_METHOD_TYPE =
+			MethodType.methodType(Object.class, Object.class, Object[].class);
+
+	/** Marker for a constructor or factory method without a method handle. */
+	private static final MethodHandle NO_METHOD_HANDLE = MethodHandles.constant(Object.class, null);
+
+
+	private final Map<Executable, MethodHandle> methodHandleCache = new ConcurrentReferenceHashMap<>(256);
+
+
+	@Override
+	protected Object instantiateClass(Constructor<?> ctor, Object... args) {
+		if (System.getSecurityManager() != null || Modifier.isAbstract(ctor.getDeclaringClass().getModifiers()) ||
+				(KotlinDetector.isKotlinReflectPresent() && KotlinDetector.isKotlinType(ctor.getDeclaringClass())) ||
+				!isApplicable(ctor, args)) {
+			return super.instantiateClass(ctor, args);
+		}
+		MethodHandle methodHandle = getMethodHandle(ctor);
+		if (methodHandle == NO_METHOD_HANDLE) {
+			return super.instantiateClass(ctor, args);
+		}
+		try {
+			return (Object) methodHandle.invokeExact(args);
+		}
+		catch (Throwable ex) {
+			throw new BeanInstantiationException(ctor, "Constructor threw exception", ex);
+		}
+	}
+
+	@Override
+	@Nullable
+	protected Object invokeFactoryMethod(@Nullable Object factoryBean, Method factoryMethod, Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		boolean isStatic = Modifier.isStatic(factoryMethod.getModifiers());
+		if (System.getSecurityManager() != null || !isApplicable(factoryMethod, args) ||
+				(!isStatic && !factoryMethod.getDeclaringClass().isInstance(factoryBean))) {
+			return super.invokeFactoryMethod(factoryBean, factoryMethod, args);
+		}
+		MethodHandle methodHandle = getMethodHandle(factoryMethod);
+		if (methodHandle == NO_METHOD_HANDLE) {
+			return super.invokeFactoryMethod(factoryBean, factoryMethod, args);
+		}
+		try {
+			return (Object) methodHandle.invokeExact(factoryBean, args);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	/**
+	 * Determine whether the given arguments can be passed to the given constructor
+	 * or method as-is, i.e. without any defaulting of {@code null} values for
+	 * primitive parameters and without reflection's argument errors.
+	 */
+	private boolean isApplicable(Executable executable, Object[] args) {
+		Class<?>[] parameterTypes = executable.getParameterTypes();
+		if (args.length != parameterTypes.length) {
+			return false;
+		}
+		for (int i = 0; i < args.length; i++) {
+			if (!ClassUtils.isAssignableValue(parameterTypes[i], args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Obtain a cached method handle for the given constructor or factory method,
+	 * adapted to a generic invocation type with spread arguments.
+	 * @return the method handle, or {@link #NO_METHOD_HANDLE} if none can be created
+	 */
+	private MethodHandle getMethodHandle(Executable executable) {
+		MethodHandle methodHandle = this.methodHandleCache.get(executable);
+		if (methodHandle == null) {
+			methodHandle = createMethodHandle(executable);
+			this.methodHandleCache.put(executable, methodHandle);
+		}
+		return methodHandle;
+	}
+
+	private MethodHandle createMethodHandle(Executable executable) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			int parameterCount = executable.getParameterCount();
+			if (executable instanceof Constructor) {
+				Constructor<?> ctor = (Constructor<?>) executable;
+				ReflectionUtils.makeAccessible(ctor);
+				return lookup.unreflectConstructor(ctor).asFixedArity()
+						.asSpreader(Object[].class, parameterCount).asType(CONSTRUCTOR_TYPE);
+			}
+			Method method = (Method) executable;
+			ReflectionUtils.makeAccessible(method);
+			MethodHandle methodHandle = lookup.unreflect(method).asFixedArity();
+			if (Modifier.isStatic(method.getModifiers())) {
+				methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+			}
+			return methodHandle.asSpreader(Object[].class, parameterCount).asType(FACTORY_METHOD_TYPE);
+		}
+		catch (ReflectiveOperationException | RuntimeException ex) {
+			// e.g. a member not accessible through a method handle
+			return NO_METHOD_HANDLE;
+		}
+	}
+
+}
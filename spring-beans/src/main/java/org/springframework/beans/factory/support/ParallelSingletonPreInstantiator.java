@@ -0,0 +1,612 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Delegate for pre-instantiating the singletons of a {@link DefaultListableBeanFactory}
+ * on a {@link ForkJoinPool}, following the dependency graph derived from the merged
+ * bean definitions.
+ *
+ * <p>The dependency graph covers the dependencies declared in the bean definitions
+ * (depends-on declarations, factory beans and bean references in constructor arguments
+ * and property values) as well as the autowire candidates for autowired constructors,
+ * factory methods (e.g. {@code @Bean} methods) and bean properties. Each singleton
+ * gets created once all singletons that it depends on have been created. Further
+ * dependencies which only get resolved at creation time (e.g. for {@code @Autowired}
+ * fields) are obtained on demand by the worker thread, waiting for another thread
+ * to complete the creation of such a dependency if necessary. Singletons in circular
+ * references, as well as singletons depending on them, are created sequentially on
+ * the calling thread afterwards.
+ *
+ * <p>{@link ApplicationStartup} implementations are not required to be thread-safe:
+ * the steps for the singletons created on the worker threads get recorded separately
+ * and are replayed within a {@code spring.beans.pre-instantiate} step on the calling
+ * thread once all of them have been created, tagged with the worker thread and the
+ * measured duration.
+ *
+ * @since 5.3.23
+ * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+ */
+class ParallelSingletonPreInstantiator {
+
+	private static final Log logger = LogFactory.getLog(ParallelSingletonPreInstantiator.class);
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final int parallelism;
+
+
+	ParallelSingletonPreInstantiator(DefaultListableBeanFactory beanFactory, int parallelism) {
+		this.beanFactory = beanFactory;
+		this.parallelism = parallelism;
+	}
+
+
+	/**
+	 * Pre-instantiate all applicable singletons among the given bean names.
+	 * @param beanNames the bean definition names, in registration order
+	 */
+	public void preInstantiate(List<String> beanNames) {
+		Map<String, SingletonNode> nodes = buildDependencyGraph(beanNames);
+		List<SingletonNode> roots = new ArrayList<>();
+		int parallelCount = markParallelNodes(nodes.values(), roots);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + parallelCount + " of " + nodes.size() +
+					" singletons with parallelism " + this.parallelism);
+		}
+
+		if (parallelCount > 0) {
+			ApplicationStartup applicationStartup = this.beanFactory.getApplicationStartup();
+			StartupStep step = applicationStartup.start("spring.beans.pre-instantiate")
+					.tag("beanCount", String.valueOf(parallelCount))
+					.tag("parallelism", String.valueOf(this.parallelism));
+			Execution execution = new Execution(parallelCount, applicationStartup != ApplicationStartup.DEFAULT);
+			try {
+				execution.run(roots);
+			}
+			finally {
+				for (RecordedStep recordedStep : execution.recordedSteps) {
+					recordedStep.replay(applicationStartup);
+				}
+				step.end();
+			}
+		}
+
+		// Singletons in circular references: create sequentially as usual.
+		for (SingletonNode node : nodes.values()) {
+			if (!node.parallel) {
+				this.beanFactory.preInstantiateSingleton(node.beanName);
+			}
+		}
+	}
+
+	private Map<String, SingletonNode> buildDependencyGraph(List<String> beanNames) {
+		Map<String, SingletonNode> nodes = new LinkedHashMap<>(beanNames.size());
+		Map<String, RootBeanDefinition> definitions = new LinkedHashMap<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition mbd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+			if (DefaultListableBeanFactory.isPreInstantiationCandidate(mbd)) {
+				nodes.put(beanName, new SingletonNode(beanName));
+				definitions.put(beanName, mbd);
+			}
+		}
+		definitions.forEach((beanName, mbd) -> {
+			SingletonNode node = nodes.get(beanName);
+			Set<String> dependencies = new LinkedHashSet<>();
+			addDependencies(mbd, dependencies);
+			addAutowireCandidates(beanName, mbd, dependencies);
+			for (String dependency : dependencies) {
+				String dependencyName = this.beanFactory.canonicalName(BeanFactoryUtils.transformedBeanName(dependency));
+				SingletonNode dependencyNode = nodes.get(dependencyName);
+				if (dependencyNode != null && dependencyNode != node) {
+					dependencyNode.dependents.add(node);
+					node.dependencyCount++;
+				}
+			}
+		});
+		return nodes;
+	}
+
+	/**
+	 * Collect the dependencies declared in the given bean definition.
+	 */
+	private void addDependencies(BeanDefinition bd, Set<String> dependencies) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			for (String dependency : dependsOn) {
+				dependencies.add(dependency);
+			}
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(bd.getFactoryBeanName());
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getIndexedArgumentValues().values()) {
+				addReferences(valueHolder.getValue(), dependencies);
+			}
+			for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getGenericArgumentValues()) {
+				addReferences(valueHolder.getValue(), dependencies);
+			}
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				addReferences(pv.getValue(), dependencies);
+			}
+		}
+	}
+
+	private void addReferences(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference reference = (RuntimeBeanReference) value;
+			if (!reference.isToParent()) {
+				dependencies.add(reference.getBeanName());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			addDependencies(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		}
+		else if (value instanceof BeanDefinition) {
+			addDependencies((BeanDefinition) value, dependencies);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				addReferences(element, dependencies);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				addReferences(entry.getKey(), dependencies);
+				addReferences(entry.getValue(), dependencies);
+			}
+		}
+		else if (value instanceof Object[]) {
+			for (Object element : (Object[]) value) {
+				addReferences(element, dependencies);
+			}
+		}
+	}
+
+	/**
+	 * Collect the autowire candidates for the factory method or constructor
+	 * arguments and for the autowired bean properties of the given bean.
+	 * <p>This is an estimate for scheduling purposes only: the actual arguments
+	 * get resolved at creation time, and any failure to introspect the bean
+	 * definition at this point is left to bean creation to report.
+	 */
+	private void addAutowireCandidates(String beanName, RootBeanDefinition mbd, Set<String> dependencies) {
+		try {
+			for (Executable executable : getCandidateExecutables(beanName, mbd)) {
+				for (int i = 0; i < executable.getParameterCount(); i++) {
+					addAutowireCandidates(ResolvableType.forMethodParameter(
+							MethodParameter.forExecutable(executable, i)), dependencies);
+				}
+			}
+			int autowireMode = mbd.getResolvedAutowireMode();
+			if ((autowireMode == AutowireCapableBeanFactory.AUTOWIRE_BY_NAME ||
+					autowireMode == AutowireCapableBeanFactory.AUTOWIRE_BY_TYPE) && mbd.hasBeanClass()) {
+				for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(mbd.getBeanClass())) {
+					if (pd.getWriteMethod() != null && !mbd.getPropertyValues().contains(pd.getName()) &&
+							!BeanUtils.isSimpleProperty(pd.getPropertyType()) &&
+							!this.beanFactory.isExcludedFromDependencyCheck(pd)) {
+						if (autowireMode == AutowireCapableBeanFactory.AUTOWIRE_BY_NAME) {
+							dependencies.add(pd.getName());
+						}
+						else {
+							addAutowireCandidates(ResolvableType.forMethodParameter(
+									MethodParameter.forExecutable(pd.getWriteMethod(), 0)), dependencies);
+						}
+					}
+				}
+			}
+		}
+		catch (BeansException | LinkageError ex) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Cannot determine autowire candidates for bean '" + beanName + "'", ex);
+			}
+		}
+	}
+
+	private List<Executable> getCandidateExecutables(String beanName, RootBeanDefinition mbd) {
+		List<Executable> executables = new ArrayList<>();
+		if (mbd.getInstanceSupplier() != null) {
+			return executables;
+		}
+		if (mbd.getFactoryMethodName() != null) {
+			if (mbd.getResolvedAutowireMode() != AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR) {
+				return executables;
+			}
+			Method factoryMethod = mbd.getResolvedFactoryMethod();
+			if (factoryMethod != null) {
+				executables.add(factoryMethod);
+				return executables;
+			}
+			Class<?> factoryClass = (mbd.getFactoryBeanName() != null ?
+					this.beanFactory.getType(mbd.getFactoryBeanName(), false) :
+					(mbd.hasBeanClass() ? mbd.getBeanClass() : null));
+			if (factoryClass != null) {
+				for (Method candidate : ReflectionUtils.getUniqueDeclaredMethods(
+						ClassUtils.getUserClass(factoryClass), ReflectionUtils.USER_DECLARED_METHODS)) {
+					if (mbd.isFactoryMethod(candidate)) {
+						executables.add(candidate);
+					}
+				}
+			}
+		}
+		else if (mbd.hasBeanClass()) {
+			Constructor<?>[] ctors = this.beanFactory.determineConstructorsFromBeanPostProcessors(
+					mbd.getBeanClass(), beanName);
+			if (ctors == null) {
+				ctors = mbd.getPreferredConstructors();
+			}
+			if (ctors == null && mbd.getResolvedAutowireMode() == AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR) {
+				ctors = mbd.getBeanClass().getDeclaredConstructors();
+			}
+			if (ctors != null) {
+				for (Constructor<?> ctor : ctors) {
+					executables.add(ctor);
+				}
+			}
+		}
+		return executables;
+	}
+
+	private void addAutowireCandidates(ResolvableType type, Set<String> dependencies) {
+		Class<?> rawType = type.resolve();
+		if (rawType == Optional.class) {
+			type = type.getGeneric(0);
+		}
+		else if (rawType != null && (ObjectFactory.class.isAssignableFrom(rawType) ||
+				rawType.getName().equals("javax.inject.Provider"))) {
+			// Lazily resolved
+			return;
+		}
+		else if (rawType != null && rawType.isArray()) {
+			type = type.getComponentType();
+		}
+		else if (rawType != null && Collection.class.isAssignableFrom(rawType) && rawType.isInterface()) {
+			type = type.asCollection().getGeneric(0);
+		}
+		else if (rawType == Map.class) {
+			type = type.asMap().getGeneric(1);
+		}
+		Class<?> dependencyType = type.resolve();
+		if (dependencyType != null && dependencyType != Object.class && !BeanUtils.isSimpleProperty(dependencyType)) {
+			for (String candidate : this.beanFactory.getBeanNamesForType(dependencyType, true, false)) {
+				dependencies.add(candidate);
+			}
+		}
+	}
+
+	/**
+	 * Mark all nodes that do not (transitively) depend on a circular reference
+	 * for parallel creation, initializing their countdown of pending dependencies.
+	 * @return the number of nodes marked for parallel creation
+	 */
+	private int markParallelNodes(Collection<SingletonNode> nodes, List<SingletonNode> roots) {
+		Map<SingletonNode, Integer> remainingDependencies = new LinkedHashMap<>(nodes.size());
+		Deque<SingletonNode> ready = new ArrayDeque<>();
+		for (SingletonNode node : nodes) {
+			remainingDependencies.put(node, node.dependencyCount);
+			if (node.dependencyCount == 0) {
+				ready.add(node);
+				roots.add(node);
+			}
+		}
+		int parallelCount = 0;
+		while (!ready.isEmpty()) {
+			SingletonNode node = ready.poll();
+			node.parallel = true;
+			node.pendingDependencies.set(node.dependencyCount);
+			parallelCount++;
+			for (SingletonNode dependent : node.dependents) {
+				if (remainingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+		return parallelCount;
+	}
+
+
+	/**
+	 * A singleton to pre-instantiate, with the singletons depending on it.
+	 */
+	private static final class SingletonNode {
+
+		final String beanName;
+
+		final List<SingletonNode> dependents = new ArrayList<>(2);
+
+		int dependencyCount;
+
+		final AtomicInteger pendingDependencies = new AtomicInteger();
+
+		boolean parallel;
+
+		SingletonNode(String beanName) {
+			this.beanName = beanName;
+		}
+	}
+
+
+	/**
+	 * A single parallel pre-instantiation run on a dedicated {@link ForkJoinPool}.
+	 */
+	private class Execution {
+
+		private final CountDownLatch completion;
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		private final ForkJoinPool pool;
+
+		private final boolean recordSteps;
+
+		final Queue<RecordedStep> recordedSteps = new ConcurrentLinkedQueue<>();
+
+		Execution(int parallelCount, boolean recordSteps) {
+			this.completion = new CountDownLatch(parallelCount);
+			this.recordSteps = recordSteps;
+			ClassLoader beanClassLoader = beanFactory.getBeanClassLoader();
+			this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+				thread.setContextClassLoader(beanClassLoader);
+				return thread;
+			}, null, false);
+		}
+
+		void run(List<SingletonNode> roots) {
+			try {
+				for (SingletonNode root : roots) {
+					this.pool.execute(() -> preInstantiate(root));
+				}
+				this.completion.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new FatalBeanException("Interrupted while pre-instantiating singletons", ex);
+			}
+			finally {
+				this.pool.shutdown();
+			}
+
+			Throwable ex = this.failure.get();
+			if (ex instanceof RuntimeException) {
+				throw (RuntimeException) ex;
+			}
+			else if (ex instanceof Error) {
+				throw (Error) ex;
+			}
+			else if (ex != null) {
+				throw new FatalBeanException("Failed to pre-instantiate singletons", ex);
+			}
+		}
+
+		private void preInstantiate(SingletonNode node) {
+			try {
+				if (this.failure.get() == null) {
+					StepRecorder recorder = (this.recordSteps ? new StepRecorder() : null);
+					beanFactory.setThreadApplicationStartup(recorder);
+					try {
+						beanFactory.preInstantiateSingleton(node.beanName);
+					}
+					catch (Throwable ex) {
+						this.failure.compareAndSet(null, ex);
+					}
+					finally {
+						beanFactory.setThreadApplicationStartup(null);
+						if (recorder != null) {
+							this.recordedSteps.addAll(recorder.steps);
+						}
+					}
+				}
+				// Proceed with dependents even after a failure, for a complete countdown.
+				for (SingletonNode dependent : node.dependents) {
+					if (dependent.parallel && dependent.pendingDependencies.decrementAndGet() == 0) {
+						this.pool.execute(() -> preInstantiate(dependent));
+					}
+				}
+			}
+			finally {
+				this.completion.countDown();
+			}
+		}
+	}
+
+
+
+	/**
+	 * {@link ApplicationStartup} for a worker thread, recording the steps
+	 * for replaying them on the calling thread.
+	 */
+	private static final class StepRecorder implements ApplicationStartup {
+
+		private final String threadName = Thread.currentThread().getName();
+
+		final List<RecordedStep> steps = new ArrayList<>();
+
+		private final Deque<RecordedStep> currentSteps = new ArrayDeque<>();
+
+		private long nextId;
+
+		@Override
+		public StartupStep start(String name) {
+			RecordedStep parent = this.currentSteps.peek();
+			RecordedStep step = new RecordedStep(this, this.nextId++, parent, name);
+			(parent != null ? parent.children : this.steps).add(step);
+			this.currentSteps.push(step);
+			return step;
+		}
+	}
+
+
+	/**
+	 * A {@link StartupStep} recorded on a worker thread.
+	 */
+	private static final class RecordedStep implements StartupStep {
+
+		private final StepRecorder recorder;
+
+		private final long id;
+
+		@Nullable
+		private final Long parentId;
+
+		private final String name;
+
+		private final List<Tag> tags = new ArrayList<>();
+
+		final List<RecordedStep> children = new ArrayList<>();
+
+		private final long startTime = System.nanoTime();
+
+		private long duration = -1;
+
+		RecordedStep(StepRecorder recorder, long id, @Nullable RecordedStep parent, String name) {
+			this.recorder = recorder;
+			this.id = id;
+			this.parentId = (parent != null ? parent.id : null);
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return this.parentId;
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			this.tags.add(new RecordedTag(key, value));
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Tags getTags() {
+			return this.tags::iterator;
+		}
+
+		@Override
+		public void end() {
+			this.duration = System.nanoTime() - this.startTime;
+			this.recorder.currentSteps.remove(this);
+		}
+
+		/**
+		 * Replay this step and its nested steps on the given {@link ApplicationStartup}.
+		 */
+		void replay(ApplicationStartup applicationStartup) {
+			StartupStep step = applicationStartup.start(this.name);
+			for (Tag tag : this.tags) {
+				step.tag(tag.getKey(), tag.getValue());
+			}
+			step.tag("thread", this.recorder.threadName);
+			if (this.duration >= 0) {
+				step.tag("duration", Duration.ofNanos(this.duration).toString());
+			}
+			for (RecordedStep child : this.children) {
+				child.replay(applicationStartup);
+			}
+			step.end();
+		}
+	}
+
+
+	private static final class RecordedTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		RecordedTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+	}
+
+}
@@ -84,7 +84,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 					}
 				}
 			}
-			return BeanUtils.instantiateClass(constructorToUse);
+			return instantiateClass(constructorToUse);
 		}
 		else {
 			// Must generate CGLIB subclass.
@@ -102,6 +102,22 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 		throw new UnsupportedOperationException("Method Injection not supported in SimpleInstantiationStrategy");
 	}
 
+	/**
+	 * Instantiate the given constructor, for a bean definition without
+	 * method overrides.
+	 * <p>The default implementation delegates to
+	 * {@link BeanUtils#instantiateClass(Constructor, Object...)}.
+	 * Subclasses may override this for a different invocation mechanism.
+	 * @param ctor the constructor to instantiate (already resolved)
+	 * @param args the constructor arguments to apply
+	 * @return the new instance
+	 * @throws BeanInstantiationException if the bean cannot be instantiated
+	 * @since 5.3.23
+	 */
+	protected Object instantiateClass(Constructor<?> ctor, Object... args) {
+		return BeanUtils.instantiateClass(ctor, args);
+	}
+
 	@Override
 	public Object instantiate(RootBeanDefinition bd, @Nullable String beanName, BeanFactory owner,
 			final Constructor<?> ctor, Object... args) {
@@ -114,7 +130,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 					return null;
 				});
 			}
-			return BeanUtils.instantiateClass(ctor, args);
+			return instantiateClass(ctor, args);
 		}
 		else {
 			return instantiateWithMethodInjection(bd, beanName, owner, ctor, args);
@@ -151,7 +167,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 			Method priorInvokedFactoryMethod = currentlyInvokedFactoryMethod.get();
 			try {
 				currentlyInvokedFactoryMethod.set(factoryMethod);
-				Object result = factoryMethod.invoke(factoryBean, args);
+				Object result = invokeFactoryMethod(factoryBean, factoryMethod, args);
 				if (result == null) {
 					result = new NullBean();
 				}
@@ -186,4 +202,25 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 		}
 	}
 
+	/**
+	 * Invoke the given factory method on the given factory bean instance.
+	 * <p>The default implementation uses {@link Method#invoke}, with the method
+	 * made accessible before. Subclasses may override this for a different
+	 * invocation mechanism, following the exception contract of reflection.
+	 * @param factoryBean the factory bean instance to call the factory method on,
+	 * or {@code null} in case of a static factory method
+	 * @param factoryMethod the factory method to invoke
+	 * @param args the factory method arguments to apply
+	 * @return the factory method's return value (may be {@code null})
+	 * @throws IllegalAccessException if the factory method is not accessible
+	 * @throws InvocationTargetException if the factory method threw an exception
+	 * @since 5.3.23
+	 */
+	@Nullable
+	protected Object invokeFactoryMethod(@Nullable Object factoryBean, Method factoryMethod, Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		return factoryMethod.invoke(factoryBean, args);
+	}
+
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reentrant per-bean-name locks for the creation of singletons in a
+ * {@link DefaultSingletonBeanRegistry}.
+ *
+ * <p>Threads creating different singletons do not block each other. A thread
+ * only waits for a lock held by another thread if that thread does not itself
+ * wait, directly or transitively, for a lock held by the current thread. In
+ * the latter case, the lock is not acquired and the caller proceeds leniently:
+ * the owning thread is blocked on the current thread for the time being, just
+ * like a nested creation step within a single thread, so circular reference
+ * resolution applies as if all creation happened on the current thread.
+ *
+ * <p>Lock state is kept in plain maps guarded by a single {@link ReentrantLock},
+ * which is only held for bookkeeping and never while creating a singleton.
+ * Waiting threads await a {@link Condition} of the specific bean lock, so
+ * that a release only wakes up the threads waiting for that bean, and
+ * virtual threads do not pin their carrier thread while waiting.
+ *
+ * @since 5.3.23
+ * @see DefaultSingletonBeanRegistry#getSingleton(String, org.springframework.beans.factory.ObjectFactory)
+ */
+class SingletonCreationLocks {
+
+	/** Guards the lock state below. */
+	private final ReentrantLock stateLock = new ReentrantLock();
+
+	/** Lock state per bean name, for currently held locks only. */
+	private final Map<String, LockState> locks = new HashMap<>();
+
+	/** Bean name of the lock that each blocked thread is waiting for. */
+	private final Map<Thread, String> waitingThreads = new HashMap<>();
+
+
+	/**
+	 * Acquire the lock for the given bean name, waiting for another thread
+	 * to release it unless this would lead to a deadlock.
+	 * @param beanName the name of the bean
+	 * @return {@code true} if the lock has been acquired and needs to be released
+	 * through {@link #release}, or {@code false} if the caller needs to proceed
+	 * without the lock since its owner waits for the current thread
+	 */
+	public boolean acquire(String beanName) {
+		Thread currentThread = Thread.currentThread();
+		boolean interrupted = false;
+		this.stateLock.lock();
+		try {
+			while (true) {
+				LockState lock = this.locks.get(beanName);
+				if (lock == null) {
+					this.locks.put(beanName, new LockState(currentThread, this.stateLock.newCondition()));
+					return true;
+				}
+				if (lock.owner == currentThread) {
+					lock.holdCount++;
+					return true;
+				}
+				if (isWaitingFor(lock.owner, currentThread)) {
+					return false;
+				}
+				this.waitingThreads.put(currentThread, beanName);
+				try {
+					lock.released.await();
+				}
+				catch (InterruptedException ex) {
+					interrupted = true;
+				}
+				finally {
+					this.waitingThreads.remove(currentThread);
+				}
+			}
+		}
+		finally {
+			this.stateLock.unlock();
+			if (interrupted) {
+				currentThread.interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Release the lock for the given bean name, as previously acquired
+	 * through {@link #acquire} by the current thread.
+	 * @param beanName the name of the bean
+	 */
+	public void release(String beanName) {
+		this.stateLock.lock();
+		try {
+			LockState lock = this.locks.get(beanName);
+			if (lock == null || lock.owner != Thread.currentThread()) {
+				throw new IllegalStateException("Singleton lock for '" + beanName + "' not held by current thread");
+			}
+			if (--lock.holdCount == 0) {
+				this.locks.remove(beanName);
+				lock.released.signalAll();
+			}
+		}
+		finally {
+			this.stateLock.unlock();
+		}
+	}
+
+	/**
+	 * Determine whether the given thread is blocked, directly or through a chain
+	 * of other blocked threads, on a lock held by the given target thread.
+	 */
+	private boolean isWaitingFor(Thread thread, Thread target) {
+		Thread current = thread;
+		for (int i = 0; i <= this.waitingThreads.size(); i++) {
+			String awaitedBeanName = this.waitingThreads.get(current);
+			if (awaitedBeanName == null) {
+				return false;
+			}
+			LockState awaitedLock = this.locks.get(awaitedBeanName);
+			if (awaitedLock == null) {
+				return false;
+			}
+			if (awaitedLock.owner == target) {
+				return true;
+			}
+			current = awaitedLock.owner;
+		}
+		return false;
+	}
+
+
+	private static class LockState {
+
+		final Thread owner;
+
+		final Condition released;
+
+		int holdCount = 1;
+
+		LockState(Thread owner, Condition released) {
+			this.owner = owner;
+			this.released = released;
+		}
+	}
+
+}
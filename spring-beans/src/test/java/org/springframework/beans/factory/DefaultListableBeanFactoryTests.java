@@ -26,6 +26,7 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -1407,6 +1408,68 @@ class DefaultListableBeanFactoryTests {
 		assertThat(bean.getBeanName()).isEqualTo("bd1");
 	}
 
+	@Test
+	void getBeanNamesForTypeWithLateRegistrationAgainstFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("bd1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		lbf.freezeConfiguration();
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd1");
+		String[] nestedNames = lbf.getBeanNamesForType(NestedTestBean.class);
+		assertThat(nestedNames).containsExactly("nested");
+
+		lbf.registerBeanDefinition("bd2", new RootBeanDefinition(DerivedTestBean.class));
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd1", "bd2");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class)).isSameAs(nestedNames);
+		lbf.registerSingleton("singleton", new TestBean());
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd1", "bd2", "singleton");
+		lbf.registerBeanDefinition("bd1", new RootBeanDefinition(NestedTestBean.class));
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd2", "singleton");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class)).containsExactly("bd1", "nested");
+		lbf.removeBeanDefinition("bd2");
+		lbf.destroySingleton("singleton");
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).isEmpty();
+		assertThat(lbf.getBeanNamesForType(TestBean.class, false, true)).isEmpty();
+	}
+
+	@Test
+	void getBeanNamesForGenericTypeWithLateRegistrationAgainstFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition strings = new RootBeanDefinition(ArrayList.class);
+		strings.setTargetType(ResolvableType.forClassWithGenerics(List.class, String.class));
+		lbf.registerBeanDefinition("strings", strings);
+		RootBeanDefinition integers = new RootBeanDefinition(ArrayList.class);
+		integers.setTargetType(ResolvableType.forClassWithGenerics(List.class, Integer.class));
+		lbf.registerBeanDefinition("integers", integers);
+		lbf.freezeConfiguration();
+		ResolvableType stringListType = ResolvableType.forClassWithGenerics(List.class, String.class);
+		assertThat(lbf.getBeanNamesForType(stringListType)).containsExactly("strings");
+
+		RootBeanDefinition moreStrings = new RootBeanDefinition(ArrayList.class);
+		moreStrings.setTargetType(ResolvableType.forClassWithGenerics(List.class, String.class));
+		lbf.registerBeanDefinition("moreStrings", moreStrings);
+		assertThat(lbf.getBeanNamesForType(stringListType)).containsExactly("strings", "moreStrings");
+		assertThat(lbf.getBeanNamesForType(List.class)).containsExactly("strings", "integers", "moreStrings");
+		lbf.removeBeanDefinition("strings");
+		assertThat(lbf.getBeanNamesForType(stringListType)).containsExactly("moreStrings");
+		assertThat(lbf.getBeanNamesForType(ResolvableType.forClassWithGenerics(List.class, Integer.class)))
+				.containsExactly("integers");
+	}
+
+	@Test
+	void getBeanNamesForGenericTypeWithLateInstantiationAgainstFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(StringListFactory.class);
+		bd.setFactoryMethodName("createList");
+		lbf.registerBeanDefinition("list", bd);
+		lbf.freezeConfiguration();
+		ResolvableType stringListType = ResolvableType.forClassWithGenerics(List.class, String.class);
+		assertThat(lbf.getBeanNamesForType(stringListType)).isEmpty();
+
+		lbf.getBean("list");
+		assertThat(lbf.getBeanNamesForType(stringListType)).containsExactly("list");
+	}
+
 	@Test
 	void getBeanByTypeDefinedInParent() {
 		DefaultListableBeanFactory parent = new DefaultListableBeanFactory();
@@ -2923,6 +2986,19 @@ class DefaultListableBeanFactoryTests {
 	}
 
 
+	public static class StringListFactory {
+
+		public static List<?> createList() {
+			return new StringList();
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	public static class StringList extends ArrayList<String> {
+	}
+
+
 	public static class TestBeanFactory {
 
 		public static boolean initialized = false;
@@ -16,8 +16,13 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Test;
 
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.testfixture.beans.DerivedTestBean;
 import org.springframework.beans.testfixture.beans.TestBean;
 
@@ -94,4 +99,128 @@ public class DefaultSingletonBeanRegistryTests {
 		assertThat(beanRegistry.isDependent("c", "c")).isTrue();
 	}
 
+	@Test
+	public void testConcurrentCreationOfDifferentSingletons() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		CountDownLatch creationStarted = new CountDownLatch(1);
+		CountDownLatch creationReleased = new CountDownLatch(1);
+
+		Thread thread = new Thread(() -> beanRegistry.getSingleton("tb1", () -> {
+			creationStarted.countDown();
+			await(creationReleased);
+			return new TestBean();
+		}));
+		thread.start();
+		assertThat(creationStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		// Not blocked by the creation of "tb1" in progress
+		TestBean tb2 = (TestBean) beanRegistry.getSingleton("tb2", TestBean::new);
+		assertThat(beanRegistry.getSingleton("tb2")).isSameAs(tb2);
+		assertThat(beanRegistry.containsSingleton("tb1")).isFalse();
+
+		creationReleased.countDown();
+		thread.join(10000);
+		assertThat(thread.isAlive()).isFalse();
+		assertThat(beanRegistry.getSingleton("tb1")).isInstanceOf(TestBean.class);
+	}
+
+	@Test
+	public void testConcurrentCreationOfSameSingleton() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		AtomicInteger creationCount = new AtomicInteger();
+		CountDownLatch creationStarted = new CountDownLatch(1);
+		CountDownLatch creationReleased = new CountDownLatch(1);
+
+		Thread thread = new Thread(() -> beanRegistry.getSingleton("tb", () -> {
+			creationCount.incrementAndGet();
+			creationStarted.countDown();
+			await(creationReleased);
+			return new TestBean();
+		}));
+		thread.start();
+		assertThat(creationStarted.await(10, TimeUnit.SECONDS)).isTrue();
+		creationReleased.countDown();
+
+		// Waits for the creation in progress instead of creating another instance
+		Object tb = beanRegistry.getSingleton("tb", () -> {
+			creationCount.incrementAndGet();
+			return new TestBean();
+		});
+		thread.join(10000);
+		assertThat(thread.isAlive()).isFalse();
+		assertThat(beanRegistry.getSingleton("tb")).isSameAs(tb);
+		assertThat(creationCount.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testCircularCreationAcrossThreadsDoesNotDeadlock() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		AtomicInteger circularReferenceCount = new AtomicInteger();
+		CountDownLatch bothStarted = new CountDownLatch(2);
+
+		Thread thread1 = new Thread(() -> beanRegistry.getSingleton("tb1", () ->
+				createReferencing(beanRegistry, "tb2", bothStarted, circularReferenceCount)));
+		Thread thread2 = new Thread(() -> beanRegistry.getSingleton("tb2", () ->
+				createReferencing(beanRegistry, "tb1", bothStarted, circularReferenceCount)));
+		thread1.start();
+		thread2.start();
+		thread1.join(10000);
+		thread2.join(10000);
+
+		assertThat(thread1.isAlive()).isFalse();
+		assertThat(thread2.isAlive()).isFalse();
+		assertThat(circularReferenceCount.get()).isEqualTo(1);
+		assertThat(beanRegistry.getSingleton("tb1")).isInstanceOf(TestBean.class);
+		assertThat(beanRegistry.getSingleton("tb2")).isInstanceOf(TestBean.class);
+	}
+
+	@Test
+	public void testCreationCheckExclusionIsBoundToCurrentThread() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		CountDownLatch creationStarted = new CountDownLatch(1);
+		CountDownLatch exclusionApplied = new CountDownLatch(1);
+
+		Thread thread = new Thread(() -> beanRegistry.getSingleton("tb", () -> {
+			creationStarted.countDown();
+			await(exclusionApplied);
+			return new TestBean();
+		}));
+		thread.start();
+		await(creationStarted);
+
+		beanRegistry.setCurrentlyInCreation("tb", false);
+		assertThat(beanRegistry.isCurrentlyInCreation("tb")).isFalse();
+		exclusionApplied.countDown();
+		thread.join(10000);
+		beanRegistry.setCurrentlyInCreation("tb", true);
+
+		assertThat(thread.isAlive()).isFalse();
+		assertThat(beanRegistry.getSingleton("tb")).isInstanceOf(TestBean.class);
+		assertThat(beanRegistry.isSingletonCurrentlyInCreation("tb")).isFalse();
+	}
+
+	private static TestBean createReferencing(DefaultSingletonBeanRegistry beanRegistry, String otherBeanName,
+			CountDownLatch bothStarted, AtomicInteger circularReferenceCount) {
+
+		bothStarted.countDown();
+		await(bothStarted);
+		TestBean tb = new TestBean();
+		try {
+			tb.setSpouse((TestBean) beanRegistry.getSingleton(otherBeanName, TestBean::new));
+		}
+		catch (BeanCurrentlyInCreationException ex) {
+			circularReferenceCount.incrementAndGet();
+		}
+		return tb;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 }
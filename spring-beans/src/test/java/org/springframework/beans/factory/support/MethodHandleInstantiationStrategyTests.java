@@ -0,0 +1,219 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link MethodHandleInstantiationStrategy} and for annotation-driven
+ * injection through {@link org.springframework.beans.factory.annotation.MethodHandleInjectedElement}.
+ *
+ * @since 5.3.23
+ */
+class MethodHandleInstantiationStrategyTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@BeforeEach
+	void setup() {
+		this.beanFactory.setInstantiationStrategy(new MethodHandleInstantiationStrategy());
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(this.beanFactory);
+		this.beanFactory.addBeanPostProcessor(bpp);
+	}
+
+
+	@Test
+	void defaultConstructor() {
+		this.beanFactory.registerBeanDefinition("testBean", new RootBeanDefinition(TestBean.class));
+		assertThat(this.beanFactory.getBean("testBean")).isInstanceOf(TestBean.class);
+	}
+
+	@Test
+	void nonPublicConstructorWithArguments() {
+		RootBeanDefinition bd = new RootBeanDefinition(ConstructorBean.class);
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(0, "Juergen");
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(1, "42");
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("bean", bd);
+
+		ConstructorBean bean = this.beanFactory.getBean("bean", ConstructorBean.class);
+		assertThat(bean.name).isEqualTo("Juergen");
+		assertThat(bean.age).isEqualTo(42);
+		assertThat(this.beanFactory.getBean("bean")).isNotSameAs(bean);
+	}
+
+	@Test
+	void constructorThrowingException() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(FailingBean.class));
+		assertThatExceptionOfType(BeanCreationException.class)
+				.isThrownBy(() -> this.beanFactory.getBean("bean"))
+				.havingCause()
+				.isInstanceOf(BeanInstantiationException.class)
+				.withMessageContaining("Constructor threw exception")
+				.havingCause()
+				.isInstanceOf(IllegalStateException.class)
+				.withMessage("Failed");
+	}
+
+	@Test
+	void abstractClass() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(AbstractBean.class));
+		assertThatExceptionOfType(BeanCreationException.class)
+				.isThrownBy(() -> this.beanFactory.getBean("bean"))
+				.havingCause()
+				.isInstanceOf(BeanInstantiationException.class)
+				.withMessageContaining("Is it an abstract class?");
+	}
+
+	@Test
+	void staticFactoryMethod() {
+		RootBeanDefinition bd = new RootBeanDefinition(Factory.class);
+		bd.setFactoryMethodName("createStatic");
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(0, "Sam");
+		this.beanFactory.registerBeanDefinition("bean", bd);
+
+		assertThat(this.beanFactory.getBean("bean", TestBean.class).getName()).isEqualTo("Sam");
+	}
+
+	@Test
+	void instanceFactoryMethod() {
+		this.beanFactory.registerBeanDefinition("factory", new RootBeanDefinition(Factory.class));
+		RootBeanDefinition bd = new RootBeanDefinition();
+		bd.setFactoryBeanName("factory");
+		bd.setFactoryMethodName("create");
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(0, "Sam");
+		this.beanFactory.registerBeanDefinition("bean", bd);
+
+		assertThat(this.beanFactory.getBean("bean", TestBean.class).getName()).isEqualTo("Sam (instance)");
+	}
+
+	@Test
+	void factoryMethodThrowingException() {
+		RootBeanDefinition bd = new RootBeanDefinition(Factory.class);
+		bd.setFactoryMethodName("createFailing");
+		this.beanFactory.registerBeanDefinition("bean", bd);
+
+		assertThatExceptionOfType(BeanCreationException.class)
+				.isThrownBy(() -> this.beanFactory.getBean("bean"))
+				.havingCause()
+				.isInstanceOf(BeanInstantiationException.class)
+				.withMessageContaining("Factory method 'createFailing' threw exception")
+				.havingCause()
+				.isInstanceOf(IllegalStateException.class)
+				.withMessage("Failed");
+	}
+
+	@Test
+	void methodInjection() {
+		this.beanFactory.registerSingleton("testBean", new TestBean("Juergen"));
+		RootBeanDefinition bd = new RootBeanDefinition(LookupBean.class);
+		bd.getMethodOverrides().addOverride(new LookupOverride("getTestBean", "testBean"));
+		this.beanFactory.registerBeanDefinition("bean", bd);
+
+		assertThat(this.beanFactory.getBean("bean", LookupBean.class).getTestBean().getName()).isEqualTo("Juergen");
+	}
+
+	@Test
+	void annotationDrivenInjection() {
+		this.beanFactory.registerSingleton("testBean", new TestBean("Juergen"));
+		this.beanFactory.registerSingleton("greeting", "Hello");
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(InjectedBean.class));
+
+		InjectedBean bean = this.beanFactory.getBean("bean", InjectedBean.class);
+		assertThat(bean.testBean.getName()).isEqualTo("Juergen");
+		assertThat(bean.methodTestBean).isSameAs(bean.testBean);
+		assertThat(bean.greeting).isEqualTo("Hello");
+	}
+
+
+	static class ConstructorBean {
+
+		final String name;
+
+		final int age;
+
+		private ConstructorBean(String name, int age) {
+			this.name = name;
+			this.age = age;
+		}
+	}
+
+
+	static class FailingBean {
+
+		FailingBean() {
+			throw new IllegalStateException("Failed");
+		}
+	}
+
+
+	abstract static class AbstractBean {
+	}
+
+
+	static class Factory {
+
+		static TestBean createStatic(String name) {
+			return new TestBean(name);
+		}
+
+		static TestBean createFailing() {
+			throw new IllegalStateException("Failed");
+		}
+
+		TestBean create(String name) {
+			return new TestBean(name + " (instance)");
+		}
+	}
+
+
+	abstract static class LookupBean {
+
+		abstract TestBean getTestBean();
+	}
+
+
+	static class InjectedBean {
+
+		@Autowired
+		private TestBean testBean;
+
+		private TestBean methodTestBean;
+
+		private String greeting;
+
+		@Autowired
+		private void init(TestBean testBean, String greeting) {
+			this.methodTestBean = testBean;
+			this.greeting = greeting;
+		}
+	}
+
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link ParallelSingletonPreInstantiator}.
+ */
+class ParallelSingletonPreInstantiatorTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private final Map<String, String> creationThreads = new ConcurrentHashMap<>();
+
+	private final List<String> initializationOrder = new CopyOnWriteArrayList<>();
+
+
+	@Test
+	void preInstantiateIndependentSingletonsInParallel() {
+		for (int i = 0; i < 20; i++) {
+			registerBean("bean" + i);
+		}
+		RootBeanDefinition lazy = new RootBeanDefinition(RecordingBean.class);
+		lazy.setLazyInit(true);
+		this.beanFactory.registerBeanDefinition("lazy", lazy);
+		this.beanFactory.setPreInstantiationParallelism(4);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertThat(this.creationThreads).hasSize(20).doesNotContainKey("lazy");
+		assertThat(this.creationThreads.values()).doesNotContain(Thread.currentThread().getName());
+		assertThat(this.beanFactory.containsSingleton("lazy")).isFalse();
+	}
+
+	@Test
+	void preInstantiateSingletonsAfterTheirDependencies() {
+		registerBean("a", "b", "c");
+		registerBean("b", "c");
+		registerBean("c");
+		registerBean("d");
+		this.beanFactory.getBeanDefinition("d").setDependsOn("a");
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertThat(this.initializationOrder).containsExactly("c", "b", "a", "d");
+		assertThat(this.beanFactory.getBean("a", RecordingBean.class).getDependencies())
+				.containsExactly(this.beanFactory.getBean("b"), this.beanFactory.getBean("c"));
+	}
+
+	@Test
+	void preInstantiateCircularReferencesSequentially() {
+		registerBean("a", "b");
+		registerBean("b", "a");
+		registerBean("c", "a");
+		registerBean("independent");
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		String currentThread = Thread.currentThread().getName();
+		assertThat(this.creationThreads).containsEntry("a", currentThread)
+				.containsEntry("b", currentThread).containsEntry("c", currentThread);
+		assertThat(this.creationThreads.get("independent")).isNotEqualTo(currentThread);
+	}
+
+	@Test
+	void preInstantiateAutowiredSingletonsAfterTheirDependencies() {
+		RecordingApplicationStartup applicationStartup = new RecordingApplicationStartup();
+		this.beanFactory.setApplicationStartup(applicationStartup);
+		registerBean("constructorAutowired", ConstructorAutowiredBean.class);
+		((RootBeanDefinition) this.beanFactory.getBeanDefinition("constructorAutowired"))
+				.setAutowireMode(AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR);
+		registerBean("propertyAutowired", PropertyAutowiredBean.class);
+		((RootBeanDefinition) this.beanFactory.getBeanDefinition("propertyAutowired"))
+				.setAutowireMode(AutowireCapableBeanFactory.AUTOWIRE_BY_TYPE);
+		registerBean("independent");
+		registerBean("dependency", Dependency.class);
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertThat(this.creationThreads).hasSize(4);
+		assertThat(this.creationThreads.values()).doesNotContain(Thread.currentThread().getName());
+		assertThat(this.initializationOrder.indexOf("dependency"))
+				.isLessThan(this.initializationOrder.indexOf("constructorAutowired"))
+				.isLessThan(this.initializationOrder.indexOf("propertyAutowired"));
+		// Each singleton created by its own task rather than on demand within its dependent
+		assertThat(applicationStartup.steps).hasSize(5);
+		assertThat(applicationStartup.steps.subList(1, 5)).allSatisfy(step ->
+				assertThat(step).containsEntry("name", "spring.beans.instantiate").containsEntry("parentId", "0"));
+		assertThat(this.beanFactory.getBean("propertyAutowired", PropertyAutowiredBean.class).getDependency())
+				.isSameAs(this.beanFactory.getBean("dependency"));
+	}
+
+	@Test
+	void preInstantiateSingletonsInParallelWithInstantiationAwareBeanPostProcessor() {
+		registerBean("a", "b");
+		registerBean("b");
+		registerBean("independent");
+		this.beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {});
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertThat(this.creationThreads).hasSize(3);
+		assertThat(this.creationThreads.values()).doesNotContain(Thread.currentThread().getName());
+		assertThat(this.initializationOrder.indexOf("b")).isLessThan(this.initializationOrder.indexOf("a"));
+	}
+
+	@Test
+	void preInstantiateSingletonsWithFailure() {
+		registerBean("a");
+		this.beanFactory.registerBeanDefinition("failing", new RootBeanDefinition(FailingBean.class));
+		registerBean("b", "failing");
+		this.beanFactory.setPreInstantiationParallelism(2);
+
+		assertThatExceptionOfType(BeanCreationException.class)
+				.isThrownBy(this.beanFactory::preInstantiateSingletons)
+				.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("failing"));
+		assertThat(this.creationThreads).doesNotContainKey("b");
+	}
+
+	@Test
+	void preInstantiateSingletonsWithApplicationStartup() {
+		RecordingApplicationStartup applicationStartup = new RecordingApplicationStartup();
+		this.beanFactory.setApplicationStartup(applicationStartup);
+		registerBean("a", "b");
+		registerBean("b");
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		// Worker steps replayed on the calling thread, within the pre-instantiation step
+		String currentThread = Thread.currentThread().getName();
+		List<Map<String, String>> steps = applicationStartup.steps;
+		assertThat(steps).hasSize(3);
+		assertThat(steps.get(0)).containsEntry("name", "spring.beans.pre-instantiate")
+				.containsEntry("beanCount", "2").containsEntry("parallelism", "2");
+		for (Map<String, String> step : steps) {
+			assertThat(step).containsEntry("startThread", currentThread).containsEntry("endThread", currentThread);
+		}
+		assertThat(steps.subList(1, 3)).allSatisfy(step -> {
+			assertThat(step).containsEntry("name", "spring.beans.instantiate")
+					.containsEntry("parentId", "0").containsKey("duration");
+			assertThat(step.get("thread")).isEqualTo(this.creationThreads.get(step.get("beanName")));
+		});
+		assertThat(steps.get(1)).containsEntry("beanName", "b");
+		assertThat(steps.get(2)).containsEntry("beanName", "a");
+		assertThat(this.beanFactory.getApplicationStartup()).isSameAs(applicationStartup);
+	}
+
+	private void registerBean(String beanName, String... dependencies) {
+		registerBean(beanName, RecordingBean.class, dependencies);
+	}
+
+	private void registerBean(String beanName, Class<? extends RecordingBean> beanClass, String... dependencies) {
+		RootBeanDefinition bd = new RootBeanDefinition(beanClass);
+		bd.getPropertyValues().add("creationThreads", this.creationThreads);
+		bd.getPropertyValues().add("initializationOrder", this.initializationOrder);
+		List<Object> references = new ManagedList<>();
+		for (String dependency : dependencies) {
+			references.add(new RuntimeBeanReference(dependency));
+		}
+		bd.getPropertyValues().add("dependencies", references);
+		this.beanFactory.registerBeanDefinition(beanName, bd);
+	}
+
+
+	static class RecordingBean implements BeanNameAware, InitializingBean {
+
+		private String beanName;
+
+		private Map<String, String> creationThreads;
+
+		private List<String> initializationOrder;
+
+		private List<Object> dependencies;
+
+		@Override
+		public void setBeanName(String beanName) {
+			this.beanName = beanName;
+		}
+
+		public void setCreationThreads(Map<String, String> creationThreads) {
+			this.creationThreads = creationThreads;
+		}
+
+		public void setInitializationOrder(List<String> initializationOrder) {
+			this.initializationOrder = initializationOrder;
+		}
+
+		public void setDependencies(List<Object> dependencies) {
+			this.dependencies = dependencies;
+		}
+
+		public List<Object> getDependencies() {
+			return this.dependencies;
+		}
+
+		@Override
+		public void afterPropertiesSet() {
+			if (this.creationThreads != null) {
+				this.creationThreads.put(this.beanName, Thread.currentThread().getName());
+				this.initializationOrder.add(this.beanName);
+			}
+		}
+	}
+
+
+	static class FailingBean {
+
+		FailingBean() {
+			throw new IllegalStateException("Expected failure");
+		}
+	}
+
+
+
+	static class Dependency extends RecordingBean {
+	}
+
+
+	static class ConstructorAutowiredBean extends RecordingBean {
+
+		ConstructorAutowiredBean(Dependency dependency) {
+		}
+	}
+
+
+	static class PropertyAutowiredBean extends RecordingBean {
+
+		private Dependency dependency;
+
+		public void setDependency(Dependency dependency) {
+			this.dependency = dependency;
+		}
+
+		public Dependency getDependency() {
+			return this.dependency;
+		}
+	}
+
+
+	static class RecordingApplicationStartup implements ApplicationStartup {
+
+		final List<Map<String, String>> steps = new CopyOnWriteArrayList<>();
+
+		private long nextId;
+
+		@Override
+		public StartupStep start(String name) {
+			Map<String, String> step = new LinkedHashMap<>();
+			long id = this.nextId++;
+			Long parentId = null;
+			for (int i = this.steps.size() - 1; i >= 0; i--) {
+				if (!this.steps.get(i).containsKey("endThread")) {
+					parentId = Long.valueOf(this.steps.get(i).get("id"));
+					break;
+				}
+			}
+			step.put("id", String.valueOf(id));
+			if (parentId != null) {
+				step.put("parentId", String.valueOf(parentId));
+			}
+			step.put("name", name);
+			step.put("startThread", Thread.currentThread().getName());
+			this.steps.add(step);
+			Long stepParentId = parentId;
+			return new StartupStep() {
+				@Override
+				public String getName() {
+					return name;
+				}
+				@Override
+				public long getId() {
+					return id;
+				}
+				@Override
+				public Long getParentId() {
+					return stepParentId;
+				}
+				@Override
+				public StartupStep tag(String key, String value) {
+					step.put(key, value);
+					return this;
+				}
+				@Override
+				public StartupStep tag(String key, Supplier<String> value) {
+					return tag(key, value.get());
+				}
+				@Override
+				public Tags getTags() {
+					throw new UnsupportedOperationException();
+				}
+				@Override
+				public void end() {
+					step.put("endThread", Thread.currentThread().getName());
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Callback interface notified whenever entries of a {@link TieredCache} are
+ * modified, that is, written or evicted through the cache.
+ *
+ * <p>Typically used to broadcast invalidations to other application instances
+ * sharing the same remote cache (e.g. through a messaging system), which then
+ * apply them to their local cache through {@link TieredCacheManager#invalidateLocal}.
+ *
+ * @since 5.3.23
+ * @see TieredCacheManager#setInvalidationListener
+ */
+@FunctionalInterface
+public interface CacheInvalidationListener {
+
+	/**
+	 * Notification that the given entry has been modified in the remote cache,
+	 * making copies in local caches of other application instances stale.
+	 * @param cacheName the name of the cache
+	 * @param key the key of the modified entry, or {@code null} if all
+	 * entries of the cache have been evicted
+	 */
+	void onInvalidation(String cacheName, @Nullable Object key);
+
+}
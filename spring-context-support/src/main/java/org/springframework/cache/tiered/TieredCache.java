@@ -0,0 +1,284 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Two-level {@link Cache} decorator, serving lookups from a local cache
+ * (typically bounded and in-memory) in front of a remote target cache.
+ *
+ * <p>Lookups that miss the local cache are delegated to the remote cache,
+ * populating the local cache with the value found there. Writes and
+ * evictions are applied to the remote cache, invalidating the local copy
+ * of the entry, with a {@link CacheInvalidationListener} being notified so
+ * that other application instances may invalidate their local copy as well.
+ * A written value is therefore only kept locally once read back from the
+ * remote cache, which remains the source of truth for concurrent writes.
+ *
+ * <p>A value read from the remote cache is not kept locally if any entry of
+ * this cache has been modified in the meantime, so that a concurrent write
+ * or eviction cannot be overridden by a stale value.
+ *
+ * <p>{@code CompletableFuture}-based retrieval requires the remote cache to
+ * support {@link Cache#retrieve(Object)}, whereas the local cache is accessed
+ * through its regular non-blocking lookup methods.
+ *
+ * <p><b>Note:</b> The local cache needs to accept {@code null} values if the
+ * remote cache does.
+ *
+ * @since 5.3.23
+ * @see TieredCacheManager
+ */
+public class TieredCache implements Cache {
+
+	private final Cache remoteCache;
+
+	private final Cache localCache;
+
+	@Nullable
+	private final CacheInvalidationListener invalidationListener;
+
+	private final AtomicLong modificationCount = new AtomicLong();
+
+
+	/**
+	 * Create a new TieredCache for the given remote and local caches.
+	 * @param remoteCache the remote target cache
+	 * @param localCache the local cache in front of the remote cache
+	 */
+	public TieredCache(Cache remoteCache, Cache localCache) {
+		this(remoteCache, localCache, null);
+	}
+
+	/**
+	 * Create a new TieredCache for the given remote and local caches.
+	 * @param remoteCache the remote target cache
+	 * @param localCache the local cache in front of the remote cache
+	 * @param invalidationListener the listener to notify of modified entries
+	 * (or {@code null} if none)
+	 */
+	public TieredCache(Cache remoteCache, Cache localCache,
+			@Nullable CacheInvalidationListener invalidationListener) {
+
+		Assert.notNull(remoteCache, "Remote Cache must not be null");
+		Assert.notNull(localCache, "Local Cache must not be null");
+		this.remoteCache = remoteCache;
+		this.localCache = localCache;
+		this.invalidationListener = invalidationListener;
+	}
+
+
+	/**
+	 * Return the remote target cache.
+	 */
+	public Cache getRemoteCache() {
+		return this.remoteCache;
+	}
+
+	/**
+	 * Return the local cache in front of the remote cache.
+	 */
+	public Cache getLocalCache() {
+		return this.localCache;
+	}
+
+	@Override
+	public String getName() {
+		return this.remoteCache.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this.remoteCache.getNativeCache();
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			return wrapper;
+		}
+		long modificationCount = this.modificationCount.get();
+		wrapper = this.remoteCache.get(key);
+		if (wrapper != null) {
+			putLocal(key, wrapper.get(), modificationCount);
+		}
+		return wrapper;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = (wrapper != null ? wrapper.get() : null);
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(
+					"Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			return (T) wrapper.get();
+		}
+		long modificationCount = this.modificationCount.get();
+		T value = this.remoteCache.get(key, valueLoader);
+		putLocal(key, value, modificationCount);
+		return value;
+	}
+
+	@Override
+	@Nullable
+	public CompletableFuture<?> retrieve(Object key) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			return CompletableFuture.completedFuture(wrapper);
+		}
+		long modificationCount = this.modificationCount.get();
+		CompletableFuture<?> result = this.remoteCache.retrieve(key);
+		if (result == null) {
+			return null;
+		}
+		return result.thenApply(value -> {
+			if (value != null) {
+				putLocal(key, (value instanceof ValueWrapper ? ((ValueWrapper) value).get() : value),
+						modificationCount);
+			}
+			return value;
+		});
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			return CompletableFuture.completedFuture((T) wrapper.get());
+		}
+		long modificationCount = this.modificationCount.get();
+		return this.remoteCache.retrieve(key, valueLoader).thenApply(value -> {
+			if (value != null) {
+				putLocal(key, value, modificationCount);
+			}
+			return value;
+		});
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.remoteCache.put(key, value);
+		invalidateLocal(key);
+		notifyInvalidation(key);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		long modificationCount = this.modificationCount.get();
+		ValueWrapper existing = this.remoteCache.putIfAbsent(key, value);
+		if (existing != null) {
+			putLocal(key, existing.get(), modificationCount);
+		}
+		else {
+			invalidateLocal(key);
+			notifyInvalidation(key);
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.remoteCache.evict(key);
+		invalidateLocal(key);
+		notifyInvalidation(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		boolean evicted = this.remoteCache.evictIfPresent(key);
+		invalidateLocal(key);
+		notifyInvalidation(key);
+		return evicted;
+	}
+
+	@Override
+	public void clear() {
+		this.remoteCache.clear();
+		invalidateLocal();
+		notifyInvalidation(null);
+	}
+
+	@Override
+	public boolean invalidate() {
+		boolean invalidated = this.remoteCache.invalidate();
+		invalidateLocal();
+		notifyInvalidation(null);
+		return invalidated;
+	}
+
+	/**
+	 * Evict the given entry from the local cache only, e.g. following a
+	 * modification of the remote entry by another application instance.
+	 * @param key the key of the entry to evict
+	 * @see TieredCacheManager#invalidateLocal
+	 */
+	public void invalidateLocal(Object key) {
+		this.modificationCount.incrementAndGet();
+		this.localCache.evictIfPresent(key);
+	}
+
+	/**
+	 * Evict all entries from the local cache only, e.g. following a
+	 * clearing of the remote cache by another application instance.
+	 * @see TieredCacheManager#invalidateLocal
+	 */
+	public void invalidateLocal() {
+		this.modificationCount.incrementAndGet();
+		this.localCache.invalidate();
+	}
+
+
+	private void putLocal(Object key, @Nullable Object value, long expectedModificationCount) {
+		this.localCache.put(key, value);
+		if (this.modificationCount.get() != expectedModificationCount) {
+			// Concurrently modified: the value read from the remote cache may be stale
+			this.localCache.evictIfPresent(key);
+		}
+	}
+
+	private void notifyInvalidation(@Nullable Object key) {
+		if (this.invalidationListener != null) {
+			this.invalidationListener.onInvalidation(getName(), key);
+		}
+	}
+
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link CacheManager} composing a local cache in front of each cache of a
+ * remote {@link CacheManager}, exposing {@link TieredCache} instances which
+ * serve repeated lookups without going over the network.
+ *
+ * <p>By default, local caches are {@link ConcurrentMapCacheManager bounded
+ * ConcurrentMap-based caches} holding up to {@link #DEFAULT_LOCAL_MAXIMUM_SIZE}
+ * entries each, see {@link #setLocalMaximumSize} and {@link #setLocalExpireAfterWrite}.
+ * Any other local {@code CacheManager} (e.g. a
+ * {@link org.springframework.cache.caffeine.CaffeineCacheManager}) may be
+ * specified through {@link #setLocalCacheManager}.
+ *
+ * <p>Writes and evictions through a {@link TieredCache} invalidate the local
+ * copy of the entries and are reported to the configured
+ * {@link CacheInvalidationListener}, typically broadcasting them to other
+ * application instances which in turn apply them through {@link #invalidateLocal}.
+ * Without such propagation, an expiration for local entries should be
+ * configured in order to bound their staleness.
+ *
+ * <p>If no remote {@code CacheManager} is specified, a local stand-in is used:
+ * a {@link ConcurrentMapCacheManager} storing entries by value (that is,
+ * serialized), as a remote cache would. This is mainly intended for testing.
+ *
+ * @since 5.3.23
+ * @see #setRemoteCacheManager
+ * @see #setLocalCacheManager
+ * @see TieredCache
+ */
+public class TieredCacheManager implements CacheManager, BeanClassLoaderAware {
+
+	/**
+	 * The default maximum number of entries in each local cache: {@value}.
+	 */
+	public static final long DEFAULT_LOCAL_MAXIMUM_SIZE = 10000;
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final ConcurrentMap<String, TieredCache> cacheMap = new ConcurrentHashMap<>(16);
+
+	private final Set<String> untieredCacheNames = ConcurrentHashMap.newKeySet(16);
+
+	@Nullable
+	private volatile CacheManager remoteCacheManager;
+
+	@Nullable
+	private volatile CacheManager localCacheManager;
+
+	@Nullable
+	private volatile CacheManager defaultLocalCacheManager;
+
+	private long localMaximumSize = DEFAULT_LOCAL_MAXIMUM_SIZE;
+
+	@Nullable
+	private Duration localExpireAfterWrite;
+
+	@Nullable
+	private CacheInvalidationListener invalidationListener;
+
+	@Nullable
+	private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
+
+
+	/**
+	 * Create a new TieredCacheManager, setting the remote CacheManager
+	 * through the {@link #setRemoteCacheManager} bean property.
+	 * If not set, a local stand-in for the remote caches is used.
+	 */
+	public TieredCacheManager() {
+	}
+
+	/**
+	 * Create a new TieredCacheManager for the given remote CacheManager.
+	 * @param remoteCacheManager the remote CacheManager to put local caches in front of
+	 */
+	public TieredCacheManager(CacheManager remoteCacheManager) {
+		Assert.notNull(remoteCacheManager, "Remote CacheManager must not be null");
+		this.remoteCacheManager = remoteCacheManager;
+	}
+
+
+	/**
+	 * Set the remote CacheManager to put local caches in front of.
+	 * <p>Default is a local stand-in storing entries by value, mainly
+	 * intended for testing.
+	 */
+	public void setRemoteCacheManager(CacheManager remoteCacheManager) {
+		this.remoteCacheManager = remoteCacheManager;
+		resetCaches();
+	}
+
+	/**
+	 * Set the CacheManager providing the local cache in front of each remote cache.
+	 * The local CacheManager is expected to bound the size of its caches.
+	 * <p>Default is a {@link ConcurrentMapCacheManager} with a maximum size and
+	 * expiration according to {@link #setLocalMaximumSize} and
+	 * {@link #setLocalExpireAfterWrite}.
+	 */
+	public void setLocalCacheManager(CacheManager localCacheManager) {
+		this.localCacheManager = localCacheManager;
+		resetCaches();
+	}
+
+	/**
+	 * Set the maximum number of entries in each local cache.
+	 * <p>Default is {@link #DEFAULT_LOCAL_MAXIMUM_SIZE}. Only applies to the
+	 * default local CacheManager.
+	 * @see ConcurrentMapCacheManager#setMaximumSize
+	 */
+	public void setLocalMaximumSize(long localMaximumSize) {
+		Assert.isTrue(localMaximumSize > 0, "Local maximum size must be positive");
+		this.localMaximumSize = localMaximumSize;
+		resetDefaultLocalCacheManager();
+	}
+
+	/**
+	 * Set the time after which local entries expire once written,
+	 * bounding their staleness in case of missed invalidations.
+	 * <p>Default is none. Only applies to the default local CacheManager.
+	 * @see ConcurrentMapCacheManager#setExpireAfterWrite
+	 */
+	public void setLocalExpireAfterWrite(@Nullable Duration localExpireAfterWrite) {
+		this.localExpireAfterWrite = localExpireAfterWrite;
+		resetDefaultLocalCacheManager();
+	}
+
+	/**
+	 * Set the listener to notify of entries modified through the caches of
+	 * this cache manager, e.g. for broadcasting invalidations to other
+	 * application instances.
+	 * @see #invalidateLocal
+	 */
+	public void setInvalidationListener(@Nullable CacheInvalidationListener invalidationListener) {
+		this.invalidationListener = invalidationListener;
+		resetCaches();
+	}
+
+	@Override
+	public void setBeanClassLoader(ClassLoader classLoader) {
+		this.beanClassLoader = classLoader;
+	}
+
+
+	@Override
+	@Nullable
+	public Cache getCache(String name) {
+		Cache remoteCache = getRemoteCacheManager().getCache(name);
+		if (remoteCache == null) {
+			return null;
+		}
+		TieredCache cache = this.cacheMap.get(name);
+		if (cache != null && cache.getRemoteCache() == remoteCache) {
+			return cache;
+		}
+		Cache localCache = getLocalCacheManager().getCache(name);
+		if (localCache == null) {
+			// No local cache available for the given name
+			if (this.untieredCacheNames.add(name) && logger.isWarnEnabled()) {
+				logger.warn("No local cache available for cache '" + name +
+						"': falling back to the remote cache without local tier");
+			}
+			return remoteCache;
+		}
+		TieredCache newCache = new TieredCache(remoteCache, localCache, this.invalidationListener);
+		return this.cacheMap.merge(name, newCache, (existing, added) ->
+				(existing.getRemoteCache() == remoteCache ? existing : added));
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		return getRemoteCacheManager().getCacheNames();
+	}
+
+	/**
+	 * Invalidate the given entry in the local cache, following a modification
+	 * of the remote entry by another application instance.
+	 * @param cacheName the name of the cache
+	 * @param key the key of the entry, or {@code null} for all entries of the cache
+	 * @see CacheInvalidationListener#onInvalidation
+	 */
+	public void invalidateLocal(String cacheName, @Nullable Object key) {
+		TieredCache cache = this.cacheMap.get(cacheName);
+		if (cache != null) {
+			if (key != null) {
+				cache.invalidateLocal(key);
+			}
+			else {
+				cache.invalidateLocal();
+			}
+		}
+	}
+
+	/**
+	 * Invalidate all entries in all local caches, e.g. after a loss of
+	 * connectivity to the remote caches or the invalidation messages.
+	 */
+	public void invalidateLocal() {
+		for (TieredCache cache : this.cacheMap.values()) {
+			cache.invalidateLocal();
+		}
+	}
+
+
+	private void resetCaches() {
+		this.cacheMap.clear();
+		this.untieredCacheNames.clear();
+	}
+
+	private void resetDefaultLocalCacheManager() {
+		synchronized (this.cacheMap) {
+			this.defaultLocalCacheManager = null;
+			if (this.localCacheManager == null) {
+				resetCaches();
+			}
+		}
+	}
+
+	/**
+	 * Return the remote CacheManager, creating the local stand-in if necessary.
+	 */
+	protected CacheManager getRemoteCacheManager() {
+		CacheManager remoteCacheManager = this.remoteCacheManager;
+		if (remoteCacheManager == null) {
+			synchronized (this.cacheMap) {
+				remoteCacheManager = this.remoteCacheManager;
+				if (remoteCacheManager == null) {
+					remoteCacheManager = createStandInRemoteCacheManager();
+					this.remoteCacheManager = remoteCacheManager;
+				}
+			}
+		}
+		return remoteCacheManager;
+	}
+
+	/**
+	 * Return the local CacheManager, creating the default one if necessary.
+	 */
+	protected CacheManager getLocalCacheManager() {
+		CacheManager localCacheManager = this.localCacheManager;
+		if (localCacheManager != null) {
+			return localCacheManager;
+		}
+		localCacheManager = this.defaultLocalCacheManager;
+		if (localCacheManager == null) {
+			synchronized (this.cacheMap) {
+				localCacheManager = this.defaultLocalCacheManager;
+				if (localCacheManager == null) {
+					localCacheManager = createDefaultLocalCacheManager();
+					this.defaultLocalCacheManager = localCacheManager;
+				}
+			}
+		}
+		return localCacheManager;
+	}
+
+	/**
+	 * Create the local stand-in for the remote CacheManager, used if none has
+	 * been specified: a {@link ConcurrentMapCacheManager} storing entries by value.
+	 */
+	protected CacheManager createStandInRemoteCacheManager() {
+		ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+		if (this.beanClassLoader != null) {
+			cacheManager.setBeanClassLoader(this.beanClassLoader);
+		}
+		cacheManager.setStoreByValue(true);
+		return cacheManager;
+	}
+
+	/**
+	 * Create the default local CacheManager, used if none has been specified:
+	 * a bounded {@link ConcurrentMapCacheManager}.
+	 * @see #setLocalMaximumSize
+	 * @see #setLocalExpireAfterWrite
+	 */
+	protected CacheManager createDefaultLocalCacheManager() {
+		ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+		cacheManager.setMaximumSize(this.localMaximumSize);
+		cacheManager.setExpireAfterWrite(this.localExpireAfterWrite);
+		return cacheManager;
+	}
+
+}
@@ -0,0 +1,11 @@
+/**
+ * Two-level caching for the org.springframework.cache package:
+ * a bounded local cache in front of a remote cache, with hooks
+ * for propagating invalidations across application instances.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.cache.tiered;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
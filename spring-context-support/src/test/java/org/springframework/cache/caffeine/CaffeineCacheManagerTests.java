@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.cache.caffeine;
 
+import java.util.concurrent.CompletableFuture;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.CaffeineSpec;
@@ -208,4 +211,43 @@ public class CaffeineCacheManagerTests {
 		assertThat(cm.getCache("c2") == cache2).isTrue();
 	}
 
+	@Test
+	public void asyncMode() {
+		CaffeineCacheManager cm = new CaffeineCacheManager();
+		cm.setAsyncCacheMode(true);
+		Cache cache1 = cm.getCache("c1");
+		assertThat(((CaffeineCache) cache1).getAsyncCache()).isNotNull();
+
+		cache1.put("key1", "value1");
+		assertThat(cache1.get("key1").get()).isEqualTo("value1");
+		assertThat(((Cache.ValueWrapper) cache1.retrieve("key1").join()).get()).isEqualTo("value1");
+		assertThat(cache1.retrieve("key2")).isNull();
+		assertThat(cache1.retrieve("key2", () -> CompletableFuture.completedFuture("value2")).join())
+				.isEqualTo("value2");
+		assertThat(cache1.retrieve("key2", () -> CompletableFuture.completedFuture("value2x")).join())
+				.isEqualTo("value2");
+		assertThat(cache1.get("key2").get()).isEqualTo("value2");
+
+		cache1.put("key3", null);
+		assertThat(cache1.get("key3").get()).isNull();
+		assertThat(((Cache.ValueWrapper) cache1.retrieve("key3").join()).get()).isNull();
+
+		cm.setAsyncCacheMode(false);
+		Cache cache1x = cm.getCache("c1");
+		assertThat(cache1x != cache1).isTrue();
+		assertThat(cache1x.get("key1")).isNull();
+	}
+
+	@Test
+	public void customAsyncCacheRegistration() {
+		CaffeineCacheManager cm = new CaffeineCacheManager("c1");
+		AsyncCache<Object, Object> nc = Caffeine.newBuilder().buildAsync();
+		cm.registerCustomCache("c2", nc);
+
+		Cache cache2 = cm.getCache("c2");
+		assertThat(((CaffeineCache) cache2).getAsyncCache()).isSameAs(nc);
+		cache2.put("key", "value");
+		assertThat(nc.getIfPresent("key").join()).isEqualTo("value");
+	}
+
 }
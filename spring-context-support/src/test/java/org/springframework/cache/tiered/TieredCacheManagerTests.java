@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.BoundedConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TieredCacheManager}.
+ */
+public class TieredCacheManagerTests {
+
+	@Test
+	public void localStandInForRemoteCaches() {
+		TieredCacheManager cm = new TieredCacheManager();
+		Cache cache = cm.getCache("c1");
+		assertThat(cache).isInstanceOf(TieredCache.class);
+		assertThat(cm.getCache("c1")).isSameAs(cache);
+		assertThat(cm.getCacheNames()).containsExactly("c1");
+
+		TieredCache tieredCache = (TieredCache) cache;
+		assertThat(((ConcurrentMapCache) tieredCache.getRemoteCache()).isStoreByValue()).isTrue();
+		assertThat(tieredCache.getLocalCache()).isInstanceOf(BoundedConcurrentMapCache.class);
+		assertThat(((BoundedConcurrentMapCache) tieredCache.getLocalCache()).getMaximumSize())
+				.isEqualTo(TieredCacheManager.DEFAULT_LOCAL_MAXIMUM_SIZE);
+
+		cache.put("key", "value");
+		assertThat(cache.get("key").get()).isEqualTo("value");
+	}
+
+	@Test
+	public void staticRemoteCacheManager() {
+		TieredCacheManager cm = new TieredCacheManager(new ConcurrentMapCacheManager("c1"));
+		assertThat(cm.getCache("c1")).isInstanceOf(TieredCache.class);
+		assertThat(cm.getCache("c2")).isNull();
+	}
+
+	@Test
+	public void localMaximumSizeChangedAfterFirstAccess() {
+		TieredCacheManager cm = new TieredCacheManager();
+		TieredCache cache = (TieredCache) cm.getCache("c1");
+		cm.setLocalMaximumSize(10);
+		TieredCache cacheAgain = (TieredCache) cm.getCache("c1");
+		assertThat(cacheAgain).isNotSameAs(cache);
+		assertThat(((BoundedConcurrentMapCache) cacheAgain.getLocalCache()).getMaximumSize()).isEqualTo(10);
+	}
+
+	@Test
+	public void localMaximumSizeIgnoredForCustomLocalCacheManager() {
+		TieredCacheManager cm = new TieredCacheManager();
+		cm.setLocalCacheManager(new CaffeineCacheManager());
+		TieredCache cache = (TieredCache) cm.getCache("c1");
+		cm.setLocalMaximumSize(10);
+		assertThat(cm.getCache("c1")).isSameAs(cache);
+	}
+
+	@Test
+	public void customLocalCacheManager() {
+		TieredCacheManager cm = new TieredCacheManager(new ConcurrentMapCacheManager());
+		cm.setLocalCacheManager(new CaffeineCacheManager());
+		TieredCache cache = (TieredCache) cm.getCache("c1");
+		assertThat(cache.getLocalCache()).isInstanceOf(CaffeineCache.class);
+	}
+
+	@Test
+	public void noLocalCacheAvailable() {
+		CacheManager remote = new ConcurrentMapCacheManager("c1", "c2");
+		TieredCacheManager cm = new TieredCacheManager(remote);
+		cm.setLocalCacheManager(new ConcurrentMapCacheManager("c1"));
+		assertThat(cm.getCache("c1")).isInstanceOf(TieredCache.class);
+		assertThat(cm.getCache("c2")).isSameAs(remote.getCache("c2"));
+	}
+
+	@Test
+	public void remoteCacheRecreated() {
+		ConcurrentMapCacheManager remote = new ConcurrentMapCacheManager("c1");
+		TieredCacheManager cm = new TieredCacheManager(remote);
+		TieredCache cache = (TieredCache) cm.getCache("c1");
+		remote.setAllowNullValues(false);
+		TieredCache cacheAgain = (TieredCache) cm.getCache("c1");
+		assertThat(cacheAgain).isNotSameAs(cache);
+		assertThat(cacheAgain.getRemoteCache()).isSameAs(remote.getCache("c1"));
+	}
+
+	@Test
+	public void invalidationsPropagatedAcrossInstances() {
+		ConcurrentMapCacheManager remote = new ConcurrentMapCacheManager();
+		TieredCacheManager first = new TieredCacheManager(remote);
+		TieredCacheManager second = new TieredCacheManager(remote);
+		first.setInvalidationListener(second::invalidateLocal);
+		second.setInvalidationListener(first::invalidateLocal);
+
+		first.getCache("c1").put("key", "value");
+		assertThat(second.getCache("c1").get("key").get()).isEqualTo("value");
+		first.getCache("c1").put("key", "newValue");
+		assertThat(second.getCache("c1").get("key").get()).isEqualTo("newValue");
+		second.getCache("c1").evict("key");
+		assertThat(first.getCache("c1").get("key")).isNull();
+
+		first.getCache("c1").put("key", "value");
+		assertThat(second.getCache("c1").get("key").get()).isEqualTo("value");
+		first.getCache("c1").clear();
+		assertThat(second.getCache("c1").get("key")).isNull();
+	}
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.testfixture.cache.AbstractCacheTests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TieredCache}.
+ */
+public class TieredCacheTests extends AbstractCacheTests<TieredCache> {
+
+	private final List<Object> invalidations = new ArrayList<>();
+
+	private ConcurrentMapCache remoteCache;
+
+	private ConcurrentMapCache localCache;
+
+	private TieredCache cache;
+
+
+	@BeforeEach
+	public void setup() {
+		this.remoteCache = new ConcurrentMapCache(CACHE_NAME);
+		this.localCache = new ConcurrentMapCache(CACHE_NAME);
+		this.cache = new TieredCache(this.remoteCache, this.localCache,
+				(cacheName, key) -> this.invalidations.add(cacheName + ":" + key));
+	}
+
+	@Override
+	protected TieredCache getCache() {
+		return this.cache;
+	}
+
+	@Override
+	protected ConcurrentMap<Object, Object> getNativeCache() {
+		return this.remoteCache.getNativeCache();
+	}
+
+
+	@Test
+	public void lookupPopulatesLocalCache() {
+		this.remoteCache.put("key", "value");
+		assertThat(this.localCache.get("key")).isNull();
+		assertThat(this.cache.get("key").get()).isEqualTo("value");
+		assertThat(this.localCache.get("key").get()).isEqualTo("value");
+
+		// Served locally from now on
+		this.remoteCache.evict("key");
+		assertThat(this.cache.get("key").get()).isEqualTo("value");
+	}
+
+	@Test
+	public void valueLoaderPopulatesBothCaches() {
+		assertThat(this.cache.get("key", () -> "value")).isEqualTo("value");
+		assertThat(this.remoteCache.get("key").get()).isEqualTo("value");
+		assertThat(this.localCache.get("key").get()).isEqualTo("value");
+		assertThat(this.cache.get("key", () -> "other")).isEqualTo("value");
+	}
+
+	@Test
+	public void putInvalidatesLocalCopy() {
+		this.remoteCache.put("key", "value");
+		this.cache.get("key");
+		this.cache.put("key", "newValue");
+		assertThat(this.localCache.get("key")).isNull();
+		assertThat(this.cache.get("key").get()).isEqualTo("newValue");
+		assertThat(this.invalidations).containsExactly("testCache:key");
+	}
+
+	@Test
+	public void evictPropagates() {
+		this.cache.get("key", () -> "value");
+		this.cache.evict("key");
+		assertThat(this.remoteCache.get("key")).isNull();
+		assertThat(this.localCache.get("key")).isNull();
+		this.cache.put("other", "value");
+		this.cache.clear();
+		assertThat(this.remoteCache.get("other")).isNull();
+		assertThat(this.invalidations).containsExactly("testCache:key", "testCache:other", "testCache:null");
+	}
+
+	@Test
+	public void invalidateLocalKeepsRemoteEntries() {
+		this.cache.get("key", () -> "value");
+		this.cache.invalidateLocal("key");
+		assertThat(this.localCache.get("key")).isNull();
+		assertThat(this.remoteCache.get("key").get()).isEqualTo("value");
+		assertThat(this.invalidations).isEmpty();
+	}
+
+	@Test
+	public void staleRemoteValueNotKeptLocally() {
+		ConcurrentMapCache remote = new ConcurrentMapCache(CACHE_NAME) {
+			@Override
+			public ValueWrapper get(Object key) {
+				ValueWrapper wrapper = super.get(key);
+				// Concurrent modification by another thread after the remote read
+				cache.invalidateLocal(key);
+				return wrapper;
+			}
+		};
+		this.cache = new TieredCache(remote, this.localCache);
+		remote.put("key", "value");
+		assertThat(this.cache.get("key").get()).isEqualTo("value");
+		assertThat(this.localCache.get("key")).isNull();
+	}
+
+	@Test
+	public void retrievePopulatesLocalCache() {
+		assertThat(this.cache.retrieve("key")).isNull();
+		this.remoteCache.put("key", "value");
+		assertThat(this.localCache.get("key")).isNull();
+		assertThat(((Cache.ValueWrapper) this.cache.retrieve("key").join()).get()).isEqualTo("value");
+		assertThat(this.localCache.get("key").get()).isEqualTo("value");
+
+		// Served locally from now on
+		this.remoteCache.evict("key");
+		assertThat(((Cache.ValueWrapper) this.cache.retrieve("key").join()).get()).isEqualTo("value");
+	}
+
+	@Test
+	public void retrieveWithValueLoaderPopulatesBothCaches() {
+		AtomicInteger loads = new AtomicInteger();
+		CompletableFuture<String> result = this.cache.retrieve("key", () -> {
+			loads.incrementAndGet();
+			return CompletableFuture.completedFuture("value");
+		});
+		assertThat(result.join()).isEqualTo("value");
+		assertThat(this.remoteCache.get("key").get()).isEqualTo("value");
+		assertThat(this.localCache.get("key").get()).isEqualTo("value");
+
+		// Served locally from now on
+		this.remoteCache.evict("key");
+		assertThat(this.cache.retrieve("key", () -> CompletableFuture.completedFuture("other")).join())
+				.isEqualTo("value");
+		assertThat(loads.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void staleRetrievedValueNotKeptLocally() {
+		ConcurrentMapCache remote = new ConcurrentMapCache(CACHE_NAME) {
+			@Override
+			public CompletableFuture<?> retrieve(Object key) {
+				CompletableFuture<?> result = super.retrieve(key);
+				// Concurrent modification by another thread after the remote read
+				cache.invalidateLocal(key);
+				return result;
+			}
+		};
+		this.cache = new TieredCache(remote, this.localCache);
+		remote.put("key", "value");
+		assertThat(((Cache.ValueWrapper) this.cache.retrieve("key").join()).get()).isEqualTo("value");
+		assertThat(this.localCache.get("key")).isNull();
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.AnnotatedElement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmark for {@link MergedAnnotations} lookups with the type hierarchy
+ * search strategy, as performed by annotation-driven infrastructure for every
+ * candidate class and method.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MergedAnnotationsBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"class", "method"})
+		public String element;
+
+		@Param({"present", "meta-present", "absent"})
+		public String annotation;
+
+		public AnnotatedElement annotatedElement;
+
+		public Class<? extends Annotation> annotationType;
+
+		@Setup
+		public void setup() {
+			if (this.element.equals("class")) {
+				this.annotatedElement = SampleService.class;
+			}
+			else {
+				this.annotatedElement = ReflectionUtils.findMethod(SampleService.class, "process", String.class);
+			}
+			if (this.annotation.equals("present")) {
+				this.annotationType = (this.element.equals("class") ? Service.class : LazyOperation.class);
+			}
+			else if (this.annotation.equals("meta-present")) {
+				this.annotationType = (this.element.equals("class") ? Component.class : Lazy.class);
+			}
+			else {
+				this.annotationType = Controller.class;
+			}
+		}
+	}
+
+	@Benchmark
+	public boolean isPresent(BenchmarkState state) {
+		return MergedAnnotations.from(state.annotatedElement, SearchStrategy.TYPE_HIERARCHY)
+				.isPresent(state.annotationType);
+	}
+
+	@Benchmark
+	public MergedAnnotation<?> get(BenchmarkState state) {
+		return MergedAnnotations.from(state.annotatedElement, SearchStrategy.TYPE_HIERARCHY)
+				.get(state.annotationType);
+	}
+
+	@Benchmark
+	public Annotation findMergedAnnotation(BenchmarkState state) {
+		return AnnotatedElementUtils.findMergedAnnotation(state.annotatedElement, state.annotationType);
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Lazy
+	@interface LazyOperation {
+	}
+
+
+	@Service
+	interface SampleOperations {
+
+		@LazyOperation
+		void process(String input);
+	}
+
+
+	static class AbstractSampleService implements SampleOperations {
+
+		@Override
+		public void process(String input) {
+		}
+	}
+
+
+	static class SampleService extends AbstractSampleService {
+
+		@Override
+		public void process(String input) {
+		}
+	}
+
+}
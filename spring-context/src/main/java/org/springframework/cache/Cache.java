@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.cache;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.springframework.lang.Nullable;
 
@@ -100,6 +102,58 @@ public interface Cache {
 	@Nullable
 	<T> T get(Object key, Callable<T> valueLoader);
 
+	/**
+	 * Return the value to which this cache maps the specified key,
+	 * wrapped in a {@link CompletableFuture}. This operation must not block
+	 * but is allowed to return a completed {@link CompletableFuture} if the
+	 * corresponding value is immediately available.
+	 * <p>Returns {@code null} if the cache contains no mapping for this key;
+	 * otherwise, the cached value will be returned in the {@link CompletableFuture},
+	 * potentially wrapped in a {@link ValueWrapper} if the cache allows for
+	 * {@code null} values to be stored. The {@link CompletableFuture} may also
+	 * complete with {@code null} if the mapping disappeared in the meantime.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException}.
+	 * Callers may fall back to {@link #get(Object)} in that case.
+	 * @param key the key whose associated value is to be returned
+	 * @return the value to which this cache maps the specified key, contained
+	 * within a {@link CompletableFuture}, or {@code null} if the cache contains
+	 * no mapping for this key
+	 * @since 5.3.23
+	 * @see #retrieve(Object, Supplier)
+	 */
+	@Nullable
+	default CompletableFuture<?> retrieve(Object key) {
+		throw new UnsupportedOperationException(
+				getClass().getName() + " does not support CompletableFuture-based retrieval");
+	}
+
+	/**
+	 * Return the value to which this cache maps the specified key, obtaining
+	 * that value from {@code valueLoader} if necessary. This method provides
+	 * a simple substitute for the conventional "if cached, return; otherwise
+	 * create, cache and return" pattern, based on {@link CompletableFuture}.
+	 * This operation must not block.
+	 * <p>If possible, implementations should ensure that the loading operation
+	 * is synchronized so that the specified {@code valueLoader} is only called
+	 * once in case of concurrent access on the same key.
+	 * <p>Null values are generally not supported by this method. The provided
+	 * {@link CompletableFuture} handle produces a value or raises an exception.
+	 * If the {@code valueLoader} raises an exception, it will be propagated
+	 * to the {@code CompletableFuture} handle returned from here.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException}.
+	 * @param key the key whose associated value is to be returned
+	 * @param valueLoader the supplier of the value to be cached
+	 * @return the value to which this cache maps the specified key,
+	 * contained within a {@link CompletableFuture}
+	 * @since 5.3.23
+	 * @see #retrieve(Object)
+	 * @see #get(Object, Callable)
+	 */
+	default <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		throw new UnsupportedOperationException(
+				getClass().getName() + " does not support CompletableFuture-based retrieval");
+	}
+
 	/**
 	 * Associate the specified value with the specified key in this cache.
 	 * <p>If the cache previously contained a mapping for this key, the old
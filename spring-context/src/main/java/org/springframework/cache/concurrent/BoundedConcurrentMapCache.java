@@ -0,0 +1,381 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.core.serializer.support.SerializationDelegate;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ConcurrentMapCache} variant with a maximum number of entries and
+ * optional expiration of entries after write and/or after access.
+ *
+ * <p>Size-based eviction follows a "second chance" (CLOCK) policy which
+ * approximates least-recently-used ordering without any locking: entries are
+ * kept in insertion order and recently accessed entries get re-queued once
+ * instead of being evicted. Expired entries are removed lazily on access as
+ * well as incrementally on each write.
+ *
+ * <p>Hits, misses and evictions are recorded and may be retrieved through
+ * {@link #getHitCount()}, {@link #getMissCount()} and {@link #getEvictionCount()}.
+ *
+ * <p><b>Note:</b> The {@link #getNativeCache() native cache} of this variant
+ * holds internal entry holders as values, with the actual store values to be
+ * obtained through the cache methods.
+ *
+ * @since 5.3.23
+ * @see ConcurrentMapCacheManager#setMaximumSize
+ * @see ConcurrentMapCacheManager#setExpireAfterWrite
+ * @see ConcurrentMapCacheManager#setExpireAfterAccess
+ */
+public class BoundedConcurrentMapCache extends ConcurrentMapCache {
+
+	private final long maximumSize;
+
+	private final long expireAfterWrite;
+
+	private final long expireAfterAccess;
+
+	private final Queue<Entry> evictionQueue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger queueSize = new AtomicInteger();
+
+	private final AtomicBoolean purging = new AtomicBoolean();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private Clock clock = Clock.systemDefaultZone();
+
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name
+	 * and maximum number of entries.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries
+	 */
+	public BoundedConcurrentMapCache(String name, long maximumSize) {
+		this(name, maximumSize, null, null);
+	}
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name and bounds.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries ({@code 0} for no size limit)
+	 * @param expireAfterWrite the time after which an entry expires once written
+	 * (or {@code null} for no expiration after write)
+	 * @param expireAfterAccess the time after which an entry expires once last
+	 * accessed (or {@code null} for no expiration after access)
+	 */
+	public BoundedConcurrentMapCache(String name, long maximumSize,
+			@Nullable Duration expireAfterWrite, @Nullable Duration expireAfterAccess) {
+
+		this(name, maximumSize, expireAfterWrite, expireAfterAccess, true, null);
+	}
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name and bounds.
+	 * If the {@link SerializationDelegate} is specified,
+	 * {@link #isStoreByValue() store-by-value} is enabled.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries ({@code 0} for no size limit)
+	 * @param expireAfterWrite the time after which an entry expires once written
+	 * (or {@code null} for no expiration after write)
+	 * @param expireAfterAccess the time after which an entry expires once last
+	 * accessed (or {@code null} for no expiration after access)
+	 * @param allowNullValues whether to allow {@code null} values
+	 * (adapting them to an internal null holder value)
+	 * @param serialization the {@link SerializationDelegate} to use
+	 * to serialize cache entry or {@code null} to store the reference
+	 */
+	protected BoundedConcurrentMapCache(String name, long maximumSize,
+			@Nullable Duration expireAfterWrite, @Nullable Duration expireAfterAccess,
+			boolean allowNullValues, @Nullable SerializationDelegate serialization) {
+
+		super(name, new ConcurrentHashMap<>(256), allowNullValues, serialization);
+		Assert.isTrue(maximumSize >= 0, "Maximum size must not be negative");
+		Assert.isTrue(expireAfterWrite == null || !expireAfterWrite.isNegative(),
+				"Expire-after-write duration must not be negative");
+		Assert.isTrue(expireAfterAccess == null || !expireAfterAccess.isNegative(),
+				"Expire-after-access duration must not be negative");
+		this.maximumSize = maximumSize;
+		this.expireAfterWrite = (expireAfterWrite != null ? expireAfterWrite.toMillis() : 0);
+		this.expireAfterAccess = (expireAfterAccess != null ? expireAfterAccess.toMillis() : 0);
+	}
+
+
+	/**
+	 * Set the clock to use for expiration purposes.
+	 * <p>The default clock is the system clock for the default time zone.
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "Clock must not be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Return the maximum number of entries in this cache,
+	 * or {@code 0} if there is no size limit.
+	 */
+	public long getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Return the number of lookups that found a (non-expired) entry.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups that did not find a (non-expired) entry.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of entries removed because of expiration or
+	 * because of the maximum size being exceeded.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	/**
+	 * Return the current number of entries in this cache,
+	 * potentially including expired entries not removed yet.
+	 */
+	public long getEstimatedSize() {
+		return getNativeCache().size();
+	}
+
+
+	@Override
+	@Nullable
+	protected Object lookup(Object key) {
+		Entry entry = (Entry) getNativeCache().get(key);
+		if (entry != null) {
+			long now = this.clock.millis();
+			if (!isExpired(entry, now)) {
+				if (this.expireAfterAccess > 0) {
+					entry.accessTime = now;
+				}
+				if (!entry.accessed) {
+					entry.accessed = true;
+				}
+				this.hitCount.increment();
+				return entry.value;
+			}
+			expire(entry);
+		}
+		this.missCount.increment();
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Object storeValue = lookup(key);
+		if (storeValue != null) {
+			return (T) fromStoreValue(storeValue);
+		}
+		Entry[] created = new Entry[1];
+		Entry entry = (Entry) getNativeCache().computeIfAbsent(key, k -> {
+			try {
+				created[0] = new Entry(k, toStoreValue(valueLoader.call()), this.clock.millis());
+				return created[0];
+			}
+			catch (Throwable ex) {
+				throw new ValueRetrievalException(key, valueLoader, ex);
+			}
+		});
+		if (created[0] != null) {
+			afterWrite(created[0]);
+		}
+		return (T) fromStoreValue(entry.value);
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		Entry entry = new Entry(key, toStoreValue(value), this.clock.millis());
+		getNativeCache().put(key, entry);
+		afterWrite(entry);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		ConcurrentMap<Object, Object> store = getNativeCache();
+		Entry entry = new Entry(key, toStoreValue(value), this.clock.millis());
+		Entry existing = (Entry) store.putIfAbsent(key, entry);
+		while (existing != null && isExpired(existing, entry.writeTime)) {
+			if (store.replace(key, existing, entry)) {
+				this.evictionCount.increment();
+				existing = null;
+			}
+			else {
+				existing = (Entry) store.putIfAbsent(key, entry);
+			}
+		}
+		if (existing != null) {
+			return toValueWrapper(existing.value);
+		}
+		afterWrite(entry);
+		return null;
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		Entry entry = (Entry) getNativeCache().remove(key);
+		return (entry != null && !isExpired(entry, this.clock.millis()));
+	}
+
+	@Override
+	public void clear() {
+		// Clear the queue first: any entry added concurrently remains queued
+		this.evictionQueue.clear();
+		this.queueSize.set(0);
+		getNativeCache().clear();
+	}
+
+	@Override
+	public boolean invalidate() {
+		boolean notEmpty = !getNativeCache().isEmpty();
+		clear();
+		return notEmpty;
+	}
+
+
+	private boolean isExpired(Entry entry, long now) {
+		return ((this.expireAfterWrite > 0 && now - entry.writeTime >= this.expireAfterWrite) ||
+				(this.expireAfterAccess > 0 && now - entry.accessTime >= this.expireAfterAccess));
+	}
+
+	private boolean isCurrent(Entry entry) {
+		return (getNativeCache().get(entry.key) == entry);
+	}
+
+	private void expire(Entry entry) {
+		if (getNativeCache().remove(entry.key, entry)) {
+			this.evictionCount.increment();
+		}
+	}
+
+	/**
+	 * Queue the given newly written entry for eviction, purging replaced and
+	 * expired entries and enforcing the maximum size.
+	 */
+	private void afterWrite(Entry entry) {
+		this.evictionQueue.offer(entry);
+		this.queueSize.incrementAndGet();
+		long now = entry.writeTime;
+		ConcurrentMap<Object, Object> store = getNativeCache();
+
+		// Drain expired or replaced entries from the head of the queue
+		for (int i = 0; i < 2; i++) {
+			Entry head = this.evictionQueue.peek();
+			if (head == null || (isCurrent(head) && !isExpired(head, now))) {
+				break;
+			}
+			if (this.evictionQueue.remove(head)) {
+				this.queueSize.decrementAndGet();
+				expire(head);
+			}
+		}
+
+		// Replaced entries further down the queue: purge them once they dominate
+		if (this.queueSize.get() > 2 * store.size() + 16 && this.purging.compareAndSet(false, true)) {
+			try {
+				for (Iterator<Entry> it = this.evictionQueue.iterator(); it.hasNext();) {
+					Entry queued = it.next();
+					if (!isCurrent(queued) || isExpired(queued, now)) {
+						it.remove();
+						this.queueSize.decrementAndGet();
+						expire(queued);
+					}
+				}
+			}
+			finally {
+				this.purging.set(false);
+			}
+		}
+
+		if (this.maximumSize > 0) {
+			while (store.size() > this.maximumSize) {
+				Entry candidate = this.evictionQueue.poll();
+				if (candidate == null) {
+					break;
+				}
+				this.queueSize.decrementAndGet();
+				if (isCurrent(candidate)) {
+					if (candidate.accessed && !isExpired(candidate, now)) {
+						// Second chance for recently accessed entry
+						candidate.accessed = false;
+						this.evictionQueue.offer(candidate);
+						this.queueSize.incrementAndGet();
+					}
+					else {
+						expire(candidate);
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Holder for a store value along with its eviction metadata.
+	 */
+	private static final class Entry {
+
+		final Object key;
+
+		final Object value;
+
+		final long writeTime;
+
+		volatile long accessTime;
+
+		volatile boolean accessed;
+
+		Entry(Object key, Object value, long writeTime) {
+			this.key = key;
+			this.value = value;
+			this.writeTime = writeTime;
+			this.accessTime = writeTime;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +29,7 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.core.serializer.support.SerializationDelegate;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ObjectUtils;
 
 /**
  * {@link CacheManager} implementation that lazily builds {@link ConcurrentMapCache}
@@ -35,7 +37,11 @@ import org.springframework.lang.Nullable;
  * the set of cache names is pre-defined through {@link #setCacheNames}, with no
  * dynamic creation of further cache regions at runtime.
  *
- * <p>Note: This is by no means a sophisticated CacheManager; it comes with no
+ * <p>By default, the caches are unbounded. A maximum number of entries and/or
+ * expiration after write or access may be configured, in which case
+ * {@link BoundedConcurrentMapCache} instances are being built instead.
+ *
+ * <p>Note: This is by no means a sophisticated CacheManager; it comes with few
  * cache configuration options. However, it may be useful for testing or simple
  * caching scenarios. For advanced local caching needs, consider
  * {@link org.springframework.cache.jcache.JCacheCacheManager},
@@ -56,6 +62,14 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 
 	private boolean storeByValue = false;
 
+	private long maximumSize = 0;
+
+	@Nullable
+	private Duration expireAfterWrite;
+
+	@Nullable
+	private Duration expireAfterAccess;
+
 	@Nullable
 	private SerializationDelegate serialization;
 
@@ -146,6 +160,71 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 		return this.storeByValue;
 	}
 
+	/**
+	 * Specify the maximum number of entries for each cache in this cache manager.
+	 * <p>Default is "0", not imposing any size limit.
+	 * <p>Note: A change of the maximum size will reset all existing caches,
+	 * if any, to reconfigure them with the new size limit.
+	 * @since 5.3.23
+	 * @see BoundedConcurrentMapCache
+	 */
+	public void setMaximumSize(long maximumSize) {
+		if (maximumSize != this.maximumSize) {
+			this.maximumSize = maximumSize;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return the maximum number of entries for each cache in this cache manager,
+	 * or {@code 0} if not imposing any size limit.
+	 * @since 5.3.23
+	 */
+	public long getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Specify the time after which entries expire once written,
+	 * for each cache in this cache manager.
+	 * <p>Default is none, not expiring entries after write.
+	 * <p>Note: A change of the expiration setting will reset all existing caches,
+	 * if any, to reconfigure them with the new expiration policy.
+	 * @since 5.3.23
+	 * @see BoundedConcurrentMapCache
+	 */
+	public void setExpireAfterWrite(@Nullable Duration expireAfterWrite) {
+		if (!ObjectUtils.nullSafeEquals(expireAfterWrite, this.expireAfterWrite)) {
+			this.expireAfterWrite = expireAfterWrite;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Specify the time after which entries expire once last accessed,
+	 * for each cache in this cache manager.
+	 * <p>Default is none, not expiring entries after access.
+	 * <p>Note: A change of the expiration setting will reset all existing caches,
+	 * if any, to reconfigure them with the new expiration policy.
+	 * @since 5.3.23
+	 * @see BoundedConcurrentMapCache
+	 */
+	public void setExpireAfterAccess(@Nullable Duration expireAfterAccess) {
+		if (!ObjectUtils.nullSafeEquals(expireAfterAccess, this.expireAfterAccess)) {
+			this.expireAfterAccess = expireAfterAccess;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return whether the caches in this cache manager are bounded,
+	 * i.e. whether a maximum size or an expiration policy has been configured.
+	 * @since 5.3.23
+	 */
+	public boolean isBounded() {
+		return (this.maximumSize > 0 || this.expireAfterWrite != null || this.expireAfterAccess != null);
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.serialization = new SerializationDelegate(classLoader);
@@ -190,6 +269,10 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	 */
 	protected Cache createConcurrentMapCache(String name) {
 		SerializationDelegate actualSerialization = (isStoreByValue() ? this.serialization : null);
+		if (isBounded()) {
+			return new BoundedConcurrentMapCache(name, this.maximumSize, this.expireAfterWrite,
+					this.expireAfterAccess, isAllowNullValues(), actualSerialization);
+		}
 		return new ConcurrentMapCache(name, new ConcurrentHashMap<>(256), isAllowNullValues(), actualSerialization);
 	}
 
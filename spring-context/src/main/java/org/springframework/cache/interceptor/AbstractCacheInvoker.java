@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.cache.interceptor;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.cache.Cache;
 import org.springframework.lang.Nullable;
 import org.springframework.util.function.SingletonSupplier;
@@ -23,6 +25,7 @@ import org.springframework.util.function.SingletonSupplier;
 /**
  * A base component for invoking {@link Cache} operations and using a
  * configurable {@link CacheErrorHandler} when an exception occurs.
+ * Operations may be recorded through a {@link CacheMetricsRecorder}.
  *
  * @author Stephane Nicoll
  * @author Juergen Hoeller
@@ -33,6 +36,9 @@ public abstract class AbstractCacheInvoker {
 
 	protected SingletonSupplier<CacheErrorHandler> errorHandler;
 
+	@Nullable
+	private CacheMetricsRecorder metricsRecorder;
+
 
 	protected AbstractCacheInvoker() {
 		this.errorHandler = SingletonSupplier.of(SimpleCacheErrorHandler::new);
@@ -59,6 +65,25 @@ public abstract class AbstractCacheInvoker {
 		return this.errorHandler.obtain();
 	}
 
+	/**
+	 * Set the {@link CacheMetricsRecorder} to record cache operations with,
+	 * such as a {@link SimpleCacheMetricsRecorder}.
+	 * <p>By default, no statistics are recorded.
+	 * @since 5.3.23
+	 */
+	public void setMetricsRecorder(@Nullable CacheMetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	/**
+	 * Return the {@link CacheMetricsRecorder} to use, if any.
+	 * @since 5.3.23
+	 */
+	@Nullable
+	public CacheMetricsRecorder getMetricsRecorder() {
+		return this.metricsRecorder;
+	}
+
 
 	/**
 	 * Execute {@link Cache#get(Object)} on the specified {@link Cache} and
@@ -69,13 +94,82 @@ public abstract class AbstractCacheInvoker {
 	 */
 	@Nullable
 	protected Cache.ValueWrapper doGet(Cache cache, Object key) {
+		Cache.ValueWrapper wrapper;
 		try {
-			return cache.get(key);
+			wrapper = cache.get(key);
 		}
 		catch (RuntimeException ex) {
 			getErrorHandler().handleCacheGetError(ex, cache, key);
 			return null;  // If the exception is handled, return a cache miss
 		}
+		CacheMetricsRecorder metricsRecorder = this.metricsRecorder;
+		if (metricsRecorder != null) {
+			if (wrapper != null) {
+				metricsRecorder.recordHit(cache);
+			}
+			else {
+				metricsRecorder.recordMiss(cache);
+			}
+		}
+		return wrapper;
+	}
+
+	/**
+	 * Execute {@link Cache#retrieve(Object)} on the specified {@link Cache} and
+	 * invoke the error handler if an exception occurs. Return {@code null}
+	 * if the handler does not throw any exception, which simulates a cache
+	 * miss in case of error.
+	 * <p>For a {@link Cache} which does not support {@code CompletableFuture}-based
+	 * retrieval, this falls back to {@link #doGet}, exposing its result as
+	 * a completed {@code CompletableFuture}.
+	 * @since 5.3.23
+	 * @see Cache#retrieve(Object)
+	 */
+	@Nullable
+	protected CompletableFuture<?> doRetrieve(Cache cache, Object key) {
+		CompletableFuture<?> result;
+		try {
+			result = cache.retrieve(key);
+		}
+		catch (UnsupportedOperationException ex) {
+			Cache.ValueWrapper wrapper = doGet(cache, key);
+			return (wrapper != null ? CompletableFuture.completedFuture(wrapper) : null);
+		}
+		catch (RuntimeException ex) {
+			getErrorHandler().handleCacheGetError(ex, cache, key);
+			return null;  // If the exception is handled, return a cache miss
+		}
+		CacheMetricsRecorder metricsRecorder = this.metricsRecorder;
+		if (metricsRecorder != null) {
+			if (result == null) {
+				metricsRecorder.recordMiss(cache);
+			}
+			else {
+				result = result.whenComplete((value, ex) -> {
+					if (value != null) {
+						metricsRecorder.recordHit(cache);
+					}
+					else if (ex == null) {
+						metricsRecorder.recordMiss(cache);
+					}
+				});
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Record the invocation of the underlying method for a value to be stored
+	 * in the given cache, if a {@link CacheMetricsRecorder} has been set.
+	 * @param cache the cache the value is loaded for
+	 * @param loadTimeNanos the time taken by the invocation, in nanoseconds
+	 * @since 5.3.23
+	 * @see CacheMetricsRecorder#recordLoad
+	 */
+	protected void recordLoad(Cache cache, long loadTimeNanos) {
+		if (this.metricsRecorder != null) {
+			this.metricsRecorder.recordLoad(cache, loadTimeNanos);
+		}
 	}
 
 	/**
@@ -88,6 +182,10 @@ public abstract class AbstractCacheInvoker {
 		}
 		catch (RuntimeException ex) {
 			getErrorHandler().handleCachePutError(ex, cache, key, result);
+			return;
+		}
+		if (this.metricsRecorder != null) {
+			this.metricsRecorder.recordPut(cache);
 		}
 	}
 
@@ -106,6 +204,10 @@ public abstract class AbstractCacheInvoker {
 		}
 		catch (RuntimeException ex) {
 			getErrorHandler().handleCacheEvictError(ex, cache, key);
+			return;
+		}
+		if (this.metricsRecorder != null) {
+			this.metricsRecorder.recordEviction(cache, false);
 		}
 	}
 
@@ -124,6 +226,10 @@ public abstract class AbstractCacheInvoker {
 		}
 		catch (RuntimeException ex) {
 			getErrorHandler().handleCacheClearError(ex, cache);
+			return;
+		}
+		if (this.metricsRecorder != null) {
+			this.metricsRecorder.recordEviction(cache, true);
 		}
 	}
 
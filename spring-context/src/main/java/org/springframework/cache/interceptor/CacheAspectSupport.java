@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,11 +24,19 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
@@ -41,8 +49,11 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -69,6 +80,10 @@ import org.springframework.util.function.SupplierUtils;
  * used for determining caching operations, a {@link KeyGenerator} will build the
  * cache keys, and a {@link CacheResolver} will resolve the actual cache(s) to use.
  *
+ * <p>Concurrent cache misses for the same key(s) may optionally be coalesced,
+ * letting a single invocation compute the value that all callers receive:
+ * see {@link #setCoalesceInvocations}.
+ *
  * <p>Note: A cache aspect is serializable but does not perform any actual caching
  * after deserialization.
  *
@@ -83,12 +98,19 @@ import org.springframework.util.function.SupplierUtils;
 public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		implements BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
 
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Mono", CacheAspectSupport.class.getClassLoader());
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
 
 	private final CacheOperationExpressionEvaluator evaluator = new CacheOperationExpressionEvaluator();
 
+	private final ConcurrentMap<Object, InFlightInvocation> inFlightInvocations = new ConcurrentHashMap<>(64);
+
+	private final ConcurrentMap<Object, CompletableFuture<Object>> inFlightAsyncInvocations = new ConcurrentHashMap<>(64);
+
 	@Nullable
 	private CacheOperationSource cacheOperationSource;
 
@@ -100,6 +122,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private BeanFactory beanFactory;
 
+	private boolean coalesceInvocations = false;
+
 	private boolean initialized = false;
 
 
@@ -194,6 +218,33 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		this.cacheResolver = SingletonSupplier.of(new SimpleCacheResolver(cacheManager));
 	}
 
+	/**
+	 * Specify whether concurrent invocations missing the same cache entries should
+	 * be coalesced into a single invocation of the underlying method.
+	 * <p>Default is "false". Switch this to "true" in order to let the first caller
+	 * compute the value for a given set of caches and keys, with concurrent callers
+	 * for the same caches and keys waiting for the outcome of that invocation
+	 * instead of invoking the method themselves. In contrast to
+	 * {@link org.springframework.cache.annotation.Cacheable#sync()}, this works with
+	 * any {@link Cache} implementation and may be combined with an {@code unless}
+	 * condition, multiple caches as well as further cache operations.
+	 * <p>Note that an exception thrown by the coalesced invocation is propagated
+	 * to all callers that have been waiting for it.
+	 * @since 5.3.23
+	 */
+	public void setCoalesceInvocations(boolean coalesceInvocations) {
+		this.coalesceInvocations = coalesceInvocations;
+	}
+
+	/**
+	 * Return whether concurrent invocations missing the same cache entries
+	 * are coalesced into a single invocation.
+	 * @since 5.3.23
+	 */
+	public boolean isCoalesceInvocations() {
+		return this.coalesceInvocations;
+	}
+
 	/**
 	 * Set the containing {@link BeanFactory} for {@link CacheManager} and other
 	 * service lookups.
@@ -228,6 +279,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 						"Register a CacheManager bean or remove the @EnableCaching annotation from your configuration.", ex);
 			}
 		}
+		if (getMetricsRecorder() == null && this.beanFactory != null) {
+			// Record statistics with a unique CacheMetricsRecorder bean, if any
+			setMetricsRecorder(this.beanFactory.getBeanProvider(CacheMetricsRecorder.class).getIfUnique());
+		}
 		this.initialized = true;
 	}
 
@@ -378,6 +433,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
 				Object key = generateKey(context, CacheOperationExpressionEvaluator.NO_RESULT);
 				Cache cache = context.getCaches().iterator().next();
+				AsyncResultAdapter asyncAdapter = contexts.getAsyncResultAdapter();
+				if (asyncAdapter != null) {
+					return asyncAdapter.fromFuture(() -> handleSynchronizedRetrieve(invoker, asyncAdapter, key, cache));
+				}
 				try {
 					return wrapCacheValue(method, handleSynchronizedGet(invoker, key, cache));
 				}
@@ -393,6 +452,12 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 		}
 
+		// Asynchronous handling of CompletableFuture and reactive return values
+		AsyncResultAdapter asyncAdapter = contexts.getAsyncResultAdapter();
+		if (asyncAdapter != null && (!contexts.get(CacheableOperation.class).isEmpty() ||
+				!contexts.get(CachePutOperation.class).isEmpty())) {
+			return asyncAdapter.fromFuture(() -> executeAsync(invoker, asyncAdapter, contexts));
+		}
 
 		// Process any early evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
@@ -417,9 +482,23 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			returnValue = wrapCacheValue(method, cacheValue);
 		}
 		else {
-			// Invoke the method if we don't have a cache hit
-			returnValue = invokeOperation(invoker);
+			boolean recordLoad = (getMetricsRecorder() != null);
+			long startTime = (recordLoad ? System.nanoTime() : 0);
+			InvocationAwareResult invocationResult = new InvocationAwareResult();
+			if (cacheHit == null && !cachePutRequests.isEmpty() && this.coalesceInvocations) {
+				// Invoke the method once for all concurrent callers missing the same entries
+				returnValue = invokeCoalesced(invoker, cachePutRequests, invocationResult);
+			}
+			else {
+				// Invoke the method if we don't have a cache hit
+				returnValue = invokeOperation(invoker);
+				invocationResult.invoked = true;
+			}
 			cacheValue = unwrapReturnValue(returnValue);
+			if (recordLoad && invocationResult.invoked) {
+				// Callers that joined another caller's invocation did not load anything
+				recordLoad(cachePutRequests, System.nanoTime() - startTime);
+			}
 		}
 
 		// Collect any explicit @CachePuts
@@ -439,19 +518,286 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private Object handleSynchronizedGet(CacheOperationInvoker invoker, Object key, Cache cache) {
 		InvocationAwareResult invocationResult = new InvocationAwareResult();
+		CacheMetricsRecorder metricsRecorder = getMetricsRecorder();
 		Object result = cache.get(key, () -> {
 			invocationResult.invoked = true;
 			if (logger.isTraceEnabled()) {
 				logger.trace("No cache entry for key '" + key + "' in cache " + cache.getName());
 			}
+			if (metricsRecorder != null) {
+				metricsRecorder.recordMiss(cache);
+				long startTime = System.nanoTime();
+				Object value = unwrapReturnValue(invokeOperation(invoker));
+				metricsRecorder.recordLoad(cache, System.nanoTime() - startTime);
+				return value;
+			}
 			return unwrapReturnValue(invokeOperation(invoker));
 		});
-		if (!invocationResult.invoked && logger.isTraceEnabled()) {
-			logger.trace("Cache entry for key '" + key + "' found in cache '" + cache.getName() + "'");
+		if (!invocationResult.invoked) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Cache entry for key '" + key + "' found in cache '" + cache.getName() + "'");
+			}
+			if (metricsRecorder != null) {
+				metricsRecorder.recordHit(cache);
+			}
 		}
 		return result;
 	}
 
+	private CompletableFuture<?> handleSynchronizedRetrieve(
+			CacheOperationInvoker invoker, AsyncResultAdapter adapter, Object key, Cache cache) {
+
+		CacheMetricsRecorder metricsRecorder = getMetricsRecorder();
+		InvocationAwareResult invocationResult = new InvocationAwareResult();
+		CompletableFuture<?> result;
+		try {
+			result = cache.retrieve(key, () -> {
+				invocationResult.invoked = true;
+				if (logger.isTraceEnabled()) {
+					logger.trace("No cache entry for key '" + key + "' in cache " + cache.getName());
+				}
+				if (metricsRecorder != null) {
+					metricsRecorder.recordMiss(cache);
+					long startTime = System.nanoTime();
+					return invokeAsyncOperation(invoker, adapter).whenComplete((value, ex) ->
+							metricsRecorder.recordLoad(cache, System.nanoTime() - startTime));
+				}
+				return invokeAsyncOperation(invoker, adapter);
+			});
+		}
+		catch (UnsupportedOperationException ex) {
+			// Cache without CompletableFuture-based retrieval: cache the returned object itself
+			try {
+				return adapter.toFuture(handleSynchronizedGet(invoker, key, cache));
+			}
+			catch (Cache.ValueRetrievalException ex2) {
+				return failedFuture(ex2.getCause());
+			}
+		}
+		// Unwrap ValueRetrievalException and ThrowableWrapper for the caller
+		CompletableFuture<Object> unwrapped = new CompletableFuture<>();
+		result.whenComplete((value, ex) -> {
+			if (metricsRecorder != null && ex == null && !invocationResult.invoked) {
+				metricsRecorder.recordHit(cache);
+			}
+			if (ex != null) {
+				Throwable cause = unwrapAsyncFailure(ex);
+				if (cause instanceof Cache.ValueRetrievalException && cause.getCause() != null) {
+					cause = unwrapAsyncFailure(cause.getCause());
+				}
+				unwrapped.completeExceptionally(cause);
+			}
+			else {
+				unwrapped.complete(value);
+			}
+		});
+		return unwrapped;
+	}
+
+	private CompletableFuture<?> executeAsync(
+			CacheOperationInvoker invoker, AsyncResultAdapter adapter, CacheOperationContexts contexts) {
+
+		// Process any early evictions
+		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
+				CacheOperationExpressionEvaluator.NO_RESULT);
+
+		// Collect puts from any @Cacheable miss, along with the keys to look up
+		List<CachePutRequest> cachePutRequests = new ArrayList<>();
+		collectPutRequests(contexts.get(CacheableOperation.class),
+				CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
+		boolean cachePut = hasCachePut(contexts);
+
+		// Check if we have a cached item matching the conditions, without blocking
+		CompletableFuture<Cache.ValueWrapper> cacheHit = CompletableFuture.completedFuture(null);
+		for (CachePutRequest cachePutRequest : cachePutRequests) {
+			for (Cache cache : cachePutRequest.context.getCaches()) {
+				cacheHit = cacheHit.thenCompose(hit -> (hit != null ?
+						CompletableFuture.completedFuture(hit) : retrieveFromCache(cache, cachePutRequest.key)));
+			}
+		}
+
+		return cacheHit.thenCompose(hit -> {
+			if (hit != null && !cachePut) {
+				// If there are no put requests, just use the cache hit
+				Object cacheValue = hit.get();
+				completeAsyncExecution(contexts, Collections.emptyList(), cacheValue);
+				return CompletableFuture.completedFuture(cacheValue);
+			}
+			List<CachePutRequest> putRequests = (hit == null ? cachePutRequests : new ArrayList<>());
+			CacheMetricsRecorder metricsRecorder = getMetricsRecorder();
+			long startTime = (metricsRecorder != null ? System.nanoTime() : 0);
+			InvocationAwareResult invocationResult = new InvocationAwareResult();
+			CompletableFuture<?> result;
+			if (hit == null && !putRequests.isEmpty() && this.coalesceInvocations) {
+				result = invokeAsyncCoalesced(invoker, adapter, putRequests, invocationResult);
+			}
+			else {
+				result = invokeAsyncOperation(invoker, adapter);
+				invocationResult.invoked = true;
+			}
+			// Callers that joined another caller's invocation did not load anything
+			boolean recordLoad = (metricsRecorder != null && invocationResult.invoked);
+			return result.thenApply(cacheValue -> {
+				if (recordLoad) {
+					recordLoad(putRequests, System.nanoTime() - startTime);
+				}
+				completeAsyncExecution(contexts, putRequests, cacheValue);
+				return cacheValue;
+			});
+		});
+	}
+
+	private void recordLoad(List<CachePutRequest> cachePutRequests, long loadTimeNanos) {
+		for (CachePutRequest cachePutRequest : cachePutRequests) {
+			for (Cache cache : cachePutRequest.context.getCaches()) {
+				recordLoad(cache, loadTimeNanos);
+			}
+		}
+	}
+
+	private CompletableFuture<Cache.ValueWrapper> retrieveFromCache(Cache cache, Object key) {
+		CompletableFuture<?> result = doRetrieve(cache, key);
+		if (result == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return result.handle((value, ex) -> {
+			if (ex != null) {
+				Throwable cause = unwrapAsyncFailure(ex);
+				getErrorHandler().handleCacheGetError((cause instanceof RuntimeException ?
+						(RuntimeException) cause : new IllegalStateException(cause)), cache, key);
+				return null;  // If the exception is handled, return a cache miss
+			}
+			if (value == null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("No cache entry for key '" + key + "' in cache '" + cache.getName() + "'");
+				}
+				return null;
+			}
+			if (logger.isTraceEnabled()) {
+				logger.trace("Cache entry for key '" + key + "' found in cache '" + cache.getName() + "'");
+			}
+			return (value instanceof Cache.ValueWrapper ? (Cache.ValueWrapper) value : new SimpleValueWrapper(value));
+		});
+	}
+
+	private void completeAsyncExecution(CacheOperationContexts contexts,
+			List<CachePutRequest> cachePutRequests, @Nullable Object cacheValue) {
+
+		// Collect any explicit @CachePuts
+		List<CachePutRequest> putRequests = new ArrayList<>(cachePutRequests);
+		collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, putRequests);
+
+		// Process any collected put requests, either from @CachePut or a @Cacheable miss
+		for (CachePutRequest cachePutRequest : putRequests) {
+			cachePutRequest.apply(cacheValue);
+		}
+
+		// Process any late evictions
+		processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
+	}
+
+	@SuppressWarnings("unchecked")
+	private CompletableFuture<Object> invokeAsyncOperation(CacheOperationInvoker invoker, AsyncResultAdapter adapter) {
+		try {
+			return (CompletableFuture<Object>) adapter.toFuture(invokeOperation(invoker));
+		}
+		catch (CacheOperationInvoker.ThrowableWrapper ex) {
+			return failedFuture(ex.getOriginal());
+		}
+		catch (RuntimeException | Error ex) {
+			return failedFuture(ex);
+		}
+	}
+
+	private CompletableFuture<?> invokeAsyncCoalesced(CacheOperationInvoker invoker, AsyncResultAdapter adapter,
+			List<CachePutRequest> cachePutRequests, InvocationAwareResult invocationResult) {
+
+		Object flightKey = createFlightKey(cachePutRequests);
+		CompletableFuture<Object> flight = new CompletableFuture<>();
+		CompletableFuture<Object> existingFlight = this.inFlightAsyncInvocations.putIfAbsent(flightKey, flight);
+		if (existingFlight != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Joining in-flight invocation for cache entries " + flightKey);
+			}
+			// Dependent stage: cancellation by one caller does not affect the others
+			return existingFlight.thenApply(Function.identity());
+		}
+		invocationResult.invoked = true;
+		invokeAsyncOperation(invoker, adapter).whenComplete((value, ex) -> {
+			this.inFlightAsyncInvocations.remove(flightKey, flight);
+			if (ex != null) {
+				flight.completeExceptionally(unwrapAsyncFailure(ex));
+			}
+			else {
+				flight.complete(value);
+			}
+		});
+		return flight.thenApply(Function.identity());
+	}
+
+	private static Throwable unwrapAsyncFailure(Throwable ex) {
+		return (ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+	}
+
+	private static CompletableFuture<Object> failedFuture(Throwable ex) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		future.completeExceptionally(ex);
+		return future;
+	}
+
+	private Object createFlightKey(List<CachePutRequest> cachePutRequests) {
+		List<Object> flightKey = new ArrayList<>(cachePutRequests.size() * 2);
+		for (CachePutRequest cachePutRequest : cachePutRequests) {
+			flightKey.add(new ArrayList<>(cachePutRequest.context.getCaches()));
+			flightKey.add(cachePutRequest.key);
+		}
+		return flightKey;
+	}
+
+	@Nullable
+	private Object invokeCoalesced(CacheOperationInvoker invoker, List<CachePutRequest> cachePutRequests,
+			InvocationAwareResult invocationResult) {
+
+		Object flightKey = createFlightKey(cachePutRequests);
+		InFlightInvocation flight = new InFlightInvocation();
+		InFlightInvocation existingFlight = this.inFlightInvocations.putIfAbsent(flightKey, flight);
+		if (existingFlight == null) {
+			invocationResult.invoked = true;
+			try {
+				Object result = invokeOperation(invoker);
+				flight.future.complete(result);
+				return result;
+			}
+			catch (RuntimeException | Error ex) {
+				flight.future.completeExceptionally(ex);
+				throw ex;
+			}
+			finally {
+				this.inFlightInvocations.remove(flightKey, flight);
+			}
+		}
+		if (existingFlight.thread == Thread.currentThread()) {
+			// Reentrant invocation for the same entries: cannot wait for ourselves
+			invocationResult.invoked = true;
+			return invokeOperation(invoker);
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Awaiting in-flight invocation for cache entries " + flightKey);
+		}
+		try {
+			return existingFlight.future.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			invocationResult.invoked = true;
+			return invokeOperation(invoker);
+		}
+		catch (ExecutionException ex) {
+			ReflectionUtils.rethrowRuntimeException(ex.getCause());
+			return null;
+		}
+	}
+
 	@Nullable
 	private Object wrapCacheValue(Method method, @Nullable Object cacheValue) {
 		if (method.getReturnType() == Optional.class &&
@@ -607,14 +953,21 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final boolean sync;
 
+		@Nullable
+		private final AsyncResultAdapter asyncResultAdapter;
+
 		public CacheOperationContexts(Collection<? extends CacheOperation> operations, Method method,
 				Object[] args, Object target, Class<?> targetClass) {
 
 			this.contexts = new LinkedMultiValueMap<>(operations.size());
+			AsyncResultAdapter asyncResultAdapter = null;
 			for (CacheOperation op : operations) {
-				this.contexts.add(op.getClass(), getOperationContext(op, method, args, target, targetClass));
+				CacheOperationContext context = getOperationContext(op, method, args, target, targetClass);
+				this.contexts.add(op.getClass(), context);
+				asyncResultAdapter = context.metadata.asyncResultAdapter;
 			}
 			this.sync = determineSyncFlag(method);
+			this.asyncResultAdapter = asyncResultAdapter;
 		}
 
 		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
@@ -626,6 +979,11 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			return this.sync;
 		}
 
+		@Nullable
+		public AsyncResultAdapter getAsyncResultAdapter() {
+			return this.asyncResultAdapter;
+		}
+
 		private boolean determineSyncFlag(Method method) {
 			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
 			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
@@ -684,6 +1042,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final CacheResolver cacheResolver;
 
+		@Nullable
+		private final AsyncResultAdapter asyncResultAdapter;
+
 		public CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
 				KeyGenerator keyGenerator, CacheResolver cacheResolver) {
 
@@ -695,6 +1056,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			this.methodKey = new AnnotatedElementKey(this.targetMethod, targetClass);
 			this.keyGenerator = keyGenerator;
 			this.cacheResolver = cacheResolver;
+			this.asyncResultAdapter = AsyncResultAdapter.forReturnType(this.method.getReturnType());
 		}
 	}
 
@@ -885,6 +1247,96 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 	}
 
+	/**
+	 * Internal holder for an invocation that concurrent callers may wait for.
+	 */
+	private static class InFlightInvocation {
+
+		final Thread thread = Thread.currentThread();
+
+		final CompletableFuture<Object> future = new CompletableFuture<>();
+	}
+
+
+	/**
+	 * Adapter between an asynchronous return value and a {@link CompletableFuture}
+	 * for the value to be cached: either a {@code CompletableFuture} itself or a
+	 * single-value or multi-value reactive type supported by Reactor.
+	 * <p>Multi-value types are cached as a {@link List} of their elements.
+	 */
+	private abstract static class AsyncResultAdapter {
+
+		@Nullable
+		static AsyncResultAdapter forReturnType(Class<?> returnType) {
+			if (CompletableFuture.class == returnType) {
+				return CompletableFutureResultAdapter.INSTANCE;
+			}
+			if (reactorPresent) {
+				ReactiveAdapter adapter = ReactiveAdapterRegistry.getSharedInstance().getAdapter(returnType);
+				if (adapter != null && !adapter.isNoValue()) {
+					return new ReactiveResultAdapter(adapter);
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Expose the given method return value as a future for its cache value.
+		 */
+		abstract CompletableFuture<?> toFuture(@Nullable Object returnValue);
+
+		/**
+		 * Create a return value of the method's type, backed by the future
+		 * from the given supplier (possibly obtained lazily).
+		 */
+		abstract Object fromFuture(Supplier<CompletableFuture<?>> futureSupplier);
+	}
+
+
+	private static class CompletableFutureResultAdapter extends AsyncResultAdapter {
+
+		static final CompletableFutureResultAdapter INSTANCE = new CompletableFutureResultAdapter();
+
+		@Override
+		CompletableFuture<?> toFuture(@Nullable Object returnValue) {
+			return (returnValue != null ? (CompletableFuture<?>) returnValue : CompletableFuture.completedFuture(null));
+		}
+
+		@Override
+		Object fromFuture(Supplier<CompletableFuture<?>> futureSupplier) {
+			return futureSupplier.get();
+		}
+	}
+
+
+	/**
+	 * Inner class to avoid a hard dependency on Reactor at runtime.
+	 */
+	private static class ReactiveResultAdapter extends AsyncResultAdapter {
+
+		private final ReactiveAdapter adapter;
+
+		ReactiveResultAdapter(ReactiveAdapter adapter) {
+			this.adapter = adapter;
+		}
+
+		@Override
+		CompletableFuture<?> toFuture(@Nullable Object returnValue) {
+			Publisher<?> publisher = this.adapter.toPublisher(returnValue);
+			return (this.adapter.isMultiValue() ?
+					Flux.from(publisher).collectList().toFuture() : Mono.from(publisher).toFuture());
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Object fromFuture(Supplier<CompletableFuture<?>> futureSupplier) {
+			Mono<Object> mono = Mono.defer(() -> Mono.fromFuture((CompletableFuture<Object>) futureSupplier.get()));
+			return this.adapter.fromPublisher(this.adapter.isMultiValue() ?
+					mono.flatMapIterable(list -> (Iterable<?>) list) : mono);
+		}
+	}
+
+
 	/**
 	 * Internal holder class for recording that a cache method was invoked.
 	 */
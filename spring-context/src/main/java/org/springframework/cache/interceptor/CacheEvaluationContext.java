@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,18 +17,25 @@
 package org.springframework.cache.interceptor;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
 import org.springframework.context.expression.MethodBasedEvaluationContext;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ObjectUtils;
 
 /**
  * Cache specific evaluation context that adds a method parameters as SpEL
  * variables, in a lazy manner. The lazy nature eliminates unneeded
  * parsing of classes byte code for parameter discovery.
  *
+ * <p>Method arguments are resolved individually when the corresponding
+ * variable is accessed, rather than binding all of them at once: an
+ * expression such as {@code #p0} or {@code #id} only looks up the
+ * argument it actually refers to.
+ *
  * <p>Also define a set of "unavailable variables" (i.e. variables that should
  * lead to an exception right the way when they are accessed). This can be useful
  * to verify a condition does not match even when not all potential variables
@@ -46,11 +53,20 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 
 	private final Set<String> unavailableVariables = new HashSet<>(1);
 
+	private final Method method;
+
+	private final Object[] arguments;
+
+	private final ParameterNameDiscoverer parameterNameDiscoverer;
+
 
 	CacheEvaluationContext(Object rootObject, Method method, Object[] arguments,
 			ParameterNameDiscoverer parameterNameDiscoverer) {
 
 		super(rootObject, method, arguments, parameterNameDiscoverer);
+		this.method = method;
+		this.arguments = arguments;
+		this.parameterNameDiscoverer = parameterNameDiscoverer;
 	}
 
 
@@ -75,7 +91,66 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 		if (this.unavailableVariables.contains(name)) {
 			throw new VariableNotAvailableException(name);
 		}
-		return super.lookupVariable(name);
+		Object variable = super.lookupVariable(name);
+		if (variable != null) {
+			return variable;
+		}
+		int argumentIndex = getArgumentIndex(name);
+		return (argumentIndex >= 0 ? getArgument(argumentIndex) : null);
+	}
+
+	/**
+	 * Method arguments are resolved individually on lookup.
+	 * @see #lookupVariable(String)
+	 */
+	@Override
+	protected void lazyLoadArguments() {
+	}
+
+	/**
+	 * Determine the index of the method argument exposed under the given
+	 * variable name, either a parameter name or a {@code pX}/{@code aX} alias.
+	 * @return the argument index, or {@code -1} if none
+	 */
+	private int getArgumentIndex(String name) {
+		if (ObjectUtils.isEmpty(this.arguments)) {
+			return -1;
+		}
+		String[] paramNames = this.parameterNameDiscoverer.getParameterNames(this.method);
+		int paramCount = (paramNames != null ? paramNames.length : this.method.getParameterCount());
+		if (paramNames != null) {
+			// Parameter names take precedence over aliases, as with eager loading
+			for (int i = paramCount - 1; i >= 0; i--) {
+				if (name.equals(paramNames[i])) {
+					return i;
+				}
+			}
+		}
+		if (name.length() > 1 && (name.charAt(0) == 'a' || name.charAt(0) == 'p') &&
+				(name.length() == 2 || name.charAt(1) != '0')) {
+			int index = 0;
+			for (int i = 1; i < name.length(); i++) {
+				char ch = name.charAt(i);
+				if (ch < '0' || ch > '9' || index > paramCount) {
+					return -1;
+				}
+				index = index * 10 + (ch - '0');
+			}
+			return (index < paramCount ? index : -1);
+		}
+		return -1;
+	}
+
+	@Nullable
+	private Object getArgument(int index) {
+		String[] paramNames = this.parameterNameDiscoverer.getParameterNames(this.method);
+		int paramCount = (paramNames != null ? paramNames.length : this.method.getParameterCount());
+		int argsCount = this.arguments.length;
+		if (argsCount > paramCount && index == paramCount - 1) {
+			// Expose remaining arguments as vararg array for last parameter
+			return Arrays.copyOfRange(this.arguments, index, argsCount);
+		}
+		return (argsCount > index ? this.arguments[index] : null);
 	}
 
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Strategy for recording statistics about cache operations performed by
+ * the caching abstraction: lookups resulting in a hit or a miss, the time
+ * spent invoking the underlying method on a miss, as well as puts and
+ * evictions.
+ *
+ * <p>Callbacks are invoked on the hot path of every cached method invocation
+ * and should therefore be cheap and non-blocking. Exceptions thrown by an
+ * implementation are propagated to the caller, rather than being handled by
+ * the {@link CacheErrorHandler} like exceptions thrown by the cache itself.
+ *
+ * @since 5.3.23
+ * @see AbstractCacheInvoker#setMetricsRecorder
+ * @see SimpleCacheMetricsRecorder
+ */
+public interface CacheMetricsRecorder {
+
+	/**
+	 * Record a lookup that found an entry in the given cache.
+	 * @param cache the cache that was queried
+	 */
+	void recordHit(Cache cache);
+
+	/**
+	 * Record a lookup that did not find an entry in the given cache.
+	 * @param cache the cache that was queried
+	 */
+	void recordMiss(Cache cache);
+
+	/**
+	 * Record the invocation of the underlying method, following a miss,
+	 * for a value to be stored in the given cache.
+	 * @param cache the cache the value is loaded for
+	 * @param loadTimeNanos the time taken by the invocation, in nanoseconds
+	 */
+	void recordLoad(Cache cache, long loadTimeNanos);
+
+	/**
+	 * Record a put to the given cache.
+	 * @param cache the cache the value was stored in
+	 */
+	void recordPut(Cache cache);
+
+	/**
+	 * Record an eviction of a single entry from the given cache,
+	 * or of all its entries if it has been cleared.
+	 * @param cache the cache the entry was evicted from
+	 * @param allEntries whether all entries of the cache have been evicted
+	 */
+	void recordEviction(Cache cache, boolean allEntries);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.cache.interceptor;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Map;
@@ -26,8 +27,13 @@ import org.springframework.cache.Cache;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.context.expression.CachedExpressionEvaluator;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.SpringProperties;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.lang.Nullable;
 
 /**
@@ -35,7 +41,11 @@ import org.springframework.lang.Nullable;
  * Meant to be used as a reusable, thread-safe component.
  *
  * <p>Performs internal caching for performance reasons
- * using {@link AnnotatedElementKey}.
+ * using {@link AnnotatedElementKey}. Unless a compiler mode is configured
+ * globally through the {@code spring.expression.compiler.mode} property,
+ * expressions are compiled once they have been evaluated a number of times
+ * ({@link SpelCompilerMode#MIXED}), reverting to interpreted evaluation for
+ * expressions that cannot be compiled or fail in compiled form.
  *
  * @author Costin Leau
  * @author Phillip Webb
@@ -67,6 +77,35 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 
 	private final Map<ExpressionKey, Expression> unlessCache = new ConcurrentHashMap<>(64);
 
+	private final ParameterNameDiscoverer parameterNameDiscoverer =
+			new CachingParameterNameDiscoverer(super.getParameterNameDiscoverer());
+
+
+	/**
+	 * Create a new instance using the default parser configuration:
+	 * see {@link #createParserConfiguration()}.
+	 */
+	public CacheOperationExpressionEvaluator() {
+		this(createParserConfiguration());
+	}
+
+	/**
+	 * Create a new instance with the specified parser configuration.
+	 * @since 5.3.23
+	 */
+	CacheOperationExpressionEvaluator(SpelParserConfiguration configuration) {
+		super(new SpelExpressionParser(configuration));
+	}
+
+
+	/**
+	 * Return the {@link ParameterNameDiscoverer} to use, caching the
+	 * parameter names per method.
+	 */
+	@Override
+	protected ParameterNameDiscoverer getParameterNameDiscoverer() {
+		return this.parameterNameDiscoverer;
+	}
 
 	/**
 	 * Create an {@link EvaluationContext}.
@@ -121,6 +160,59 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 		this.keyCache.clear();
 		this.conditionCache.clear();
 		this.unlessCache.clear();
+		((CachingParameterNameDiscoverer) this.parameterNameDiscoverer).clear();
+	}
+
+
+	/**
+	 * Create the default parser configuration, compiling expressions in
+	 * {@link SpelCompilerMode#MIXED} mode unless a compiler mode has been
+	 * specified through the {@code spring.expression.compiler.mode} property.
+	 * @since 5.3.23
+	 */
+	static SpelParserConfiguration createParserConfiguration() {
+		if (SpringProperties.getProperty(SpelParserConfiguration.SPRING_EXPRESSION_COMPILER_MODE_PROPERTY_NAME) != null) {
+			return new SpelParserConfiguration();
+		}
+		return new SpelParserConfiguration(SpelCompilerMode.MIXED, null);
+	}
+
+
+	/**
+	 * {@link ParameterNameDiscoverer} decorator caching the parameter names per method,
+	 * avoiding repeated introspection for every evaluation context.
+	 */
+	private static class CachingParameterNameDiscoverer implements ParameterNameDiscoverer {
+
+		private static final String[] NO_PARAMETER_NAMES = new String[0];
+
+		private final ParameterNameDiscoverer delegate;
+
+		private final Map<Method, String[]> parameterNamesCache = new ConcurrentHashMap<>(64);
+
+		CachingParameterNameDiscoverer(ParameterNameDiscoverer delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames(Method method) {
+			String[] parameterNames = this.parameterNamesCache.computeIfAbsent(method, m -> {
+				String[] names = this.delegate.getParameterNames(m);
+				return (names != null ? names : NO_PARAMETER_NAMES);
+			});
+			return (parameterNames != NO_PARAMETER_NAMES ? parameterNames : null);
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames(Constructor<?> ctor) {
+			return this.delegate.getParameterNames(ctor);
+		}
+
+		void clear() {
+			this.parameterNamesCache.clear();
+		}
 	}
 
 }
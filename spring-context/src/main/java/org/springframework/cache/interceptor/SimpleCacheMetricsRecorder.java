@@ -0,0 +1,231 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.Cache;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.StringUtils;
+
+/**
+ * Default {@link CacheMetricsRecorder} implementation, keeping counters per
+ * cache name in memory. Counters are based on {@link LongAdder} so that
+ * concurrent recording does not contend on a shared variable.
+ *
+ * <p>Annotated for JMX exposure: registered as a bean next to an
+ * {@link org.springframework.jmx.export.annotation.AnnotationMBeanExporter}
+ * (e.g. through {@code @EnableMBeanExport}), the statistics for each cache
+ * can be obtained through the corresponding operations. Any other
+ * {@link org.springframework.jmx.export.MBeanExporter} setup may export
+ * an instance of this class as well.
+ *
+ * @since 5.3.23
+ * @see CacheAspectSupport#setMetricsRecorder
+ */
+@ManagedResource(description = "Statistics of the caching abstraction, per cache name")
+public class SimpleCacheMetricsRecorder implements CacheMetricsRecorder {
+
+	private final Map<String, CacheMetrics> metrics = new ConcurrentHashMap<>(16);
+
+
+	@Override
+	public void recordHit(Cache cache) {
+		getMetrics(cache).hits.increment();
+	}
+
+	@Override
+	public void recordMiss(Cache cache) {
+		getMetrics(cache).misses.increment();
+	}
+
+	@Override
+	public void recordLoad(Cache cache, long loadTimeNanos) {
+		CacheMetrics metrics = getMetrics(cache);
+		metrics.loads.increment();
+		metrics.loadTime.add(loadTimeNanos);
+	}
+
+	@Override
+	public void recordPut(Cache cache) {
+		getMetrics(cache).puts.increment();
+	}
+
+	@Override
+	public void recordEviction(Cache cache, boolean allEntries) {
+		CacheMetrics metrics = getMetrics(cache);
+		if (allEntries) {
+			metrics.clears.increment();
+		}
+		else {
+			metrics.evictions.increment();
+		}
+	}
+
+	private CacheMetrics getMetrics(Cache cache) {
+		CacheMetrics metrics = this.metrics.get(cache.getName());
+		if (metrics == null) {
+			metrics = this.metrics.computeIfAbsent(cache.getName(), name -> new CacheMetrics());
+		}
+		return metrics;
+	}
+
+
+	/**
+	 * Return the names of the caches for which operations have been recorded.
+	 */
+	@ManagedAttribute(description = "Names of the caches with recorded operations")
+	public String[] getCacheNames() {
+		return StringUtils.toStringArray(this.metrics.keySet());
+	}
+
+	/**
+	 * Return the number of lookups that found an entry in the given cache.
+	 */
+	@ManagedOperation(description = "Number of lookups that found an entry")
+	@ManagedOperationParameter(name = "cacheName", description = "The name of the cache")
+	public long getHitCount(String cacheName) {
+		CacheMetrics metrics = this.metrics.get(cacheName);
+		return (metrics != null ? metrics.hits.sum() : 0);
+	}
+
+	/**
+	 * Return the number of lookups that did not find an entry in the given cache.
+	 */
+	@ManagedOperation(description = "Number of lookups that did not find an entry")
+	@ManagedOperationParameter(name = "cacheName", description = "The name of the cache")
+	public long getMissCount(String cacheName) {
+		CacheMetrics metrics = this.metrics.get(cacheName);
+		return (metrics != null ? metrics.misses.sum() : 0);
+	}
+
+	/**
+	 * Return the ratio of lookups that found an entry in the given cache,
+	 * or {@code NaN} if no lookup has been recorded.
+	 */
+	@ManagedOperation(description = "Ratio of lookups that found an entry")
+	@ManagedOperationParameter(name = "cacheName", description = "The name of the cache")
+	public double getHitRatio(String cacheName) {
+		CacheMetrics metrics = this.metrics.get(cacheName);
+		if (metrics == null) {
+			return Double.NaN;
+		}
+		long hits = metrics.hits.sum();
+		long lookups = hits + metrics.misses.sum();
+		return (lookups != 0 ? (double) hits / lookups : Double.NaN);
+	}
+
+	/**
+	 * Return the number of method invocations that loaded a value for the given cache.
+	 */
+	@ManagedOperation(description = "Number of method invocations loading a value")
+	@ManagedOperationParameter(name = "cacheName", description = "The name of the cache")
+	public long getLoadCount(String cacheName) {
+		CacheMetrics metrics = this.metrics.get(cacheName);
+		return (metrics != null ? metrics.loads.sum() : 0);
+	}
+
+	/**
+	 * Return the total time spent loading values for the given cache, in nanoseconds.
+	 */
+	@ManagedOperation(description = "Total time spent loading values, in nanoseconds")
+	@ManagedOperationParameter(name = "cacheName", description = "The name of the cache")
+	public long getTotalLoadTime(String cacheName) {
+		CacheMetrics metrics = this.metrics.get(cacheName);
+		return (metrics != null ? metrics.loadTime.sum() : 0);
+	}
+
+	/**
+	 * Return the average time spent loading a value for the given cache,
+	 * in nanoseconds, or {@code 0} if no load has been recorded.
+	 */
+	@ManagedOperation(description = "Average time spent loading a value, in nanoseconds")
+	@ManagedOperationParameter(name = "cacheName", description = "The name of the cache")
+	public double getAverageLoadTime(String cacheName) {
+		CacheMetrics metrics = this.metrics.get(cacheName);
+		if (metrics == null) {
+			return 0;
+		}
+		long loads = metrics.loads.sum();
+		return (loads != 0 ? (double) metrics.loadTime.sum() / loads : 0);
+	}
+
+	/**
+	 * Return the number of puts to the given cache.
+	 */
+	@ManagedOperation(description = "Number of puts")
+	@ManagedOperationParameter(name = "cacheName", description = "The name of the cache")
+	public long getPutCount(String cacheName) {
+		CacheMetrics metrics = this.metrics.get(cacheName);
+		return (metrics != null ? metrics.puts.sum() : 0);
+	}
+
+	/**
+	 * Return the number of single-entry evictions from the given cache.
+	 */
+	@ManagedOperation(description = "Number of single-entry evictions")
+	@ManagedOperationParameter(name = "cacheName", description = "The name of the cache")
+	public long getEvictionCount(String cacheName) {
+		CacheMetrics metrics = this.metrics.get(cacheName);
+		return (metrics != null ? metrics.evictions.sum() : 0);
+	}
+
+	/**
+	 * Return the number of times all entries have been evicted from the given cache.
+	 */
+	@ManagedOperation(description = "Number of times all entries have been evicted")
+	@ManagedOperationParameter(name = "cacheName", description = "The name of the cache")
+	public long getClearCount(String cacheName) {
+		CacheMetrics metrics = this.metrics.get(cacheName);
+		return (metrics != null ? metrics.clears.sum() : 0);
+	}
+
+	/**
+	 * Reset all statistics.
+	 */
+	@ManagedOperation(description = "Reset all statistics")
+	public void reset() {
+		this.metrics.clear();
+	}
+
+
+	/**
+	 * Counters for a single cache.
+	 */
+	private static class CacheMetrics {
+
+		final LongAdder hits = new LongAdder();
+
+		final LongAdder misses = new LongAdder();
+
+		final LongAdder loads = new LongAdder();
+
+		final LongAdder loadTime = new LongAdder();
+
+		final LongAdder puts = new LongAdder();
+
+		final LongAdder evictions = new LongAdder();
+
+		final LongAdder clears = new LongAdder();
+	}
+
+}
@@ -0,0 +1,766 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.core.io.support.PropertySourceFactory;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Snapshot of the bean definitions derived from a set of root configuration
+ * classes, as captured by {@link BeanDefinitionSnapshotGenerator} at build time
+ * and replayed by {@link ConfigurationClassPostProcessor} at startup instead of
+ * parsing the configuration classes again.
+ *
+ * <p>A snapshot is stored in {@link Properties} format, with indexed keys per
+ * bean definition in registration order. It only applies to a registry whose
+ * configuration class candidates and active profiles are the same as the ones
+ * it has been captured with, and only as long as the class files read during
+ * the original processing are unchanged, as verified through their MD5 hashes.
+ *
+ * <p>{@link PropertySource @PropertySource} declarations processed along
+ * with the configuration classes are recorded with their unresolved locations,
+ * to be added to the {@link Environment} again before the bean definitions
+ * get registered.
+ *
+ * <p>Bean definitions are restored as plain {@link RootBeanDefinition} and
+ * {@link GenericBeanDefinition} instances, without annotation metadata.
+ * Definitions with an instance supplier, method overrides, qualifiers or
+ * values other than bean references and plain values cannot be captured.
+ *
+ * @since 5.3.23
+ * @see BeanDefinitionSnapshotGenerator
+ */
+final class BeanDefinitionSnapshot {
+
+	private static final String ROOT_PREFIX = "root.";
+
+	private static final String PROFILES_KEY = "profiles";
+
+	private static final String BEAN_PREFIX = "bean.";
+
+	private static final String IMPORT_PREFIX = "import.";
+
+	private static final String PROPERTY_SOURCE_PREFIX = "propertySource.";
+
+	private static final String CLASS_PREFIX = "class.";
+
+	private static final Log logger = LogFactory.getLog(BeanDefinitionSnapshot.class);
+
+	private static final ConcurrentMap<ClassLoader, List<BeanDefinitionSnapshot>> cache =
+			new ConcurrentReferenceHashMap<>();
+
+
+	private final Properties properties;
+
+	private final Set<String> roots;
+
+	private final Set<String> profiles;
+
+	@Nullable
+	private volatile Boolean upToDate;
+
+
+	private BeanDefinitionSnapshot(Properties properties) {
+		this.properties = properties;
+		this.roots = new TreeSet<>();
+		for (int i = 0; properties.containsKey(ROOT_PREFIX + i); i++) {
+			this.roots.add(properties.getProperty(ROOT_PREFIX + i));
+		}
+		this.profiles = new TreeSet<>(StringUtils.commaDelimitedListToSet(properties.getProperty(PROFILES_KEY)));
+	}
+
+
+	/**
+	 * Return the {@link Properties} representation of this snapshot.
+	 */
+	Properties getProperties() {
+		return this.properties;
+	}
+
+	/**
+	 * Determine whether this snapshot has been captured for the given
+	 * configuration class candidates and the active profiles of the given
+	 * {@link Environment}.
+	 */
+	boolean matches(Collection<BeanDefinitionHolder> configCandidates, Environment environment) {
+		return (this.roots.equals(rootKeys(configCandidates)) &&
+				this.profiles.equals(new TreeSet<>(Arrays.asList(environment.getActiveProfiles()))));
+	}
+
+	/**
+	 * Determine whether the class files that this snapshot has been captured
+	 * from are unchanged, comparing their hashes as seen through the given
+	 * class loader with the recorded ones.
+	 */
+	boolean isUpToDate(ClassLoader classLoader) {
+		Boolean upToDate = this.upToDate;
+		if (upToDate == null) {
+			upToDate = Boolean.TRUE;
+			for (int i = 0; this.properties.containsKey(CLASS_PREFIX + i + ".name"); i++) {
+				String className = this.properties.getProperty(CLASS_PREFIX + i + ".name");
+				String hash = this.properties.getProperty(CLASS_PREFIX + i + ".hash");
+				if (hash == null || !hash.equals(hashClassFile(className, classLoader))) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Ignoring bean definition snapshot since class file of [" +
+								className + "] has changed");
+					}
+					upToDate = Boolean.FALSE;
+					break;
+				}
+			}
+			this.upToDate = upToDate;
+		}
+		return upToDate;
+	}
+
+	/**
+	 * Register the bean definitions of this snapshot with the given registry.
+	 * @return the number of registered bean definitions
+	 */
+	int registerBeanDefinitions(BeanDefinitionRegistry registry) {
+		Map<String, AbstractBeanDefinition> beanDefinitions = new LinkedHashMap<>();
+		Map<String, String[]> aliases = new HashMap<>();
+		Map<String, String> decoratedDefinitions = new HashMap<>();
+		for (int i = 0; this.properties.containsKey(BEAN_PREFIX + i + ".name"); i++) {
+			String prefix = BEAN_PREFIX + i + ".";
+			String beanName = this.properties.getProperty(prefix + "name");
+			beanDefinitions.put(beanName, readBeanDefinition(prefix));
+			aliases.put(beanName, StringUtils.commaDelimitedListToStringArray(
+					this.properties.getProperty(prefix + "aliases")));
+			String decorated = this.properties.getProperty(prefix + "decoratedDefinition");
+			if (decorated != null) {
+				decoratedDefinitions.put(beanName, decorated);
+			}
+		}
+		decoratedDefinitions.forEach((beanName, targetBeanName) -> {
+			RootBeanDefinition proxyDefinition = (RootBeanDefinition) beanDefinitions.get(beanName);
+			BeanDefinition targetDefinition = beanDefinitions.get(targetBeanName);
+			if (targetDefinition == null) {
+				targetDefinition = registry.getBeanDefinition(targetBeanName);
+			}
+			proxyDefinition.setDecoratedDefinition(new BeanDefinitionHolder(targetDefinition, targetBeanName));
+			proxyDefinition.setOriginatingBeanDefinition(targetDefinition);
+		});
+		beanDefinitions.forEach((beanName, beanDefinition) -> {
+			registry.registerBeanDefinition(beanName, beanDefinition);
+			for (String alias : aliases.get(beanName)) {
+				registry.registerAlias(beanName, alias);
+			}
+		});
+		return beanDefinitions.size();
+	}
+
+	/**
+	 * Return the {@link PropertySource @PropertySource} annotation metadata
+	 * recorded in this snapshot, in the order of original processing.
+	 * @param classLoader the class loader to resolve custom property source
+	 * factories with
+	 */
+	List<AnnotationAttributes> getPropertySources(@Nullable ClassLoader classLoader) {
+		List<AnnotationAttributes> propertySources = new ArrayList<>();
+		for (int i = 0; this.properties.containsKey(PROPERTY_SOURCE_PREFIX + i + ".location.0"); i++) {
+			String prefix = PROPERTY_SOURCE_PREFIX + i + ".";
+			List<String> locations = new ArrayList<>();
+			for (int j = 0; this.properties.containsKey(prefix + "location." + j); j++) {
+				locations.add(this.properties.getProperty(prefix + "location." + j));
+			}
+			String factory = this.properties.getProperty(prefix + "factory");
+			AnnotationAttributes propertySource = new AnnotationAttributes(PropertySource.class);
+			propertySource.put("name", this.properties.getProperty(prefix + "name", ""));
+			propertySource.put("value", StringUtils.toStringArray(locations));
+			propertySource.put("ignoreResourceNotFound", getFlag(prefix + "ignoreResourceNotFound", false));
+			propertySource.put("encoding", this.properties.getProperty(prefix + "encoding", ""));
+			propertySource.put("factory", (factory != null ?
+					ClassUtils.resolveClassName(factory, classLoader) : PropertySourceFactory.class));
+			propertySources.add(propertySource);
+		}
+		return propertySources;
+	}
+
+	/**
+	 * Create an {@link ImportRegistry} for the import relationships recorded
+	 * in this snapshot, reading the metadata of importing classes on demand.
+	 */
+	ImportRegistry getImportRegistry(MetadataReaderFactory metadataReaderFactory) {
+		Map<String, String> imports = new HashMap<>();
+		for (int i = 0; this.properties.containsKey(IMPORT_PREFIX + i + ".class"); i++) {
+			imports.put(this.properties.getProperty(IMPORT_PREFIX + i + ".class"),
+					this.properties.getProperty(IMPORT_PREFIX + i + ".importingClass"));
+		}
+		return new SnapshotImportRegistry(imports, metadataReaderFactory);
+	}
+
+	private AbstractBeanDefinition readBeanDefinition(String prefix) {
+		AbstractBeanDefinition bd;
+		String beanMethod = this.properties.getProperty(prefix + "beanMethod");
+		if (beanMethod != null) {
+			bd = new SnapshotBeanMethodDefinition(beanMethod);
+		}
+		else if (Boolean.parseBoolean(this.properties.getProperty(prefix + "root"))) {
+			bd = new RootBeanDefinition();
+		}
+		else {
+			bd = new GenericBeanDefinition();
+			bd.setParentName(this.properties.getProperty(prefix + "parentName"));
+		}
+		bd.setBeanClassName(this.properties.getProperty(prefix + "class"));
+		bd.setFactoryBeanName(this.properties.getProperty(prefix + "factoryBean"));
+		String factoryMethod = this.properties.getProperty(prefix + "factoryMethod");
+		if (bd instanceof SnapshotBeanMethodDefinition && factoryMethod != null) {
+			((SnapshotBeanMethodDefinition) bd).setUniqueFactoryMethodName(factoryMethod);
+		}
+		else {
+			bd.setFactoryMethodName(factoryMethod);
+		}
+		bd.setScope(this.properties.getProperty(prefix + "scope"));
+		String lazyInit = this.properties.getProperty(prefix + "lazyInit");
+		if (lazyInit != null) {
+			bd.setLazyInit(Boolean.parseBoolean(lazyInit));
+		}
+		String dependsOn = this.properties.getProperty(prefix + "dependsOn");
+		if (dependsOn != null) {
+			bd.setDependsOn(StringUtils.commaDelimitedListToStringArray(dependsOn));
+		}
+		bd.setInitMethodName(this.properties.getProperty(prefix + "initMethod"));
+		bd.setDestroyMethodName(this.properties.getProperty(prefix + "destroyMethod"));
+		bd.setDescription(this.properties.getProperty(prefix + "description"));
+		bd.setResourceDescription(this.properties.getProperty(prefix + "resourceDescription"));
+		bd.setAutowireMode(getInt(prefix + "autowireMode", AbstractBeanDefinition.AUTOWIRE_NO));
+		bd.setDependencyCheck(getInt(prefix + "dependencyCheck", AbstractBeanDefinition.DEPENDENCY_CHECK_NONE));
+		bd.setRole(getInt(prefix + "role", BeanDefinition.ROLE_APPLICATION));
+		bd.setAbstract(getFlag(prefix + "abstract", false));
+		bd.setAutowireCandidate(getFlag(prefix + "autowireCandidate", true));
+		bd.setPrimary(getFlag(prefix + "primary", false));
+		bd.setNonPublicAccessAllowed(getFlag(prefix + "nonPublicAccessAllowed", true));
+		bd.setLenientConstructorResolution(getFlag(prefix + "lenientConstructorResolution", true));
+		bd.setEnforceInitMethod(getFlag(prefix + "enforceInitMethod", true));
+		bd.setEnforceDestroyMethod(getFlag(prefix + "enforceDestroyMethod", true));
+		bd.setSynthetic(getFlag(prefix + "synthetic", false));
+
+		for (int i = 0; this.properties.containsKey(prefix + "attribute." + i + ".name"); i++) {
+			String attributePrefix = prefix + "attribute." + i;
+			bd.setAttribute(this.properties.getProperty(attributePrefix + ".name"), readAttribute(attributePrefix));
+		}
+		ConstructorArgumentValues args = bd.getConstructorArgumentValues();
+		for (int i = 0; this.properties.containsKey(prefix + "arg." + i + ".index"); i++) {
+			String argPrefix = prefix + "arg." + i;
+			args.addIndexedArgumentValue(getInt(argPrefix + ".index", i), readValueHolder(argPrefix));
+		}
+		for (int i = 0; this.properties.containsKey(prefix + "genericArg." + i + ".kind"); i++) {
+			args.addGenericArgumentValue(readValueHolder(prefix + "genericArg." + i));
+		}
+		MutablePropertyValues pvs = bd.getPropertyValues();
+		for (int i = 0; this.properties.containsKey(prefix + "property." + i + ".name"); i++) {
+			String propertyPrefix = prefix + "property." + i;
+			pvs.add(this.properties.getProperty(propertyPrefix + ".name"), readValue(propertyPrefix));
+		}
+		return bd;
+	}
+
+	private ValueHolder readValueHolder(String prefix) {
+		return new ValueHolder(readValue(prefix), this.properties.getProperty(prefix + ".argType"),
+				this.properties.getProperty(prefix + ".argName"));
+	}
+
+	@Nullable
+	private Object readValue(String prefix) {
+		String kind = this.properties.getProperty(prefix + ".kind");
+		String value = this.properties.getProperty(prefix + ".value");
+		if ("ref".equals(kind)) {
+			return new RuntimeBeanReference(value, getFlag(prefix + ".toParent", false));
+		}
+		else if ("idref".equals(kind)) {
+			return new RuntimeBeanNameReference(value);
+		}
+		else if ("null".equals(kind)) {
+			return null;
+		}
+		String type = this.properties.getProperty(prefix + ".type");
+		return (type != null ? new TypedStringValue(value, type) : new TypedStringValue(value));
+	}
+
+	private Object readAttribute(String prefix) {
+		String value = this.properties.getProperty(prefix + ".value");
+		String type = this.properties.getProperty(prefix + ".type");
+		if (Boolean.class.getName().equals(type)) {
+			return Boolean.valueOf(value);
+		}
+		else if (Integer.class.getName().equals(type)) {
+			return Integer.valueOf(value);
+		}
+		return value;
+	}
+
+	private int getInt(String key, int defaultValue) {
+		String value = this.properties.getProperty(key);
+		return (value != null ? Integer.parseInt(value) : defaultValue);
+	}
+
+	private boolean getFlag(String key, boolean defaultValue) {
+		String value = this.properties.getProperty(key);
+		return (value != null ? Boolean.parseBoolean(value) : defaultValue);
+	}
+
+	private static Set<String> rootKeys(Collection<BeanDefinitionHolder> configCandidates) {
+		Set<String> roots = new TreeSet<>();
+		for (BeanDefinitionHolder holder : configCandidates) {
+			roots.add(holder.getBeanName() + "=" + holder.getBeanDefinition().getBeanClassName());
+		}
+		return roots;
+	}
+
+
+	/**
+	 * Find a snapshot for the given configuration class candidates and
+	 * {@link Environment} among the snapshots available from the given
+	 * class loader.
+	 * @return the matching snapshot, or {@code null} if none
+	 */
+	@Nullable
+	static BeanDefinitionSnapshot find(Collection<BeanDefinitionHolder> configCandidates,
+			Environment environment, @Nullable ClassLoader classLoader) {
+
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = BeanDefinitionSnapshot.class.getClassLoader();
+		}
+		for (BeanDefinitionSnapshot snapshot : cache.computeIfAbsent(classLoaderToUse, BeanDefinitionSnapshot::load)) {
+			if (snapshot.matches(configCandidates, environment) && snapshot.isUpToDate(classLoaderToUse)) {
+				return snapshot;
+			}
+		}
+		return null;
+	}
+
+	private static List<BeanDefinitionSnapshot> load(ClassLoader classLoader) {
+		try {
+			Enumeration<URL> urls = classLoader.getResources(BeanDefinitionSnapshotGenerator.SNAPSHOT_RESOURCE_LOCATION);
+			List<BeanDefinitionSnapshot> result = new ArrayList<>();
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				result.add(new BeanDefinitionSnapshot(PropertiesLoaderUtils.loadProperties(new UrlResource(url))));
+			}
+			if (logger.isDebugEnabled() && !result.isEmpty()) {
+				logger.debug("Loaded " + result.size() + " bean definition snapshot(s)");
+			}
+			return result;
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to load bean definition snapshots from location [" +
+					BeanDefinitionSnapshotGenerator.SNAPSHOT_RESOURCE_LOCATION + "]", ex);
+		}
+	}
+
+	/**
+	 * Capture the bean definitions registered by the configuration class
+	 * processing of the given candidates.
+	 * @param registry the registry after configuration class processing
+	 * @param configCandidates the root configuration class candidates
+	 * @param existingBeanNames the bean names registered before processing,
+	 * to be excluded from the snapshot
+	 * @param activeProfiles the active profiles before processing, i.e. not
+	 * including profiles activated by {@code @PropertySource} declarations,
+	 * as matched against at startup
+	 * @param importRegistry the import registry populated during processing
+	 * @param propertySources the {@code @PropertySource} annotation metadata
+	 * processed along with the configuration classes
+	 * @param parsedClassNames the names of the classes read during processing,
+	 * in addition to the configuration class candidates and the bean classes
+	 * of the captured bean definitions
+	 * @param classLoader the class loader to read the class files with, for
+	 * recording their hashes
+	 * @throws IllegalStateException if a bean definition cannot be captured
+	 */
+	static BeanDefinitionSnapshot capture(BeanDefinitionRegistry registry,
+			Collection<BeanDefinitionHolder> configCandidates, Collection<String> existingBeanNames,
+			String[] activeProfiles, @Nullable ImportRegistry importRegistry,
+			List<AnnotationAttributes> propertySources, Collection<String> parsedClassNames,
+			@Nullable ClassLoader classLoader) {
+
+		Properties properties = new Properties();
+		int index = 0;
+		for (String root : rootKeys(configCandidates)) {
+			properties.setProperty(ROOT_PREFIX + index++, root);
+		}
+		properties.setProperty(PROFILES_KEY,
+				StringUtils.collectionToCommaDelimitedString(new TreeSet<>(Arrays.asList(activeProfiles))));
+
+		index = 0;
+		for (AnnotationAttributes propertySource : propertySources) {
+			String prefix = PROPERTY_SOURCE_PREFIX + index++ + ".";
+			putIfNotDefault(properties, prefix + "name", propertySource.getString("name"), "");
+			String[] locations = propertySource.getStringArray("value");
+			for (int i = 0; i < locations.length; i++) {
+				properties.setProperty(prefix + "location." + i, locations[i]);
+			}
+			putIfNotDefault(properties, prefix + "ignoreResourceNotFound",
+					propertySource.getBoolean("ignoreResourceNotFound"), false);
+			putIfNotDefault(properties, prefix + "encoding", propertySource.getString("encoding"), "");
+			putIfNotDefault(properties, prefix + "factory",
+					propertySource.getClass("factory").getName(), PropertySourceFactory.class.getName());
+		}
+
+		Set<String> existing = new LinkedHashSet<>(existingBeanNames);
+		List<String> beanNames = new ArrayList<>();
+		for (String beanName : registry.getBeanDefinitionNames()) {
+			if (!existing.contains(beanName)) {
+				beanNames.add(beanName);
+			}
+		}
+		Map<BeanDefinition, String> namesByDefinition = new HashMap<>();
+		for (String beanName : registry.getBeanDefinitionNames()) {
+			namesByDefinition.put(registry.getBeanDefinition(beanName), beanName);
+		}
+		Set<String> classNames = new TreeSet<>(parsedClassNames);
+		for (BeanDefinitionHolder candidate : configCandidates) {
+			addIfNotNull(classNames, candidate.getBeanDefinition().getBeanClassName());
+		}
+		index = 0;
+		int importIndex = 0;
+		for (String beanName : beanNames) {
+			BeanDefinition bd = registry.getBeanDefinition(beanName);
+			String prefix = BEAN_PREFIX + index++ + ".";
+			properties.setProperty(prefix + "name", beanName);
+			String[] aliases = registry.getAliases(beanName);
+			if (aliases.length > 0) {
+				properties.setProperty(prefix + "aliases", StringUtils.arrayToCommaDelimitedString(aliases));
+			}
+			writeBeanDefinition(beanName, bd, prefix, properties, namesByDefinition);
+			String className = bd.getBeanClassName();
+			addIfNotNull(classNames, className);
+			if (importRegistry != null && className != null) {
+				AnnotationMetadata importingClass = importRegistry.getImportingClassFor(className);
+				if (importingClass != null) {
+					properties.setProperty(IMPORT_PREFIX + importIndex + ".class", className);
+					properties.setProperty(IMPORT_PREFIX + importIndex++ + ".importingClass",
+							importingClass.getClassName());
+				}
+			}
+		}
+
+		ClassLoader classLoaderToUse = (classLoader != null ? classLoader : BeanDefinitionSnapshot.class.getClassLoader());
+		index = 0;
+		for (String className : classNames) {
+			String hash = hashClassFile(className, classLoaderToUse);
+			if (hash != null) {
+				properties.setProperty(CLASS_PREFIX + index + ".name", className);
+				properties.setProperty(CLASS_PREFIX + index++ + ".hash", hash);
+			}
+		}
+		return new BeanDefinitionSnapshot(properties);
+	}
+
+	/**
+	 * Compute the MD5 hash of the class file for the given class name.
+	 * @return the hash, or {@code null} if the class file cannot be read
+	 * (e.g. for a generated class)
+	 */
+	@Nullable
+	private static String hashClassFile(String className, ClassLoader classLoader) {
+		String resourcePath = ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+		try (InputStream is = classLoader.getResourceAsStream(resourcePath)) {
+			return (is != null ? DigestUtils.md5DigestAsHex(is) : null);
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	private static void writeBeanDefinition(String beanName, BeanDefinition bd, String prefix,
+			Properties properties, Map<BeanDefinition, String> namesByDefinition) {
+
+		if (!(bd instanceof AbstractBeanDefinition)) {
+			throw cannotCapture(beanName, "not an AbstractBeanDefinition");
+		}
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+		if (abd.getInstanceSupplier() != null) {
+			throw cannotCapture(beanName, "it has an instance supplier");
+		}
+		if (abd.hasMethodOverrides()) {
+			throw cannotCapture(beanName, "it has method overrides");
+		}
+		if (!abd.getQualifiers().isEmpty()) {
+			throw cannotCapture(beanName, "it has qualifiers");
+		}
+
+		if (bd instanceof RootBeanDefinition) {
+			properties.setProperty(prefix + "root", "true");
+			BeanDefinitionHolder decorated = ((RootBeanDefinition) bd).getDecoratedDefinition();
+			if (decorated != null) {
+				String targetBeanName = namesByDefinition.get(decorated.getBeanDefinition());
+				if (!decorated.getBeanName().equals(targetBeanName)) {
+					throw cannotCapture(beanName, "its decorated definition is not registered");
+				}
+				properties.setProperty(prefix + "decoratedDefinition", targetBeanName);
+			}
+		}
+		if (bd instanceof AnnotatedBeanDefinition && bd.getFactoryMethodName() != null) {
+			MethodMetadata factoryMethodMetadata = ((AnnotatedBeanDefinition) bd).getFactoryMethodMetadata();
+			if (factoryMethodMetadata != null) {
+				AnnotationAttributes bean = AnnotationConfigUtils.attributesFor(factoryMethodMetadata, Bean.class);
+				String[] names = (bean != null ? bean.getStringArray("name") : new String[0]);
+				properties.setProperty(prefix + "beanMethod",
+						(names.length > 0 ? names[0] : factoryMethodMetadata.getMethodName()));
+			}
+		}
+		putIfNotNull(properties, prefix + "parentName", bd.getParentName());
+		putIfNotNull(properties, prefix + "class", bd.getBeanClassName());
+		putIfNotNull(properties, prefix + "factoryBean", bd.getFactoryBeanName());
+		putIfNotNull(properties, prefix + "factoryMethod", bd.getFactoryMethodName());
+		putIfNotNull(properties, prefix + "scope", StringUtils.hasLength(bd.getScope()) ? bd.getScope() : null);
+		putIfNotNull(properties, prefix + "lazyInit", abd.getLazyInit());
+		putIfNotNull(properties, prefix + "dependsOn",
+				bd.getDependsOn() != null ? StringUtils.arrayToCommaDelimitedString(bd.getDependsOn()) : null);
+		putIfNotNull(properties, prefix + "initMethod", bd.getInitMethodName());
+		putIfNotNull(properties, prefix + "destroyMethod", bd.getDestroyMethodName());
+		putIfNotNull(properties, prefix + "description", bd.getDescription());
+		putIfNotNull(properties, prefix + "resourceDescription", bd.getResourceDescription());
+		putIfNotDefault(properties, prefix + "autowireMode", abd.getAutowireMode(), AbstractBeanDefinition.AUTOWIRE_NO);
+		putIfNotDefault(properties, prefix + "dependencyCheck", abd.getDependencyCheck(),
+				AbstractBeanDefinition.DEPENDENCY_CHECK_NONE);
+		putIfNotDefault(properties, prefix + "role", bd.getRole(), BeanDefinition.ROLE_APPLICATION);
+		putIfNotDefault(properties, prefix + "abstract", abd.isAbstract(), false);
+		putIfNotDefault(properties, prefix + "autowireCandidate", abd.isAutowireCandidate(), true);
+		putIfNotDefault(properties, prefix + "primary", abd.isPrimary(), false);
+		putIfNotDefault(properties, prefix + "nonPublicAccessAllowed", abd.isNonPublicAccessAllowed(), true);
+		putIfNotDefault(properties, prefix + "lenientConstructorResolution",
+				abd.isLenientConstructorResolution(), true);
+		putIfNotDefault(properties, prefix + "enforceInitMethod", abd.isEnforceInitMethod(), true);
+		putIfNotDefault(properties, prefix + "enforceDestroyMethod", abd.isEnforceDestroyMethod(), true);
+		putIfNotDefault(properties, prefix + "synthetic", abd.isSynthetic(), false);
+
+		int index = 0;
+		for (String attributeName : abd.attributeNames()) {
+			Object attribute = abd.getAttribute(attributeName);
+			if (!(attribute instanceof String || attribute instanceof Boolean || attribute instanceof Integer)) {
+				throw cannotCapture(beanName, "attribute '" + attributeName + "' is not a String, Boolean or Integer");
+			}
+			String attributePrefix = prefix + "attribute." + index++;
+			properties.setProperty(attributePrefix + ".name", attributeName);
+			properties.setProperty(attributePrefix + ".value", attribute.toString());
+			properties.setProperty(attributePrefix + ".type", attribute.getClass().getName());
+		}
+		index = 0;
+		for (Map.Entry<Integer, ValueHolder> entry : abd.getConstructorArgumentValues().getIndexedArgumentValues().entrySet()) {
+			String argPrefix = prefix + "arg." + index++;
+			properties.setProperty(argPrefix + ".index", entry.getKey().toString());
+			writeValueHolder(beanName, entry.getValue(), argPrefix, properties);
+		}
+		index = 0;
+		for (ValueHolder valueHolder : abd.getConstructorArgumentValues().getGenericArgumentValues()) {
+			writeValueHolder(beanName, valueHolder, prefix + "genericArg." + index++, properties);
+		}
+		index = 0;
+		for (PropertyValue pv : abd.getPropertyValues().getPropertyValueList()) {
+			String propertyPrefix = prefix + "property." + index++;
+			properties.setProperty(propertyPrefix + ".name", pv.getName());
+			writeValue(beanName, pv.getValue(), propertyPrefix, properties);
+		}
+	}
+
+	private static void writeValueHolder(String beanName, ValueHolder valueHolder, String prefix, Properties properties) {
+		putIfNotNull(properties, prefix + ".argType", valueHolder.getType());
+		putIfNotNull(properties, prefix + ".argName", valueHolder.getName());
+		writeValue(beanName, valueHolder.getValue(), prefix, properties);
+	}
+
+	private static void writeValue(String beanName, @Nullable Object value, String prefix, Properties properties) {
+		if (value == null) {
+			properties.setProperty(prefix + ".kind", "null");
+		}
+		else if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference reference = (RuntimeBeanReference) value;
+			properties.setProperty(prefix + ".kind", "ref");
+			properties.setProperty(prefix + ".value", reference.getBeanName());
+			putIfNotDefault(properties, prefix + ".toParent", reference.isToParent(), false);
+		}
+		else if (value instanceof RuntimeBeanNameReference) {
+			properties.setProperty(prefix + ".kind", "idref");
+			properties.setProperty(prefix + ".value", ((RuntimeBeanNameReference) value).getBeanName());
+		}
+		else if (value instanceof TypedStringValue) {
+			TypedStringValue typedValue = (TypedStringValue) value;
+			if (typedValue.getValue() == null || typedValue.isDynamic()) {
+				throw cannotCapture(beanName, "value " + value + " is null or dynamic");
+			}
+			properties.setProperty(prefix + ".kind", "value");
+			properties.setProperty(prefix + ".value", typedValue.getValue());
+			putIfNotNull(properties, prefix + ".type", typedValue.getTargetTypeName());
+		}
+		else if (value instanceof String) {
+			properties.setProperty(prefix + ".kind", "value");
+			properties.setProperty(prefix + ".value", (String) value);
+		}
+		else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+			properties.setProperty(prefix + ".kind", "value");
+			properties.setProperty(prefix + ".value", value.toString());
+			properties.setProperty(prefix + ".type", value.getClass().getName());
+		}
+		else if (value instanceof Enum) {
+			properties.setProperty(prefix + ".kind", "value");
+			properties.setProperty(prefix + ".value", ((Enum<?>) value).name());
+			properties.setProperty(prefix + ".type", ((Enum<?>) value).getDeclaringClass().getName());
+		}
+		else if (value instanceof Class) {
+			properties.setProperty(prefix + ".kind", "value");
+			properties.setProperty(prefix + ".value", ((Class<?>) value).getName());
+			properties.setProperty(prefix + ".type", Class.class.getName());
+		}
+		else {
+			throw cannotCapture(beanName, "value of type [" + value.getClass().getName() + "] is not supported");
+		}
+	}
+
+	private static void addIfNotNull(Set<String> classNames, @Nullable String className) {
+		if (className != null) {
+			classNames.add(className);
+		}
+	}
+
+	private static void putIfNotNull(Properties properties, String key, @Nullable Object value) {
+		if (value != null) {
+			properties.setProperty(key, value.toString());
+		}
+	}
+
+	private static void putIfNotDefault(Properties properties, String key, Object value, Object defaultValue) {
+		if (!value.equals(defaultValue)) {
+			properties.setProperty(key, value.toString());
+		}
+	}
+
+	private static IllegalStateException cannotCapture(String beanName, String reason) {
+		return new IllegalStateException(
+				"Cannot capture bean definition '" + beanName + "' in snapshot: " + reason);
+	}
+
+
+	/**
+	 * Restored bean definition for a {@link Bean @Bean} method, only accepting
+	 * factory methods with a matching {@code @Bean} declaration, like the
+	 * original definition derived from the configuration class.
+	 */
+	private static class SnapshotBeanMethodDefinition extends RootBeanDefinition {
+
+		private final String derivedBeanName;
+
+		SnapshotBeanMethodDefinition(String derivedBeanName) {
+			this.derivedBeanName = derivedBeanName;
+		}
+
+		private SnapshotBeanMethodDefinition(SnapshotBeanMethodDefinition original) {
+			super(original);
+			this.derivedBeanName = original.derivedBeanName;
+		}
+
+		@Override
+		public boolean isFactoryMethod(Method candidate) {
+			return (super.isFactoryMethod(candidate) && BeanAnnotationHelper.isBeanAnnotated(candidate) &&
+					BeanAnnotationHelper.determineBeanNameFor(candidate).equals(this.derivedBeanName));
+		}
+
+		@Override
+		public SnapshotBeanMethodDefinition cloneBeanDefinition() {
+			return new SnapshotBeanMethodDefinition(this);
+		}
+	}
+
+
+	/**
+	 * {@link ImportRegistry} backed by the import relationships of a snapshot.
+	 */
+	private static class SnapshotImportRegistry implements ImportRegistry {
+
+		private final Map<String, String> imports;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		SnapshotImportRegistry(Map<String, String> imports, MetadataReaderFactory metadataReaderFactory) {
+			this.imports = new ConcurrentHashMap<>(imports);
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClass = this.imports.get(importedClass);
+			if (importingClass == null) {
+				return null;
+			}
+			try {
+				return this.metadataReaderFactory.getMetadataReader(importingClass).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read metadata of importing class [" +
+						importingClass + "]", ex);
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			this.imports.values().removeIf(importingClass::equals);
+		}
+	}
+
+}
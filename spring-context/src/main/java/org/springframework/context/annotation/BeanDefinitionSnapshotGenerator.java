@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Build-time generator for a snapshot of the bean definitions that
+ * {@link ConfigurationClassPostProcessor} derives from the configuration
+ * classes of an application context.
+ *
+ * <p>The snapshot is written to {@value #SNAPSHOT_RESOURCE_LOCATION}. If the
+ * use of snapshots is enabled, a context that starts with the same configuration
+ * classes and active profiles and finds a matching snapshot on the classpath
+ * does not parse the configuration classes again: their bean definitions,
+ * including the ones from resolved imports and {@link Bean @Bean} methods, get
+ * registered from the snapshot instead.
+ *
+ * <p>A snapshot records the hashes of the class files read during processing
+ * and is ignored as soon as one of them changes. Classes newly added to
+ * scanned packages are not detected, though, requiring the snapshot to be
+ * regenerated. Since {@link Conditional @Conditional} declarations would
+ * only be evaluated once, at generation time, processing must not evaluate
+ * any conditions other than {@link Profile @Profile}.
+ *
+ * <p>Typically invoked through {@link #main} from a build step, with the output
+ * directory for the classpath resources and the fully-qualified names of the
+ * component classes to register as arguments.
+ *
+ * @since 5.3.23
+ * @see ConfigurationClassPostProcessor#setUseBeanDefinitionSnapshot
+ */
+public final class BeanDefinitionSnapshotGenerator {
+
+	/**
+	 * The location of the bean definition snapshot.
+	 * <p>Can be present in multiple JAR files, with the first snapshot
+	 * that matches a given context being used.
+	 */
+	public static final String SNAPSHOT_RESOURCE_LOCATION = "META-INF/spring.bean-definitions";
+
+	/**
+	 * System property that instructs Spring to use a matching bean definition
+	 * snapshot instead of parsing configuration classes at startup.
+	 * <p>The default is "false", always parsing configuration classes.
+	 * @see ConfigurationClassPostProcessor#setUseBeanDefinitionSnapshot
+	 */
+	public static final String USE_SNAPSHOT = "spring.bean-definitions.use";
+
+
+	private BeanDefinitionSnapshotGenerator() {
+	}
+
+
+	/**
+	 * Process the configuration classes of the given, not yet refreshed,
+	 * context and write the resulting bean definition snapshot to the
+	 * given stream.
+	 * <p>Only the bean definitions registered by configuration class
+	 * processing are included: bean definitions already present in the
+	 * context are expected to be registered again at startup. The context
+	 * is left without any further post-processing and should not be
+	 * refreshed afterwards.
+	 * @param context the context to generate the snapshot for
+	 * @param out the stream to write the snapshot to
+	 * @throws IOException if the snapshot cannot be written
+	 * @throws IllegalStateException if a bean definition cannot be captured,
+	 * or if conditions other than {@link Profile @Profile} have been evaluated
+	 */
+	public static void generate(GenericApplicationContext context, OutputStream out) throws IOException {
+		Assert.state(!context.isActive(), "Context must not have been refreshed");
+		DefaultListableBeanFactory beanFactory = context.getDefaultListableBeanFactory();
+		List<String> existingBeanNames = Arrays.asList(beanFactory.getBeanDefinitionNames());
+		// Profiles as matched at startup, before any @PropertySource gets added
+		String[] activeProfiles = context.getEnvironment().getActiveProfiles();
+
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setUseBeanDefinitionSnapshot(false);
+		postProcessor.setEnvironment(context.getEnvironment());
+		postProcessor.setResourceLoader(context);
+		ClassLoader classLoader = context.getClassLoader();
+		if (classLoader != null) {
+			postProcessor.setBeanClassLoader(classLoader);
+		}
+		Set<String> evaluatedConditions;
+		ConditionEvaluator.startRecordingConditions();
+		try {
+			postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+		}
+		finally {
+			evaluatedConditions = new LinkedHashSet<>(ConditionEvaluator.stopRecordingConditions());
+		}
+		evaluatedConditions.remove(ProfileCondition.class.getName());
+		if (!evaluatedConditions.isEmpty()) {
+			throw new IllegalStateException("Cannot capture bean definition snapshot: conditions " +
+					evaluatedConditions + " would only be evaluated at generation time");
+		}
+
+		List<BeanDefinitionHolder> configCandidates = new ArrayList<>();
+		for (String beanName : existingBeanNames) {
+			BeanDefinition beanDef = beanFactory.getBeanDefinition(beanName);
+			if (beanDef.getAttribute(ConfigurationClassUtils.CONFIGURATION_CLASS_ATTRIBUTE) != null) {
+				configCandidates.add(new BeanDefinitionHolder(beanDef, beanName));
+			}
+		}
+		ImportRegistry importRegistry = (beanFactory.containsSingleton(
+				ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME) ?
+				(ImportRegistry) beanFactory.getSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME) :
+				null);
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.capture(beanFactory,
+				configCandidates, existingBeanNames, activeProfiles, importRegistry,
+				postProcessor.getProcessedPropertySources(), postProcessor.getParsedClassNames(), classLoader);
+		snapshot.getProperties().store(out, "Bean definition snapshot");
+	}
+
+	/**
+	 * Generate a bean definition snapshot for an
+	 * {@link AnnotationConfigApplicationContext} with the given component
+	 * classes, writing it to {@value #SNAPSHOT_RESOURCE_LOCATION} below
+	 * the given output directory.
+	 * @param args the output directory, followed by the fully-qualified
+	 * names of the component classes
+	 * @throws Exception if the snapshot cannot be generated
+	 */
+	public static void main(String[] args) throws Exception {
+		Assert.isTrue(args.length > 1, "Usage: BeanDefinitionSnapshotGenerator <outputDirectory> <componentClass>...");
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		for (int i = 1; i < args.length; i++) {
+			context.register(ClassUtils.forName(args[i], classLoader));
+		}
+		File file = new File(args[0], SNAPSHOT_RESOURCE_LOCATION);
+		File parent = file.getParentFile();
+		Assert.state(parent.isDirectory() || parent.mkdirs(), () -> "Cannot create directory " + parent);
+		try (OutputStream out = new FileOutputStream(file)) {
+			generate(context, out);
+		}
+	}
+
+}
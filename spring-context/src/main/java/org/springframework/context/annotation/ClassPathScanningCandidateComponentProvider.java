@@ -49,6 +49,7 @@ import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.TypeFilter;
@@ -462,6 +463,12 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		catch (IOException ex) {
 			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
 		}
+		finally {
+			if (getMetadataReaderFactory() instanceof SimpleMetadataReaderFactory) {
+				// Write out class metadata recorded for a persistent cache directory, if any
+				((SimpleMetadataReaderFactory) getMetadataReaderFactory()).flushMetadataCache();
+			}
+		}
 		return candidates;
 	}
 
@@ -18,13 +18,16 @@ package org.springframework.context.annotation;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.ConfigurationCondition.ConfigurationPhase;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -47,6 +50,10 @@ import org.springframework.util.MultiValueMap;
  */
 class ConditionEvaluator {
 
+	private static final ThreadLocal<Set<String>> evaluatedConditionClasses =
+			new NamedThreadLocal<>("Evaluated condition classes");
+
+
 	private final ConditionContextImpl context;
 
 
@@ -93,6 +100,10 @@ class ConditionEvaluator {
 		List<Condition> conditions = new ArrayList<>();
 		for (String[] conditionClasses : getConditionClasses(metadata)) {
 			for (String conditionClass : conditionClasses) {
+				Set<String> evaluated = evaluatedConditionClasses.get();
+				if (evaluated != null) {
+					evaluated.add(conditionClass);
+				}
 				Condition condition = getCondition(conditionClass, this.context.getClassLoader());
 				conditions.add(condition);
 			}
@@ -126,6 +137,30 @@ class ConditionEvaluator {
 	}
 
 
+	/**
+	 * Start recording the condition classes evaluated on the current thread,
+	 * e.g. for determining whether a {@link BeanDefinitionSnapshot} may be
+	 * captured.
+	 * @since 5.3.23
+	 * @see #stopRecordingConditions()
+	 */
+	static void startRecordingConditions() {
+		evaluatedConditionClasses.set(new LinkedHashSet<>());
+	}
+
+	/**
+	 * Stop recording the condition classes evaluated on the current thread.
+	 * @return the names of the condition classes evaluated since
+	 * {@link #startRecordingConditions()}
+	 * @since 5.3.23
+	 */
+	static Set<String> stopRecordingConditions() {
+		Set<String> evaluated = evaluatedConditionClasses.get();
+		evaluatedConditionClasses.remove();
+		return (evaluated != null ? evaluated : Collections.emptySet());
+	}
+
+
 	/**
 	 * Implementation of a {@link ConditionContext}.
 	 */
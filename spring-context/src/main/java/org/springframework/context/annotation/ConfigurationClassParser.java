@@ -16,11 +16,8 @@
 
 package org.springframework.context.annotation;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
-import java.net.SocketException;
-import java.net.UnknownHostException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -40,7 +37,6 @@ import java.util.function.Predicate;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -59,17 +55,9 @@ import org.springframework.core.Ordered;
 import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.core.annotation.AnnotationUtils;
-import org.springframework.core.env.CompositePropertySource;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
-import org.springframework.core.env.MutablePropertySources;
-import org.springframework.core.env.PropertySource;
-import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
-import org.springframework.core.io.support.DefaultPropertySourceFactory;
-import org.springframework.core.io.support.EncodedResource;
-import org.springframework.core.io.support.PropertySourceFactory;
-import org.springframework.core.io.support.ResourcePropertySource;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.MethodMetadata;
 import org.springframework.core.type.StandardAnnotationMetadata;
@@ -83,7 +71,6 @@ import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.util.StringUtils;
 
 /**
  * Parses a {@link Configuration} class definition, populating a collection of
@@ -109,8 +96,6 @@ import org.springframework.util.StringUtils;
  */
 class ConfigurationClassParser {
 
-	private static final PropertySourceFactory DEFAULT_PROPERTY_SOURCE_FACTORY = new DefaultPropertySourceFactory();
-
 	private static final Predicate<String> DEFAULT_EXCLUSION_FILTER = className ->
 			(className.startsWith("java.lang.annotation.") || className.startsWith("org.springframework.stereotype."));
 
@@ -138,7 +123,10 @@ class ConfigurationClassParser {
 
 	private final Map<String, ConfigurationClass> knownSuperclasses = new HashMap<>();
 
-	private final List<String> propertySourceNames = new ArrayList<>();
+	private final Set<String> importedClassNames = new LinkedHashSet<>();
+
+	@Nullable
+	private final PropertySourceProcessor propertySourceProcessor;
 
 	private final ImportStack importStack = new ImportStack();
 
@@ -163,6 +151,8 @@ class ConfigurationClassParser {
 		this.componentScanParser = new ComponentScanAnnotationParser(
 				environment, resourceLoader, componentScanBeanNameGenerator, registry);
 		this.conditionEvaluator = new ConditionEvaluator(registry, environment, resourceLoader);
+		this.propertySourceProcessor = (environment instanceof ConfigurableEnvironment ?
+				new PropertySourceProcessor((ConfigurableEnvironment) environment, resourceLoader) : null);
 	}
 
 
@@ -275,8 +265,8 @@ class ConfigurationClassParser {
 		for (AnnotationAttributes propertySource : AnnotationConfigUtils.attributesForRepeatable(
 				sourceClass.getMetadata(), PropertySources.class,
 				org.springframework.context.annotation.PropertySource.class)) {
-			if (this.environment instanceof ConfigurableEnvironment) {
-				processPropertySource(propertySource);
+			if (this.propertySourceProcessor != null) {
+				this.propertySourceProcessor.processPropertySource(propertySource);
 			}
 			else {
 				logger.info("Ignoring @PropertySource annotation on [" + sourceClass.getMetadata().getClassName() +
@@ -433,85 +423,6 @@ class ConfigurationClassParser {
 	}
 
 
-	/**
-	 * Process the given <code>@PropertySource</code> annotation metadata.
-	 * @param propertySource metadata for the <code>@PropertySource</code> annotation found
-	 * @throws IOException if loading a property source failed
-	 */
-	private void processPropertySource(AnnotationAttributes propertySource) throws IOException {
-		String name = propertySource.getString("name");
-		if (!StringUtils.hasLength(name)) {
-			name = null;
-		}
-		String encoding = propertySource.getString("encoding");
-		if (!StringUtils.hasLength(encoding)) {
-			encoding = null;
-		}
-		String[] locations = propertySource.getStringArray("value");
-		Assert.isTrue(locations.length > 0, "At least one @PropertySource(value) location is required");
-		boolean ignoreResourceNotFound = propertySource.getBoolean("ignoreResourceNotFound");
-
-		Class<? extends PropertySourceFactory> factoryClass = propertySource.getClass("factory");
-		PropertySourceFactory factory = (factoryClass == PropertySourceFactory.class ?
-				DEFAULT_PROPERTY_SOURCE_FACTORY : BeanUtils.instantiateClass(factoryClass));
-
-		for (String location : locations) {
-			try {
-				String resolvedLocation = this.environment.resolveRequiredPlaceholders(location);
-				Resource resource = this.resourceLoader.getResource(resolvedLocation);
-				addPropertySource(factory.createPropertySource(name, new EncodedResource(resource, encoding)));
-			}
-			catch (IllegalArgumentException | FileNotFoundException | UnknownHostException | SocketException ex) {
-				// Placeholders not resolvable or resource not found when trying to open it
-				if (ignoreResourceNotFound) {
-					if (logger.isInfoEnabled()) {
-						logger.info("Properties location [" + location + "] not resolvable: " + ex.getMessage());
-					}
-				}
-				else {
-					throw ex;
-				}
-			}
-		}
-	}
-
-	private void addPropertySource(PropertySource<?> propertySource) {
-		String name = propertySource.getName();
-		MutablePropertySources propertySources = ((ConfigurableEnvironment) this.environment).getPropertySources();
-
-		if (this.propertySourceNames.contains(name)) {
-			// We've already added a version, we need to extend it
-			PropertySource<?> existing = propertySources.get(name);
-			if (existing != null) {
-				PropertySource<?> newSource = (propertySource instanceof ResourcePropertySource ?
-						((ResourcePropertySource) propertySource).withResourceName() : propertySource);
-				if (existing instanceof CompositePropertySource) {
-					((CompositePropertySource) existing).addFirstPropertySource(newSource);
-				}
-				else {
-					if (existing instanceof ResourcePropertySource) {
-						existing = ((ResourcePropertySource) existing).withResourceName();
-					}
-					CompositePropertySource composite = new CompositePropertySource(name);
-					composite.addPropertySource(newSource);
-					composite.addPropertySource(existing);
-					propertySources.replace(name, composite);
-				}
-				return;
-			}
-		}
-
-		if (this.propertySourceNames.isEmpty()) {
-			propertySources.addLast(propertySource);
-		}
-		else {
-			String firstProcessed = this.propertySourceNames.get(this.propertySourceNames.size() - 1);
-			propertySources.addBefore(firstProcessed, propertySource);
-		}
-		this.propertySourceNames.add(name);
-	}
-
-
 	/**
 	 * Returns {@code @Import} class, considering all meta-annotations.
 	 */
@@ -564,6 +475,7 @@ class ConfigurationClassParser {
 			this.importStack.push(configClass);
 			try {
 				for (SourceClass candidate : importCandidates) {
+					this.importedClassNames.add(candidate.getMetadata().getClassName());
 					if (candidate.isAssignable(ImportSelector.class)) {
 						// Candidate class is an ImportSelector -> delegate to it to determine imports
 						Class<?> candidateClass = candidate.loadClass();
@@ -632,6 +544,26 @@ class ConfigurationClassParser {
 		return this.importStack;
 	}
 
+	List<AnnotationAttributes> getProcessedPropertySources() {
+		return (this.propertySourceProcessor != null ?
+				this.propertySourceProcessor.getProcessedPropertySources() : Collections.emptyList());
+	}
+
+	/**
+	 * Return the names of the classes processed so far: configuration classes,
+	 * their superclasses, and imported classes including import selectors and
+	 * registrars.
+	 */
+	Set<String> getParsedClassNames() {
+		Set<String> classNames = new LinkedHashSet<>();
+		for (ConfigurationClass configClass : this.configurationClasses.keySet()) {
+			classNames.add(configClass.getMetadata().getClassName());
+		}
+		classNames.addAll(this.knownSuperclasses.keySet());
+		classNames.addAll(this.importedClassNames);
+		return classNames;
+	}
+
 
 	/**
 	 * Factory method to obtain a {@link SourceClass} from a {@link ConfigurationClass}.
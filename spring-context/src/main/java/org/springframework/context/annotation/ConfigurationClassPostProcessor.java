@@ -16,8 +16,10 @@
 
 package org.springframework.context.annotation;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -55,6 +57,9 @@ import org.springframework.context.annotation.ConfigurationClassEnhancer.Enhance
 import org.springframework.core.NativeDetector;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
@@ -65,6 +70,7 @@ import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.MethodMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -103,7 +109,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	public static final AnnotationBeanNameGenerator IMPORT_BEAN_NAME_GENERATOR =
 			FullyQualifiedAnnotationBeanNameGenerator.INSTANCE;
 
-	private static final String IMPORT_REGISTRY_BEAN_NAME =
+	static final String IMPORT_REGISTRY_BEAN_NAME =
 			ConfigurationClassPostProcessor.class.getName() + ".importRegistry";
 
 
@@ -142,6 +148,13 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 
 	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
 
+	private boolean useBeanDefinitionSnapshot =
+			SpringProperties.getFlag(BeanDefinitionSnapshotGenerator.USE_SNAPSHOT);
+
+	private List<AnnotationAttributes> processedPropertySources = Collections.emptyList();
+
+	private Set<String> parsedClassNames = Collections.emptySet();
+
 
 	@Override
 	public int getOrder() {
@@ -228,6 +241,20 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		this.applicationStartup = applicationStartup;
 	}
 
+	/**
+	 * Set whether to register the bean definitions from a matching snapshot
+	 * generated at build time, if available, instead of parsing the
+	 * configuration classes.
+	 * <p>Default is "false", unless the
+	 * {@value BeanDefinitionSnapshotGenerator#USE_SNAPSHOT} system property
+	 * is set to "true".
+	 * @since 5.3.23
+	 * @see BeanDefinitionSnapshotGenerator
+	 */
+	public void setUseBeanDefinitionSnapshot(boolean useBeanDefinitionSnapshot) {
+		this.useBeanDefinitionSnapshot = useBeanDefinitionSnapshot;
+	}
+
 	/**
 	 * Derive further bean definitions from the configuration classes in the registry.
 	 */
@@ -301,6 +328,16 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			return Integer.compare(i1, i2);
 		});
 
+		if (this.environment == null) {
+			this.environment = new StandardEnvironment();
+		}
+
+		// Register the bean definitions from a build-time snapshot instead of parsing, if available
+		if (this.useBeanDefinitionSnapshot &&
+				registerBeanDefinitionsFromSnapshot(registry, configCandidates)) {
+			return;
+		}
+
 		// Detect any custom bean name generation strategy supplied through the enclosing application context
 		SingletonBeanRegistry sbr = null;
 		if (registry instanceof SingletonBeanRegistry) {
@@ -315,10 +352,6 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			}
 		}
 
-		if (this.environment == null) {
-			this.environment = new StandardEnvironment();
-		}
-
 		// Parse each @Configuration class
 		ConfigurationClassParser parser = new ConfigurationClassParser(
 				this.metadataReaderFactory, this.problemReporter, this.environment,
@@ -366,11 +399,18 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		}
 		while (!candidates.isEmpty());
 
+		this.processedPropertySources = parser.getProcessedPropertySources();
+		this.parsedClassNames = parser.getParsedClassNames();
+
 		// Register the ImportRegistry as a bean in order to support ImportAware @Configuration classes
 		if (sbr != null && !sbr.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
 			sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, parser.getImportRegistry());
 		}
 
+		if (this.metadataReaderFactory instanceof SimpleMetadataReaderFactory) {
+			// Write out class metadata recorded for a persistent cache directory, if any
+			((SimpleMetadataReaderFactory) this.metadataReaderFactory).flushMetadataCache();
+		}
 		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
 			// Clear cache in externally provided MetadataReaderFactory; this is a no-op
 			// for a shared cache since it'll be cleared by the ApplicationContext.
@@ -378,6 +418,61 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		}
 	}
 
+	private boolean registerBeanDefinitionsFromSnapshot(
+			BeanDefinitionRegistry registry, List<BeanDefinitionHolder> configCandidates) {
+
+		Assert.state(this.environment != null, "No Environment");
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.find(
+				configCandidates, this.environment, this.beanClassLoader);
+		if (snapshot == null) {
+			return false;
+		}
+		StartupStep registerSnapshot = this.applicationStartup.start("spring.context.config-classes.snapshot");
+		if (this.environment instanceof ConfigurableEnvironment) {
+			// Add the @PropertySource declarations first, as parsing the configuration classes would
+			PropertySourceProcessor propertySourceProcessor =
+					new PropertySourceProcessor((ConfigurableEnvironment) this.environment, this.resourceLoader);
+			try {
+				for (AnnotationAttributes propertySource : snapshot.getPropertySources(this.beanClassLoader)) {
+					propertySourceProcessor.processPropertySource(propertySource);
+				}
+			}
+			catch (IOException ex) {
+				throw new BeanDefinitionStoreException("Failed to load property sources from bean definition snapshot", ex);
+			}
+		}
+		int beanCount = snapshot.registerBeanDefinitions(registry);
+		if (registry instanceof SingletonBeanRegistry) {
+			SingletonBeanRegistry sbr = (SingletonBeanRegistry) registry;
+			if (!sbr.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
+				sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, snapshot.getImportRegistry(this.metadataReaderFactory));
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Registered " + beanCount + " bean definitions from snapshot");
+		}
+		registerSnapshot.tag("beanCount", () -> String.valueOf(beanCount)).end();
+		return true;
+	}
+
+	/**
+	 * Return the {@code @PropertySource} annotation metadata processed
+	 * by the last parsing of configuration classes, for capturing it in
+	 * a {@link BeanDefinitionSnapshot}.
+	 */
+	List<AnnotationAttributes> getProcessedPropertySources() {
+		return this.processedPropertySources;
+	}
+
+	/**
+	 * Return the names of the classes processed by the last parsing of
+	 * configuration classes, for recording their hashes in a
+	 * {@link BeanDefinitionSnapshot}.
+	 */
+	Set<String> getParsedClassNames() {
+		return this.parsedClassNames;
+	}
+
 	/**
 	 * Post-processes a BeanFactory in search of Configuration class BeanDefinitions;
 	 * any candidates are then enhanced by a {@link ConfigurationClassEnhancer}.
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.CompositePropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.DefaultPropertySourceFactory;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PropertySourceFactory;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Adds the property sources declared through {@code @PropertySource}
+ * annotations to an {@link ConfigurableEnvironment Environment}, in the
+ * order of processing, and keeps track of the processed declarations.
+ *
+ * <p>Used by {@link ConfigurationClassParser} and, for the declarations
+ * recorded in a {@link BeanDefinitionSnapshot}, by
+ * {@link ConfigurationClassPostProcessor}.
+ *
+ * @since 5.3.23
+ */
+class PropertySourceProcessor {
+
+	private static final PropertySourceFactory DEFAULT_PROPERTY_SOURCE_FACTORY = new DefaultPropertySourceFactory();
+
+	private static final Log logger = LogFactory.getLog(PropertySourceProcessor.class);
+
+
+	private final ConfigurableEnvironment environment;
+
+	private final ResourceLoader resourceLoader;
+
+	private final List<String> propertySourceNames = new ArrayList<>();
+
+	private final List<AnnotationAttributes> processedPropertySources = new ArrayList<>();
+
+
+	PropertySourceProcessor(ConfigurableEnvironment environment, ResourceLoader resourceLoader) {
+		this.environment = environment;
+		this.resourceLoader = resourceLoader;
+	}
+
+
+	/**
+	 * Process the given <code>@PropertySource</code> annotation metadata.
+	 * @param propertySource metadata for the <code>@PropertySource</code> annotation found
+	 * @throws IOException if loading a property source failed
+	 */
+	void processPropertySource(AnnotationAttributes propertySource) throws IOException {
+		this.processedPropertySources.add(propertySource);
+		String name = propertySource.getString("name");
+		if (!StringUtils.hasLength(name)) {
+			name = null;
+		}
+		String encoding = propertySource.getString("encoding");
+		if (!StringUtils.hasLength(encoding)) {
+			encoding = null;
+		}
+		String[] locations = propertySource.getStringArray("value");
+		Assert.isTrue(locations.length > 0, "At least one @PropertySource(value) location is required");
+		boolean ignoreResourceNotFound = propertySource.getBoolean("ignoreResourceNotFound");
+
+		Class<? extends PropertySourceFactory> factoryClass = propertySource.getClass("factory");
+		PropertySourceFactory factory = (factoryClass == PropertySourceFactory.class ?
+				DEFAULT_PROPERTY_SOURCE_FACTORY : BeanUtils.instantiateClass(factoryClass));
+
+		for (String location : locations) {
+			try {
+				String resolvedLocation = this.environment.resolveRequiredPlaceholders(location);
+				Resource resource = this.resourceLoader.getResource(resolvedLocation);
+				addPropertySource(factory.createPropertySource(name, new EncodedResource(resource, encoding)));
+			}
+			catch (IllegalArgumentException | FileNotFoundException | UnknownHostException | SocketException ex) {
+				// Placeholders not resolvable or resource not found when trying to open it
+				if (ignoreResourceNotFound) {
+					if (logger.isInfoEnabled()) {
+						logger.info("Properties location [" + location + "] not resolvable: " + ex.getMessage());
+					}
+				}
+				else {
+					throw ex;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the <code>@PropertySource</code> annotation metadata processed
+	 * so far, in the order of processing.
+	 */
+	List<AnnotationAttributes> getProcessedPropertySources() {
+		return Collections.unmodifiableList(this.processedPropertySources);
+	}
+
+	private void addPropertySource(PropertySource<?> propertySource) {
+		String name = propertySource.getName();
+		MutablePropertySources propertySources = this.environment.getPropertySources();
+
+		if (this.propertySourceNames.contains(name)) {
+			// We've already added a version, we need to extend it
+			PropertySource<?> existing = propertySources.get(name);
+			if (existing != null) {
+				PropertySource<?> newSource = (propertySource instanceof ResourcePropertySource ?
+						((ResourcePropertySource) propertySource).withResourceName() : propertySource);
+				if (existing instanceof CompositePropertySource) {
+					((CompositePropertySource) existing).addFirstPropertySource(newSource);
+				}
+				else {
+					if (existing instanceof ResourcePropertySource) {
+						existing = ((ResourcePropertySource) existing).withResourceName();
+					}
+					CompositePropertySource composite = new CompositePropertySource(name);
+					composite.addPropertySource(newSource);
+					composite.addPropertySource(existing);
+					propertySources.replace(name, composite);
+				}
+				return;
+			}
+		}
+
+		if (this.propertySourceNames.isEmpty()) {
+			propertySources.addLast(propertySource);
+		}
+		else {
+			String firstProcessed = this.propertySourceNames.get(this.propertySourceNames.size() - 1);
+			propertySources.addBefore(firstProcessed, propertySource);
+		}
+		this.propertySourceNames.add(name);
+	}
+
+}
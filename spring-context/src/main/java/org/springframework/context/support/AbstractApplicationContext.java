@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -81,6 +81,7 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup;
 import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -203,6 +204,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	/** Flag that indicates whether this context has been closed already. */
 	private final AtomicBoolean closed = new AtomicBoolean();
 
+	/** Flag that indicates whether this context is being refreshed. */
+	private volatile boolean refreshing;
+
 	/** Synchronization monitor for the "refresh" and "destroy". */
 	private final Object startupShutdownMonitor = new Object();
 
@@ -417,6 +421,17 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		if (this.earlyApplicationEvents != null) {
 			this.earlyApplicationEvents.add(applicationEvent);
 		}
+		else if (this.refreshing) {
+			// Record startup steps for events published as part of the refresh only
+			StartupStep eventPublish = this.applicationStartup.start("spring.context.event.publish")
+					.tag("eventType", applicationEvent.getClass().getName());
+			try {
+				getApplicationEventMulticaster().multicastEvent(applicationEvent, eventType);
+			}
+			finally {
+				eventPublish.end();
+			}
+		}
 		else {
 			getApplicationEventMulticaster().multicastEvent(applicationEvent, eventType);
 		}
@@ -556,6 +571,8 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 			prepareBeanFactory(beanFactory);
 
 			try {
+				this.refreshing = true;
+
 				// Allows post-processing of the bean factory in context subclasses.
 				postProcessBeanFactory(beanFactory);
 
@@ -606,7 +623,11 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 				// Reset common introspection caches in Spring's core, since we
 				// might not ever need metadata for singleton beans anymore...
 				resetCommonCaches();
+				this.refreshing = false;
 				contextRefresh.end();
+				if (this.applicationStartup instanceof BufferingApplicationStartup && logger.isInfoEnabled()) {
+					logger.info(((BufferingApplicationStartup) this.applicationStartup).createReport());
+				}
 			}
 		}
 	}
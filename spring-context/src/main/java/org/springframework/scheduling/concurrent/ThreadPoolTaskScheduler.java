@@ -33,6 +33,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.lang.Nullable;
 import org.springframework.scheduling.SchedulingTaskExecutor;
 import org.springframework.scheduling.TaskScheduler;
@@ -70,6 +71,8 @@ public class ThreadPoolTaskScheduler extends ExecutorConfigurationSupport
 
 	private volatile boolean executeExistingDelayedTasksAfterShutdownPolicy = true;
 
+	private boolean virtualThreads;
+
 	@Nullable
 	private volatile ErrorHandler errorHandler;
 
@@ -140,6 +143,25 @@ public class ThreadPoolTaskScheduler extends ExecutorConfigurationSupport
 		this.executeExistingDelayedTasksAfterShutdownPolicy = flag;
 	}
 
+	/**
+	 * Switch the pool of this scheduler to virtual threads. Requires JDK 21 or higher.
+	 * <p>Default is {@code false}, indicating platform threads. If set to {@code true},
+	 * the pool threads are created as virtual threads named according to the
+	 * {@link #setThreadNamePrefix thread name prefix}, unless an external
+	 * {@link #setThreadFactory ThreadFactory} has been specified.
+	 * <p>This needs to be set before initialization of this scheduler.
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 * supported by the current JVM
+	 * @since 5.3.23
+	 * @see VirtualThreadTaskExecutor
+	 */
+	public void setVirtualThreads(boolean virtual) {
+		if (virtual && !VirtualThreadTaskExecutor.isSupported()) {
+			throw new UnsupportedOperationException("Virtual threads not supported on JDK <21");
+		}
+		this.virtualThreads = virtual;
+	}
+
 	/**
 	 * Set a custom {@link ErrorHandler} strategy.
 	 */
@@ -167,6 +189,9 @@ public class ThreadPoolTaskScheduler extends ExecutorConfigurationSupport
 	protected ExecutorService initializeExecutor(
 			ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
 
+		if (this.virtualThreads && threadFactory == this) {
+			threadFactory = new VirtualThreadTaskExecutor(getThreadNamePrefix()).getVirtualThreadFactory();
+		}
 		this.scheduledExecutor = createExecutor(this.poolSize, threadFactory, rejectedExecutionHandler);
 
 		if (this.scheduledExecutor instanceof ScheduledThreadPoolExecutor) {
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.annotation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for annotation-based caching of {@link CompletableFuture} and
+ * reactive return values.
+ */
+class ReactiveCachingTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private ReactiveCacheableService service;
+
+	private Cache cache;
+
+
+	@BeforeEach
+	void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(ReactiveCacheableService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("first");
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.context.close();
+	}
+
+
+	@Test
+	void cacheCompletableFutureValue() {
+		Long r1 = this.service.cacheFuture("key").join();
+		Long r2 = this.service.cacheFuture("key").join();
+		assertThat(r1).isNotNull().isSameAs(r2);
+		assertThat(this.cache.get("key").get()).isSameAs(r1);
+	}
+
+	@Test
+	void cacheCompletableFutureValueWithSync() {
+		Long r1 = this.service.cacheFutureSync("key").join();
+		Long r2 = this.service.cacheFutureSync("key").join();
+		assertThat(r1).isNotNull().isSameAs(r2);
+		assertThat(this.cache.get("key").get()).isSameAs(r1);
+	}
+
+	@Test
+	void cacheMonoValue() {
+		Mono<Long> mono = this.service.cacheMono("key");
+		assertThat(this.service.getInvocations()).as("invocation is deferred until subscription").isEqualTo(0);
+		Long r1 = mono.block();
+		Long r2 = this.service.cacheMono("key").block();
+		assertThat(r1).isNotNull().isSameAs(r2);
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+		assertThat(this.cache.get("key").get()).isSameAs(r1);
+	}
+
+	@Test
+	void cacheMonoValueWithSync() {
+		Long r1 = this.service.cacheMonoSync("key").block();
+		Long r2 = this.service.cacheMonoSync("key").block();
+		assertThat(r1).isNotNull().isSameAs(r2);
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+	}
+
+	@Test
+	void cacheFluxValues() {
+		List<Long> r1 = this.service.cacheFlux("key").collectList().block();
+		List<Long> r2 = this.service.cacheFlux("key").collectList().block();
+		assertThat(r1).hasSize(3).isEqualTo(r2);
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+		assertThat(this.cache.get("key").get()).isEqualTo(r1);
+	}
+
+	@Test
+	void cacheEmptyMonoAsNull() {
+		assertThat(this.service.cacheEmptyMono("key").block()).isNull();
+		assertThat(this.service.cacheEmptyMono("key").block()).isNull();
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+		assertThat(this.cache.get("key").get()).isNull();
+	}
+
+	@Test
+	void cachePutOfCompletableFutureValue() {
+		Long r1 = this.service.putFuture("key").join();
+		assertThat(this.cache.get("key").get()).isSameAs(r1);
+		Long r2 = this.service.putFuture("key").join();
+		assertThat(r2).isNotEqualTo(r1);
+		assertThat(this.cache.get("key").get()).isSameAs(r2);
+	}
+
+	@Test
+	void failedMonoIsNotCached() {
+		assertThatExceptionOfType(IllegalStateException.class)
+				.isThrownBy(() -> this.service.failMono("key").block()).withMessage("failure 1");
+		assertThatExceptionOfType(IllegalStateException.class)
+				.isThrownBy(() -> this.service.failMono("key").block()).withMessage("failure 2");
+		assertThat(this.cache.get("key")).isNull();
+	}
+
+	@Test
+	void failedCompletableFutureExposesOriginalException() {
+		assertThatExceptionOfType(CompletionException.class)
+				.isThrownBy(() -> this.service.failFuture("key").join())
+				.withCauseInstanceOf(IllegalStateException.class);
+		assertThat(this.cache.get("key")).isNull();
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("first");
+		}
+
+		@Bean
+		public ReactiveCacheableService service() {
+			return new ReactiveCacheableService();
+		}
+	}
+
+
+	@CacheConfig(cacheNames = "first")
+	static class ReactiveCacheableService {
+
+		private final AtomicLong counter = new AtomicLong();
+
+		@Cacheable
+		public CompletableFuture<Long> cacheFuture(Object arg) {
+			return CompletableFuture.supplyAsync(this.counter::incrementAndGet);
+		}
+
+		@Cacheable(sync = true)
+		public CompletableFuture<Long> cacheFutureSync(Object arg) {
+			return CompletableFuture.supplyAsync(this.counter::incrementAndGet);
+		}
+
+		@Cacheable
+		public Mono<Long> cacheMono(Object arg) {
+			return Mono.fromCallable(this.counter::incrementAndGet);
+		}
+
+		@Cacheable(sync = true)
+		public Mono<Long> cacheMonoSync(Object arg) {
+			return Mono.fromCallable(this.counter::incrementAndGet);
+		}
+
+		@Cacheable
+		public Flux<Long> cacheFlux(Object arg) {
+			return Flux.defer(() -> {
+				long value = this.counter.incrementAndGet();
+				return Flux.fromIterable(Arrays.asList(value, value + 1, value + 2));
+			});
+		}
+
+		@Cacheable
+		public Mono<Long> cacheEmptyMono(Object arg) {
+			return Mono.defer(() -> {
+				this.counter.incrementAndGet();
+				return Mono.empty();
+			});
+		}
+
+		@CachePut
+		public CompletableFuture<Long> putFuture(Object arg) {
+			return CompletableFuture.completedFuture(this.counter.incrementAndGet());
+		}
+
+		@Cacheable
+		public Mono<Long> failMono(Object arg) {
+			return Mono.error(() -> new IllegalStateException("failure " + this.counter.incrementAndGet()));
+		}
+
+		@Cacheable
+		public CompletableFuture<Long> failFuture(Object arg) {
+			throw new IllegalStateException("failure");
+		}
+
+		public long getInvocations() {
+			return this.counter.get();
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.context.testfixture.cache.AbstractValueAdaptingCacheTests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BoundedConcurrentMapCache}.
+ */
+public class BoundedConcurrentMapCacheTests extends AbstractValueAdaptingCacheTests<BoundedConcurrentMapCache> {
+
+	private BoundedConcurrentMapCache cache;
+
+	private BoundedConcurrentMapCache cacheNoNull;
+
+	private Instant now = Instant.now();
+
+
+	@BeforeEach
+	public void setup() {
+		this.cache = new BoundedConcurrentMapCache(CACHE_NAME, 100);
+		this.cacheNoNull = new BoundedConcurrentMapCache(CACHE_NAME_NO_NULL, 100, null, null, false, null);
+	}
+
+	@Override
+	protected BoundedConcurrentMapCache getCache() {
+		return getCache(true);
+	}
+
+	@Override
+	protected BoundedConcurrentMapCache getCache(boolean allowNull) {
+		return (allowNull ? this.cache : this.cacheNoNull);
+	}
+
+	@Override
+	protected ConcurrentMap<Object, Object> getNativeCache() {
+		return this.cache.getNativeCache();
+	}
+
+
+	@Test
+	public void evictsWhenMaximumSizeExceeded() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 3);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		cache.put("d", 4);
+		assertThat(cache.getEstimatedSize()).isEqualTo(3);
+		assertThat(cache.get("a")).isNull();
+		assertThat(cache.get("d").get()).isEqualTo(4);
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void keepsRecentlyAccessedEntryOnEviction() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 3);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		assertThat(cache.get("a").get()).isEqualTo(1);
+		cache.put("d", 4);
+		assertThat(cache.getEstimatedSize()).isEqualTo(3);
+		assertThat(cache.get("a").get()).isEqualTo(1);
+		assertThat(cache.get("b")).isNull();
+	}
+
+	@Test
+	public void staysBoundedWithManyWrites() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 10);
+		for (int i = 0; i < 1000; i++) {
+			cache.put(i % 50, i);
+			cache.get(i % 7);
+		}
+		assertThat(cache.getEstimatedSize()).isEqualTo(10);
+	}
+
+	@Test
+	public void expiresAfterWrite() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 0, Duration.ofSeconds(10), null);
+		cache.setClock(clock());
+		cache.put("a", 1);
+		advance(Duration.ofSeconds(5));
+		assertThat(cache.get("a").get()).isEqualTo(1);
+		advance(Duration.ofSeconds(5));
+		assertThat(cache.get("a")).isNull();
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.getEstimatedSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void expiresAfterAccess() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 0, null, Duration.ofSeconds(10));
+		cache.setClock(clock());
+		cache.put("a", 1);
+		advance(Duration.ofSeconds(8));
+		assertThat(cache.get("a").get()).isEqualTo(1);
+		advance(Duration.ofSeconds(8));
+		assertThat(cache.get("a").get()).isEqualTo(1);
+		advance(Duration.ofSeconds(10));
+		assertThat(cache.get("a")).isNull();
+	}
+
+	@Test
+	public void putIfAbsentReplacesExpiredEntry() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 0, Duration.ofSeconds(10), null);
+		cache.setClock(clock());
+		cache.put("a", 1);
+		assertThat(cache.putIfAbsent("a", 2).get()).isEqualTo(1);
+		advance(Duration.ofSeconds(10));
+		assertThat(cache.putIfAbsent("a", 2)).isNull();
+		assertThat(cache.get("a").get()).isEqualTo(2);
+	}
+
+	@Test
+	public void getWithValueLoaderReloadsExpiredEntry() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 0, Duration.ofSeconds(10), null);
+		cache.setClock(clock());
+		assertThat(cache.get("a", () -> 1)).isEqualTo(1);
+		assertThat(cache.get("a", () -> 2)).isEqualTo(1);
+		advance(Duration.ofSeconds(10));
+		assertThat(cache.get("a", () -> 3)).isEqualTo(3);
+	}
+
+	@Test
+	public void recordsHitsAndMisses() {
+		this.cache.put("a", 1);
+		this.cache.get("a");
+		this.cache.get("a", Integer.class);
+		this.cache.get("b");
+		assertThat(this.cache.getHitCount()).isEqualTo(2);
+		assertThat(this.cache.getMissCount()).isEqualTo(1);
+	}
+
+
+	private Clock clock() {
+		return new Clock() {
+			@Override
+			public ZoneId getZone() {
+				return ZoneId.systemDefault();
+			}
+			@Override
+			public Clock withZone(ZoneId zone) {
+				return this;
+			}
+			@Override
+			public Instant instant() {
+				return now;
+			}
+		};
+	}
+
+	private void advance(Duration duration) {
+		this.now = this.now.plus(duration);
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cache.Cache;
@@ -131,4 +133,31 @@ public class ConcurrentMapCacheManagerTests {
 		assertThat(cache1x.get("key")).isNull();
 	}
 
+	@Test
+	public void testChangeToBounded() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1", "c2");
+		assertThat(cm.isBounded()).isFalse();
+		Cache cache1 = cm.getCache("c1");
+		assertThat(cache1 instanceof BoundedConcurrentMapCache).isFalse();
+
+		cm.setMaximumSize(2);
+		cm.setExpireAfterWrite(Duration.ofMinutes(10));
+		assertThat(cm.isBounded()).isTrue();
+		Cache cache1x = cm.getCache("c1");
+		assertThat(cache1x instanceof BoundedConcurrentMapCache).isTrue();
+		assertThat(((BoundedConcurrentMapCache) cache1x).getMaximumSize()).isEqualTo(2);
+
+		cache1x.put("key1", "value1");
+		cache1x.put("key2", "value2");
+		cache1x.put("key3", "value3");
+		assertThat(((BoundedConcurrentMapCache) cache1x).getEstimatedSize()).isEqualTo(2);
+		assertThat(cache1x.get("key3").get()).isEqualTo("value3");
+
+		cm.setBeanClassLoader(getClass().getClassLoader());
+		cm.setStoreByValue(true);
+		Cache cache1y = cm.getCache("c1");
+		assertThat(cache1y instanceof BoundedConcurrentMapCache).isTrue();
+		assertThat(((BoundedConcurrentMapCache) cache1y).isStoreByValue()).isTrue();
+	}
+
 }
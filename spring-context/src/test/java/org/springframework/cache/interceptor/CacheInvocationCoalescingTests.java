@@ -0,0 +1,254 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for coalesced invocations on concurrent cache misses.
+ *
+ * @see CacheAspectSupport#setCoalesceInvocations
+ */
+class CacheInvocationCoalescingTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private SlowService service;
+
+	private ExecutorService executor;
+
+
+	@BeforeEach
+	void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.context.getBean(CacheInterceptor.class).setCoalesceInvocations(true);
+		this.service = this.context.getBean(SlowService.class);
+		this.executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.executor.shutdownNow();
+		this.context.close();
+	}
+
+
+	@Test
+	void concurrentMissesInvokeOnce() throws Exception {
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(this.executor.submit(() -> this.service.get("key")));
+		}
+		assertThat(this.service.awaitStarted()).isTrue();
+		awaitWaitingCallers();
+		this.service.release();
+		for (Future<Object> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("key-1");
+		}
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+		assertThat(this.service.get("key")).isEqualTo("key-1");
+	}
+
+	@Test
+	void concurrentMissesWithUnlessInvokeOnce() throws Exception {
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(this.executor.submit(() -> this.service.getUnlessNull("key")));
+		}
+		assertThat(this.service.awaitStarted()).isTrue();
+		awaitWaitingCallers();
+		this.service.release();
+		for (Future<Object> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("key-1");
+		}
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+	}
+
+	@Test
+	void concurrentMissesRecordOneLoad() throws Exception {
+		SimpleCacheMetricsRecorder recorder = this.context.getBean(SimpleCacheMetricsRecorder.class);
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(this.executor.submit(() -> this.service.get("key")));
+		}
+		assertThat(this.service.awaitStarted()).isTrue();
+		awaitWaitingCallers();
+		this.service.release();
+		for (Future<Object> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("key-1");
+		}
+		assertThat(recorder.getMissCount("testCache")).isEqualTo(4);
+		assertThat(recorder.getLoadCount("testCache")).isEqualTo(1);
+	}
+
+	@Test
+	void concurrentAsyncMissesInvokeOnceAndRecordOneLoad() throws Exception {
+		SimpleCacheMetricsRecorder recorder = this.context.getBean(SimpleCacheMetricsRecorder.class);
+		List<CompletableFuture<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(this.service.getAsync("key"));
+		}
+		assertThat(this.service.awaitStarted()).isTrue();
+		this.service.release();
+		for (CompletableFuture<Object> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("key-1");
+		}
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+		assertThat(recorder.getLoadCount("asyncCache")).isEqualTo(1);
+	}
+
+	@Test
+	void distinctKeysInvokeSeparately() throws Exception {
+		this.service.release();
+		Future<Object> first = this.executor.submit(() -> this.service.get("first"));
+		Future<Object> second = this.executor.submit(() -> this.service.get("second"));
+		assertThat(first.get(5, TimeUnit.SECONDS)).asString().startsWith("first-");
+		assertThat(second.get(5, TimeUnit.SECONDS)).asString().startsWith("second-");
+		assertThat(this.service.getInvocations()).isEqualTo(2);
+	}
+
+	@Test
+	void failurePropagatesToWaitingCallers() throws Exception {
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			results.add(this.executor.submit(() -> this.service.fail("key")));
+		}
+		assertThat(this.service.awaitStarted()).isTrue();
+		awaitWaitingCallers();
+		this.service.release();
+		for (Future<Object> result : results) {
+			assertThatIllegalStateException().isThrownBy(() -> {
+				try {
+					result.get(5, TimeUnit.SECONDS);
+				}
+				catch (ExecutionException ex) {
+					throw (RuntimeException) ex.getCause();
+				}
+			}).withMessage("failed for key");
+		}
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+	}
+
+	private void awaitWaitingCallers() throws InterruptedException {
+		// Give the other callers a chance to reach the in-flight invocation
+		Thread.sleep(200);
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public SimpleCacheMetricsRecorder cacheMetricsRecorder() {
+			return new SimpleCacheMetricsRecorder();
+		}
+
+		@Bean
+		public SlowService slowService() {
+			return new SlowService();
+		}
+	}
+
+
+	static class SlowService {
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		private final CountDownLatch started = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Cacheable("testCache")
+		public Object get(String key) throws InterruptedException {
+			return compute(key);
+		}
+
+		@Cacheable(cacheNames = "testCache", key = "'unless-' + #key", unless = "#result == null")
+		public Object getUnlessNull(String key) throws InterruptedException {
+			return compute(key);
+		}
+
+		@Cacheable("asyncCache")
+		public CompletableFuture<Object> getAsync(String key) {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					return compute(key);
+				}
+				catch (InterruptedException ex) {
+					throw new CompletionException(ex);
+				}
+			});
+		}
+
+		@Cacheable("failingCache")
+		public Object fail(String key) throws InterruptedException {
+			compute(key);
+			throw new IllegalStateException("failed for " + key);
+		}
+
+		public boolean awaitStarted() throws InterruptedException {
+			return this.started.await(5, TimeUnit.SECONDS);
+		}
+
+		public void release() {
+			this.release.countDown();
+		}
+
+		public int getInvocations() {
+			return this.invocations.get();
+		}
+
+		private Object compute(String key) throws InterruptedException {
+			int invocation = this.invocations.incrementAndGet();
+			this.started.countDown();
+			this.release.await(5, TimeUnit.SECONDS);
+			return key + "-" + invocation;
+		}
+	}
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jmx.export.annotation.AnnotationMBeanExporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for recording cache statistics through a {@link CacheMetricsRecorder}.
+ */
+class CacheMetricsRecorderTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private SimpleCacheMetricsRecorder recorder;
+
+	private SimpleService service;
+
+
+	@BeforeEach
+	void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.recorder = this.context.getBean(SimpleCacheMetricsRecorder.class);
+		this.service = this.context.getBean(SimpleService.class);
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.context.close();
+	}
+
+
+	@Test
+	void recorderDetectedByInterceptor() {
+		assertThat(this.context.getBean(CacheInterceptor.class).getMetricsRecorder()).isSameAs(this.recorder);
+	}
+
+	@Test
+	void recordHitsMissesAndLoads() {
+		this.service.get("a");
+		this.service.get("a");
+		this.service.get("b");
+		assertThat(this.recorder.getHitCount("testCache")).isEqualTo(1);
+		assertThat(this.recorder.getMissCount("testCache")).isEqualTo(2);
+		assertThat(this.recorder.getLoadCount("testCache")).isEqualTo(2);
+		assertThat(this.recorder.getPutCount("testCache")).isEqualTo(2);
+		assertThat(this.recorder.getTotalLoadTime("testCache")).isPositive();
+		assertThat(this.recorder.getHitRatio("testCache")).isEqualTo(1 / 3d);
+		assertThat(this.recorder.getCacheNames()).containsExactly("testCache");
+	}
+
+	@Test
+	void recordSynchronizedHitsAndMisses() {
+		this.service.getSync("a");
+		this.service.getSync("a");
+		assertThat(this.recorder.getHitCount("testCache")).isEqualTo(1);
+		assertThat(this.recorder.getMissCount("testCache")).isEqualTo(1);
+		assertThat(this.recorder.getLoadCount("testCache")).isEqualTo(1);
+	}
+
+	@Test
+	void recordEvictions() {
+		this.service.get("a");
+		this.service.evict("a");
+		this.service.clear();
+		assertThat(this.recorder.getEvictionCount("testCache")).isEqualTo(1);
+		assertThat(this.recorder.getClearCount("testCache")).isEqualTo(1);
+		this.recorder.reset();
+		assertThat(this.recorder.getMissCount("testCache")).isEqualTo(0);
+		assertThat(this.recorder.getHitRatio("testCache")).isNaN();
+	}
+
+	@Test
+	void exposedThroughJmx() throws Exception {
+		this.service.get("a");
+		this.service.get("a");
+		MBeanServer server = this.context.getBean(MBeanServer.class);
+		ObjectName name = ObjectName.getInstance("org.springframework.cache.interceptor:name=cacheMetricsRecorder," +
+				"type=SimpleCacheMetricsRecorder");
+		Object hits = server.invoke(name, "getHitCount", new Object[] {"testCache"}, new String[] {String.class.getName()});
+		assertThat(hits).isEqualTo(1L);
+		assertThat((String[]) server.getAttribute(name, "CacheNames")).containsExactly("testCache");
+	}
+
+	@Test
+	void recorderExceptionPropagatedRatherThanHandled() {
+		CacheErrorHandler errorHandler = mock(CacheErrorHandler.class);
+		CacheMetricsRecorder failingRecorder = mock(CacheMetricsRecorder.class);
+		willThrow(new IllegalStateException("Test exception")).given(failingRecorder).recordHit(any(Cache.class));
+		AbstractCacheInvoker invoker = new AbstractCacheInvoker(errorHandler) {};
+		invoker.setMetricsRecorder(failingRecorder);
+		Cache cache = new ConcurrentMapCache("testCache");
+		cache.put("a", "value");
+
+		assertThatIllegalStateException().isThrownBy(() -> invoker.doGet(cache, "a"))
+				.withMessage("Test exception");
+		verifyNoInteractions(errorHandler);
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public SimpleCacheMetricsRecorder cacheMetricsRecorder() {
+			return new SimpleCacheMetricsRecorder();
+		}
+
+		@Bean
+		public MBeanServer mbeanServer() {
+			return MBeanServerFactory.newMBeanServer();
+		}
+
+		@Bean
+		public AnnotationMBeanExporter mbeanExporter(MBeanServer mbeanServer) {
+			AnnotationMBeanExporter exporter = new AnnotationMBeanExporter();
+			exporter.setServer(mbeanServer);
+			return exporter;
+		}
+
+		@Bean
+		public SimpleService simpleService() {
+			return new SimpleService();
+		}
+	}
+
+
+	static class SimpleService {
+
+		private final AtomicLong counter = new AtomicLong();
+
+		@Cacheable("testCache")
+		public Object get(Object key) {
+			return this.counter.incrementAndGet();
+		}
+
+		@Cacheable(cacheNames = "testCache", sync = true)
+		public Object getSync(Object key) {
+			return this.counter.incrementAndGet();
+		}
+
+		@CacheEvict("testCache")
+		public void evict(Object key) {
+		}
+
+		@CacheEvict(cacheNames = "testCache", allEntries = true)
+		public void clear() {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -136,6 +136,70 @@ public class ExpressionEvaluatorTests {
 		assertThat(value).isEqualTo(String.class.getName());
 	}
 
+	@Test
+	public void resolveArgumentsIndividually() {
+		Method method = ReflectionUtils.findMethod(
+				AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		Object[] args = new Object[] {"first", "second"};
+		EvaluationContext context = this.eval.createEvaluationContext(Collections.emptySet(), method, args,
+				new AnnotatedClass(), AnnotatedClass.class, method, CacheOperationExpressionEvaluator.NO_RESULT, null);
+		assertThat(context.lookupVariable("b")).isEqualTo("second");
+		assertThat(context.lookupVariable("a0")).isEqualTo("first");
+		assertThat(context.lookupVariable("p1")).isEqualTo("second");
+		assertThat(context.lookupVariable("p01")).isNull();
+		assertThat(context.lookupVariable("p2")).isNull();
+		assertThat(context.lookupVariable("c")).isNull();
+		assertThat(context.lookupVariable("result")).isNull();
+	}
+
+	@Test
+	public void resolveVarargsArgument() {
+		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "varargs", Object.class, Object[].class);
+		Object[] args = new Object[] {"first", "second", "third"};
+		EvaluationContext context = this.eval.createEvaluationContext(Collections.emptySet(), method, args,
+				new AnnotatedClass(), AnnotatedClass.class, method, CacheOperationExpressionEvaluator.NO_RESULT, null);
+		assertThat(context.lookupVariable("a")).isEqualTo("first");
+		assertThat((Object[]) context.lookupVariable("rest")).containsExactly("second", "third");
+		assertThat((Object[]) context.lookupVariable("p1")).containsExactly("second", "third");
+	}
+
+	@Test
+	public void keyEvaluationAcrossCompilation() {
+		Method method = ReflectionUtils.findMethod(
+				AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		AnnotatedElementKey elementKey = new AnnotatedElementKey(method, AnnotatedClass.class);
+		String expression = "#a.toString() + ':' + #b";
+		for (int i = 0; i < 200; i++) {
+			Object[] args = new Object[] {new Item("item" + i), i};
+			EvaluationContext context = this.eval.createEvaluationContext(Collections.emptySet(), method, args,
+					new AnnotatedClass(), AnnotatedClass.class, method, CacheOperationExpressionEvaluator.NO_RESULT, null);
+			assertThat(this.eval.key(expression, elementKey, context)).isEqualTo("item" + i + ":" + i);
+		}
+		// Different argument types than the ones seen when compiling
+		Object[] args = new Object[] {42L, "test"};
+		EvaluationContext context = this.eval.createEvaluationContext(Collections.emptySet(), method, args,
+				new AnnotatedClass(), AnnotatedClass.class, method, CacheOperationExpressionEvaluator.NO_RESULT, null);
+		assertThat(this.eval.key(expression, elementKey, context)).isEqualTo("42:test");
+	}
+
+	@Test
+	public void conditionEvaluationAcrossCompilation() {
+		Method method = ReflectionUtils.findMethod(
+				AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		AnnotatedElementKey elementKey = new AnnotatedElementKey(method, AnnotatedClass.class);
+		String expression = "#p1 > 10";
+		for (int i = 0; i < 200; i++) {
+			Object[] args = new Object[] {null, i};
+			EvaluationContext context = this.eval.createEvaluationContext(Collections.emptySet(), method, args,
+					new AnnotatedClass(), AnnotatedClass.class, method, CacheOperationExpressionEvaluator.NO_RESULT, null);
+			assertThat(this.eval.condition(expression, elementKey, context)).isEqualTo(i > 10);
+		}
+		Object[] args = new Object[] {null, 20L};
+		EvaluationContext context = this.eval.createEvaluationContext(Collections.emptySet(), method, args,
+				new AnnotatedClass(), AnnotatedClass.class, method, CacheOperationExpressionEvaluator.NO_RESULT, null);
+		assertThat(this.eval.condition(expression, elementKey, context)).isTrue();
+	}
+
 	private EvaluationContext createEvaluationContext(Object result) {
 		return createEvaluationContext(result, null);
 	}
@@ -156,6 +220,24 @@ public class ExpressionEvaluatorTests {
 		@Caching(cacheable = { @Cacheable(value = "test", key = "#a"), @Cacheable(value = "test", key = "#b") })
 		public void multipleCaching(Object a, Object b) {
 		}
+
+		public void varargs(Object a, Object... rest) {
+		}
+	}
+
+
+	public static class Item {
+
+		private final String name;
+
+		public Item(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String toString() {
+			return this.name;
+		}
 	}
 
 }
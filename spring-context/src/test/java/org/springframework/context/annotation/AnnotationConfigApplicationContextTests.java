@@ -16,7 +16,10 @@
 
 package org.springframework.context.annotation;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.Test;
@@ -425,6 +428,27 @@ class AnnotationConfigApplicationContextTests {
 	}
 
 
+	@Test
+	void refreshWithParallelPreInstantiation() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.getDefaultListableBeanFactory().setPreInstantiationParallelism(2);
+		context.register(ParallelConfig.class);
+		context.refresh();
+
+		String currentThread = Thread.currentThread().getName();
+		Map<String, ConcurrentlyCreatedBean> beans = context.getBeansOfType(ConcurrentlyCreatedBean.class);
+		assertThat(beans).hasSize(2);
+		for (ConcurrentlyCreatedBean bean : beans.values()) {
+			assertThat(bean.createdConcurrently).isTrue();
+			assertThat(bean.threadName).isNotEqualTo(currentThread);
+		}
+		ConcurrentlyCreatedDependent dependent = context.getBean(ConcurrentlyCreatedDependent.class);
+		assertThat(dependent.beans).containsExactlyInAnyOrderElementsOf(beans.values());
+		assertThat(dependent.threadName).isNotEqualTo(currentThread);
+		context.close();
+	}
+
+
 	@Configuration
 	static class Config {
 
@@ -476,6 +500,53 @@ class AnnotationConfigApplicationContextTests {
 		}
 	}
 
+	@Configuration
+	static class ParallelConfig {
+
+		private final CountDownLatch creation = new CountDownLatch(2);
+
+		@Bean ConcurrentlyCreatedBean concurrent1() {
+			return new ConcurrentlyCreatedBean(this.creation);
+		}
+
+		@Bean ConcurrentlyCreatedBean concurrent2() {
+			return new ConcurrentlyCreatedBean(this.creation);
+		}
+
+		@Bean ConcurrentlyCreatedDependent dependent(List<ConcurrentlyCreatedBean> beans) {
+			return new ConcurrentlyCreatedDependent(beans);
+		}
+	}
+
+	static class ConcurrentlyCreatedBean {
+
+		final String threadName = Thread.currentThread().getName();
+
+		final boolean createdConcurrently;
+
+		ConcurrentlyCreatedBean(CountDownLatch creation) {
+			// Only completes in time if the other bean is in creation on another thread
+			creation.countDown();
+			try {
+				this.createdConcurrently = creation.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+
+	static class ConcurrentlyCreatedDependent {
+
+		final String threadName = Thread.currentThread().getName();
+
+		final List<ConcurrentlyCreatedBean> beans;
+
+		ConcurrentlyCreatedDependent(List<ConcurrentlyCreatedBean> beans) {
+			this.beans = beans;
+		}
+	}
+
 	static class BeanA {
 
 		BeanB b;
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link BeanDefinitionSnapshotGenerator} and the registration of
+ * bean definitions from a snapshot in {@link ConfigurationClassPostProcessor}.
+ *
+ * @since 5.3.23
+ */
+class BeanDefinitionSnapshotTests {
+
+	@TempDir
+	Path outputDirectory;
+
+
+	@BeforeEach
+	void resetImportCount() {
+		CountingImportSelector.count.set(0);
+	}
+
+
+	@Test
+	void snapshotReplacesConfigurationClassParsing() throws IOException {
+		ClassLoader classLoader = generateSnapshot(SnapshotConfig.class);
+		assertThat(CountingImportSelector.count.get()).isEqualTo(1);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(classLoader);
+		useSnapshot(context);
+		context.register(SnapshotConfig.class);
+		context.refresh();
+
+		assertThat(CountingImportSelector.count.get()).isEqualTo(1);
+		assertThat(context.getBean("greeting")).isEqualTo("Hello");
+		assertThat(context.getBean("salutation")).isSameAs(context.getBean("greeting"));
+		assertThat(context.getBean(Greeter.class).greeting).isEqualTo("Hello");
+		assertThat(context.getBean(SnapshotConfig.class).greeter()).isSameAs(context.getBean(Greeter.class));
+		AnnotationMetadata importMetadata = context.getBean(ImportedConfig.class).importMetadata;
+		assertThat(importMetadata).isNotNull();
+		assertThat(importMetadata.getClassName()).isEqualTo(SnapshotConfig.class.getName());
+		context.close();
+	}
+
+	@Test
+	void snapshotRegistersPropertySources() throws IOException {
+		ClassLoader classLoader = generateSnapshot(PropertySourceConfig.class);
+		assertThat(CountingImportSelector.count.get()).isEqualTo(1);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(classLoader);
+		useSnapshot(context);
+		context.register(PropertySourceConfig.class);
+		context.refresh();
+
+		assertThat(CountingImportSelector.count.get()).isEqualTo(1);
+		assertThat(context.getBean("greeting")).isEqualTo("Hello");
+		assertThat(context.getEnvironment().getProperty("from.p1")).isEqualTo("p1Value");
+		assertThat(context.getEnvironment().getProperty("from.p2")).isEqualTo("p2Value");
+		assertThat(context.getEnvironment().getProperty("testbean.name")).isEqualTo("p2TestBean");
+		context.close();
+	}
+
+	@Test
+	void snapshotIgnoredForDifferentConfigurationClasses() throws IOException {
+		ClassLoader classLoader = generateSnapshot(SnapshotConfig.class);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(classLoader);
+		useSnapshot(context);
+		context.register(SnapshotConfig.class, OtherConfig.class);
+		context.refresh();
+
+		assertThat(CountingImportSelector.count.get()).isEqualTo(2);
+		assertThat(context.getBean("greeting")).isEqualTo("Hello");
+		assertThat(context.getBean("other")).isEqualTo("Other");
+		context.close();
+	}
+
+	@Test
+	void snapshotIgnoredForDifferentProfiles() throws IOException {
+		ClassLoader classLoader = generateSnapshot(SnapshotConfig.class);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(classLoader);
+		useSnapshot(context);
+		context.getEnvironment().setActiveProfiles("test");
+		context.register(SnapshotConfig.class);
+		context.refresh();
+
+		assertThat(CountingImportSelector.count.get()).isEqualTo(2);
+		assertThat(context.getBean("greeting")).isEqualTo("Hello");
+		context.close();
+	}
+
+	@Test
+	void snapshotIgnoredForChangedClassFile() throws IOException {
+		ClassLoader classLoader = generateSnapshot(SnapshotConfig.class);
+		File file = new File(this.outputDirectory.toFile(), BeanDefinitionSnapshotGenerator.SNAPSHOT_RESOURCE_LOCATION);
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		}
+		String classKey = properties.stringPropertyNames().stream()
+				.filter(key -> key.startsWith("class.") && SnapshotConfig.class.getName().equals(properties.getProperty(key)))
+				.findFirst().orElseThrow(IllegalStateException::new);
+		properties.setProperty(classKey.replace(".name", ".hash"), "0");
+		try (OutputStream out = new FileOutputStream(file)) {
+			properties.store(out, null);
+		}
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(classLoader);
+		useSnapshot(context);
+		context.register(SnapshotConfig.class);
+		context.refresh();
+
+		assertThat(CountingImportSelector.count.get()).isEqualTo(2);
+		assertThat(context.getBean("greeting")).isEqualTo("Hello");
+		context.close();
+	}
+
+	@Test
+	void snapshotNotUsedByDefault() throws IOException {
+		ClassLoader classLoader = generateSnapshot(SnapshotConfig.class);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(classLoader);
+		context.register(SnapshotConfig.class);
+		context.refresh();
+
+		assertThat(CountingImportSelector.count.get()).isEqualTo(2);
+		assertThat(context.getBean("greeting")).isEqualTo("Hello");
+		context.close();
+	}
+
+	@Test
+	void generateWithCondition() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.register(ConditionalConfig.class);
+		assertThatIllegalStateException().isThrownBy(() ->
+				BeanDefinitionSnapshotGenerator.generate(context, new ByteArrayOutputStream()))
+				.withMessageContaining(AlwaysCondition.class.getName());
+	}
+
+	@Test
+	void generateWithInstanceSupplier() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.register(SupplierConfig.class);
+		assertThatIllegalStateException().isThrownBy(() ->
+				BeanDefinitionSnapshotGenerator.generate(context, new ByteArrayOutputStream()))
+				.withMessageContaining("supplied");
+	}
+
+
+	private ClassLoader generateSnapshot(Class<?>... componentClasses) throws IOException {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.register(componentClasses);
+		File file = new File(this.outputDirectory.toFile(), BeanDefinitionSnapshotGenerator.SNAPSHOT_RESOURCE_LOCATION);
+		assertThat(file.getParentFile().mkdirs()).isTrue();
+		try (OutputStream out = new FileOutputStream(file)) {
+			BeanDefinitionSnapshotGenerator.generate(context, out);
+		}
+		return new URLClassLoader(new URL[] {this.outputDirectory.toUri().toURL()}, getClass().getClassLoader());
+	}
+
+	private void useSnapshot(AnnotationConfigApplicationContext context) {
+		context.getBeanDefinition(AnnotationConfigUtils.CONFIGURATION_ANNOTATION_PROCESSOR_BEAN_NAME)
+				.getPropertyValues().add("useBeanDefinitionSnapshot", true);
+	}
+
+
+	@Configuration
+	@Import({ImportedConfig.class, CountingImportSelector.class})
+	static class SnapshotConfig {
+
+		@Bean(name = {"greeting", "salutation"})
+		@Profile("!disabled")
+		String greeting() {
+			return "Hello";
+		}
+
+		@Bean
+		Greeter greeter() {
+			return new Greeter(greeting());
+		}
+	}
+
+
+	@Configuration
+	static class ImportedConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+	}
+
+
+	@Configuration
+	@PropertySource("classpath:org/springframework/context/annotation/p1.properties")
+	@PropertySource(name = "p2", value = "classpath:${base.package}/p2.properties", ignoreResourceNotFound = true)
+	@Import(CountingImportSelector.class)
+	static class PropertySourceConfig {
+
+		@Bean
+		String greeting() {
+			return "Hello";
+		}
+	}
+
+
+	@Configuration
+	static class OtherConfig {
+
+		@Bean
+		String other() {
+			return "Other";
+		}
+	}
+
+
+	@Configuration
+	@Import(SupplierRegistrar.class)
+	static class SupplierConfig {
+	}
+
+
+	@Configuration
+	static class ConditionalConfig {
+
+		@Bean
+		@Conditional(AlwaysCondition.class)
+		String conditional() {
+			return "Conditional";
+		}
+	}
+
+
+	static class SupplierRegistrar implements ImportBeanDefinitionRegistrar {
+
+		@Override
+		public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
+			registry.registerBeanDefinition("supplied", new RootBeanDefinition(String.class, () -> "Supplied"));
+		}
+	}
+
+
+	static class Greeter {
+
+		final String greeting;
+
+		Greeter(String greeting) {
+			this.greeting = greeting;
+		}
+	}
+
+
+	static class CountingImportSelector implements ImportSelector {
+
+		static final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+			count.incrementAndGet();
+			return new String[0];
+		}
+	}
+
+
+	static class AlwaysCondition implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			return true;
+		}
+	}
+
+}
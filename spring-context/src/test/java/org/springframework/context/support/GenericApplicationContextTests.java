@@ -27,6 +27,7 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
@@ -35,6 +36,8 @@ import org.springframework.core.io.FileUrlResource;
 import org.springframework.core.io.ProtocolResolver;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.metrics.jfr.FlightRecorderApplicationStartup;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -225,6 +228,34 @@ class GenericApplicationContextTests {
 		assertThat(context.getBeanFactory().getApplicationStartup()).isEqualTo(applicationStartup);
 	}
 
+	@Test
+	void refreshWithBufferingApplicationStartup() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(100);
+		context.setApplicationStartup(applicationStartup);
+		context.registerBeanDefinition("testBean", new RootBeanDefinition(String.class));
+		context.refresh();
+
+		assertThat(applicationStartup.getBufferedSteps()).extracting(StartupStep::getName)
+				.contains("spring.beans.instantiate", "spring.context.event.publish", "spring.context.refresh");
+		assertThat(applicationStartup.getBufferedSteps())
+				.filteredOn(step -> step.getName().equals("spring.context.event.publish"))
+				.anySatisfy(step -> assertThat(step.getTags().iterator().next().getValue())
+						.isEqualTo(ContextRefreshedEvent.class.getName()));
+		assertThat(applicationStartup.createReport()).contains("spring.context.refresh");
+	}
+
+	@Test
+	void publishEventAfterRefreshWithBufferingApplicationStartup() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(100);
+		context.setApplicationStartup(applicationStartup);
+		context.refresh();
+		int bufferedSteps = applicationStartup.getBufferedSteps().size();
+
+		context.publishEvent("runtime event");
+
+		assertThat(applicationStartup.getBufferedSteps()).hasSize(bufferedSteps);
+	}
+
 	@Test
 	void getResourceWithDefaultResourceLoader() {
 		assertGetResourceSemantics(null, ClassPathResource.class);
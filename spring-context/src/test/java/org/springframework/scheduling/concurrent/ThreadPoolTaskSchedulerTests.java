@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,8 +22,11 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIf;
+import org.junit.jupiter.api.condition.EnabledIf;
 
 import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.scheduling.Trigger;
@@ -134,6 +137,52 @@ public class ThreadPoolTaskSchedulerTests extends AbstractSchedulingTaskExecutor
 	}
 
 
+	@Test
+	@EnabledIf("org.springframework.core.task.VirtualThreadTaskExecutor#isSupported")
+	void scheduleOneTimeTaskOnVirtualThreads() throws Exception {
+		ThreadPoolTaskScheduler virtualScheduler = new ThreadPoolTaskScheduler();
+		virtualScheduler.setThreadNamePrefix("virtual-");
+		virtualScheduler.setVirtualThreads(true);
+		virtualScheduler.afterPropertiesSet();
+		try {
+			AtomicReference<Thread> thread = new AtomicReference<>();
+			Future<?> future = virtualScheduler.schedule(() -> thread.set(Thread.currentThread()), new Date());
+			future.get(1000, TimeUnit.MILLISECONDS);
+			assertThat(thread.get().toString()).startsWith("VirtualThread");
+			assertThat(thread.get().getName()).startsWith("virtual-");
+		}
+		finally {
+			virtualScheduler.destroy();
+		}
+	}
+
+	@Test
+	@EnabledIf("org.springframework.core.task.VirtualThreadTaskExecutor#isSupported")
+	void externalThreadFactoryTakesPrecedenceOverVirtualThreads() throws Exception {
+		ThreadPoolTaskScheduler virtualScheduler = new ThreadPoolTaskScheduler();
+		virtualScheduler.setThreadFactory(runnable -> new Thread(runnable, "custom"));
+		virtualScheduler.setVirtualThreads(true);
+		virtualScheduler.afterPropertiesSet();
+		try {
+			AtomicReference<Thread> thread = new AtomicReference<>();
+			Future<?> future = virtualScheduler.schedule(() -> thread.set(Thread.currentThread()), new Date());
+			future.get(1000, TimeUnit.MILLISECONDS);
+			assertThat(thread.get().toString()).doesNotStartWith("VirtualThread");
+			assertThat(thread.get().getName()).isEqualTo("custom");
+		}
+		finally {
+			virtualScheduler.destroy();
+		}
+	}
+
+	@Test
+	@DisabledIf("org.springframework.core.task.VirtualThreadTaskExecutor#isSupported")
+	void virtualThreadsNotSupported() {
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() ->
+				new ThreadPoolTaskScheduler().setVirtualThreads(true));
+	}
+
+
 	private void await(TestTask task) {
 		await(task.latch);
 	}
@@ -94,6 +94,9 @@ public class ResolvableType implements Serializable {
 	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
 			new ConcurrentReferenceHashMap<>(256);
 
+	private static final ConcurrentReferenceHashMap<Class<?>, ResolvableType> classCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	/**
 	 * The underlying Java type being managed.
@@ -309,8 +312,14 @@ public class ResolvableType implements Serializable {
 			return ourBounds.isAssignableFrom(other);
 		}
 
+		// Fast path for a non-generic class: plain class assignability, no generics to check
+		if (matchedBefore == null && this.type instanceof Class && getGenerics().length == 0) {
+			return ClassUtils.isAssignable((Class<?>) this.type, other.toClass());
+		}
+
 		// Main assignability check about to follow
-		boolean exactMatch = (matchedBefore != null);  // We're checking nested generic variables now...
+		boolean nested = (matchedBefore != null);
+		boolean exactMatch = nested;  // We're checking nested generic variables now...
 		boolean checkGenerics = true;
 		Class<?> ourResolved = null;
 		if (this.type instanceof TypeVariable) {
@@ -355,11 +364,19 @@ public class ResolvableType implements Serializable {
 			if (ourGenerics.length != typeGenerics.length) {
 				return false;
 			}
-			if (matchedBefore == null) {
-				matchedBefore = new IdentityHashMap<>(1);
-			}
-			matchedBefore.put(this.type, other.type);
 			for (int i = 0; i < ourGenerics.length; i++) {
+				if (!nested && isPlainClass(ourGenerics[i])) {
+					// Non-generic class as type argument: requires the exact same class,
+					// without the need for tracking matched variables
+					if (!isExactClassMatch(ourGenerics[i], typeGenerics[i])) {
+						return false;
+					}
+					continue;
+				}
+				if (matchedBefore == null) {
+					matchedBefore = new IdentityHashMap<>(1);
+				}
+				matchedBefore.put(this.type, other.type);
 				if (!ourGenerics[i].isAssignableFrom(typeGenerics[i], matchedBefore)) {
 					return false;
 				}
@@ -369,6 +386,14 @@ public class ResolvableType implements Serializable {
 		return true;
 	}
 
+	private static boolean isPlainClass(ResolvableType type) {
+		return (type.type instanceof Class && !((Class<?>) type.type).isArray() && type.getGenerics().length == 0);
+	}
+
+	private static boolean isExactClassMatch(ResolvableType plainClassType, ResolvableType other) {
+		return (other != NONE && WildcardBounds.get(other) == null && plainClassType.type == other.toClass());
+	}
+
 	/**
 	 * Return {@code true} if this type resolves to a Class that represents an array.
 	 * @see #getComponentType()
@@ -1006,7 +1031,16 @@ public class ResolvableType implements Serializable {
 	 * @see #forClassWithGenerics(Class, Class...)
 	 */
 	public static ResolvableType forClass(@Nullable Class<?> clazz) {
-		return new ResolvableType(clazz);
+		Class<?> key = (clazz != null ? clazz : Object.class);
+		ResolvableType resolvableType = classCache.get(key);
+		if (resolvableType == null) {
+			resolvableType = new ResolvableType(key);
+			ResolvableType existing = classCache.putIfAbsent(key, resolvableType);
+			if (existing != null) {
+				resolvableType = existing;
+			}
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1426,6 +1460,9 @@ public class ResolvableType implements Serializable {
 		// For simple Class references, build the wrapper right away -
 		// no expensive resolution necessary, so not worth caching...
 		if (type instanceof Class) {
+			if (typeProvider == null && variableResolver == null) {
+				return forClass((Class<?>) type);
+			}
 			return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
 		}
 
@@ -1439,6 +1476,11 @@ public class ResolvableType implements Serializable {
 			cachedType = new ResolvableType(type, typeProvider, variableResolver, resultType.hash);
 			cache.put(cachedType, cachedType);
 		}
+		if (typeProvider == null) {
+			// Canonical instance, sharing lazily resolved generics, supertype and interfaces
+			return cachedType;
+		}
+		// Keep the specific type provider as source (e.g. a field or method parameter)
 		resultType.resolved = cachedType.resolved;
 		return resultType;
 	}
@@ -1449,6 +1491,7 @@ public class ResolvableType implements Serializable {
 	 */
 	public static void clearCache() {
 		cache.clear();
+		classCache.clear();
 		SerializableTypeWrapper.cache.clear();
 	}
 
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Precomputed result of an {@link AnnotationsScanner} hierarchy walk for a
+ * single annotated element and search strategy.
+ *
+ * <p>The index records the calls that the scanner made to its processor, so
+ * that subsequent searches can replay them without walking the class or method
+ * hierarchy again. In addition, it provides a bitset of all annotation types
+ * that are present in the hierarchy, directly or as meta-annotations, allowing
+ * searches for absent annotation types to be rejected without any processing.
+ *
+ * @since 5.3.23
+ * @see AnnotationsScanner#getIndex
+ */
+final class AnnotationIndex {
+
+	/** Sequential ids for the names of all annotation types ever indexed. */
+	private static final Map<String, Integer> annotationTypeIds = new ConcurrentHashMap<>(256);
+
+	private static final AtomicInteger nextAnnotationTypeId = new AtomicInteger();
+
+
+	private final AnnotatedElement element;
+
+	private final Event[] events;
+
+	@Nullable
+	private volatile BitSet annotationTypes;
+
+
+	private AnnotationIndex(AnnotatedElement element, Event[] events) {
+		this.element = element;
+		this.events = events;
+	}
+
+
+	/**
+	 * Replay the recorded hierarchy walk to the given processor.
+	 * @param context the context object to pass to the processor
+	 * @param processor the processor that receives the annotations
+	 * @return the result of {@link AnnotationsProcessor#finish(Object)}
+	 */
+	@Nullable
+	<C, R> R scan(C context, AnnotationsProcessor<C, R> processor) {
+		R result = null;
+		for (Event event : this.events) {
+			try {
+				if (event.annotations == null) {
+					result = processor.doWithAggregate(context, event.aggregateIndex);
+				}
+				else {
+					result = processor.doWithAnnotations(context, event.aggregateIndex, event.source, event.annotations);
+				}
+			}
+			catch (Throwable ex) {
+				// Same handling as within the original hierarchy walk
+				AnnotationUtils.handleIntrospectionFailure(this.element, ex);
+			}
+			if (result != null) {
+				break;
+			}
+		}
+		return processor.finish(result);
+	}
+
+	/**
+	 * Determine whether an annotation of the given type may be present in the
+	 * indexed hierarchy, either directly or as a meta-annotation.
+	 * <p>The index is built with {@link RepeatableContainers#standardRepeatables()}
+	 * and {@link AnnotationFilter#PLAIN}: a {@code false} result is therefore only
+	 * meaningful for searches with the same or more restrictive settings.
+	 * @param requiredType the annotation type as {@link Class} or {@link String}
+	 * @return {@code false} if no such annotation is present, {@code true} if it
+	 * may be present
+	 */
+	boolean mayContain(Object requiredType) {
+		String typeName = (requiredType instanceof Class ?
+				((Class<?>) requiredType).getName() : requiredType.toString());
+		BitSet annotationTypes = getAnnotationTypes();
+		Integer id = annotationTypeIds.get(typeName);
+		return (id != null && annotationTypes.get(id));
+	}
+
+	private BitSet getAnnotationTypes() {
+		BitSet annotationTypes = this.annotationTypes;
+		if (annotationTypes == null) {
+			annotationTypes = new BitSet();
+			for (Event event : this.events) {
+				if (event.annotations != null) {
+					addAnnotationTypes(annotationTypes, event.annotations);
+				}
+			}
+			this.annotationTypes = annotationTypes;
+		}
+		return annotationTypes;
+	}
+
+	private static void addAnnotationTypes(BitSet annotationTypes, Annotation[] annotations) {
+		for (Annotation annotation : annotations) {
+			if (annotation != null && !AnnotationFilter.PLAIN.matches(annotation)) {
+				Annotation[] repeatedAnnotations =
+						RepeatableContainers.standardRepeatables().findRepeatedAnnotations(annotation);
+				if (repeatedAnnotations != null) {
+					addAnnotationTypes(annotationTypes, repeatedAnnotations);
+				}
+				AnnotationTypeMappings mappings = AnnotationTypeMappings.forAnnotationType(annotation.annotationType());
+				for (int i = 0; i < mappings.size(); i++) {
+					annotationTypes.set(getAnnotationTypeId(mappings.get(i).getAnnotationType()));
+				}
+			}
+		}
+	}
+
+	private static int getAnnotationTypeId(Class<? extends Annotation> annotationType) {
+		return annotationTypeIds.computeIfAbsent(annotationType.getName(),
+				key -> nextAnnotationTypeId.getAndIncrement());
+	}
+
+
+	/**
+	 * {@link AnnotationsProcessor} that records the calls of a complete
+	 * hierarchy walk in order to build an {@link AnnotationIndex} from them.
+	 */
+	static final class Recorder implements AnnotationsProcessor<Object, Object> {
+
+		private final AnnotatedElement element;
+
+		private final List<Event> events = new ArrayList<>();
+
+		Recorder(AnnotatedElement element) {
+			this.element = element;
+		}
+
+		@Override
+		@Nullable
+		public Object doWithAggregate(Object context, int aggregateIndex) {
+			this.events.add(new Event(aggregateIndex, null, null));
+			return null;
+		}
+
+		@Override
+		@Nullable
+		public Object doWithAnnotations(Object context, int aggregateIndex,
+				@Nullable Object source, Annotation[] annotations) {
+
+			this.events.add(new Event(aggregateIndex, source, annotations));
+			return null;
+		}
+
+		AnnotationIndex toIndex() {
+			return new AnnotationIndex(this.element, this.events.toArray(new Event[0]));
+		}
+	}
+
+
+	/**
+	 * A single recorded processor call: either the start of an aggregate
+	 * or the annotations from one source within it.
+	 */
+	private static final class Event {
+
+		final int aggregateIndex;
+
+		@Nullable
+		final Object source;
+
+		@Nullable
+		final Annotation[] annotations;
+
+		Event(int aggregateIndex, @Nullable Object source, @Nullable Annotation[] annotations) {
+			this.aggregateIndex = aggregateIndex;
+			this.source = source;
+			this.annotations = annotations;
+		}
+	}
+
+}
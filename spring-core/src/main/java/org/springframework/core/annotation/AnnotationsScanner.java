@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -55,6 +55,9 @@ abstract class AnnotationsScanner {
 	private static final Map<Class<?>, Method[]> baseTypeMethodsCache =
 			new ConcurrentReferenceHashMap<>(256);
 
+	private static final Map<AnnotatedElement, AnnotationIndex[]> annotationIndexCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	private AnnotationsScanner() {
 	}
@@ -74,10 +77,46 @@ abstract class AnnotationsScanner {
 	static <C, R> R scan(C context, AnnotatedElement source, SearchStrategy searchStrategy,
 			AnnotationsProcessor<C, R> processor) {
 
+		AnnotationIndex index = getIndex(source, searchStrategy);
+		if (index != null) {
+			return index.scan(context, processor);
+		}
 		R result = process(context, source, searchStrategy, processor);
 		return processor.finish(result);
 	}
 
+	/**
+	 * Return the {@link AnnotationIndex} for the hierarchy of the specified
+	 * element, walking the hierarchy once if necessary.
+	 * @param source the source element to scan
+	 * @param searchStrategy the search strategy to use
+	 * @return the index, or {@code null} if the search strategy does not
+	 * involve a hierarchy walk for the given element
+	 */
+	@Nullable
+	static AnnotationIndex getIndex(AnnotatedElement source, SearchStrategy searchStrategy) {
+		if (searchStrategy == SearchStrategy.DIRECT || !(source instanceof Class || source instanceof Method)) {
+			return null;
+		}
+		AnnotationIndex[] indexes = annotationIndexCache.get(source);
+		if (indexes == null) {
+			indexes = new AnnotationIndex[SearchStrategy.values().length];
+			AnnotationIndex[] existing = annotationIndexCache.putIfAbsent(source, indexes);
+			if (existing != null) {
+				indexes = existing;
+			}
+		}
+		AnnotationIndex index = indexes[searchStrategy.ordinal()];
+		if (index == null) {
+			// Racing threads may record the same walk: the result is equivalent either way
+			AnnotationIndex.Recorder recorder = new AnnotationIndex.Recorder(source);
+			process(source, source, searchStrategy, recorder);
+			index = recorder.toIndex();
+			indexes[searchStrategy.ordinal()] = index;
+		}
+		return index;
+	}
+
 	@Nullable
 	private static <C, R> R process(C context, AnnotatedElement source,
 			SearchStrategy searchStrategy, AnnotationsProcessor<C, R> processor) {
@@ -532,6 +571,7 @@ abstract class AnnotationsScanner {
 	static void clearCache() {
 		declaredAnnotationCache.clear();
 		baseTypeMethodsCache.clear();
+		annotationIndexCache.clear();
 	}
 
 }
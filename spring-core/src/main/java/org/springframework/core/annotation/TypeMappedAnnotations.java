@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -92,7 +92,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 
 	@Override
 	public <A extends Annotation> boolean isPresent(Class<A> annotationType) {
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType)) {
 			return false;
 		}
 		return Boolean.TRUE.equals(scan(annotationType,
@@ -101,7 +101,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 
 	@Override
 	public boolean isPresent(String annotationType) {
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType)) {
 			return false;
 		}
 		return Boolean.TRUE.equals(scan(annotationType,
@@ -110,7 +110,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 
 	@Override
 	public <A extends Annotation> boolean isDirectlyPresent(Class<A> annotationType) {
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType)) {
 			return false;
 		}
 		return Boolean.TRUE.equals(scan(annotationType,
@@ -119,7 +119,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 
 	@Override
 	public boolean isDirectlyPresent(String annotationType) {
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType)) {
 			return false;
 		}
 		return Boolean.TRUE.equals(scan(annotationType,
@@ -143,7 +143,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 			@Nullable Predicate<? super MergedAnnotation<A>> predicate,
 			@Nullable MergedAnnotationSelector<A> selector) {
 
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType)) {
 			return MergedAnnotation.missing();
 		}
 		MergedAnnotation<A> result = scan(annotationType,
@@ -168,7 +168,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 			@Nullable Predicate<? super MergedAnnotation<A>> predicate,
 			@Nullable MergedAnnotationSelector<A> selector) {
 
-		if (this.annotationFilter.matches(annotationType)) {
+		if (this.annotationFilter.matches(annotationType) || isKnownAbsent(annotationType)) {
 			return MergedAnnotation.missing();
 		}
 		MergedAnnotation<A> result = scan(annotationType,
@@ -232,6 +232,22 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		return aggregates;
 	}
 
+	/**
+	 * Determine whether the given annotation type is known to be absent
+	 * according to the {@link AnnotationIndex} of the annotated element.
+	 * @param requiredType the annotation type as {@link Class} or {@link String}
+	 */
+	private boolean isKnownAbsent(Object requiredType) {
+		if (this.element == null || this.searchStrategy == null ||
+				this.annotationFilter != AnnotationFilter.PLAIN ||
+				(this.repeatableContainers != RepeatableContainers.standardRepeatables() &&
+						this.repeatableContainers != RepeatableContainers.none())) {
+			return false;
+		}
+		AnnotationIndex index = AnnotationsScanner.getIndex(this.element, this.searchStrategy);
+		return (index != null && !index.mayContain(requiredType));
+	}
+
 	@Nullable
 	private <C, R> R scan(C criteria, AnnotationsProcessor<C, R> processor) {
 		if (this.annotations != null) {
@@ -578,6 +578,32 @@ public abstract class AbstractEnvironment implements ConfigurableEnvironment {
 		this.propertyResolver.validateRequiredProperties();
 	}
 
+	/**
+	 * Specify whether to cache the result of property lookups against the
+	 * property sources of this environment.
+	 * <p>Requires the default {@link PropertySourcesPropertyResolver}.
+	 * @since 5.3.23
+	 * @see PropertySourcesPropertyResolver#setCachePropertyLookups
+	 * @see #clearPropertyLookupCache()
+	 */
+	public void setCachePropertyLookups(boolean cachePropertyLookups) {
+		Assert.state(this.propertyResolver instanceof PropertySourcesPropertyResolver,
+				"Caching of property lookups requires a PropertySourcesPropertyResolver");
+		((PropertySourcesPropertyResolver) this.propertyResolver).setCachePropertyLookups(cachePropertyLookups);
+	}
+
+	/**
+	 * Clear the cache of property lookups, if any, e.g. after a change within
+	 * one of the property sources of this environment.
+	 * @since 5.3.23
+	 * @see #setCachePropertyLookups
+	 */
+	public void clearPropertyLookupCache() {
+		if (this.propertyResolver instanceof PropertySourcesPropertyResolver) {
+			((PropertySourcesPropertyResolver) this.propertyResolver).clearCache();
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of PropertyResolver interface
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -43,6 +43,8 @@ public class MutablePropertySources implements PropertySources {
 
 	private final List<PropertySource<?>> propertySourceList = new CopyOnWriteArrayList<>();
 
+	private volatile long modificationCount;
+
 
 	/**
 	 * Create a new {@link MutablePropertySources} object.
@@ -106,6 +108,7 @@ public class MutablePropertySources implements PropertySources {
 		synchronized (this.propertySourceList) {
 			removeIfPresent(propertySource);
 			this.propertySourceList.add(0, propertySource);
+			this.modificationCount++;
 		}
 	}
 
@@ -116,6 +119,7 @@ public class MutablePropertySources implements PropertySources {
 		synchronized (this.propertySourceList) {
 			removeIfPresent(propertySource);
 			this.propertySourceList.add(propertySource);
+			this.modificationCount++;
 		}
 	}
 
@@ -129,6 +133,7 @@ public class MutablePropertySources implements PropertySources {
 			removeIfPresent(propertySource);
 			int index = assertPresentAndGetIndex(relativePropertySourceName);
 			addAtIndex(index, propertySource);
+			this.modificationCount++;
 		}
 	}
 
@@ -142,6 +147,7 @@ public class MutablePropertySources implements PropertySources {
 			removeIfPresent(propertySource);
 			int index = assertPresentAndGetIndex(relativePropertySourceName);
 			addAtIndex(index + 1, propertySource);
+			this.modificationCount++;
 		}
 	}
 
@@ -160,7 +166,12 @@ public class MutablePropertySources implements PropertySources {
 	public PropertySource<?> remove(String name) {
 		synchronized (this.propertySourceList) {
 			int index = this.propertySourceList.indexOf(PropertySource.named(name));
-			return (index != -1 ? this.propertySourceList.remove(index) : null);
+			if (index == -1) {
+				return null;
+			}
+			PropertySource<?> removed = this.propertySourceList.remove(index);
+			this.modificationCount++;
+			return removed;
 		}
 	}
 
@@ -175,6 +186,7 @@ public class MutablePropertySources implements PropertySources {
 		synchronized (this.propertySourceList) {
 			int index = assertPresentAndGetIndex(name);
 			this.propertySourceList.set(index, propertySource);
+			this.modificationCount++;
 		}
 	}
 
@@ -185,6 +197,18 @@ public class MutablePropertySources implements PropertySources {
 		return this.propertySourceList.size();
 	}
 
+	/**
+	 * Return the number of modifications applied to this {@code MutablePropertySources}
+	 * so far, i.e. property sources added, removed or replaced.
+	 * <p>Useful for detecting changes, e.g. in order to invalidate values that
+	 * have been cached for a given state of the property sources.
+	 * @since 5.3.23
+	 * @see PropertySourcesPropertyResolver#setCachePropertyLookups
+	 */
+	public long getModificationCount() {
+		return this.modificationCount;
+	}
+
 	@Override
 	public String toString() {
 		return this.propertySourceList.toString();
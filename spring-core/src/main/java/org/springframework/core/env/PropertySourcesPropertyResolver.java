@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,20 @@
 
 package org.springframework.core.env;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * {@link PropertyResolver} implementation that resolves property values against
  * an underlying set of {@link PropertySources}.
  *
+ * <p>As of 5.3.23, the property source in which a key has been found can be cached,
+ * avoiding a search through all property sources for every lookup of the same key.
+ * See {@link #setCachePropertyLookups}.
+ *
  * @author Chris Beams
  * @author Juergen Hoeller
  * @since 3.1
@@ -34,6 +42,11 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 	@Nullable
 	private final PropertySources propertySources;
 
+	private boolean cachePropertyLookups;
+
+	@Nullable
+	private volatile PropertyLookupCache propertyLookupCache;
+
 
 	/**
 	 * Create a new resolver against the given property sources.
@@ -44,6 +57,44 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 	}
 
 
+	/**
+	 * Specify whether to cache the result of property lookups, i.e. the property
+	 * source in which a key has been found along with its raw value, or the fact
+	 * that a key has not been found in any property source.
+	 * <p>Default is "false". Switch this to "true" for repeated lookups against many
+	 * property sources, e.g. resolution of {@code @Value} placeholders for prototype
+	 * beans, if the property sources do not change their content once resolution has
+	 * started. Structural changes to {@link MutablePropertySources}, i.e. property
+	 * sources added, removed or replaced, are detected and invalidate the cache;
+	 * changes within a property source, e.g. system properties set programmatically,
+	 * require a call to {@link #clearCache()}.
+	 * @since 5.3.23
+	 * @see MutablePropertySources#getModificationCount()
+	 */
+	public void setCachePropertyLookups(boolean cachePropertyLookups) {
+		this.cachePropertyLookups = cachePropertyLookups;
+		this.propertyLookupCache = null;
+	}
+
+	/**
+	 * Return whether the result of property lookups is cached.
+	 * @since 5.3.23
+	 */
+	public boolean isCachePropertyLookups() {
+		return this.cachePropertyLookups;
+	}
+
+	/**
+	 * Clear the cache of property lookups, e.g. after a change within one of
+	 * the property sources.
+	 * @since 5.3.23
+	 * @see #setCachePropertyLookups
+	 */
+	public void clearCache() {
+		this.propertyLookupCache = null;
+	}
+
+
 	@Override
 	public boolean containsProperty(String key) {
 		if (this.propertySources != null) {
@@ -76,6 +127,9 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
 	@Nullable
 	protected <T> T getProperty(String key, Class<T> targetValueType, boolean resolveNestedPlaceholders) {
+		if (this.cachePropertyLookups && this.propertySources != null) {
+			return getCachedProperty(key, targetValueType, resolveNestedPlaceholders);
+		}
 		if (this.propertySources != null) {
 			for (PropertySource<?> propertySource : this.propertySources) {
 				if (logger.isTraceEnabled()) {
@@ -98,6 +152,48 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		return null;
 	}
 
+	@Nullable
+	private <T> T getCachedProperty(String key, Class<T> targetValueType, boolean resolveNestedPlaceholders) {
+		PropertyLookupCache cache = getPropertyLookupCache();
+		PropertyLookup lookup = cache.lookups.get(key);
+		if (lookup == null) {
+			lookup = PropertyLookup.NOT_FOUND;
+			for (PropertySource<?> propertySource : cache.propertySources) {
+				Object value = propertySource.getProperty(key);
+				if (value != null) {
+					lookup = new PropertyLookup(propertySource, value);
+					break;
+				}
+			}
+			cache.lookups.put(key, lookup);
+		}
+		if (lookup.propertySource == null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Could not find key '" + key + "' in any property source");
+			}
+			return null;
+		}
+		Object value = lookup.value;
+		if (resolveNestedPlaceholders && value instanceof String) {
+			value = resolveNestedPlaceholders((String) value);
+		}
+		logKeyFound(key, lookup.propertySource, value);
+		return convertValueIfNecessary(value, targetValueType);
+	}
+
+	private PropertyLookupCache getPropertyLookupCache() {
+		PropertySources propertySources = this.propertySources;
+		Assert.state(propertySources != null, "No PropertySources");
+		long modificationCount = (propertySources instanceof MutablePropertySources ?
+				((MutablePropertySources) propertySources).getModificationCount() : 0);
+		PropertyLookupCache cache = this.propertyLookupCache;
+		if (cache == null || cache.modificationCount != modificationCount) {
+			cache = new PropertyLookupCache(propertySources, modificationCount);
+			this.propertyLookupCache = cache;
+		}
+		return cache;
+	}
+
 	/**
 	 * Log the given key as found in the given {@link PropertySource}, resulting in
 	 * the given value.
@@ -117,4 +213,43 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		}
 	}
 
+
+	/**
+	 * Cached property lookups for a given state of the property sources.
+	 */
+	private static final class PropertyLookupCache {
+
+		final PropertySource<?>[] propertySources;
+
+		final long modificationCount;
+
+		final Map<String, PropertyLookup> lookups = new ConcurrentHashMap<>(64);
+
+		PropertyLookupCache(PropertySources propertySources, long modificationCount) {
+			this.propertySources = propertySources.stream().toArray(PropertySource<?>[]::new);
+			this.modificationCount = modificationCount;
+		}
+	}
+
+
+	/**
+	 * The result of a property lookup: the property source in which the key
+	 * has been found along with its raw value, or none for a key not found.
+	 */
+	private static final class PropertyLookup {
+
+		static final PropertyLookup NOT_FOUND = new PropertyLookup(null, null);
+
+		@Nullable
+		final PropertySource<?> propertySource;
+
+		@Nullable
+		final Object value;
+
+		PropertyLookup(@Nullable PropertySource<?> propertySource, @Nullable Object value) {
+			this.propertySource = propertySource;
+			this.value = value;
+		}
+	}
+
 }
@@ -19,6 +19,7 @@ package org.springframework.core.io.support;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.net.JarURLConnection;
@@ -27,12 +28,21 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipException;
@@ -205,6 +215,12 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	@Nullable
+	private ForkJoinPool forkJoinPool;
+
+	@Nullable
+	private volatile Map<String, NavigableSet<String>> jarEntriesCache;
+
 
 	/**
 	 * Create a new PathMatchingResourcePatternResolver with a DefaultResourceLoader.
@@ -268,6 +284,47 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Specify a {@link ForkJoinPool} for resolving a location pattern against
+	 * multiple root directories in parallel, e.g. for a "classpath*:" pattern
+	 * with a root package that is present in many jar files.
+	 * <p>Default is none, resolving the root directories one after another.
+	 * Note that the {@code doFind*} methods, including any overridden ones, get
+	 * invoked from threads of the given pool when a pool has been specified.
+	 * @param forkJoinPool the pool to use (e.g. {@link ForkJoinPool#commonPool()}),
+	 * or {@code null} for sequential resolution
+	 * @since 5.3.23
+	 */
+	public void setForkJoinPool(@Nullable ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	/**
+	 * Specify whether to cache the entry names of each jar file for subsequent
+	 * pattern resolution against the same jar file, e.g. for several packages
+	 * scanned within the same application context.
+	 * <p>Default is "false", iterating the entries of a jar file on every
+	 * resolution. Only turn this on if the jar files are not going to change
+	 * during the lifetime of this resolver, and call {@link #clearCache()} once
+	 * no further resolution is expected.
+	 * @since 5.3.23
+	 */
+	public void setCacheJarEntries(boolean cacheJarEntries) {
+		this.jarEntriesCache = (cacheJarEntries ? new ConcurrentHashMap<>() : null);
+	}
+
+	/**
+	 * Clear the cached jar file entry names, if any.
+	 * @since 5.3.23
+	 * @see #setCacheJarEntries
+	 */
+	public void clearCache() {
+		Map<String, NavigableSet<String>> jarEntriesCache = this.jarEntriesCache;
+		if (jarEntriesCache != null) {
+			jarEntriesCache.clear();
+		}
+	}
+
 
 	@Override
 	public Resource getResource(String location) {
@@ -496,24 +553,19 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		String subPattern = locationPattern.substring(rootDirPath.length());
 		Resource[] rootDirResources = getResources(rootDirPath);
 		Set<Resource> result = new LinkedHashSet<>(16);
-		for (Resource rootDirResource : rootDirResources) {
-			rootDirResource = resolveRootDirResource(rootDirResource);
-			URL rootDirUrl = rootDirResource.getURL();
-			if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
-				URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
-				if (resolvedUrl != null) {
-					rootDirUrl = resolvedUrl;
-				}
-				rootDirResource = new UrlResource(rootDirUrl);
-			}
-			if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
-				result.addAll(VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher()));
+		ForkJoinPool forkJoinPool = this.forkJoinPool;
+		if (forkJoinPool != null && rootDirResources.length > 1) {
+			List<ForkJoinTask<Set<Resource>>> tasks = new ArrayList<>(rootDirResources.length);
+			for (Resource rootDirResource : rootDirResources) {
+				tasks.add(forkJoinPool.submit(() -> findPathMatchingResources(rootDirResource, subPattern)));
 			}
-			else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
-				result.addAll(doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern));
+			for (ForkJoinTask<Set<Resource>> task : tasks) {
+				result.addAll(getTaskResult(task));
 			}
-			else {
-				result.addAll(doFindPathMatchingFileResources(rootDirResource, subPattern));
+		}
+		else {
+			for (Resource rootDirResource : rootDirResources) {
+				result.addAll(findPathMatchingResources(rootDirResource, subPattern));
 			}
 		}
 		if (logger.isTraceEnabled()) {
@@ -522,6 +574,57 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return result.toArray(new Resource[0]);
 	}
 
+	/**
+	 * Find all resources underneath the given root directory that match the
+	 * given sub pattern, delegating to the jar, file system or VFS variant.
+	 */
+	private Set<Resource> findPathMatchingResources(Resource rootDirResource, String subPattern) throws IOException {
+		rootDirResource = resolveRootDirResource(rootDirResource);
+		URL rootDirUrl = rootDirResource.getURL();
+		if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
+			URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
+			if (resolvedUrl != null) {
+				rootDirUrl = resolvedUrl;
+			}
+			rootDirResource = new UrlResource(rootDirUrl);
+		}
+		if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
+			return VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher());
+		}
+		else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
+			return doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern);
+		}
+		else {
+			return doFindPathMatchingFileResources(rootDirResource, subPattern);
+		}
+	}
+
+	/**
+	 * Wait for the given root directory task, rethrowing its exception if any.
+	 */
+	private Set<Resource> getTaskResult(ForkJoinTask<Set<Resource>> task) throws IOException {
+		try {
+			return task.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while resolving location pattern");
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Unexpected exception from location pattern resolution", cause);
+		}
+	}
+
 	/**
 	 * Determine the root directory for the given location.
 	 * <p>Used for determining the starting point for file matching,
@@ -648,6 +751,27 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 				rootEntryPath = rootEntryPath + "/";
 			}
 			Set<Resource> result = new LinkedHashSet<>(8);
+			Map<String, NavigableSet<String>> jarEntriesCache = this.jarEntriesCache;
+			if (jarEntriesCache != null) {
+				// Matching entries are adjacent in the sorted entry names: no need for a full iteration
+				NavigableSet<String> entryPaths = jarEntriesCache.computeIfAbsent(jarFileUrl, key -> {
+					NavigableSet<String> entryNames = new TreeSet<>();
+					for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+						entryNames.add(entries.nextElement().getName());
+					}
+					return Collections.unmodifiableNavigableSet(entryNames);
+				});
+				for (String entryPath : entryPaths.tailSet(rootEntryPath, true)) {
+					if (!entryPath.startsWith(rootEntryPath)) {
+						break;
+					}
+					String relativePath = entryPath.substring(rootEntryPath.length());
+					if (getPathMatcher().match(subPattern, relativePath)) {
+						result.add(rootDirResource.createRelative(relativePath));
+					}
+				}
+				return result;
+			}
 			for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
 				JarEntry entry = entries.nextElement();
 				String entryPath = entry.getName();
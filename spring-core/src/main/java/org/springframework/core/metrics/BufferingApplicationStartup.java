@@ -0,0 +1,421 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that buffers {@link StartupStep steps}
+ * in memory, with their timings and tags, for a report on the startup phase.
+ *
+ * <p>Ended steps are kept in a ring buffer of the given capacity: once the buffer
+ * is full, the oldest steps get dropped. The parent of a step is the step that
+ * was most recently started and not yet ended on the same thread, so that the
+ * recorded steps form a tree. The {@link #createReport() report} attributes the
+ * self time of each step, i.e. its duration minus the duration of its children,
+ * to a startup phase and lists the slowest steps.
+ *
+ * <p>Once configured on the application context, the context logs the report
+ * at the end of its refresh phase, at info level. This makes it possible to keep
+ * track of the startup time of an application, e.g. in CI builds, without
+ * attaching a profiler.
+ *
+ * @since 5.3.23
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+	/**
+	 * The default number of slowest steps listed in the report.
+	 */
+	public static final int DEFAULT_REPORT_SIZE = 10;
+
+	private static final String OTHER_PHASE = "other";
+
+
+	private final BufferedStartupStep[] buffer;
+
+	private int head;
+
+	private int size;
+
+	private long droppedSteps;
+
+	private final AtomicLong idSequence = new AtomicLong();
+
+	private final ThreadLocal<BufferedStartupStep> currentStep = new NamedThreadLocal<>("Current startup step");
+
+	private int reportSize = DEFAULT_REPORT_SIZE;
+
+
+	/**
+	 * Create a new {@code BufferingApplicationStartup} with the given capacity.
+	 * @param capacity the maximum number of ended steps to keep
+	 */
+	public BufferingApplicationStartup(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.buffer = new BufferedStartupStep[capacity];
+	}
+
+
+	/**
+	 * Return the maximum number of ended steps kept by this instance.
+	 */
+	public int getCapacity() {
+		return this.buffer.length;
+	}
+
+	/**
+	 * Specify the number of slowest steps to list in the {@link #createReport() report}.
+	 * <p>Default is {@value #DEFAULT_REPORT_SIZE}.
+	 */
+	public void setReportSize(int reportSize) {
+		Assert.isTrue(reportSize >= 0, "Report size must not be negative");
+		this.reportSize = reportSize;
+	}
+
+	/**
+	 * Return the number of slowest steps to list in the {@link #createReport() report}.
+	 */
+	public int getReportSize() {
+		return this.reportSize;
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		BufferedStartupStep step = new BufferedStartupStep(
+				this.idSequence.incrementAndGet(), name, this.currentStep.get(), this);
+		this.currentStep.set(step);
+		return step;
+	}
+
+	private void record(BufferedStartupStep step) {
+		if (this.currentStep.get() == step) {
+			BufferedStartupStep parent = step.parent;
+			while (parent != null && parent.isEnded()) {
+				parent = parent.parent;
+			}
+			if (parent != null) {
+				this.currentStep.set(parent);
+			}
+			else {
+				this.currentStep.remove();
+			}
+		}
+		synchronized (this.buffer) {
+			this.buffer[this.head] = step;
+			this.head = (this.head + 1) % this.buffer.length;
+			if (this.size < this.buffer.length) {
+				this.size++;
+			}
+			else {
+				this.droppedSteps++;
+			}
+		}
+	}
+
+	/**
+	 * Return a snapshot of the buffered steps, in the order in which they ended.
+	 */
+	public List<BufferedStartupStep> getBufferedSteps() {
+		synchronized (this.buffer) {
+			List<BufferedStartupStep> steps = new ArrayList<>(this.size);
+			int start = (this.head - this.size + this.buffer.length) % this.buffer.length;
+			for (int i = 0; i < this.size; i++) {
+				steps.add(this.buffer[(start + i) % this.buffer.length]);
+			}
+			return steps;
+		}
+	}
+
+	/**
+	 * Return the number of ended steps that have been dropped from the buffer
+	 * because its capacity was exceeded.
+	 */
+	public long getDroppedStepCount() {
+		synchronized (this.buffer) {
+			return this.droppedSteps;
+		}
+	}
+
+	/**
+	 * Remove all buffered steps, e.g. before refreshing another context.
+	 */
+	public void clear() {
+		synchronized (this.buffer) {
+			Arrays.fill(this.buffer, null);
+			this.head = 0;
+			this.size = 0;
+			this.droppedSteps = 0;
+		}
+	}
+
+	/**
+	 * Return the self time of the buffered steps per startup phase: "bean creation",
+	 * "post-processors", "configuration classes", "event publishing" and "other".
+	 * @return the time per phase, in the order of the phases above
+	 */
+	public Map<String, Duration> getTimeByPhase() {
+		return getTimeByPhase(getBufferedSteps());
+	}
+
+	private Map<String, Duration> getTimeByPhase(List<BufferedStartupStep> steps) {
+		Map<Long, Long> selfTimes = getSelfTimes(steps);
+		Map<String, Duration> timeByPhase = new LinkedHashMap<>();
+		for (String phase : new String[] {"bean creation", "post-processors",
+				"configuration classes", "event publishing", OTHER_PHASE}) {
+			timeByPhase.put(phase, Duration.ZERO);
+		}
+		for (BufferedStartupStep step : steps) {
+			timeByPhase.merge(getPhase(step.getName()), Duration.ofNanos(selfTimes.get(step.getId())), Duration::plus);
+		}
+		return timeByPhase;
+	}
+
+	/**
+	 * Create a report on the buffered steps, with the time per startup phase
+	 * and the {@link #setReportSize slowest steps}.
+	 */
+	public String createReport() {
+		List<BufferedStartupStep> steps = getBufferedSteps();
+		Map<Long, Long> selfTimes = getSelfTimes(steps);
+		long recordedNanos = 0;
+		for (long selfTime : selfTimes.values()) {
+			recordedNanos += selfTime;
+		}
+
+		StringBuilder report = new StringBuilder("Application startup report: ");
+		report.append(steps.size()).append(" steps recorded");
+		long droppedSteps = getDroppedStepCount();
+		if (droppedSteps > 0) {
+			report.append(" (").append(droppedSteps).append(" dropped)");
+		}
+		report.append(", ").append(toMillis(recordedNanos)).append(" ms in total\n");
+
+		report.append("Time per phase:\n");
+		for (Map.Entry<String, Duration> entry : getTimeByPhase(steps).entrySet()) {
+			long nanos = entry.getValue().toNanos();
+			report.append(String.format("  %-24s %8d ms %5.1f%%\n", entry.getKey(), toMillis(nanos),
+					(recordedNanos > 0 ? nanos * 100.0 / recordedNanos : 0.0)));
+		}
+
+		List<BufferedStartupStep> slowestSteps = new ArrayList<>(steps);
+		slowestSteps.sort(Comparator.comparing(BufferedStartupStep::getDuration).reversed());
+		int count = Math.min(this.reportSize, slowestSteps.size());
+		if (count > 0) {
+			report.append("Slowest steps (total / self time):\n");
+			for (BufferedStartupStep step : slowestSteps.subList(0, count)) {
+				report.append(String.format("  %8d ms %8d ms  %s", toMillis(step.getDuration().toNanos()),
+						toMillis(selfTimes.get(step.getId())), step.getName()));
+				Iterator<StartupStep.Tag> tags = step.getTags().iterator();
+				if (tags.hasNext()) {
+					report.append(" [");
+					while (tags.hasNext()) {
+						StartupStep.Tag tag = tags.next();
+						report.append(tag.getKey()).append('=').append(tag.getValue());
+						if (tags.hasNext()) {
+							report.append(", ");
+						}
+					}
+					report.append(']');
+				}
+				report.append('\n');
+			}
+		}
+		report.setLength(report.length() - 1);
+		return report.toString();
+	}
+
+	private static Map<Long, Long> getSelfTimes(List<BufferedStartupStep> steps) {
+		Map<Long, Long> childTimes = new HashMap<>(steps.size() * 2);
+		for (BufferedStartupStep step : steps) {
+			Long parentId = step.getParentId();
+			if (parentId != null) {
+				childTimes.merge(parentId, step.getDuration().toNanos(), Long::sum);
+			}
+		}
+		Map<Long, Long> selfTimes = new HashMap<>(steps.size() * 2);
+		for (BufferedStartupStep step : steps) {
+			long selfTime = step.getDuration().toNanos() - childTimes.getOrDefault(step.getId(), 0L);
+			selfTimes.put(step.getId(), Math.max(selfTime, 0));
+		}
+		return selfTimes;
+	}
+
+	private static String getPhase(String name) {
+		if (name.startsWith("spring.beans.")) {
+			return "bean creation";
+		}
+		if (name.equals("spring.context.beans.post-process") ||
+				name.equals("spring.context.beandef-registry.post-process") ||
+				name.equals("spring.context.bean-factory.post-process")) {
+			return "post-processors";
+		}
+		if (name.startsWith("spring.context.config-classes.")) {
+			return "configuration classes";
+		}
+		if (name.startsWith("spring.context.event.")) {
+			return "event publishing";
+		}
+		return OTHER_PHASE;
+	}
+
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+
+	/**
+	 * {@link StartupStep} recorded by a {@link BufferingApplicationStartup}.
+	 */
+	public static final class BufferedStartupStep implements StartupStep {
+
+		private final long id;
+
+		private final String name;
+
+		@Nullable
+		private final BufferedStartupStep parent;
+
+		private final BufferingApplicationStartup applicationStartup;
+
+		private final Instant startTime = Instant.now();
+
+		private final long startNanos = System.nanoTime();
+
+		private final List<Tag> tags = new ArrayList<>(2);
+
+		private volatile long endNanos = -1;
+
+		BufferedStartupStep(long id, String name, @Nullable BufferedStartupStep parent,
+				BufferingApplicationStartup applicationStartup) {
+
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			this.applicationStartup = applicationStartup;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.id : null);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(!isEnded(), "StartupStep has already ended");
+			this.tags.add(new BufferedTag(key, value));
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Tags getTags() {
+			List<Tag> tags = Collections.unmodifiableList(this.tags);
+			return tags::iterator;
+		}
+
+		@Override
+		public void end() {
+			if (!isEnded()) {
+				this.endNanos = System.nanoTime();
+				this.applicationStartup.record(this);
+			}
+		}
+
+		boolean isEnded() {
+			return (this.endNanos != -1);
+		}
+
+		/**
+		 * Return the time at which this step started.
+		 */
+		public Instant getStartTime() {
+			return this.startTime;
+		}
+
+		/**
+		 * Return the duration of this step, or the time elapsed so far
+		 * if it has not ended yet.
+		 */
+		public Duration getDuration() {
+			long endNanos = this.endNanos;
+			return Duration.ofNanos((endNanos != -1 ? endNanos : System.nanoTime()) - this.startNanos);
+		}
+
+		@Override
+		public String toString() {
+			return this.name + " (" + getDuration().toMillis() + " ms)";
+		}
+	}
+
+
+	private static final class BufferedTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		BufferedTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+	}
+
+}
@@ -38,12 +38,14 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  *
  * <p><b>NOTE: This implementation does not reuse threads!</b> Consider a
  * thread-pooling TaskExecutor implementation instead, in particular for
- * executing a large number of short-lived tasks.
+ * executing a large number of short-lived tasks. Alternatively, on JDK 21+,
+ * consider switching this executor to {@link #setVirtualThreads virtual threads}.
  *
  * @author Juergen Hoeller
  * @since 2.0
  * @see #setConcurrencyLimit
  * @see SyncTaskExecutor
+ * @see VirtualThreadTaskExecutor
  * @see org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
  * @see org.springframework.scheduling.commonj.WorkManagerTaskExecutor
  */
@@ -67,6 +69,8 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	/** Internal concurrency throttle used by this executor. */
 	private final ConcurrencyThrottleAdapter concurrencyThrottle = new ConcurrencyThrottleAdapter();
 
+	private boolean virtualThreads;
+
 	@Nullable
 	private ThreadFactory threadFactory;
 
@@ -98,6 +102,35 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	}
 
 
+	/**
+	 * Switch this executor to virtual threads. Requires JDK 21 or higher.
+	 * <p>The default is {@code false}, indicating platform threads.
+	 * Set this flag to {@code true} in order to create virtual threads instead,
+	 * named according to the {@link #setThreadNamePrefix thread name prefix}.
+	 * Other thread settings such as the thread priority or daemon flag do not
+	 * apply to virtual threads, and an external {@link #setThreadFactory
+	 * ThreadFactory} takes precedence.
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 * supported by the current JVM
+	 * @since 5.3.23
+	 * @see VirtualThreadTaskExecutor#isSupported()
+	 */
+	public void setVirtualThreads(boolean virtual) {
+		if (virtual && !VirtualThreadTaskExecutor.isSupported()) {
+			throw new UnsupportedOperationException("Virtual threads not supported on JDK <21");
+		}
+		this.virtualThreads = virtual;
+	}
+
+	/**
+	 * Return whether this executor creates virtual threads.
+	 * @since 5.3.23
+	 * @see #setVirtualThreads
+	 */
+	public final boolean isVirtualThreads() {
+		return (this.virtualThreads && this.threadFactory == null);
+	}
+
 	/**
 	 * Specify an external factory to use for creating new Threads,
 	 * instead of relying on the local properties of this executor.
@@ -239,12 +272,22 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	 * Template method for the actual execution of a task.
 	 * <p>The default implementation creates a new Thread and starts it.
 	 * @param task the Runnable to execute
+	 * @see #setVirtualThreads
 	 * @see #setThreadFactory
 	 * @see #createThread
 	 * @see java.lang.Thread#start()
 	 */
 	protected void doExecute(Runnable task) {
-		Thread thread = (this.threadFactory != null ? this.threadFactory.newThread(task) : createThread(task));
+		Thread thread;
+		if (this.threadFactory != null) {
+			thread = this.threadFactory.newThread(task);
+		}
+		else if (this.virtualThreads) {
+			thread = VirtualThreadDelegate.newVirtualThread(nextThreadName(), task);
+		}
+		else {
+			thread = createThread(task);
+		}
 		thread.start();
 	}
 
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Internal delegate for virtual thread handling on JDK 21+, accessing
+ * {@code Thread.ofVirtual()} reflectively since the framework is compiled
+ * against an earlier JDK baseline.
+ *
+ * @since 5.3.23
+ * @see VirtualThreadTaskExecutor
+ */
+final class VirtualThreadDelegate {
+
+	@Nullable
+	private static final Method ofVirtualMethod;
+
+	@Nullable
+	private static final Method nameMethod;
+
+	@Nullable
+	private static final Method factoryMethod;
+
+	@Nullable
+	private static volatile ThreadFactory unnamedThreadFactory;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			Class<?> builderClass = ofVirtual.getReturnType();
+			name = builderClass.getMethod("name", String.class, long.class);
+			factory = builderClass.getMethod("factory");
+			// Fails on JDK 19/20 unless preview features are enabled
+			ofVirtual.invoke(null);
+		}
+		catch (Throwable ex) {
+			ofVirtual = null;
+		}
+		ofVirtualMethod = ofVirtual;
+		nameMethod = name;
+		factoryMethod = factory;
+	}
+
+
+	private VirtualThreadDelegate() {
+	}
+
+
+	/**
+	 * Return whether virtual threads are supported by the current JVM.
+	 */
+	public static boolean isSupported() {
+		return (ofVirtualMethod != null);
+	}
+
+	/**
+	 * Return a factory for unnamed virtual threads.
+	 * @throws UnsupportedOperationException if virtual threads are not supported
+	 */
+	public static ThreadFactory virtualThreadFactory() {
+		ThreadFactory factory = unnamedThreadFactory;
+		if (factory == null) {
+			factory = createThreadFactory(null);
+			unnamedThreadFactory = factory;
+		}
+		return factory;
+	}
+
+	/**
+	 * Return a factory for virtual threads named with the given prefix
+	 * followed by a counter, starting at 0.
+	 * @param threadNamePrefix the prefix for thread names
+	 * @throws UnsupportedOperationException if virtual threads are not supported
+	 */
+	public static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+		return createThreadFactory(threadNamePrefix);
+	}
+
+	/**
+	 * Create a new, unstarted virtual thread with the given name.
+	 * @param name the name of the thread
+	 * @param task the task to run in the thread
+	 * @throws UnsupportedOperationException if virtual threads are not supported
+	 */
+	public static Thread newVirtualThread(String name, Runnable task) {
+		Thread thread = virtualThreadFactory().newThread(task);
+		thread.setName(name);
+		return thread;
+	}
+
+	private static ThreadFactory createThreadFactory(@Nullable String threadNamePrefix) {
+		if (ofVirtualMethod == null || nameMethod == null || factoryMethod == null) {
+			throw new UnsupportedOperationException("Virtual threads not supported on JDK <21");
+		}
+		Object builder = ReflectionUtils.invokeMethod(ofVirtualMethod, null);
+		if (threadNamePrefix != null) {
+			builder = ReflectionUtils.invokeMethod(nameMethod, builder, threadNamePrefix, 0L);
+		}
+		ThreadFactory factory = (ThreadFactory) ReflectionUtils.invokeMethod(factoryMethod, builder);
+		if (factory == null) {
+			throw new IllegalStateException("No ThreadFactory returned from " + factoryMethod);
+		}
+		return factory;
+	}
+
+}
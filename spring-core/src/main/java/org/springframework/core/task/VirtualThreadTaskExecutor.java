@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+/**
+ * A {@link TaskExecutor} implementation based on virtual threads in JDK 21+.
+ * Each task is executed in a new virtual thread, which makes this executor
+ * suitable for a large number of concurrent, mostly blocking tasks such as
+ * {@code @Async} methods or asynchronous Spring MVC request processing.
+ *
+ * <p>Virtual threads are created reflectively, so this class can be used
+ * with the framework's JDK 8 baseline; check {@link #isSupported()} before
+ * creating an instance on a JVM that may not support virtual threads.
+ *
+ * <p>For a thread-per-task executor with a concurrency limit or a
+ * {@link TaskDecorator}, consider a {@link SimpleAsyncTaskExecutor} with
+ * {@link SimpleAsyncTaskExecutor#setVirtualThreads "virtualThreads"} enabled.
+ *
+ * @since 5.3.23
+ * @see SimpleAsyncTaskExecutor#setVirtualThreads
+ * @see org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler#setVirtualThreads
+ */
+public class VirtualThreadTaskExecutor implements AsyncListenableTaskExecutor {
+
+	private final ThreadFactory virtualThreadFactory;
+
+
+	/**
+	 * Create a new {@code VirtualThreadTaskExecutor} without thread naming.
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 * supported by the current JVM
+	 */
+	public VirtualThreadTaskExecutor() {
+		this.virtualThreadFactory = VirtualThreadDelegate.virtualThreadFactory();
+	}
+
+	/**
+	 * Create a new {@code VirtualThreadTaskExecutor} with thread names based
+	 * on the given thread name prefix followed by a counter (e.g. "test-0").
+	 * @param threadNamePrefix the prefix for thread names (e.g. "test-")
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 * supported by the current JVM
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix) {
+		Assert.notNull(threadNamePrefix, "Thread name prefix must not be null");
+		this.virtualThreadFactory = VirtualThreadDelegate.virtualThreadFactory(threadNamePrefix);
+	}
+
+
+	/**
+	 * Return the underlying virtual {@link ThreadFactory}.
+	 * Can also be used for custom thread creation elsewhere.
+	 */
+	public final ThreadFactory getVirtualThreadFactory() {
+		return this.virtualThreadFactory;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		Assert.notNull(task, "Runnable must not be null");
+		this.virtualThreadFactory.newThread(task).start();
+	}
+
+	@Deprecated
+	@Override
+	public void execute(Runnable task, long startTimeout) {
+		execute(task);
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		FutureTask<Object> future = new FutureTask<>(task, null);
+		execute(future);
+		return future;
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task) {
+		FutureTask<T> future = new FutureTask<>(task);
+		execute(future);
+		return future;
+	}
+
+	@Override
+	public ListenableFuture<?> submitListenable(Runnable task) {
+		ListenableFutureTask<Object> future = new ListenableFutureTask<>(task, null);
+		execute(future);
+		return future;
+	}
+
+	@Override
+	public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+		ListenableFutureTask<T> future = new ListenableFutureTask<>(task);
+		execute(future);
+		return future;
+	}
+
+
+	/**
+	 * Return whether virtual threads are supported by the current JVM,
+	 * i.e. whether a {@code VirtualThreadTaskExecutor} can be created.
+	 */
+	public static boolean isSupported() {
+		return VirtualThreadDelegate.isSupported();
+	}
+
+}
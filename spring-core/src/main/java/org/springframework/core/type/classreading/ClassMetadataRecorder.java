@@ -0,0 +1,511 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link ClassVisitor} that records the parts of a class file relevant for
+ * class metadata in a compact binary form while delegating to a target visitor,
+ * allowing for the same visitor calls to be replayed later on without reading
+ * and parsing the class file again.
+ *
+ * <p>Records the class declaration, enclosing and member classes, visible class
+ * annotations, and methods with visible annotations. Annotation attribute values
+ * are recorded as reported by ASM, i.e. without resolving any types, so that a
+ * recording does not depend on a specific {@link ClassLoader}.
+ *
+ * @since 5.3.23
+ * @see PersistentMetadataCache
+ */
+final class ClassMetadataRecorder extends ClassVisitor {
+
+	private static final int CLASS = 'C';
+
+	private static final int OUTER_CLASS = 'O';
+
+	private static final int INNER_CLASS = 'I';
+
+	private static final int ANNOTATION = 'A';
+
+	private static final int METHOD = 'M';
+
+	private static final int END = 'E';
+
+	private static final int VALUE = 'v';
+
+	private static final int ENUM = 'e';
+
+	private static final int NESTED_ANNOTATION = '@';
+
+	private static final int ARRAY = '[';
+
+	private static final int END_OF_ANNOTATION = ']';
+
+
+	private final Output output = new Output();
+
+	private boolean unsupported;
+
+
+	/**
+	 * Create a new recorder for the given target visitor.
+	 * @param classVisitor the visitor to delegate to
+	 */
+	ClassMetadataRecorder(ClassVisitor classVisitor) {
+		super(SpringAsmInfo.ASM_VERSION, classVisitor);
+	}
+
+
+	@Override
+	public void visit(int version, int access, String name, @Nullable String signature,
+			@Nullable String superName, @Nullable String[] interfaces) {
+
+		this.output.writeByte(CLASS);
+		this.output.writeInt(access);
+		this.output.writeString(name);
+		this.output.writeString(superName);
+		String[] interfaceNames = (interfaces != null ? interfaces : new String[0]);
+		this.output.writeInt(interfaceNames.length);
+		for (String interfaceName : interfaceNames) {
+			this.output.writeString(interfaceName);
+		}
+		super.visit(version, access, name, signature, superName, interfaces);
+	}
+
+	@Override
+	public void visitOuterClass(String owner, @Nullable String name, @Nullable String descriptor) {
+		this.output.writeByte(OUTER_CLASS);
+		this.output.writeString(owner);
+		super.visitOuterClass(owner, name, descriptor);
+	}
+
+	@Override
+	public void visitInnerClass(String name, @Nullable String outerName, @Nullable String innerName, int access) {
+		this.output.writeByte(INNER_CLASS);
+		this.output.writeString(name);
+		this.output.writeString(outerName);
+		this.output.writeString(innerName);
+		this.output.writeInt(access);
+		super.visitInnerClass(name, outerName, innerName, access);
+	}
+
+	@Override
+	@Nullable
+	public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+		AnnotationVisitor annotationVisitor = super.visitAnnotation(descriptor, visible);
+		if (!visible) {
+			return annotationVisitor;
+		}
+		this.output.writeByte(ANNOTATION);
+		this.output.writeString(descriptor);
+		return new RecordingAnnotationVisitor(this.output, annotationVisitor);
+	}
+
+	@Override
+	@Nullable
+	public MethodVisitor visitMethod(int access, String name, String descriptor,
+			@Nullable String signature, @Nullable String[] exceptions) {
+
+		MethodVisitor methodVisitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+		return (methodVisitor != null ? new RecordingMethodVisitor(access, name, descriptor, methodVisitor) : null);
+	}
+
+	@Override
+	public void visitEnd() {
+		this.output.writeByte(END);
+		super.visitEnd();
+	}
+
+	/**
+	 * Return the recording, once the class has been visited completely.
+	 * @return the recording, or {@code null} if the class contains annotation
+	 * values that cannot be recorded
+	 */
+	@Nullable
+	byte[] getRecording() {
+		return (!this.unsupported ? this.output.toByteArray() : null);
+	}
+
+
+	/**
+	 * Replay the given recording to the given visitor.
+	 * @param recording the recording as returned from {@link #getRecording()}
+	 * @param classVisitor the visitor to call
+	 * @throws IOException if the recording is incomplete or corrupt
+	 */
+	static void replay(byte[] recording, ClassVisitor classVisitor) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(recording));
+		while (true) {
+			int tag = in.readByte();
+			switch (tag) {
+				case CLASS:
+					int access = in.readInt();
+					String name = readString(in);
+					String superName = readString(in);
+					String[] interfaces = new String[in.readInt()];
+					for (int i = 0; i < interfaces.length; i++) {
+						interfaces[i] = readString(in);
+					}
+					classVisitor.visit(0, access, name, null, superName, interfaces);
+					break;
+				case OUTER_CLASS:
+					classVisitor.visitOuterClass(readString(in), null, null);
+					break;
+				case INNER_CLASS:
+					classVisitor.visitInnerClass(readString(in), readString(in), readString(in), in.readInt());
+					break;
+				case ANNOTATION:
+					replayAnnotation(in, classVisitor.visitAnnotation(readString(in), true));
+					break;
+				case METHOD:
+					MethodVisitor methodVisitor =
+							classVisitor.visitMethod(in.readInt(), readString(in), readString(in), null, null);
+					int annotationCount = in.readInt();
+					for (int i = 0; i < annotationCount; i++) {
+						String descriptor = readString(in);
+						replayAnnotation(in, (methodVisitor != null ?
+								methodVisitor.visitAnnotation(descriptor, true) : null));
+					}
+					if (methodVisitor != null) {
+						methodVisitor.visitEnd();
+					}
+					break;
+				case END:
+					classVisitor.visitEnd();
+					return;
+				default:
+					throw new IOException("Unexpected tag in class metadata recording: " + tag);
+			}
+		}
+	}
+
+	private static void replayAnnotation(DataInputStream in, @Nullable AnnotationVisitor annotationVisitor)
+			throws IOException {
+
+		while (true) {
+			int tag = in.readByte();
+			if (tag == END_OF_ANNOTATION) {
+				if (annotationVisitor != null) {
+					annotationVisitor.visitEnd();
+				}
+				return;
+			}
+			String name = readString(in);
+			switch (tag) {
+				case VALUE:
+					Object value = readValue(in);
+					if (annotationVisitor != null) {
+						annotationVisitor.visit(name, value);
+					}
+					break;
+				case ENUM:
+					String descriptor = readString(in);
+					String enumValue = readString(in);
+					if (annotationVisitor != null) {
+						annotationVisitor.visitEnum(name, descriptor, enumValue);
+					}
+					break;
+				case NESTED_ANNOTATION:
+					String nestedDescriptor = readString(in);
+					replayAnnotation(in, (annotationVisitor != null ?
+							annotationVisitor.visitAnnotation(name, nestedDescriptor) : null));
+					break;
+				case ARRAY:
+					replayAnnotation(in, (annotationVisitor != null ? annotationVisitor.visitArray(name) : null));
+					break;
+				default:
+					throw new IOException("Unexpected tag in annotation recording: " + tag);
+			}
+		}
+	}
+
+	@Nullable
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		int tag = in.readByte();
+		switch (tag) {
+			case 's':
+				return readString(in);
+			case 'c':
+				return Type.getType(readString(in));
+			case 'Z':
+				return (in.readByte() != 0);
+			case 'B':
+				return (byte) in.readInt();
+			case 'C':
+				return (char) in.readInt();
+			case 'S':
+				return (short) in.readInt();
+			case 'I':
+				return in.readInt();
+			case 'J':
+				return in.readLong();
+			case 'F':
+				return Float.intBitsToFloat(in.readInt());
+			case 'D':
+				return Double.longBitsToDouble(in.readLong());
+			case '[':
+				Type componentType = Type.getType(readString(in));
+				Object array = Array.newInstance(getPrimitiveClass(componentType), in.readInt());
+				for (int i = 0; i < Array.getLength(array); i++) {
+					Array.set(array, i, readValue(in));
+				}
+				return array;
+			default:
+				throw new IOException("Unexpected value tag in annotation recording: " + tag);
+		}
+	}
+
+	private static Class<?> getPrimitiveClass(Type type) throws IOException {
+		switch (type.getSort()) {
+			case Type.BOOLEAN: return boolean.class;
+			case Type.BYTE: return byte.class;
+			case Type.CHAR: return char.class;
+			case Type.SHORT: return short.class;
+			case Type.INT: return int.class;
+			case Type.LONG: return long.class;
+			case Type.FLOAT: return float.class;
+			case Type.DOUBLE: return double.class;
+			default: throw new IOException("Unexpected array type in annotation recording: " + type);
+		}
+	}
+
+
+	/**
+	 * Binary output for a recording, based on an in-memory buffer.
+	 */
+	private static class Output {
+
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+		void writeByte(int value) {
+			this.buffer.write(value);
+		}
+
+		void writeInt(int value) {
+			this.buffer.write(value >>> 24);
+			this.buffer.write(value >>> 16);
+			this.buffer.write(value >>> 8);
+			this.buffer.write(value);
+		}
+
+		void writeLong(long value) {
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+
+		void writeString(@Nullable String value) {
+			if (value == null) {
+				writeInt(-1);
+			}
+			else {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				writeInt(bytes.length);
+				this.buffer.write(bytes, 0, bytes.length);
+			}
+		}
+
+		void writeOutput(Output output) {
+			byte[] bytes = output.toByteArray();
+			this.buffer.write(bytes, 0, bytes.length);
+		}
+
+		byte[] toByteArray() {
+			return this.buffer.toByteArray();
+		}
+	}
+
+
+	/**
+	 * {@link AnnotationVisitor} that records annotation attribute values.
+	 */
+	private class RecordingAnnotationVisitor extends AnnotationVisitor {
+
+		private final Output output;
+
+		RecordingAnnotationVisitor(Output output, @Nullable AnnotationVisitor annotationVisitor) {
+			super(SpringAsmInfo.ASM_VERSION, annotationVisitor);
+			this.output = output;
+		}
+
+		@Override
+		public void visit(@Nullable String name, Object value) {
+			this.output.writeByte(VALUE);
+			this.output.writeString(name);
+			writeValue(value);
+			super.visit(name, value);
+		}
+
+		@Override
+		public void visitEnum(@Nullable String name, String descriptor, String value) {
+			this.output.writeByte(ENUM);
+			this.output.writeString(name);
+			this.output.writeString(descriptor);
+			this.output.writeString(value);
+			super.visitEnum(name, descriptor, value);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(@Nullable String name, String descriptor) {
+			this.output.writeByte(NESTED_ANNOTATION);
+			this.output.writeString(name);
+			this.output.writeString(descriptor);
+			return new RecordingAnnotationVisitor(this.output, super.visitAnnotation(name, descriptor));
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(@Nullable String name) {
+			this.output.writeByte(ARRAY);
+			this.output.writeString(name);
+			return new RecordingAnnotationVisitor(this.output, super.visitArray(name));
+		}
+
+		@Override
+		public void visitEnd() {
+			this.output.writeByte(END_OF_ANNOTATION);
+			super.visitEnd();
+		}
+
+		private void writeValue(Object value) {
+			if (value instanceof String) {
+				this.output.writeByte('s');
+				this.output.writeString((String) value);
+			}
+			else if (value instanceof Type) {
+				this.output.writeByte('c');
+				this.output.writeString(((Type) value).getDescriptor());
+			}
+			else if (value instanceof Boolean) {
+				this.output.writeByte('Z');
+				this.output.writeByte((Boolean) value ? 1 : 0);
+			}
+			else if (value instanceof Byte) {
+				this.output.writeByte('B');
+				this.output.writeInt((Byte) value);
+			}
+			else if (value instanceof Character) {
+				this.output.writeByte('C');
+				this.output.writeInt((Character) value);
+			}
+			else if (value instanceof Short) {
+				this.output.writeByte('S');
+				this.output.writeInt((Short) value);
+			}
+			else if (value instanceof Integer) {
+				this.output.writeByte('I');
+				this.output.writeInt((Integer) value);
+			}
+			else if (value instanceof Long) {
+				this.output.writeByte('J');
+				this.output.writeLong((Long) value);
+			}
+			else if (value instanceof Float) {
+				this.output.writeByte('F');
+				this.output.writeInt(Float.floatToIntBits((Float) value));
+			}
+			else if (value instanceof Double) {
+				this.output.writeByte('D');
+				this.output.writeLong(Double.doubleToLongBits((Double) value));
+			}
+			else if (value.getClass().isArray() && value.getClass().getComponentType().isPrimitive()) {
+				this.output.writeByte('[');
+				this.output.writeString(Type.getDescriptor(value.getClass().getComponentType()));
+				int length = Array.getLength(value);
+				this.output.writeInt(length);
+				for (int i = 0; i < length; i++) {
+					writeValue(Array.get(value, i));
+				}
+			}
+			else {
+				unsupported = true;
+			}
+		}
+	}
+
+
+	/**
+	 * {@link MethodVisitor} that records a method along with its visible
+	 * annotations, if it has any.
+	 */
+	private class RecordingMethodVisitor extends MethodVisitor {
+
+		private final int access;
+
+		private final String name;
+
+		private final String descriptor;
+
+		private final Output annotations = new Output();
+
+		private int annotationCount;
+
+		RecordingMethodVisitor(int access, String name, String descriptor, MethodVisitor methodVisitor) {
+			super(SpringAsmInfo.ASM_VERSION, methodVisitor);
+			this.access = access;
+			this.name = name;
+			this.descriptor = descriptor;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			AnnotationVisitor annotationVisitor = super.visitAnnotation(descriptor, visible);
+			if (!visible) {
+				return annotationVisitor;
+			}
+			this.annotationCount++;
+			this.annotations.writeString(descriptor);
+			return new RecordingAnnotationVisitor(this.annotations, annotationVisitor);
+		}
+
+		@Override
+		public void visitEnd() {
+			if (this.annotationCount > 0) {
+				output.writeByte(METHOD);
+				output.writeInt(this.access);
+				output.writeString(this.name);
+				output.writeString(this.descriptor);
+				output.writeInt(this.annotationCount);
+				output.writeOutput(this.annotations);
+			}
+			super.visitEnd();
+		}
+	}
+
+}
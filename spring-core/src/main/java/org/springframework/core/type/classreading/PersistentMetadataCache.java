@@ -0,0 +1,497 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Cache for class metadata recordings in a file system directory, shared
+ * across JVM restarts and between JVMs using the same directory.
+ *
+ * <p>Recordings are keyed by the URL of the class file resource and are only
+ * used as long as the last-modified timestamp of the resource matches, which
+ * is the timestamp of the containing jar file for a jar entry. The directory
+ * holds segment files in a compact binary format: each JVM loads all segments
+ * on first access and appends recordings for newly read class files to a
+ * segment of its own, written out on {@link #flush()}. Segments are compacted
+ * once there are too many of them, dropping recordings for class files that
+ * no longer exist or have been modified since.
+ *
+ * <p>Any failure to read or write the cache directory is logged and otherwise
+ * ignored, with class files read as usual.
+ *
+ * @since 5.3.23
+ * @see SimpleMetadataReaderFactory#CACHE_DIRECTORY_PROPERTY_NAME
+ * @see ClassMetadataRecorder
+ */
+final class PersistentMetadataCache {
+
+	private static final String SEGMENT_FILE_SUFFIX = ".metadata";
+
+	private static final int SEGMENT_FILE_HEADER = 0x53434d43;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int MAX_SEGMENTS = 8;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataCache.class);
+
+	private static final Map<String, PersistentMetadataCache> caches = new ConcurrentHashMap<>(4);
+
+
+	private final File directory;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>(256);
+
+	private volatile boolean loaded;
+
+	@Nullable
+	private File segmentFile;
+
+	@Nullable
+	private SegmentWriter segmentWriter;
+
+	private boolean writeFailed;
+
+
+	PersistentMetadataCache(File directory) {
+		this.directory = directory;
+	}
+
+
+	/**
+	 * Return the shared cache for the given directory, creating it if necessary.
+	 * @param directory the cache directory, or {@code null} if none configured
+	 * @return the shared cache for the directory, or {@code null} if none
+	 */
+	@Nullable
+	static PersistentMetadataCache forDirectory(@Nullable String directory) {
+		if (!StringUtils.hasText(directory)) {
+			return null;
+		}
+		File file = new File(directory.trim()).getAbsoluteFile();
+		return caches.computeIfAbsent(file.getPath(), path -> new PersistentMetadataCache(file));
+	}
+
+
+	/**
+	 * Return the recording for the given class file resource, if any.
+	 * @param resource the class file resource
+	 * @return the recording, or {@code null} if none cached for the
+	 * current state of the resource
+	 */
+	@Nullable
+	byte[] get(Resource resource) {
+		ensureLoaded();
+		try {
+			Entry entry = this.entries.get(resource.getURL().toString());
+			return (entry != null && entry.lastModified == resource.lastModified() ? entry.recording : null);
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Store the recording for the given class file resource.
+	 * @param resource the class file resource
+	 * @param recording the recording of the class file
+	 * @see #flush()
+	 */
+	void put(Resource resource, byte[] recording) {
+		String key;
+		long lastModified;
+		try {
+			key = resource.getURL().toString();
+			lastModified = resource.lastModified();
+		}
+		catch (IOException ex) {
+			return;
+		}
+		Entry entry = new Entry(lastModified, recording);
+		this.entries.put(key, entry);
+		append(key, entry);
+	}
+
+	/**
+	 * Write out the recordings stored since the last flush and release the
+	 * segment of this JVM, e.g. at the end of a classpath scan. Recordings
+	 * stored afterwards are appended to the same segment again, unless it
+	 * has been compacted by another JVM in the meantime.
+	 */
+	synchronized void flush() {
+		SegmentWriter writer = this.segmentWriter;
+		if (writer != null) {
+			this.segmentWriter = null;
+			try {
+				writer.close();
+			}
+			catch (IOException ex) {
+				this.writeFailed = true;
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to write class metadata cache in " + this.directory, ex);
+				}
+			}
+		}
+	}
+
+
+	private void ensureLoaded() {
+		if (!this.loaded) {
+			synchronized (this) {
+				if (!this.loaded) {
+					load();
+					this.loaded = true;
+				}
+			}
+		}
+	}
+
+	private void load() {
+		File[] files = this.directory.listFiles((dir, name) -> name.endsWith(SEGMENT_FILE_SUFFIX));
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified).thenComparing(File::getName));
+		for (File file : files) {
+			try (InputStream in = new FileInputStream(file)) {
+				readSegment(in);
+			}
+			catch (IOException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring unreadable class metadata cache segment " + file, ex);
+				}
+			}
+		}
+		if (files.length > MAX_SEGMENTS) {
+			compact(files);
+		}
+	}
+
+	private void readSegment(InputStream segment) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(segment));
+		try {
+			if (in.readInt() != SEGMENT_FILE_HEADER || in.readInt() != FORMAT_VERSION) {
+				throw new IOException("Unsupported segment format");
+			}
+			while (true) {
+				String key;
+				try {
+					key = in.readUTF();
+				}
+				catch (EOFException ex) {
+					return;
+				}
+				long lastModified = in.readLong();
+				byte[] recording = new byte[in.readInt()];
+				in.readFully(recording);
+				this.entries.put(key, new Entry(lastModified, recording));
+			}
+		}
+		catch (EOFException ex) {
+			// Truncated segment, e.g. from a JVM terminated while writing: keep complete entries
+		}
+	}
+
+	/**
+	 * Merge the given segments into a new one, pruning stale recordings.
+	 * <p>A JVM holds an exclusive lock on its segment while writing to it:
+	 * segments that cannot be locked here are left alone, whereas locked
+	 * segments are read again to pick up recordings appended since loading
+	 * and deleted while still holding the lock.
+	 */
+	private synchronized void compact(File[] files) {
+		Map<File, FileChannel> segments = new LinkedHashMap<>(files.length);
+		try {
+			for (File file : files) {
+				FileChannel channel = lockForCompaction(file);
+				if (channel != null) {
+					segments.put(file, channel);
+					try {
+						readSegment(Channels.newInputStream(channel));
+					}
+					catch (IOException ex) {
+						// Unreadable segment -> drop it along with the merged ones
+					}
+				}
+			}
+			if (segments.size() < 2) {
+				return;
+			}
+			this.entries.entrySet().removeIf(entry -> isStale(entry.getKey(), entry.getValue()));
+			SegmentWriter writer = SegmentWriter.create(newSegmentFile());
+			try {
+				for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+					writer.write(entry.getKey(), entry.getValue());
+				}
+			}
+			finally {
+				writer.close();
+			}
+			for (File file : segments.keySet()) {
+				if (!file.delete() && logger.isDebugEnabled()) {
+					logger.debug("Could not delete compacted class metadata cache segment " + file);
+				}
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to compact class metadata cache in " + this.directory, ex);
+			}
+		}
+		finally {
+			for (FileChannel channel : segments.values()) {
+				try {
+					channel.close();
+				}
+				catch (IOException ex) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Open and lock the given segment for compaction.
+	 * @return the locked channel, or {@code null} if the segment is empty,
+	 * gone, or owned by a JVM currently writing to it
+	 */
+	@Nullable
+	private static FileChannel lockForCompaction(File file) {
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			if (tryLock(channel, true) && channel.size() > 0) {
+				return channel;
+			}
+		}
+		catch (IOException ex) {
+			// Deleted by a concurrent compaction
+		}
+		closeQuietly(channel);
+		return null;
+	}
+
+	/**
+	 * Determine whether the given recording is stale, i.e. whether its class file
+	 * (or containing jar file) does not exist anymore or has been modified since.
+	 * Only applies to recordings for class files in the file system.
+	 */
+	private static boolean isStale(String key, Entry entry) {
+		try {
+			URL url = new URL(key);
+			if (!ResourceUtils.isFileURL(url) && !ResourceUtils.isJarURL(url)) {
+				return false;
+			}
+			return (new UrlResource(url).lastModified() != entry.lastModified);
+		}
+		catch (IOException ex) {
+			return true;
+		}
+	}
+
+	private synchronized void append(String key, Entry entry) {
+		if (this.writeFailed) {
+			return;
+		}
+		try {
+			SegmentWriter writer = this.segmentWriter;
+			if (writer == null) {
+				writer = openSegment();
+				this.segmentWriter = writer;
+			}
+			writer.write(key, entry);
+		}
+		catch (IOException ex) {
+			this.writeFailed = true;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to write class metadata cache in " + this.directory, ex);
+			}
+		}
+	}
+
+	private SegmentWriter openSegment() throws IOException {
+		File segmentFile = this.segmentFile;
+		if (segmentFile != null) {
+			SegmentWriter writer = SegmentWriter.reopen(segmentFile);
+			if (writer != null) {
+				return writer;
+			}
+		}
+		segmentFile = newSegmentFile();
+		SegmentWriter writer = SegmentWriter.create(segmentFile);
+		this.segmentFile = segmentFile;
+		return writer;
+	}
+
+	private File newSegmentFile() throws IOException {
+		if (!this.directory.isDirectory() && !this.directory.mkdirs() && !this.directory.isDirectory()) {
+			throw new IOException("Cannot create directory " + this.directory);
+		}
+		return new File(this.directory, UUID.randomUUID() + SEGMENT_FILE_SUFFIX);
+	}
+
+	private static boolean tryLock(FileChannel channel, boolean shared) throws IOException {
+		try {
+			return (channel.tryLock(0L, Long.MAX_VALUE, shared) != null);
+		}
+		catch (OverlappingFileLockException ex) {
+			// Locked by this JVM already
+			return false;
+		}
+	}
+
+	private static void closeQuietly(@Nullable FileChannel channel) {
+		if (channel != null) {
+			try {
+				channel.close();
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+
+	private static final class Entry {
+
+		final long lastModified;
+
+		final byte[] recording;
+
+		Entry(long lastModified, byte[] recording) {
+			this.lastModified = lastModified;
+			this.recording = recording;
+		}
+	}
+
+
+	/**
+	 * Buffered writer for a segment, holding an exclusive lock on the
+	 * segment file until closed.
+	 */
+	private static final class SegmentWriter {
+
+		private final FileChannel channel;
+
+		private final DataOutputStream out;
+
+		private SegmentWriter(FileChannel channel) {
+			this.channel = channel;
+			this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+		}
+
+		/**
+		 * Create a new segment file and lock it.
+		 */
+		static SegmentWriter create(File file) throws IOException {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			try {
+				if (!tryLock(channel, false)) {
+					throw new IOException("Cannot lock new segment " + file);
+				}
+				SegmentWriter writer = new SegmentWriter(channel);
+				writer.out.writeInt(SEGMENT_FILE_HEADER);
+				writer.out.writeInt(FORMAT_VERSION);
+				return writer;
+			}
+			catch (IOException ex) {
+				closeQuietly(channel);
+				throw ex;
+			}
+		}
+
+		/**
+		 * Reopen and lock an existing segment file for appending.
+		 * @return the writer, or {@code null} if the segment has been
+		 * compacted by another JVM in the meantime
+		 */
+		@Nullable
+		static SegmentWriter reopen(File file) throws IOException {
+			FileChannel channel;
+			try {
+				channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			}
+			catch (NoSuchFileException ex) {
+				return null;
+			}
+			try {
+				// A compacting JVM deletes the segment while holding its lock
+				if (tryLock(channel, false) && file.exists()) {
+					return new SegmentWriter(channel);
+				}
+			}
+			catch (IOException ex) {
+				closeQuietly(channel);
+				throw ex;
+			}
+			closeQuietly(channel);
+			return null;
+		}
+
+		void write(String key, Entry entry) throws IOException {
+			this.out.writeUTF(key);
+			this.out.writeLong(entry.lastModified);
+			this.out.writeInt(entry.recording.length);
+			this.out.write(entry.recording);
+		}
+
+		/**
+		 * Flush buffered recordings and release the lock on the segment.
+		 */
+		void close() throws IOException {
+			try {
+				this.out.flush();
+			}
+			finally {
+				this.channel.close();
+			}
+		}
+	}
+
+}
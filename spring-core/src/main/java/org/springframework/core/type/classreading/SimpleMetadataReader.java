@@ -44,10 +44,47 @@ final class SimpleMetadataReader implements MetadataReader {
 
 
 	SimpleMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
+		this(resource, classLoader, null);
+	}
+
+	SimpleMetadataReader(Resource resource, @Nullable ClassLoader classLoader,
+			@Nullable PersistentMetadataCache metadataCache) throws IOException {
+
+		this.resource = resource;
+		this.annotationMetadata = (metadataCache != null ?
+				readMetadata(resource, classLoader, metadataCache) : readMetadata(resource, classLoader));
+	}
+
+	private static SimpleAnnotationMetadata readMetadata(Resource resource, @Nullable ClassLoader classLoader)
+			throws IOException {
+
 		SimpleAnnotationMetadataReadingVisitor visitor = new SimpleAnnotationMetadataReadingVisitor(classLoader);
 		getClassReader(resource).accept(visitor, PARSING_OPTIONS);
-		this.resource = resource;
-		this.annotationMetadata = visitor.getMetadata();
+		return visitor.getMetadata();
+	}
+
+	private static SimpleAnnotationMetadata readMetadata(Resource resource, @Nullable ClassLoader classLoader,
+			PersistentMetadataCache metadataCache) throws IOException {
+
+		byte[] recording = metadataCache.get(resource);
+		if (recording != null) {
+			SimpleAnnotationMetadataReadingVisitor visitor = new SimpleAnnotationMetadataReadingVisitor(classLoader);
+			try {
+				ClassMetadataRecorder.replay(recording, visitor);
+				return visitor.getMetadata();
+			}
+			catch (IOException ex) {
+				// Corrupt recording -> read the class file instead
+			}
+		}
+		SimpleAnnotationMetadataReadingVisitor visitor = new SimpleAnnotationMetadataReadingVisitor(classLoader);
+		ClassMetadataRecorder recorder = new ClassMetadataRecorder(visitor);
+		getClassReader(resource).accept(recorder, PARSING_OPTIONS);
+		recording = recorder.getRecording();
+		if (recording != null) {
+			metadataCache.put(resource, recording);
+		}
+		return visitor.getMetadata();
 	}
 
 	@SuppressWarnings("deprecation")
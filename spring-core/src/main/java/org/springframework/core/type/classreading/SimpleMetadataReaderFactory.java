@@ -19,6 +19,7 @@ package org.springframework.core.type.classreading;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -34,8 +35,25 @@ import org.springframework.util.ClassUtils;
  */
 public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 
+	/**
+	 * System property that specifies a directory for a persistent cache of class
+	 * metadata, allowing for class files to be read from the cache instead of
+	 * being parsed again on subsequent startups, e.g. of the same test suite.
+	 * <p>Cached metadata is used as long as the last-modified timestamp of the
+	 * class file or its containing jar file remains the same. The default is no
+	 * persistent cache, i.e. all class files are parsed on every startup.
+	 * @since 5.3.23
+	 * @see org.springframework.core.SpringProperties
+	 */
+	public static final String CACHE_DIRECTORY_PROPERTY_NAME = "spring.classreading.cache-directory";
+
+
 	private final ResourceLoader resourceLoader;
 
+	@Nullable
+	private final PersistentMetadataCache metadataCache =
+			PersistentMetadataCache.forDirectory(SpringProperties.getProperty(CACHE_DIRECTORY_PROPERTY_NAME));
+
 
 	/**
 	 * Create a new SimpleMetadataReaderFactory for the default class loader.
@@ -100,7 +118,19 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
-		return new SimpleMetadataReader(resource, this.resourceLoader.getClassLoader());
+		return new SimpleMetadataReader(resource, this.resourceLoader.getClassLoader(), this.metadataCache);
+	}
+
+	/**
+	 * Write out the class metadata recorded since the last flush to the
+	 * persistent cache directory, if any, e.g. at the end of a classpath scan.
+	 * @since 5.3.23
+	 * @see #CACHE_DIRECTORY_PROPERTY_NAME
+	 */
+	public void flushMetadataCache() {
+		if (this.metadataCache != null) {
+			this.metadataCache.flush();
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,9 @@ package org.springframework.util;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +38,10 @@ import org.apache.commons.logging.LogFactory;
  * ("unbounded concurrency"). Subclasses may override this default;
  * check the javadoc of the concrete class that you're using.
  *
+ * <p>As of 5.3.23, waiting for access is based on a {@link ReentrantLock}
+ * rather than on a {@code synchronized} monitor, so that virtual threads
+ * blocked on the throttle do not pin their carrier thread.
+ *
  * @author Juergen Hoeller
  * @since 1.2.5
  * @see #setConcurrencyLimit
@@ -60,7 +67,9 @@ public abstract class ConcurrencyThrottleSupport implements Serializable {
 	/** Transient to optimize serialization. */
 	protected transient Log logger = LogFactory.getLog(getClass());
 
-	private transient Object monitor = new Object();
+	private transient Lock concurrencyLock = new ReentrantLock();
+
+	private transient Condition concurrencyCondition = this.concurrencyLock.newCondition();
 
 	private int concurrencyLimit = UNBOUNDED_CONCURRENCY;
 
@@ -109,7 +118,8 @@ public abstract class ConcurrencyThrottleSupport implements Serializable {
 		}
 		if (this.concurrencyLimit > 0) {
 			boolean debug = logger.isDebugEnabled();
-			synchronized (this.monitor) {
+			this.concurrencyLock.lock();
+			try {
 				boolean interrupted = false;
 				while (this.concurrencyCount >= this.concurrencyLimit) {
 					if (interrupted) {
@@ -121,7 +131,7 @@ public abstract class ConcurrencyThrottleSupport implements Serializable {
 								" has reached limit " + this.concurrencyLimit + " - blocking");
 					}
 					try {
-						this.monitor.wait();
+						this.concurrencyCondition.await();
 					}
 					catch (InterruptedException ex) {
 						// Re-interrupt current thread, to allow other threads to react.
@@ -134,6 +144,9 @@ public abstract class ConcurrencyThrottleSupport implements Serializable {
 				}
 				this.concurrencyCount++;
 			}
+			finally {
+				this.concurrencyLock.unlock();
+			}
 		}
 	}
 
@@ -143,12 +156,16 @@ public abstract class ConcurrencyThrottleSupport implements Serializable {
 	 */
 	protected void afterAccess() {
 		if (this.concurrencyLimit >= 0) {
-			synchronized (this.monitor) {
+			this.concurrencyLock.lock();
+			try {
 				this.concurrencyCount--;
 				if (logger.isDebugEnabled()) {
 					logger.debug("Returning from throttle at concurrency count " + this.concurrencyCount);
 				}
-				this.monitor.notify();
+				this.concurrencyCondition.signal();
+			}
+			finally {
+				this.concurrencyLock.unlock();
 			}
 		}
 	}
@@ -164,7 +181,8 @@ public abstract class ConcurrencyThrottleSupport implements Serializable {
 
 		// Initialize transient fields.
 		this.logger = LogFactory.getLog(getClass());
-		this.monitor = new Object();
+		this.concurrencyLock = new ReentrantLock();
+		this.concurrencyCondition = this.concurrencyLock.newCondition();
 	}
 
 }
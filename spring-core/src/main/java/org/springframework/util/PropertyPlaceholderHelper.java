@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,10 @@
 
 package org.springframework.util;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -35,12 +37,19 @@ import org.springframework.lang.Nullable;
  * <p>Values for substitution can be supplied using a {@link Properties} instance or
  * using a {@link PlaceholderResolver}.
  *
+ * <p>As of 5.3.23, the structure of a parsed value, i.e. its literal text and the
+ * placeholders within it, is cached per helper instance. Values are resolved against
+ * the cached structure, without scanning the same value for placeholders again.
+ *
  * @author Juergen Hoeller
  * @author Rob Harrop
  * @since 3.0
  */
 public class PropertyPlaceholderHelper {
 
+	/** Default maximum number of entries for the parsed value cache: 256. */
+	public static final int DEFAULT_CACHE_LIMIT = 256;
+
 	private static final Log logger = LogFactory.getLog(PropertyPlaceholderHelper.class);
 
 	private static final Map<String, String> wellKnownSimplePrefixes = new HashMap<>(4);
@@ -63,6 +72,10 @@ public class PropertyPlaceholderHelper {
 
 	private final boolean ignoreUnresolvablePlaceholders;
 
+	/** Cache of the parts of parsed values: literal Strings and Placeholders. */
+	private final ConcurrentLruCache<String, Object[]> parsedValueCache =
+			new ConcurrentLruCache<>(DEFAULT_CACHE_LIMIT, this::parseValue);
+
 
 	/**
 	 * Creates a new {@code PropertyPlaceholderHelper} that uses the supplied prefix and suffix.
@@ -129,66 +142,90 @@ public class PropertyPlaceholderHelper {
 	protected String parseStringValue(
 			String value, PlaceholderResolver placeholderResolver, @Nullable Set<String> visitedPlaceholders) {
 
-		int startIndex = value.indexOf(this.placeholderPrefix);
-		if (startIndex == -1) {
+		if (!value.contains(this.placeholderPrefix)) {
 			return value;
 		}
 
-		StringBuilder result = new StringBuilder(value);
-		while (startIndex != -1) {
-			int endIndex = findPlaceholderEndIndex(result, startIndex);
-			if (endIndex != -1) {
-				String placeholder = result.substring(startIndex + this.placeholderPrefix.length(), endIndex);
-				String originalPlaceholder = placeholder;
-				if (visitedPlaceholders == null) {
-					visitedPlaceholders = new HashSet<>(4);
-				}
-				if (!visitedPlaceholders.add(originalPlaceholder)) {
-					throw new IllegalArgumentException(
-							"Circular placeholder reference '" + originalPlaceholder + "' in property definitions");
-				}
-				// Recursive invocation, parsing placeholders contained in the placeholder key.
-				placeholder = parseStringValue(placeholder, placeholderResolver, visitedPlaceholders);
-				// Now obtain the value for the fully resolved key...
-				String propVal = placeholderResolver.resolvePlaceholder(placeholder);
-				if (propVal == null && this.valueSeparator != null) {
-					int separatorIndex = placeholder.indexOf(this.valueSeparator);
-					if (separatorIndex != -1) {
-						String actualPlaceholder = placeholder.substring(0, separatorIndex);
-						String defaultValue = placeholder.substring(separatorIndex + this.valueSeparator.length());
-						propVal = placeholderResolver.resolvePlaceholder(actualPlaceholder);
-						if (propVal == null) {
-							propVal = defaultValue;
-						}
-					}
-				}
-				if (propVal != null) {
-					// Recursive invocation, parsing placeholders contained in the
-					// previously resolved placeholder value.
-					propVal = parseStringValue(propVal, placeholderResolver, visitedPlaceholders);
-					result.replace(startIndex, endIndex + this.placeholderSuffix.length(), propVal);
-					if (logger.isTraceEnabled()) {
-						logger.trace("Resolved placeholder '" + placeholder + "'");
+		StringBuilder result = new StringBuilder(value.length());
+		for (Object part : this.parsedValueCache.get(value)) {
+			if (!(part instanceof Placeholder)) {
+				result.append((String) part);
+				continue;
+			}
+			Placeholder parsedPlaceholder = (Placeholder) part;
+			String originalPlaceholder = parsedPlaceholder.name;
+			if (visitedPlaceholders == null) {
+				visitedPlaceholders = new HashSet<>(4);
+			}
+			if (!visitedPlaceholders.add(originalPlaceholder)) {
+				throw new IllegalArgumentException(
+						"Circular placeholder reference '" + originalPlaceholder + "' in property definitions");
+			}
+			// Recursive invocation, parsing placeholders contained in the placeholder key.
+			String placeholder = parseStringValue(originalPlaceholder, placeholderResolver, visitedPlaceholders);
+			// Now obtain the value for the fully resolved key...
+			String propVal = placeholderResolver.resolvePlaceholder(placeholder);
+			if (propVal == null && this.valueSeparator != null) {
+				int separatorIndex = placeholder.indexOf(this.valueSeparator);
+				if (separatorIndex != -1) {
+					String actualPlaceholder = placeholder.substring(0, separatorIndex);
+					String defaultValue = placeholder.substring(separatorIndex + this.valueSeparator.length());
+					propVal = placeholderResolver.resolvePlaceholder(actualPlaceholder);
+					if (propVal == null) {
+						propVal = defaultValue;
 					}
-					startIndex = result.indexOf(this.placeholderPrefix, startIndex + propVal.length());
 				}
-				else if (this.ignoreUnresolvablePlaceholders) {
-					// Proceed with unprocessed value.
-					startIndex = result.indexOf(this.placeholderPrefix, endIndex + this.placeholderSuffix.length());
-				}
-				else {
-					throw new IllegalArgumentException("Could not resolve placeholder '" +
-							placeholder + "'" + " in value \"" + value + "\"");
+			}
+			if (propVal != null) {
+				// Recursive invocation, parsing placeholders contained in the
+				// previously resolved placeholder value.
+				propVal = parseStringValue(propVal, placeholderResolver, visitedPlaceholders);
+				result.append(propVal);
+				if (logger.isTraceEnabled()) {
+					logger.trace("Resolved placeholder '" + placeholder + "'");
 				}
-				visitedPlaceholders.remove(originalPlaceholder);
+			}
+			else if (this.ignoreUnresolvablePlaceholders) {
+				// Proceed with unprocessed value.
+				result.append(parsedPlaceholder.text);
 			}
 			else {
-				startIndex = -1;
+				throw new IllegalArgumentException("Could not resolve placeholder '" +
+						placeholder + "'" + " in value \"" + value + "\"");
 			}
+			visitedPlaceholders.remove(originalPlaceholder);
 		}
 		return result.toString();
 	}
 
+	/**
+	 * Split the given value into its literal text and its top-level placeholders.
+	 * @param value the value containing the placeholders
+	 * @return the parts of the value, either {@code String} or {@code Placeholder}
+	 */
+	private Object[] parseValue(String value) {
+		List<Object> parts = new ArrayList<>();
+		int literalStartIndex = 0;
+		int startIndex = value.indexOf(this.placeholderPrefix);
+		while (startIndex != -1) {
+			int endIndex = findPlaceholderEndIndex(value, startIndex);
+			if (endIndex == -1) {
+				break;
+			}
+			if (startIndex > literalStartIndex) {
+				parts.add(value.substring(literalStartIndex, startIndex));
+			}
+			literalStartIndex = endIndex + this.placeholderSuffix.length();
+			parts.add(new Placeholder(value.substring(startIndex + this.placeholderPrefix.length(), endIndex),
+					value.substring(startIndex, literalStartIndex)));
+			startIndex = value.indexOf(this.placeholderPrefix, literalStartIndex);
+		}
+		if (literalStartIndex < value.length()) {
+			parts.add(value.substring(literalStartIndex));
+		}
+		return parts.toArray();
+	}
+
 	private int findPlaceholderEndIndex(CharSequence buf, int startIndex) {
 		int index = startIndex + this.placeholderPrefix.length();
 		int withinNestedPlaceholder = 0;
@@ -229,4 +266,22 @@ public class PropertyPlaceholderHelper {
 		String resolvePlaceholder(String placeholderName);
 	}
 
+
+	/**
+	 * A placeholder within a parsed value.
+	 */
+	private static final class Placeholder {
+
+		/** The placeholder key, possibly containing nested placeholders and a default value. */
+		final String name;
+
+		/** The original text of the placeholder, including prefix and suffix. */
+		final String text;
+
+		Placeholder(String name, String text) {
+			this.name = name;
+			this.text = text;
+		}
+	}
+
 }
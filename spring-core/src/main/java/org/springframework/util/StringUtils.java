@@ -790,6 +790,9 @@ public abstract class StringUtils {
 			return source;
 		}
 		Assert.notNull(charset, "Charset must not be null");
+		if (source.indexOf('%') == -1) {
+			return source;
+		}
 
 		ByteArrayOutputStream baos = new ByteArrayOutputStream(length);
 		boolean changed = false;
@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -116,6 +117,27 @@ class ResolvableTypeTests {
 		assertThat(type.isAssignableFrom(String.class)).isTrue();
 	}
 
+	@Test
+	void forClassReturnsCanonicalInstance() throws Exception {
+		ResolvableType type = ResolvableType.forClass(ExtendsList.class);
+		assertThat(ResolvableType.forClass(ExtendsList.class)).isSameAs(type);
+		assertThat(ResolvableType.forType(ExtendsList.class)).isSameAs(type);
+		assertThat(ResolvableType.forClass(null)).isSameAs(ResolvableType.forClass(Object.class));
+		assertThat(ResolvableType.forRawClass(ExtendsList.class)).isNotSameAs(type);
+	}
+
+	@Test
+	void forTypeWithParameterizedTypeReturnsCanonicalInstance() throws Exception {
+		Type genericType = Fields.class.getField("stringList").getGenericType();
+		ResolvableType type = ResolvableType.forType(genericType);
+		assertThat(ResolvableType.forType(genericType)).isSameAs(type);
+		assertThat(type.getGenerics()).isSameAs(ResolvableType.forType(genericType).getGenerics());
+
+		ResolvableType forField = ResolvableType.forField(Fields.class.getField("stringList"));
+		assertThat(forField).isNotSameAs(type);
+		assertThat(forField.getSource()).isEqualTo(Fields.class.getField("stringList"));
+	}
+
 	@Test
 	void forRawClass() throws Exception {
 		ResolvableType type = ResolvableType.forRawClass(ExtendsList.class);
@@ -1091,6 +1113,27 @@ class ResolvableTypeTests {
 		assertThatResolvableType(extendsStringList).isNotAssignableFrom(charSequenceCollection, charSequenceList, extendsCharSequenceList);
 	}
 
+	@Test
+	void isAssignableFromForSimpleParameterizedTypes() throws Exception {
+		ResolvableType stringList = ResolvableType.forClassWithGenerics(List.class, String.class);
+		ResolvableType charSequenceList = ResolvableType.forClassWithGenerics(List.class, CharSequence.class);
+		ResolvableType stringArrayList = ResolvableType.forClassWithGenerics(ArrayList.class, String.class);
+		ResolvableType extendsCharSequenceList = ResolvableType.forField(AssignmentBase.class.getField("listxc"), Assignment.class);
+		ResolvableType stringMap = ResolvableType.forClassWithGenerics(Map.class, String.class, Integer.class);
+		ResolvableType extendsMap = ResolvableType.forClass(ExtendsMap.class);
+
+		assertThatResolvableType(stringList).isAssignableFrom(stringList, stringArrayList)
+				.isNotAssignableFrom(charSequenceList, extendsCharSequenceList);
+		assertThatResolvableType(charSequenceList).isNotAssignableFrom(stringList, stringArrayList);
+		assertThatResolvableType(stringArrayList).isAssignableFrom(stringArrayList).isNotAssignableFrom(stringList);
+		assertThatResolvableType(stringMap).isAssignableFrom(extendsMap);
+		assertThat(ResolvableType.forClass(List.class).isAssignableFrom(ArrayList.class)).isTrue();
+		assertThat(ResolvableType.forClass(List.class).isAssignableFrom(HashSet.class)).isFalse();
+		assertThat(ResolvableType.forClass(CharSequence.class).isAssignableFrom(String.class)).isTrue();
+		assertThat(ResolvableType.forClass(String.class).isAssignableFrom(CharSequence.class)).isFalse();
+		assertThat(ResolvableType.forClass(String.class).isAssignableFrom(ResolvableType.NONE)).isFalse();
+	}
+
 	@Test
 	void isAssignableFromForArrays() throws Exception {
 		ResolvableType object = ResolvableType.forField(AssignmentBase.class.getField("o"), Assignment.class);
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AnnotationIndex}.
+ *
+ * @since 5.3.23
+ */
+class AnnotationIndexTests {
+
+	@Test
+	void getIndexForDirectSearchReturnsNull() {
+		assertThat(AnnotationsScanner.getIndex(WithHierarchy.class, SearchStrategy.DIRECT)).isNull();
+	}
+
+	@Test
+	void getIndexReturnsCachedIndex() {
+		AnnotationIndex index = AnnotationsScanner.getIndex(WithHierarchy.class, SearchStrategy.TYPE_HIERARCHY);
+		assertThat(index).isNotNull();
+		assertThat(AnnotationsScanner.getIndex(WithHierarchy.class, SearchStrategy.TYPE_HIERARCHY)).isSameAs(index);
+		assertThat(AnnotationsScanner.getIndex(WithHierarchy.class, SearchStrategy.SUPERCLASS)).isNotSameAs(index);
+	}
+
+	@Test
+	void getIndexAfterClearCacheReturnsNewIndex() {
+		AnnotationIndex index = AnnotationsScanner.getIndex(WithHierarchy.class, SearchStrategy.TYPE_HIERARCHY);
+		AnnotationUtils.clearCache();
+		assertThat(AnnotationsScanner.getIndex(WithHierarchy.class, SearchStrategy.TYPE_HIERARCHY)).isNotSameAs(index);
+	}
+
+	@Test
+	void mayContainForClassHierarchy() {
+		AnnotationIndex index = AnnotationsScanner.getIndex(WithHierarchy.class, SearchStrategy.TYPE_HIERARCHY);
+		assertThat(index.mayContain(Direct.class)).isTrue();
+		assertThat(index.mayContain(OnInterface.class)).isTrue();
+		assertThat(index.mayContain(MetaMeta.class)).isTrue();
+		assertThat(index.mayContain(MetaMeta.class.getName())).isTrue();
+		assertThat(index.mayContain(Repeated.class)).isTrue();
+		assertThat(index.mayContain(RepeatedContainer.class)).isTrue();
+		assertThat(index.mayContain(Absent.class)).isFalse();
+		assertThat(index.mayContain(Absent.class.getName())).isFalse();
+		assertThat(index.mayContain("com.example.Unknown")).isFalse();
+	}
+
+	@Test
+	void mayContainForSuperclassSearchIgnoresInterfaces() {
+		AnnotationIndex index = AnnotationsScanner.getIndex(WithHierarchy.class, SearchStrategy.SUPERCLASS);
+		assertThat(index.mayContain(Direct.class)).isTrue();
+		assertThat(index.mayContain(OnInterface.class)).isFalse();
+	}
+
+	@Test
+	void mayContainForMethodHierarchy() {
+		Method method = ReflectionUtils.findMethod(WithHierarchy.class, "method");
+		AnnotationIndex index = AnnotationsScanner.getIndex(method, SearchStrategy.TYPE_HIERARCHY);
+		assertThat(index.mayContain(OnInterface.class)).isTrue();
+		assertThat(index.mayContain(Direct.class)).isFalse();
+	}
+
+	@Test
+	void mergedAnnotationsUseIndex() {
+		MergedAnnotations annotations = MergedAnnotations.from(WithHierarchy.class, SearchStrategy.TYPE_HIERARCHY);
+		assertThat(annotations.isPresent(MetaMeta.class)).isTrue();
+		assertThat(annotations.get(OnInterface.class).getString("value")).isEqualTo("interface");
+		assertThat(annotations.stream(Repeated.class)).hasSize(2);
+		assertThat(annotations.isPresent(Absent.class)).isFalse();
+		assertThat(annotations.get(Absent.class).isPresent()).isFalse();
+
+		MergedAnnotations withoutRepeatables = MergedAnnotations.from(WithHierarchy.class,
+				SearchStrategy.TYPE_HIERARCHY, RepeatableContainers.none());
+		assertThat(withoutRepeatables.isPresent(RepeatedContainer.class)).isTrue();
+		assertThat(withoutRepeatables.isPresent(Repeated.class)).isFalse();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface MetaMeta {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@MetaMeta
+	@interface Meta {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Meta
+	@interface Direct {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface OnInterface {
+
+		String value();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Repeatable(RepeatedContainer.class)
+	@interface Repeated {
+
+		int value();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface RepeatedContainer {
+
+		Repeated[] value();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Absent {
+	}
+
+
+	@OnInterface("interface")
+	interface AnnotatedInterface {
+
+		@OnInterface("method")
+		void method();
+	}
+
+
+	@Repeated(1)
+	@Repeated(2)
+	static class AnnotatedSuperclass implements AnnotatedInterface {
+
+		@Override
+		public void method() {
+		}
+	}
+
+
+	@Direct
+	static class WithHierarchy extends AnnotatedSuperclass {
+
+		@Override
+		public void method() {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -179,4 +179,20 @@ class MutablePropertySourcesTests {
 		assertThat(sources.stream().count()).isEqualTo(0L);
 	}
 
+	@Test
+	void modificationCountIsIncrementedOnChange() {
+		MutablePropertySources sources = new MutablePropertySources();
+		assertThat(sources.getModificationCount()).isEqualTo(0);
+		sources.addLast(new MockPropertySource("a"));
+		sources.addFirst(new MockPropertySource("b"));
+		sources.addBefore("a", new MockPropertySource("c"));
+		sources.addAfter("a", new MockPropertySource("d"));
+		assertThat(sources.getModificationCount()).isEqualTo(4);
+		sources.replace("a", new MockPropertySource("e"));
+		sources.remove("e");
+		assertThat(sources.getModificationCount()).isEqualTo(6);
+		sources.remove("bogus");
+		assertThat(sources.getModificationCount()).isEqualTo(6);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -164,6 +164,56 @@ class PropertySourcesPropertyResolverTests {
 		assertThat(propertySources).hasSize(2);
 	}
 
+	@Test
+	void getProperty_withCachedPropertyLookups() {
+		HashMap<String, Object> map = new HashMap<>();
+		map.put("foo", "bar");
+		MutablePropertySources propertySources = new MutablePropertySources();
+		propertySources.addFirst(new MapPropertySource("testProperties", map));
+		PropertySourcesPropertyResolver propertyResolver = new PropertySourcesPropertyResolver(propertySources);
+		propertyResolver.setCachePropertyLookups(true);
+		assertThat(propertyResolver.getProperty("foo")).isEqualTo("bar");
+		assertThat(propertyResolver.getProperty("missing")).isNull();
+
+		// change within a property source requires explicit invalidation
+		map.put("foo", "biz");
+		map.put("missing", "found");
+		assertThat(propertyResolver.getProperty("foo")).isEqualTo("bar");
+		assertThat(propertyResolver.getProperty("missing")).isNull();
+		propertyResolver.clearCache();
+		assertThat(propertyResolver.getProperty("foo")).isEqualTo("biz");
+		assertThat(propertyResolver.getProperty("missing")).isEqualTo("found");
+	}
+
+	@Test
+	void getProperty_withCachedPropertyLookups_invalidatedByPropertySourcesChange() {
+		propertySources = new MutablePropertySources();
+		PropertySourcesPropertyResolver propertyResolver = new PropertySourcesPropertyResolver(propertySources);
+		propertyResolver.setCachePropertyLookups(true);
+		propertySources.addLast(new MockPropertySource("system").withProperty("foo", "systemValue"));
+		assertThat(propertyResolver.getProperty("foo")).isEqualTo("systemValue");
+
+		propertySources.addFirst(new MockPropertySource("local").withProperty("foo", "localValue"));
+		assertThat(propertyResolver.getProperty("foo")).isEqualTo("localValue");
+
+		propertySources.replace("local", new MockPropertySource("new").withProperty("foo", "newValue"));
+		assertThat(propertyResolver.getProperty("foo")).isEqualTo("newValue");
+
+		propertySources.remove("new");
+		assertThat(propertyResolver.getProperty("foo")).isEqualTo("systemValue");
+	}
+
+	@Test
+	void getProperty_withCachedPropertyLookups_resolvesNestedPlaceholdersAndConverts() {
+		PropertySourcesPropertyResolver propertyResolver = new PropertySourcesPropertyResolver(propertySources);
+		propertyResolver.setCachePropertyLookups(true);
+		testProperties.put("port", "8080");
+		testProperties.put("url", "http://localhost:${port}");
+		assertThat(propertyResolver.getProperty("url")).isEqualTo("http://localhost:8080");
+		assertThat(propertyResolver.getProperty("port", Integer.class)).isEqualTo(8080);
+		assertThat(propertyResolver.resolvePlaceholders("${url}/path")).isEqualTo("http://localhost:8080/path");
+	}
+
 	@Test
 	void getRequiredProperty() {
 		testProperties.put("exists", "xyz");
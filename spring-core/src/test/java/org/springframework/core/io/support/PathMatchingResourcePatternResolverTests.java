@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -129,6 +130,29 @@ class PathMatchingResourcePatternResolverTests {
 		assertThat(found).as("Could not find aspectj_1_5_0.dtd in the root of the aspectjweaver jar").isTrue();
 	}
 
+	@Test
+	void classpathStarWithPatternInParallel() throws IOException {
+		Resource[] expected = resolver.getResources("classpath*:org/springframework/core/io/**/*.class");
+		resolver.setForkJoinPool(ForkJoinPool.commonPool());
+		assertThat(resolver.getResources("classpath*:org/springframework/core/io/**/*.class")).containsExactly(expected);
+		assertThat(resolver.getResources("classpath*:*.dtd")).extracting(Resource::getFilename).contains("aspectj_1_5_0.dtd");
+		Resource[] resources = resolver.getResources("classpath*:reactor/util/annotation/*.class");
+		assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTOR_UTIL_ANNOTATIONS);
+	}
+
+	@Test
+	void classpathStarWithPatternInJarWithCachedJarEntries() throws IOException {
+		resolver.setCacheJarEntries(true);
+		Resource[] resources = resolver.getResources("classpath*:reactor/util/annotation/*.class");
+		assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTOR_UTIL_ANNOTATIONS);
+		resources = resolver.getResources("classpath*:reactor/util/annotation/*.class");
+		assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTOR_UTIL_ANNOTATIONS);
+		assertThat(resolver.getResources("classpath*:*.dtd")).extracting(Resource::getFilename).contains("aspectj_1_5_0.dtd");
+		resolver.clearCache();
+		resources = resolver.getResources("classpath:reactor/util/annotation/*.class");
+		assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTOR_UTIL_ANNOTATIONS);
+	}
+
 
 	private void assertProtocolAndFilenames(Resource[] resources, String protocol, String... filenames)
 			throws IOException {
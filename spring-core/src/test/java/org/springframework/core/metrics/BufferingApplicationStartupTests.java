@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.metrics.BufferingApplicationStartup.BufferedStartupStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link BufferingApplicationStartup}.
+ *
+ * @since 5.3.23
+ */
+class BufferingApplicationStartupTests {
+
+	@Test
+	void createWithInvalidCapacity() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new BufferingApplicationStartup(0));
+	}
+
+	@Test
+	void bufferKeepsEndedStepsInOrder() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		StartupStep first = applicationStartup.start("first");
+		StartupStep second = applicationStartup.start("second");
+		assertThat(applicationStartup.getBufferedSteps()).isEmpty();
+		second.end();
+		first.end();
+		assertThat(applicationStartup.getBufferedSteps()).extracting(StartupStep::getName)
+				.containsExactly("second", "first");
+	}
+
+	@Test
+	void bufferDropsOldestStepsWhenFull() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(2);
+		applicationStartup.start("first").end();
+		applicationStartup.start("second").end();
+		applicationStartup.start("third").end();
+		assertThat(applicationStartup.getBufferedSteps()).extracting(StartupStep::getName)
+				.containsExactly("second", "third");
+		assertThat(applicationStartup.getDroppedStepCount()).isEqualTo(1);
+
+		applicationStartup.clear();
+		assertThat(applicationStartup.getBufferedSteps()).isEmpty();
+		assertThat(applicationStartup.getDroppedStepCount()).isEqualTo(0);
+	}
+
+	@Test
+	void nestedStepsHaveParentId() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		StartupStep parent = applicationStartup.start("parent");
+		StartupStep child = applicationStartup.start("child");
+		child.end();
+		StartupStep sibling = applicationStartup.start("sibling");
+		sibling.end();
+		parent.end();
+		StartupStep root = applicationStartup.start("root");
+		root.end();
+
+		assertThat(parent.getParentId()).isNull();
+		assertThat(child.getParentId()).isEqualTo(parent.getId());
+		assertThat(sibling.getParentId()).isEqualTo(parent.getId());
+		assertThat(root.getParentId()).isNull();
+		assertThat(child.getId()).isNotEqualTo(sibling.getId());
+	}
+
+	@Test
+	void stepKeepsTags() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		StartupStep step = applicationStartup.start("step").tag("beanName", "test").tag("beanType", () -> "type");
+		step.end();
+		assertThat(step.getTags()).extracting(StartupStep.Tag::getKey).containsExactly("beanName", "beanType");
+		assertThat(step.getTags()).extracting(StartupStep.Tag::getValue).containsExactly("test", "type");
+		assertThatIllegalStateException().isThrownBy(() -> step.tag("late", "value"));
+	}
+
+	@Test
+	void endStepTwiceRecordsItOnce() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		StartupStep step = applicationStartup.start("step");
+		step.end();
+		step.end();
+		assertThat(applicationStartup.getBufferedSteps()).hasSize(1);
+	}
+
+	@Test
+	void timeByPhaseUsesSelfTime() throws Exception {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		StartupStep refresh = applicationStartup.start("spring.context.refresh");
+		StartupStep postProcess = applicationStartup.start("spring.context.beandef-registry.post-process");
+		StartupStep parse = applicationStartup.start("spring.context.config-classes.parse");
+		Thread.sleep(20);
+		parse.end();
+		postProcess.end();
+		StartupStep instantiate = applicationStartup.start("spring.beans.instantiate");
+		Thread.sleep(20);
+		instantiate.end();
+		StartupStep publish = applicationStartup.start("spring.context.event.publish");
+		publish.end();
+		refresh.end();
+
+		Map<String, Duration> timeByPhase = applicationStartup.getTimeByPhase();
+		assertThat(timeByPhase).containsOnlyKeys("bean creation", "post-processors",
+				"configuration classes", "event publishing", "other");
+		assertThat(timeByPhase.get("configuration classes")).isEqualTo(((BufferedStartupStep) parse).getDuration());
+		assertThat(timeByPhase.get("bean creation")).isEqualTo(((BufferedStartupStep) instantiate).getDuration());
+		assertThat(timeByPhase.get("post-processors")).isLessThan(((BufferedStartupStep) postProcess).getDuration());
+		Duration total = timeByPhase.values().stream().reduce(Duration.ZERO, Duration::plus);
+		assertThat(total).isEqualTo(((BufferedStartupStep) refresh).getDuration());
+	}
+
+	@Test
+	void createReportListsSlowestSteps() throws Exception {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		applicationStartup.setReportSize(1);
+		applicationStartup.start("spring.beans.instantiate").tag("beanName", "fast").end();
+		StartupStep slow = applicationStartup.start("spring.beans.instantiate").tag("beanName", "slow");
+		Thread.sleep(20);
+		slow.end();
+
+		String report = applicationStartup.createReport();
+		assertThat(report).contains("2 steps recorded", "bean creation", "spring.beans.instantiate [beanName=slow]");
+		assertThat(report).doesNotContain("beanName=fast");
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIf;
+import org.junit.jupiter.api.condition.EnabledIf;
+
+import org.springframework.util.concurrent.ListenableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link VirtualThreadTaskExecutor} and virtual threads in
+ * {@link SimpleAsyncTaskExecutor}.
+ *
+ * @since 5.3.23
+ */
+class VirtualThreadTaskExecutorTests {
+
+	@Test
+	@EnabledIf("org.springframework.core.task.VirtualThreadTaskExecutor#isSupported")
+	void execute() throws Exception {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		Future<String> future = executor.submit(() -> Thread.currentThread().toString());
+		assertThat(future.get(5, TimeUnit.SECONDS)).startsWith("VirtualThread");
+	}
+
+	@Test
+	@EnabledIf("org.springframework.core.task.VirtualThreadTaskExecutor#isSupported")
+	void executeWithThreadNamePrefix() throws Exception {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-");
+		ListenableFuture<String> first = executor.submitListenable(() -> Thread.currentThread().getName());
+		assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("test-0");
+		ListenableFuture<String> second = executor.submitListenable(() -> Thread.currentThread().getName());
+		assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("test-1");
+	}
+
+	@Test
+	@EnabledIf("org.springframework.core.task.VirtualThreadTaskExecutor#isSupported")
+	void simpleAsyncTaskExecutorWithVirtualThreads() throws Exception {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("virtual-");
+		executor.setVirtualThreads(true);
+		executor.setConcurrencyLimit(1);
+		assertThat(executor.isVirtualThreads()).isTrue();
+		Future<String> future = executor.submit(() -> Thread.currentThread().toString());
+		assertThat(future.get(5, TimeUnit.SECONDS)).startsWith("VirtualThread").contains("virtual-1");
+	}
+
+	@Test
+	@DisabledIf("org.springframework.core.task.VirtualThreadTaskExecutor#isSupported")
+	void virtualThreadsNotSupported() {
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(VirtualThreadTaskExecutor::new);
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() ->
+				new SimpleAsyncTaskExecutor().setVirtualThreads(true));
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AbstractAnnotationMetadataTests;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PersistentMetadataCache} and {@link ClassMetadataRecorder},
+ * running the {@link AbstractAnnotationMetadataTests} against metadata that
+ * has been replayed from a cache directory.
+ *
+ * @since 5.3.23
+ */
+class PersistentMetadataCacheTests extends AbstractAnnotationMetadataTests {
+
+	@TempDir
+	File cacheDirectory;
+
+
+	@Override
+	protected AnnotationMetadata get(Class<?> source) {
+		try {
+			Resource resource = getResource(source);
+			record(resource);
+			PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheDirectory);
+			assertThat(cache.get(resource)).isNotNull();
+			return new SimpleMetadataReader(resource, source.getClassLoader(), cache).getAnnotationMetadata();
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	@Test
+	void replayedAttributeValues() {
+		AnnotationMetadata metadata = get(AnnotatedClass.class);
+		MergedAnnotation<SampleAnnotation> annotation = metadata.getAnnotations().get(SampleAnnotation.class);
+		assertThat(annotation.getString("name")).isEqualTo("sample");
+		assertThat(annotation.getIntArray("numbers")).containsExactly(1, 2, 3);
+		assertThat(annotation.getClassArray("types")).containsExactly(String.class, Integer.class);
+		assertThat(annotation.getEnum("policy", RetentionPolicy.class)).isEqualTo(RetentionPolicy.CLASS);
+		assertThat(annotation.getAnnotation("nested", NestedAnnotation.class).getDouble("value")).isEqualTo(1.5);
+		assertThat(metadata.getAnnotatedMethods(SampleAnnotation.class.getName()))
+				.extracting(MethodMetadata::getMethodName).containsExactly("annotatedMethod");
+	}
+
+	@Test
+	void modifiedClassFileIsReadAgain(@TempDir Path classDirectory) throws IOException {
+		File classFile = classDirectory.resolve("AnnotatedClass.class").toFile();
+		Files.copy(getResource(AnnotatedClass.class).getInputStream(), classFile.toPath());
+		Resource resource = new FileSystemResource(classFile);
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheDirectory);
+		new SimpleMetadataReader(resource, getClass().getClassLoader(), cache);
+		assertThat(cache.get(resource)).isNotNull();
+
+		assertThat(classFile.setLastModified(classFile.lastModified() - TimeUnit.MINUTES.toMillis(1))).isTrue();
+		assertThat(cache.get(resource)).isNull();
+		assertThat(new PersistentMetadataCache(this.cacheDirectory).get(resource)).isNull();
+		AnnotationMetadata metadata = new SimpleMetadataReader(resource, getClass().getClassLoader(), cache)
+				.getAnnotationMetadata();
+		assertThat(metadata.getClassName()).isEqualTo(AnnotatedClass.class.getName());
+		cache.flush();
+		assertThat(new PersistentMetadataCache(this.cacheDirectory).get(resource)).isNotNull();
+	}
+
+	@Test
+	void recordingsAreWrittenOnFlush() throws IOException {
+		Resource resource = getResource(AnnotatedClass.class);
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheDirectory);
+		new SimpleMetadataReader(resource, getClass().getClassLoader(), cache);
+		new SimpleMetadataReader(getResource(getClass()), getClass().getClassLoader(), cache);
+		assertThat(new PersistentMetadataCache(this.cacheDirectory).get(resource)).isNull();
+
+		cache.flush();
+		assertThat(new PersistentMetadataCache(this.cacheDirectory).get(resource)).isNotNull();
+		assertThat(getSegmentFiles()).hasSize(1);
+	}
+
+	@Test
+	void compactionPrunesRecordingsForRemovedClassFiles(@TempDir Path classDirectory) throws IOException {
+		File classFile = classDirectory.resolve("AnnotatedClass.class").toFile();
+		Files.copy(getResource(AnnotatedClass.class).getInputStream(), classFile.toPath());
+		Resource resource = new FileSystemResource(classFile);
+		long lastModified = classFile.lastModified();
+		record(resource);
+		recordSegments(getResource(getClass()), 8);
+		assertThat(getSegmentFiles()).hasSize(9);
+
+		assertThat(classFile.delete()).isTrue();
+		assertThat(new PersistentMetadataCache(this.cacheDirectory).get(getResource(getClass()))).isNotNull();
+		assertThat(getSegmentFiles()).hasSize(1);
+
+		Files.copy(getResource(AnnotatedClass.class).getInputStream(), classFile.toPath());
+		assertThat(classFile.setLastModified(lastModified)).isTrue();
+		assertThat(new PersistentMetadataCache(this.cacheDirectory).get(resource)).isNull();
+		assertThat(new PersistentMetadataCache(this.cacheDirectory).get(getResource(getClass()))).isNotNull();
+	}
+
+	@Test
+	void compactionSkipsSegmentOfWritingCache() throws IOException {
+		recordSegments(getResource(getClass()), 8);
+		PersistentMetadataCache writingCache = new PersistentMetadataCache(this.cacheDirectory);
+		Resource resource = getResource(AnnotatedClass.class);
+		new SimpleMetadataReader(resource, getClass().getClassLoader(), writingCache);
+		assertThat(getSegmentFiles()).hasSize(9);
+
+		assertThat(new PersistentMetadataCache(this.cacheDirectory).get(getResource(getClass()))).isNotNull();
+		assertThat(getSegmentFiles()).hasSize(2);
+
+		writingCache.flush();
+		assertThat(new PersistentMetadataCache(this.cacheDirectory).get(resource)).isNotNull();
+		assertThat(getSegmentFiles()).hasSize(2);
+	}
+
+	private void record(Resource resource) throws IOException {
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheDirectory);
+		new SimpleMetadataReader(resource, getClass().getClassLoader(), cache);
+		cache.flush();
+	}
+
+	private void recordSegments(Resource resource, int count) throws IOException {
+		record(resource);
+		byte[] recording = new PersistentMetadataCache(this.cacheDirectory).get(resource);
+		assertThat(recording).isNotNull();
+		for (int i = 1; i < count; i++) {
+			PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheDirectory);
+			cache.put(resource, recording);
+			cache.flush();
+		}
+	}
+
+	private File[] getSegmentFiles() {
+		return this.cacheDirectory.listFiles((dir, name) -> name.endsWith(".metadata"));
+	}
+
+	private static Resource getResource(Class<?> source) {
+		return new ClassPathResource(ClassUtils.convertClassNameToResourcePath(source.getName()) +
+				ClassUtils.CLASS_FILE_SUFFIX, source.getClassLoader());
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface SampleAnnotation {
+
+		String name() default "";
+
+		int[] numbers() default {};
+
+		Class<?>[] types() default {};
+
+		RetentionPolicy policy() default RetentionPolicy.RUNTIME;
+
+		NestedAnnotation nested() default @NestedAnnotation(0);
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface NestedAnnotation {
+
+		double value();
+	}
+
+
+	@SampleAnnotation(name = "sample", numbers = {1, 2, 3}, types = {String.class, Integer.class},
+			policy = RetentionPolicy.CLASS, nested = @NestedAnnotation(1.5))
+	static class AnnotatedClass {
+
+		@SampleAnnotation
+		void annotatedMethod() {
+		}
+
+		void plainMethod() {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -108,4 +108,16 @@ class PropertyPlaceholderHelperTests {
 				helper.replacePlaceholders(text, props));
 	}
 
+	@Test
+	void sameValueWithDifferentResolvers() {
+		String text = "foo=${foo},bar=${bar}";
+		Properties props = new Properties();
+		props.setProperty("foo", "bar");
+
+		assertThat(this.helper.replacePlaceholders(text, props)).isEqualTo("foo=bar,bar=${bar}");
+		props.setProperty("bar", "${foo}");
+		assertThat(this.helper.replacePlaceholders(text, props)).isEqualTo("foo=bar,bar=bar");
+		assertThat(this.helper.replacePlaceholders(text, placeholderName -> null)).isEqualTo(text);
+	}
+
 }
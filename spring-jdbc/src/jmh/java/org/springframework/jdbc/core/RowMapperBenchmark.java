@@ -0,0 +1,241 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for mapping rows to objects with {@link BeanPropertyRowMapper},
+ * {@link DataClassRowMapper} and {@link PrecompiledRowMapper}, based on an
+ * in-memory {@link CachedRowSet} in order to isolate the mapping overhead.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class RowMapperBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"BeanPropertyRowMapper", "PrecompiledRowMapper"})
+		public String mapper;
+
+		@Param({"bean", "dataClass"})
+		public String mappedClass;
+
+		@Param({"1000"})
+		public int rowCount;
+
+		public CachedRowSet resultSet;
+
+		public RowMapper<?> rowMapper;
+
+		@Setup(Level.Trial)
+		public void setup() throws SQLException {
+			this.resultSet = createResultSet(this.rowCount);
+			boolean precompiled = this.mapper.equals("PrecompiledRowMapper");
+			if (this.mappedClass.equals("bean")) {
+				this.rowMapper = (precompiled ? new PrecompiledRowMapper<>(AccountBean.class) :
+						new BeanPropertyRowMapper<>(AccountBean.class));
+			}
+			else {
+				this.rowMapper = (precompiled ? new PrecompiledRowMapper<>(AccountData.class) :
+						new DataClassRowMapper<>(AccountData.class));
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws SQLException {
+			this.resultSet.close();
+		}
+
+		private static CachedRowSet createResultSet(int rowCount) throws SQLException {
+			RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+			metaData.setColumnCount(6);
+			defineColumn(metaData, 1, "id", Types.BIGINT);
+			defineColumn(metaData, 2, "name", Types.VARCHAR);
+			defineColumn(metaData, 3, "age", Types.INTEGER);
+			defineColumn(metaData, 4, "balance", Types.DECIMAL);
+			defineColumn(metaData, 5, "active", Types.BOOLEAN);
+			defineColumn(metaData, 6, "last_login", Types.TIMESTAMP);
+
+			CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+			rowSet.setMetaData(metaData);
+			for (int i = 0; i < rowCount; i++) {
+				rowSet.moveToInsertRow();
+				rowSet.updateLong(1, i);
+				rowSet.updateString(2, "name" + i);
+				rowSet.updateInt(3, i % 100);
+				rowSet.updateBigDecimal(4, BigDecimal.valueOf(i, 2));
+				rowSet.updateBoolean(5, i % 2 == 0);
+				rowSet.updateTimestamp(6, new Timestamp(i));
+				rowSet.insertRow();
+			}
+			rowSet.moveToCurrentRow();
+			return rowSet;
+		}
+
+		private static void defineColumn(RowSetMetaDataImpl metaData, int index, String name, int type)
+				throws SQLException {
+
+			metaData.setColumnName(index, name);
+			metaData.setColumnLabel(index, name);
+			metaData.setColumnType(index, type);
+		}
+	}
+
+
+	@Benchmark
+	public void mapRows(BenchmarkState state, Blackhole bh) throws SQLException {
+		CachedRowSet rs = state.resultSet;
+		rs.beforeFirst();
+		int rowNumber = 0;
+		while (rs.next()) {
+			bh.consume(state.rowMapper.mapRow(rs, rowNumber++));
+		}
+	}
+
+
+	public static class AccountBean {
+
+		private long id;
+
+		private String name;
+
+		private int age;
+
+		private BigDecimal balance;
+
+		private boolean active;
+
+		private Timestamp lastLogin;
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public BigDecimal getBalance() {
+			return this.balance;
+		}
+
+		public void setBalance(BigDecimal balance) {
+			this.balance = balance;
+		}
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+
+		public Timestamp getLastLogin() {
+			return this.lastLogin;
+		}
+
+		public void setLastLogin(Timestamp lastLogin) {
+			this.lastLogin = lastLogin;
+		}
+	}
+
+
+	public static class AccountData {
+
+		private final long id;
+
+		private final String name;
+
+		private final int age;
+
+		private final BigDecimal balance;
+
+		private final boolean active;
+
+		private final Timestamp lastLogin;
+
+		public AccountData(long id, String name, int age, BigDecimal balance, boolean active, Timestamp lastLogin) {
+			this.id = id;
+			this.name = name;
+			this.age = age;
+			this.balance = balance;
+			this.active = active;
+			this.lastLogin = lastLogin;
+		}
+
+		public long id() {
+			return this.id;
+		}
+
+		public String name() {
+			return this.name;
+		}
+
+		public int age() {
+			return this.age;
+		}
+
+		public BigDecimal balance() {
+			return this.balance;
+		}
+
+		public boolean active() {
+			return this.active;
+		}
+
+		public Timestamp lastLogin() {
+			return this.lastLogin;
+		}
+	}
+
+}
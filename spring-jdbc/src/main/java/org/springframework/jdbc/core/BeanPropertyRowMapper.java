@@ -20,6 +20,7 @@ import java.beans.PropertyDescriptor;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
@@ -248,6 +249,25 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		}
 	}
 
+	/**
+	 * Return the property mapped to the given lower-case field name, if any.
+	 * @param field the field name, as derived from a column name
+	 * @since 5.3.23
+	 * @see #lowerCaseName
+	 */
+	@Nullable
+	PropertyDescriptor getMappedField(String field) {
+		return (this.mappedFields != null ? this.mappedFields.get(field) : null);
+	}
+
+	/**
+	 * Return the names of the bean properties we provide mapping for.
+	 * @since 5.3.23
+	 */
+	Set<String> getMappedProperties() {
+		return (this.mappedProperties != null ? this.mappedProperties : Collections.emptySet());
+	}
+
 	/**
 	 * Convert the given name to lower case.
 	 * By default, conversions will happen within the US locale.
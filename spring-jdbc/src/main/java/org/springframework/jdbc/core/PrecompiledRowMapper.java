@@ -0,0 +1,569 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.TypeConverter;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.KotlinDetector;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link RowMapper} implementation that converts a row into a new instance
+ * of the specified mapped target class, following the same mapping rules as
+ * {@link DataClassRowMapper} and {@link BeanPropertyRowMapper}: constructor
+ * parameters and bean property setters are matched to columns by name.
+ *
+ * <p>In contrast to its superclasses, which resolve the mapping of each column
+ * for every row, this row mapper compiles a mapping plan once per result set
+ * layout: the columns are resolved to constructor parameters and to setter
+ * {@link MethodHandle MethodHandles} on the first row, with the plan being
+ * reused for subsequent rows and cached for further result sets with the same
+ * column labels. No {@link org.springframework.beans.BeanWrapper} is created
+ * per row, primitive properties are read through the corresponding
+ * {@code ResultSet} getters such as {@link ResultSet#getInt} and applied
+ * without boxing, and type conversion only kicks in for values which are not
+ * assignable to their target type. This makes it suitable for mapping large
+ * numbers of rows, e.g. when paging through big tables.
+ *
+ * <p>Type conversion is performed with the configured {@link ConversionService}
+ * and any custom editors registered through {@link #initBeanWrapper}; note that
+ * such editors are only applied to values that actually require conversion.
+ * If {@link #getColumnValue} is overridden, it is called for every mapped
+ * column, including primitive properties.
+ *
+ * <p>The mapped class may expose a data class constructor, including the
+ * canonical constructor of a record, as well as bean property setters.
+ * Like its superclasses, this row mapper is thread-safe once configured.
+ *
+ * @since 5.3.23
+ * @param <T> the result type
+ * @see BeanPropertyRowMapper
+ * @see DataClassRowMapper
+ */
+public class PrecompiledRowMapper<T> extends DataClassRowMapper<T> {
+
+	/** Mapping plans per list of column labels. */
+	private final Map<List<String>, MappingPlan> mappingPlans = new ConcurrentReferenceHashMap<>(4);
+
+	/** The plan in use for the most recently mapped result set. */
+	@Nullable
+	private volatile ResultSetMappingPlan currentPlan;
+
+
+	/**
+	 * Create a new {@code PrecompiledRowMapper} for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setConversionService
+	 */
+	public PrecompiledRowMapper() {
+	}
+
+	/**
+	 * Create a new {@code PrecompiledRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public PrecompiledRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+
+	/**
+	 * Extract the values for all columns in the current row, according to
+	 * the mapping plan for the given result set.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+		MappingPlan plan = obtainMappingPlan(rs);
+		if (!plan.fullyPopulated && isCheckFullyPopulated()) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of " + getMappedClass() + ": " + getMappedProperties());
+		}
+
+		// Only created if a value actually requires conversion
+		TypeConverter tc = null;
+
+		Object[] args = new Object[plan.arguments.length];
+		for (int i = 0; i < args.length; i++) {
+			ColumnMapping argument = plan.arguments[i];
+			Object value = getColumnValue(rs, argument.index, argument.type);
+			if (argument.requiresConversion(value)) {
+				if (tc == null) {
+					tc = createTypeConverter();
+				}
+				value = tc.convertIfNecessary(value, argument.type, argument.typeDescriptor);
+			}
+			args[i] = (value != null ? value : argument.defaultValue);
+		}
+		Object mappedObject = plan.instantiate(args);
+
+		for (PropertyMapping mapping : plan.properties) {
+			try {
+				if (mapping.valueType == ValueType.OBJECT) {
+					Object value = getColumnValue(rs, mapping.index, mapping.property);
+					if (mapping.requiresConversion(value)) {
+						if (tc == null) {
+							tc = createTypeConverter();
+						}
+						value = tc.convertIfNecessary(value, mapping.type, mapping.typeDescriptor);
+					}
+					if (value != null || !mapping.type.isPrimitive()) {
+						mapping.setter.invokeExact(mappedObject, value);
+					}
+					else {
+						handleNullValue(mapping, mappedObject, rowNumber);
+					}
+				}
+				else if (!mapping.setPrimitiveValue(mappedObject, rs)) {
+					handleNullValue(mapping, mappedObject, rowNumber);
+				}
+			}
+			catch (SQLException | RuntimeException | Error ex) {
+				throw ex;
+			}
+			catch (Throwable ex) {
+				throw new DataRetrievalFailureException("Unable to map column " + mapping.index +
+						" to property '" + mapping.property.getName() + "'", ex);
+			}
+		}
+
+		return (T) mappedObject;
+	}
+
+	/**
+	 * Handle a {@code null} value for a primitive property, either leaving
+	 * the property at its default value or throwing a {@link TypeMismatchException}.
+	 * @see #isPrimitivesDefaultedForNullValue()
+	 */
+	private void handleNullValue(PropertyMapping mapping, Object mappedObject, int rowNumber) {
+		PropertyDescriptor pd = mapping.property;
+		TypeMismatchException ex = new TypeMismatchException(
+				new PropertyChangeEvent(mappedObject, pd.getName(), null, null), pd.getPropertyType());
+		if (!isPrimitivesDefaultedForNullValue()) {
+			throw ex;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
+					" and column " + mapping.index + " with null value when setting property '" +
+					pd.getName() + "' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) +
+					"' on object: " + mappedObject, ex);
+		}
+	}
+
+	/**
+	 * Create a {@link TypeConverter} for converting the values of the current row,
+	 * initialized with the configured {@link ConversionService} and custom editors.
+	 * @see #initBeanWrapper
+	 */
+	private TypeConverter createTypeConverter() {
+		BeanWrapperImpl bw = new BeanWrapperImpl();
+		initBeanWrapper(bw);
+		return bw;
+	}
+
+
+	/**
+	 * Obtain the mapping plan for the given result set: the plan used for the
+	 * previous row if still mapping the same result set, otherwise the cached
+	 * or newly compiled plan for its column labels.
+	 */
+	private MappingPlan obtainMappingPlan(ResultSet rs) throws SQLException {
+		ResultSetMappingPlan currentPlan = this.currentPlan;
+		if (currentPlan != null && currentPlan.resultSet.get() == rs) {
+			return currentPlan.plan;
+		}
+
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		String[] columns = new String[columnCount];
+		for (int index = 1; index <= columnCount; index++) {
+			columns[index - 1] = JdbcUtils.lookupColumnName(rsmd, index);
+		}
+		List<String> key = Arrays.asList(columns);
+		MappingPlan plan = this.mappingPlans.get(key);
+		if (plan == null) {
+			plan = compileMappingPlan(rs, columns);
+			this.mappingPlans.put(key, plan);
+		}
+		this.currentPlan = new ResultSetMappingPlan(rs, plan);
+		return plan;
+	}
+
+	/**
+	 * Compile the mapping plan for the given column labels.
+	 * @param rs the result set to compile the plan for
+	 * @param columns the column labels of the result set
+	 */
+	private MappingPlan compileMappingPlan(ResultSet rs, String[] columns) throws SQLException {
+		Class<T> mappedClass = getMappedClass();
+		Constructor<T> mappedConstructor = getMappedConstructor();
+		Assert.state(mappedClass != null && mappedConstructor != null, "Mapped class was not specified");
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		String[] parameterNames = getConstructorParameterNames();
+		TypeDescriptor[] parameterTypes = getConstructorParameterTypes();
+		ColumnMapping[] arguments = new ColumnMapping[parameterNames != null ? parameterNames.length : 0];
+		for (int i = 0; i < arguments.length; i++) {
+			Assert.state(parameterTypes != null, "Constructor parameter types not resolved");
+			String name = parameterNames[i];
+			int index;
+			try {
+				// Try direct name match first
+				index = rs.findColumn(lowerCaseName(name));
+			}
+			catch (SQLException ex) {
+				// Try underscored name match instead
+				index = rs.findColumn(underscoreName(name));
+			}
+			arguments[i] = new ColumnMapping(index, parameterTypes[i]);
+		}
+
+		boolean columnValueCustomized = isColumnValueCustomized();
+		List<PropertyMapping> properties = new ArrayList<>(columns.length);
+		Set<String> populatedProperties = new HashSet<>();
+		for (int index = 1; index <= columns.length; index++) {
+			String column = columns[index - 1];
+			PropertyDescriptor pd = getMappedField(lowerCaseName(StringUtils.delete(column, " ")));
+			if (pd != null) {
+				Method writeMethod = pd.getWriteMethod();
+				Assert.state(writeMethod != null, "No write method for mapped property");
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+							"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
+				}
+				ValueType valueType = (columnValueCustomized ? ValueType.OBJECT : ValueType.of(pd.getPropertyType()));
+				try {
+					ReflectionUtils.makeAccessible(writeMethod);
+					MethodHandle setter = lookup.unreflect(writeMethod).asType(
+							MethodType.methodType(void.class, Object.class, valueType.parameterType));
+					properties.add(new PropertyMapping(index, pd, writeMethod, valueType, setter));
+				}
+				catch (IllegalAccessException ex) {
+					throw new DataRetrievalFailureException(
+							"Unable to map column '" + column + "' to property '" + pd.getName() + "'", ex);
+				}
+				populatedProperties.add(pd.getName());
+			}
+		}
+
+		MethodHandle constructor = null;
+		if (!KotlinDetector.isKotlinReflectPresent() || !KotlinDetector.isKotlinType(mappedClass)) {
+			try {
+				ReflectionUtils.makeAccessible(mappedConstructor);
+				constructor = lookup.unreflectConstructor(mappedConstructor)
+						.asType(MethodType.genericMethodType(arguments.length))
+						.asSpreader(Object[].class, arguments.length);
+			}
+			catch (IllegalAccessException ex) {
+				throw new BeanInstantiationException(mappedConstructor, "Is the constructor accessible?", ex);
+			}
+		}
+
+		return new MappingPlan(mappedConstructor, constructor, arguments,
+				properties.toArray(new PropertyMapping[0]), populatedProperties.equals(getMappedProperties()));
+	}
+
+	/**
+	 * Determine whether {@code getColumnValue} has been overridden, in which
+	 * case it needs to be called for primitive properties as well.
+	 */
+	private boolean isColumnValueCustomized() {
+		Method byProperty = ReflectionUtils.findMethod(
+				getClass(), "getColumnValue", ResultSet.class, int.class, PropertyDescriptor.class);
+		Method byType = ReflectionUtils.findMethod(
+				getClass(), "getColumnValue", ResultSet.class, int.class, Class.class);
+		return (byProperty == null || byProperty.getDeclaringClass() != BeanPropertyRowMapper.class ||
+				byType == null || byType.getDeclaringClass() != BeanPropertyRowMapper.class);
+	}
+
+
+	/**
+	 * Static factory method to create a new {@code PrecompiledRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 * @see #newInstance(Class, ConversionService)
+	 */
+	public static <T> PrecompiledRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new PrecompiledRowMapper<>(mappedClass);
+	}
+
+	/**
+	 * Static factory method to create a new {@code PrecompiledRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 * @param conversionService the {@link ConversionService} for binding
+	 * JDBC values to bean properties, or {@code null} for none
+	 * @see #newInstance(Class)
+	 * @see #setConversionService
+	 */
+	public static <T> PrecompiledRowMapper<T> newInstance(
+			Class<T> mappedClass, @Nullable ConversionService conversionService) {
+
+		PrecompiledRowMapper<T> rowMapper = newInstance(mappedClass);
+		rowMapper.setConversionService(conversionService);
+		return rowMapper;
+	}
+
+
+	/**
+	 * The way a column value is read and applied to its property.
+	 */
+	private enum ValueType {
+
+		BOOLEAN(boolean.class), BYTE(byte.class), SHORT(short.class), INT(int.class),
+		LONG(long.class), FLOAT(float.class), DOUBLE(double.class), OBJECT(Object.class);
+
+		final Class<?> parameterType;
+
+		ValueType(Class<?> parameterType) {
+			this.parameterType = parameterType;
+		}
+
+		static ValueType of(Class<?> propertyType) {
+			if (propertyType.isPrimitive()) {
+				for (ValueType valueType : values()) {
+					if (valueType.parameterType == propertyType) {
+						return valueType;
+					}
+				}
+			}
+			return OBJECT;
+		}
+	}
+
+
+	/**
+	 * Mapping of a column to a target value of a given type.
+	 */
+	private static class ColumnMapping {
+
+		final int index;
+
+		final Class<?> type;
+
+		final TypeDescriptor typeDescriptor;
+
+		/** The value to use for a {@code null} column value: {@code null} or a primitive default. */
+		@Nullable
+		final Object defaultValue;
+
+		private final boolean containerType;
+
+		ColumnMapping(int index, TypeDescriptor typeDescriptor) {
+			this.index = index;
+			this.type = typeDescriptor.getType();
+			this.typeDescriptor = typeDescriptor;
+			this.defaultValue = (this.type.isPrimitive() ? Array.get(Array.newInstance(this.type, 1), 0) : null);
+			this.containerType = (Collection.class.isAssignableFrom(this.type) ||
+					Map.class.isAssignableFrom(this.type));
+		}
+
+		/**
+		 * Determine whether the given value needs to be converted to the target type.
+		 */
+		boolean requiresConversion(@Nullable Object value) {
+			return (value != null && (this.containerType || !ClassUtils.isAssignableValue(this.type, value)));
+		}
+	}
+
+
+	/**
+	 * Mapping of a column to a bean property, applied through a setter handle
+	 * of type {@code (Object, <parameter type>)void}.
+	 */
+	private static class PropertyMapping extends ColumnMapping {
+
+		final PropertyDescriptor property;
+
+		final ValueType valueType;
+
+		final MethodHandle setter;
+
+		PropertyMapping(int index, PropertyDescriptor property, Method writeMethod,
+				ValueType valueType, MethodHandle setter) {
+
+			super(index, new TypeDescriptor(new MethodParameter(writeMethod, 0)));
+			this.property = property;
+			this.valueType = valueType;
+			this.setter = setter;
+		}
+
+		/**
+		 * Read the primitive value of the column and apply it to the property.
+		 * @return {@code false} if the column value is {@code null},
+		 * leaving the property untouched
+		 */
+		boolean setPrimitiveValue(Object target, ResultSet rs) throws Throwable {
+			switch (this.valueType) {
+				case BOOLEAN: {
+					boolean value = rs.getBoolean(this.index);
+					if (rs.wasNull()) {
+						return false;
+					}
+					this.setter.invokeExact(target, value);
+					return true;
+				}
+				case BYTE: {
+					byte value = rs.getByte(this.index);
+					if (rs.wasNull()) {
+						return false;
+					}
+					this.setter.invokeExact(target, value);
+					return true;
+				}
+				case SHORT: {
+					short value = rs.getShort(this.index);
+					if (rs.wasNull()) {
+						return false;
+					}
+					this.setter.invokeExact(target, value);
+					return true;
+				}
+				case INT: {
+					int value = rs.getInt(this.index);
+					if (rs.wasNull()) {
+						return false;
+					}
+					this.setter.invokeExact(target, value);
+					return true;
+				}
+				case LONG: {
+					long value = rs.getLong(this.index);
+					if (rs.wasNull()) {
+						return false;
+					}
+					this.setter.invokeExact(target, value);
+					return true;
+				}
+				case FLOAT: {
+					float value = rs.getFloat(this.index);
+					if (rs.wasNull()) {
+						return false;
+					}
+					this.setter.invokeExact(target, value);
+					return true;
+				}
+				case DOUBLE: {
+					double value = rs.getDouble(this.index);
+					if (rs.wasNull()) {
+						return false;
+					}
+					this.setter.invokeExact(target, value);
+					return true;
+				}
+				default:
+					throw new IllegalStateException("Not a primitive property: " + this.property.getName());
+			}
+		}
+	}
+
+
+	/**
+	 * Mapping plan for a given result set layout.
+	 */
+	private static class MappingPlan {
+
+		private final Constructor<?> mappedConstructor;
+
+		@Nullable
+		private final MethodHandle constructor;
+
+		final ColumnMapping[] arguments;
+
+		final PropertyMapping[] properties;
+
+		final boolean fullyPopulated;
+
+		MappingPlan(Constructor<?> mappedConstructor, @Nullable MethodHandle constructor,
+				ColumnMapping[] arguments, PropertyMapping[] properties, boolean fullyPopulated) {
+
+			this.mappedConstructor = mappedConstructor;
+			this.constructor = constructor;
+			this.arguments = arguments;
+			this.properties = properties;
+			this.fullyPopulated = fullyPopulated;
+		}
+
+		/**
+		 * Instantiate the mapped class with the given constructor arguments.
+		 */
+		Object instantiate(Object[] args) {
+			if (this.constructor == null) {
+				// Kotlin class: let BeanUtils handle optional parameters
+				return BeanUtils.instantiateClass(this.mappedConstructor, args);
+			}
+			try {
+				return (Object) this.constructor.invokeExact(args);
+			}
+			catch (Error err) {
+				throw err;
+			}
+			catch (Throwable ex) {
+				throw new BeanInstantiationException(this.mappedConstructor, "Constructor threw exception", ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Association of a mapping plan with the result set it is currently used for.
+	 */
+	private static class ResultSetMappingPlan {
+
+		final WeakReference<ResultSet> resultSet;
+
+		final MappingPlan plan;
+
+		ResultSetMappingPlan(ResultSet resultSet, MappingPlan plan) {
+			this.resultSet = new WeakReference<>(resultSet);
+			this.plan = plan;
+		}
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -271,6 +272,13 @@ public abstract class NamedParameterUtils {
 		if (paramNames.isEmpty()) {
 			return originalSql;
 		}
+		int[] cardinalities = determineCardinalities(paramNames, paramSource);
+		if (cardinalities != null) {
+			String substitutedSql = parsedSql.getSubstitutedSql(cardinalities);
+			if (substitutedSql != null) {
+				return substitutedSql;
+			}
+		}
 		StringBuilder actualSql = new StringBuilder(originalSql.length());
 		int lastIndex = 0;
 		for (int i = 0; i < paramNames.size(); i++) {
@@ -319,7 +327,49 @@ public abstract class NamedParameterUtils {
 			lastIndex = endIndex;
 		}
 		actualSql.append(originalSql, lastIndex, originalSql.length());
-		return actualSql.toString();
+		String substitutedSql = actualSql.toString();
+		if (cardinalities != null) {
+			parsedSql.setSubstitutedSql(cardinalities, substitutedSql);
+		}
+		return substitutedSql;
+	}
+
+	/**
+	 * Determine the number of placeholders that each parameter occurrence expands to,
+	 * as a key for caching the substituted SQL in the given {@link ParsedSql}.
+	 * @param paramNames the parameter names (including repeated occurrences)
+	 * @param paramSource the source for named parameters
+	 * @return the collection size for each parameter occurrence or -1 for a single
+	 * placeholder, or {@code null} if the substituted SQL should not be cached
+	 * (for values which are not re-iterable or contain expression lists)
+	 */
+	@Nullable
+	private static int[] determineCardinalities(List<String> paramNames, @Nullable SqlParameterSource paramSource) {
+		int[] cardinalities = new int[paramNames.size()];
+		for (int i = 0; i < cardinalities.length; i++) {
+			int cardinality = -1;
+			String paramName = paramNames.get(i);
+			if (paramSource != null && paramSource.hasValue(paramName)) {
+				Object value = paramSource.getValue(paramName);
+				if (value instanceof SqlParameterValue) {
+					value = ((SqlParameterValue) value).getValue();
+				}
+				if (value instanceof Iterable) {
+					if (!(value instanceof Collection)) {
+						return null;
+					}
+					Collection<?> entries = (Collection<?>) value;
+					for (Object entry : entries) {
+						if (entry instanceof Object[]) {
+							return null;
+						}
+					}
+					cardinality = entries.size();
+				}
+			}
+			cardinalities[i] = cardinality;
+		}
+		return cardinalities;
 	}
 
 	/**
@@ -17,7 +17,12 @@
 package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
 
 /**
  * Holds information about a parsed SQL statement.
@@ -28,6 +33,10 @@ import java.util.List;
  */
 public class ParsedSql {
 
+	/** Maximum number of substituted SQL Strings to cache for collection parameters. */
+	private static final int SUBSTITUTED_SQL_CACHE_LIMIT = 64;
+
+
 	private final String originalSql;
 
 	private final List<String> parameterNames = new ArrayList<>();
@@ -40,6 +49,11 @@ public class ParsedSql {
 
 	private int totalParameterCount;
 
+	@Nullable
+	private volatile String scalarSubstitutedSql;
+
+	private final Map<Cardinalities, String> substitutedSqlCache = new ConcurrentHashMap<>(4);
+
 
 	/**
 	 * Create a new instance of the {@link ParsedSql} class.
@@ -133,6 +147,49 @@ public class ParsedSql {
 		return this.totalParameterCount;
 	}
 
+	/**
+	 * Return the cached substituted SQL String for the given parameter cardinalities.
+	 * @param cardinalities the number of elements for each parameter occurrence,
+	 * or -1 for a scalar value
+	 * @return the substituted SQL String, or {@code null} if not cached yet
+	 * @since 5.3.23
+	 * @see NamedParameterUtils#substituteNamedParameters(ParsedSql, SqlParameterSource)
+	 */
+	@Nullable
+	String getSubstitutedSql(int[] cardinalities) {
+		if (isScalar(cardinalities)) {
+			return this.scalarSubstitutedSql;
+		}
+		return this.substitutedSqlCache.get(new Cardinalities(cardinalities));
+	}
+
+	/**
+	 * Cache the substituted SQL String for the given parameter cardinalities.
+	 * <p>The number of cached variants for collection parameters is limited
+	 * in order to not grow indefinitely with arbitrary collection sizes.
+	 * @param cardinalities the number of elements for each parameter occurrence,
+	 * or -1 for a scalar value
+	 * @param substitutedSql the substituted SQL String
+	 * @since 5.3.23
+	 */
+	void setSubstitutedSql(int[] cardinalities, String substitutedSql) {
+		if (isScalar(cardinalities)) {
+			this.scalarSubstitutedSql = substitutedSql;
+		}
+		else if (this.substitutedSqlCache.size() < SUBSTITUTED_SQL_CACHE_LIMIT) {
+			this.substitutedSqlCache.put(new Cardinalities(cardinalities), substitutedSql);
+		}
+	}
+
+	private static boolean isScalar(int[] cardinalities) {
+		for (int cardinality : cardinalities) {
+			if (cardinality >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 
 	/**
 	 * Exposes the original SQL String.
@@ -142,4 +199,28 @@ public class ParsedSql {
 		return this.originalSql;
 	}
 
+
+	/**
+	 * Cache key for substituted SQL: the cardinality of each parameter occurrence.
+	 */
+	private static final class Cardinalities {
+
+		private final int[] values;
+
+		Cardinalities(int[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			return (this == other || (other instanceof Cardinalities &&
+					Arrays.equals(this.values, ((Cardinalities) other).values)));
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(this.values);
+		}
+	}
+
 }
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.reactive;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Exposes the results of JDBC queries as a {@link Flux}, for consumption
+ * by reactive callers such as WebFlux handlers, on top of a {@link JdbcTemplate}.
+ *
+ * <p>Each query runs on a {@link Scheduler} suitable for blocking work,
+ * {@link Schedulers#boundedElastic()} by default, so that the subscribing
+ * thread is never blocked. Rows are read from the underlying {@code ResultSet}
+ * according to downstream demand: {@link java.sql.ResultSet#next()} is only
+ * called for requested rows, pausing the cursor otherwise. The fetch size of
+ * the statement is derived from the initial demand, up to {@link #setMaxFetchSize
+ * a configurable maximum}, unless a fetch size has been set on the JdbcTemplate.
+ *
+ * <p>The statement is executed on subscription. The {@code ResultSet}, the
+ * statement and the connection are released on completion, on error as well
+ * as on cancellation. Cancellation is moved to the scheduler as well, so that
+ * these resources are never released on the cancelling thread.
+ *
+ * <p>Note that queries run outside of any transaction of the subscribing thread,
+ * obtaining a connection from the JdbcTemplate's {@code DataSource} on the
+ * scheduler thread. Some drivers, e.g. PostgreSQL, only apply the fetch size
+ * within a transaction: consider a {@code DataSource} that switches auto-commit
+ * off for such drivers.
+ *
+ * @since 5.3.23
+ * @see JdbcTemplate#queryForStream
+ */
+public class ReactiveQueryTemplate {
+
+	/**
+	 * The default maximum fetch size: {@value}.
+	 */
+	public static final int DEFAULT_MAX_FETCH_SIZE = 1000;
+
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private Scheduler scheduler = Schedulers.boundedElastic();
+
+	private int maxFetchSize = DEFAULT_MAX_FETCH_SIZE;
+
+
+	/**
+	 * Create a new {@code ReactiveQueryTemplate} for the given {@link DataSource}.
+	 * @param dataSource the JDBC DataSource to access
+	 */
+	public ReactiveQueryTemplate(DataSource dataSource) {
+		this(new JdbcTemplate(dataSource));
+	}
+
+	/**
+	 * Create a new {@code ReactiveQueryTemplate} for the given {@link JdbcTemplate}.
+	 * @param jdbcTemplate the JdbcTemplate to execute queries with
+	 */
+	public ReactiveQueryTemplate(JdbcTemplate jdbcTemplate) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+
+	/**
+	 * Return the JdbcTemplate used to execute queries.
+	 */
+	public JdbcTemplate getJdbcTemplate() {
+		return this.jdbcTemplate;
+	}
+
+	/**
+	 * Set the scheduler to execute queries and read their rows on.
+	 * <p>Default is {@link Schedulers#boundedElastic()}, bounding the number
+	 * of concurrently executing queries. Make sure that the {@code DataSource}
+	 * allows for as many concurrent connections as the scheduler has threads.
+	 */
+	public void setScheduler(Scheduler scheduler) {
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Return the scheduler to execute queries and read their rows on.
+	 */
+	public Scheduler getScheduler() {
+		return this.scheduler;
+	}
+
+	/**
+	 * Set the maximum fetch size to derive from the initial demand, also applying
+	 * to unbounded demand. A value of {@code 0} leaves the fetch size up to the driver.
+	 * <p>Default is {@link #DEFAULT_MAX_FETCH_SIZE}. Does not apply if a fetch size
+	 * has been set on the JdbcTemplate.
+	 * @see JdbcTemplate#setFetchSize
+	 */
+	public void setMaxFetchSize(int maxFetchSize) {
+		Assert.isTrue(maxFetchSize >= 0, "Max fetch size must not be negative");
+		this.maxFetchSize = maxFetchSize;
+	}
+
+	/**
+	 * Return the maximum fetch size to derive from the initial demand.
+	 */
+	public int getMaxFetchSize() {
+		return this.maxFetchSize;
+	}
+
+
+	/**
+	 * Query using a prepared statement, mapping each row to a result object
+	 * via a RowMapper, and emitting the results as they are read.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param pss a callback that knows how to set values on the prepared statement
+	 * (may be {@code null})
+	 * @param rowMapper a callback that will map one object per row
+	 * (must not return {@code null})
+	 * @return a {@code Flux} emitting the mapped objects, executing the query
+	 * on subscription
+	 * @see JdbcTemplate#queryForStream(PreparedStatementCreator, PreparedStatementSetter, RowMapper)
+	 */
+	public <T> Flux<T> queryForPublisher(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+			RowMapper<T> rowMapper) {
+
+		Assert.notNull(psc, "PreparedStatementCreator must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		return Flux.defer(() -> {
+			AtomicLong initialDemand = new AtomicLong();
+			return Flux.<T, QueryCursor<T>>generate(
+					() -> new QueryCursor<>(psc, pss, rowMapper, initialDemand),
+					QueryCursor::next, QueryCursor::close)
+					.subscribeOn(this.scheduler)
+					.cancelOn(this.scheduler)
+					.doOnRequest(n -> initialDemand.compareAndSet(0, n));
+		});
+	}
+
+	/**
+	 * Query using a prepared statement, mapping each row to a result object
+	 * via a RowMapper, and emitting the results as they are read.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param rowMapper a callback that will map one object per row
+	 * @return a {@code Flux} emitting the mapped objects, executing the query
+	 * on subscription
+	 */
+	public <T> Flux<T> queryForPublisher(PreparedStatementCreator psc, RowMapper<T> rowMapper) {
+		return queryForPublisher(psc, null, rowMapper);
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a
+	 * PreparedStatementSetter implementation that knows how to bind values
+	 * to the query, mapping each row to a result object via a RowMapper,
+	 * and emitting the results as they are read.
+	 * @param sql the SQL query to execute
+	 * @param pss a callback that knows how to set values on the prepared statement
+	 * (may be {@code null})
+	 * @param rowMapper a callback that will map one object per row
+	 * @return a {@code Flux} emitting the mapped objects, executing the query
+	 * on subscription
+	 */
+	public <T> Flux<T> queryForPublisher(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper) {
+		return queryForPublisher(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, mapping each row to a result object
+	 * via a RowMapper, and emitting the results as they are read.
+	 * @param sql the SQL query to execute
+	 * @param rowMapper a callback that will map one object per row
+	 * @param args arguments to bind to the query
+	 * (leaving it to the PreparedStatement to guess the corresponding SQL type)
+	 * @return a {@code Flux} emitting the mapped objects, executing the query
+	 * on subscription
+	 */
+	public <T> Flux<T> queryForPublisher(String sql, RowMapper<T> rowMapper, @Nullable Object... args) {
+		return queryForPublisher(new SimplePreparedStatementCreator(sql),
+				new ArgumentPreparedStatementSetter(args), rowMapper);
+	}
+
+	/**
+	 * Query given SQL with named parameters, mapping each row to a result
+	 * object via a RowMapper, and emitting the results as they are read.
+	 * @param sql the SQL query to execute, with named parameters
+	 * @param paramSource container of arguments to bind to the query
+	 * @param rowMapper a callback that will map one object per row
+	 * @return a {@code Flux} emitting the mapped objects, executing the query
+	 * on subscription
+	 * @see org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate#queryForStream(String, SqlParameterSource, RowMapper)
+	 */
+	public <T> Flux<T> queryForPublisher(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper) {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
+		List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource);
+		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+		PreparedStatementCreatorFactory pscf = new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
+		return queryForPublisher(pscf.newPreparedStatementCreator(params), rowMapper);
+	}
+
+	/**
+	 * Query given SQL with named parameters, mapping each row to a result
+	 * object via a RowMapper, and emitting the results as they are read.
+	 * @param sql the SQL query to execute, with named parameters
+	 * @param paramMap map of parameters to bind to the query
+	 * @param rowMapper a callback that will map one object per row
+	 * @return a {@code Flux} emitting the mapped objects, executing the query
+	 * on subscription
+	 */
+	public <T> Flux<T> queryForPublisher(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper) {
+		return queryForPublisher(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
+
+	/**
+	 * Determine the fetch size to apply for the given initial demand.
+	 */
+	private int determineFetchSize(long demand) {
+		if (this.maxFetchSize == 0 || demand <= 0) {
+			return 0;
+		}
+		return (int) Math.min(demand, this.maxFetchSize);
+	}
+
+
+	/**
+	 * Cursor over the rows of a query, opened on the first emission on the
+	 * scheduler thread and read according to demand.
+	 */
+	private class QueryCursor<T> {
+
+		private final PreparedStatementCreator psc;
+
+		@Nullable
+		private final PreparedStatementSetter pss;
+
+		private final RowMapper<T> rowMapper;
+
+		private final AtomicLong initialDemand;
+
+		@Nullable
+		private Stream<T> stream;
+
+		@Nullable
+		private Iterator<T> iterator;
+
+		QueryCursor(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+				RowMapper<T> rowMapper, AtomicLong initialDemand) {
+
+			this.psc = psc;
+			this.pss = pss;
+			this.rowMapper = rowMapper;
+			this.initialDemand = initialDemand;
+		}
+
+		QueryCursor<T> next(SynchronousSink<T> sink) {
+			Iterator<T> iterator = this.iterator;
+			if (iterator == null) {
+				int fetchSize = determineFetchSize(this.initialDemand.get());
+				PreparedStatementCreator pscToUse = (fetchSize > 0 ?
+						new FetchSizePreparedStatementCreator(this.psc, fetchSize) : this.psc);
+				this.stream = getJdbcTemplate().queryForStream(pscToUse, this.pss, this.rowMapper);
+				iterator = this.stream.iterator();
+				this.iterator = iterator;
+			}
+			if (iterator.hasNext()) {
+				T row = iterator.next();
+				if (row == null) {
+					sink.error(new IllegalStateException("RowMapper returned null: not supported for a Flux"));
+				}
+				else {
+					sink.next(row);
+				}
+			}
+			else {
+				sink.complete();
+			}
+			return this;
+		}
+
+		void close() {
+			if (this.stream != null) {
+				this.stream.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Simple adapter for PreparedStatementCreator, allowing to use a plain SQL statement.
+	 */
+	private static class SimplePreparedStatementCreator implements PreparedStatementCreator, SqlProvider {
+
+		private final String sql;
+
+		public SimplePreparedStatementCreator(String sql) {
+			Assert.notNull(sql, "SQL must not be null");
+			this.sql = sql;
+		}
+
+		@Override
+		public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+			return con.prepareStatement(this.sql);
+		}
+
+		@Override
+		public String getSql() {
+			return this.sql;
+		}
+	}
+
+
+	/**
+	 * Decorator for a PreparedStatementCreator, applying a fetch size
+	 * to the created statement.
+	 */
+	private static class FetchSizePreparedStatementCreator implements PreparedStatementCreator, SqlProvider {
+
+		private final PreparedStatementCreator target;
+
+		private final int fetchSize;
+
+		public FetchSizePreparedStatementCreator(PreparedStatementCreator target, int fetchSize) {
+			this.target = target;
+			this.fetchSize = fetchSize;
+		}
+
+		@Override
+		public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+			PreparedStatement ps = this.target.createPreparedStatement(con);
+			ps.setFetchSize(this.fetchSize);
+			return ps;
+		}
+
+		@Override
+		@Nullable
+		public String getSql() {
+			return (this.target instanceof SqlProvider ? ((SqlProvider) this.target).getSql() : null);
+		}
+	}
+
+}
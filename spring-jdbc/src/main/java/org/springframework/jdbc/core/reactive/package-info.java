@@ -0,0 +1,11 @@
+/**
+ * Support for exposing JDBC query results as Reactive Streams
+ * {@code Publisher}s, based on {@code org.springframework.jdbc.core}.
+ * Requires Project Reactor.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.jdbc.core.reactive;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
@@ -0,0 +1,535 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterDisposer;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * Helper for executing large JDBC batch updates in parallel: the batch
+ * arguments are consumed from an {@link Iterator} or {@link Stream} and
+ * split into batches, which are distributed across a number of partitions,
+ * each executing its batches on its own connection on a separate thread.
+ *
+ * <p>Each partition runs in its own transaction, through a
+ * {@link DataSourceTransactionManager} for the {@link JdbcTemplate}'s
+ * {@code DataSource} unless a specific {@link PlatformTransactionManager}
+ * has been set. If a batch fails, the corresponding partition is rolled back,
+ * and all other partitions that have not completed yet stop and roll back as
+ * well. Note that partitions which have completed already are not rolled back:
+ * in case of failure, the target table may therefore have been partially
+ * updated, and the operation should be designed to be repeatable.
+ *
+ * <p>Batch arguments are read on the calling thread, with at most twice as
+ * many batches as there are partitions being held in memory at any time.
+ * The partitions run independently of any transaction on the calling thread.
+ *
+ * @since 5.3.23
+ * @see JdbcTemplate#batchUpdate(String, java.util.Collection, int, ParameterizedPreparedStatementSetter)
+ */
+public class ParallelBatchUpdater {
+
+	/**
+	 * The default number of partitions: {@value}.
+	 */
+	public static final int DEFAULT_CONCURRENCY = 4;
+
+	/**
+	 * The default number of batch arguments per batch: {@value}.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+
+	/** Logger available to subclasses. */
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private int concurrency = DEFAULT_CONCURRENCY;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private Executor taskExecutor = new SimpleAsyncTaskExecutor("batch-update-");
+
+	private TransactionTemplate transactionTemplate;
+
+
+	/**
+	 * Create a new {@code ParallelBatchUpdater} for the given {@link DataSource}.
+	 * @param dataSource the JDBC DataSource to obtain connections from
+	 */
+	public ParallelBatchUpdater(DataSource dataSource) {
+		this(new JdbcTemplate(dataSource));
+	}
+
+	/**
+	 * Create a new {@code ParallelBatchUpdater} for the given {@link JdbcTemplate}.
+	 * @param jdbcTemplate the JdbcTemplate to execute the batches with
+	 */
+	public ParallelBatchUpdater(JdbcTemplate jdbcTemplate) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		Assert.notNull(jdbcTemplate.getDataSource(), "JdbcTemplate must have a DataSource");
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(
+				new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+	}
+
+
+	/**
+	 * Return the JdbcTemplate used to execute the batches.
+	 */
+	public JdbcTemplate getJdbcTemplate() {
+		return this.jdbcTemplate;
+	}
+
+	/**
+	 * Set the number of partitions to execute batches in parallel,
+	 * each using its own connection and thread.
+	 * <p>Default is {@link #DEFAULT_CONCURRENCY}. Make sure that the
+	 * {@code DataSource} allows for that many concurrent connections.
+	 */
+	public void setConcurrency(int concurrency) {
+		Assert.isTrue(concurrency > 0, "Concurrency must be positive");
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Return the number of partitions to execute batches in parallel.
+	 */
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+
+	/**
+	 * Set the number of batch arguments to send to the database per batch.
+	 * <p>Default is {@link #DEFAULT_BATCH_SIZE}.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be positive");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Return the number of batch arguments to send to the database per batch.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Set the executor to run the partitions on.
+	 * <p>Default is a {@link SimpleAsyncTaskExecutor}, starting a new thread
+	 * per partition. A specified executor needs to be able to run as many
+	 * tasks concurrently as configured through {@link #setConcurrency}.
+	 */
+	public void setTaskExecutor(Executor taskExecutor) {
+		Assert.notNull(taskExecutor, "Executor must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Set the transaction manager to execute each partition in a transaction with.
+	 * <p>Default is a {@link DataSourceTransactionManager} for the JdbcTemplate's
+	 * {@code DataSource}. A specified transaction manager needs to manage
+	 * transactions for that same {@code DataSource}.
+	 */
+	public void setTransactionManager(PlatformTransactionManager transactionManager) {
+		Assert.notNull(transactionManager, "PlatformTransactionManager must not be null");
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+
+	/**
+	 * Execute the given SQL statement in batches, in parallel, using the
+	 * batch arguments from the supplied {@link Stream}.
+	 * @param sql the SQL statement to execute
+	 * @param batchArgs the stream of objects containing the batch arguments
+	 * @param pss the {@link ParameterizedPreparedStatementSetter} to use
+	 * @return an array containing an array of the number of rows affected by
+	 * each update statement, for each batch in the order of the batch arguments
+	 * @throws org.springframework.dao.DataAccessException if there is any problem
+	 * issuing the update
+	 * @see #batchUpdate(String, Iterator, ParameterizedPreparedStatementSetter)
+	 */
+	public <T> int[][] batchUpdate(String sql, Stream<T> batchArgs, ParameterizedPreparedStatementSetter<T> pss) {
+		return batchUpdate(sql, batchArgs.iterator(), pss);
+	}
+
+	/**
+	 * Execute the given SQL statement in batches, in parallel, using the
+	 * batch arguments from the supplied {@link Iterator}.
+	 * <p>The iterator is consumed on the calling thread, as the partitions
+	 * are ready to accept further batches.
+	 * @param sql the SQL statement to execute
+	 * @param batchArgs the iterator over the objects containing the batch arguments
+	 * @param pss the {@link ParameterizedPreparedStatementSetter} to use
+	 * @return an array containing an array of the number of rows affected by
+	 * each update statement, for each batch in the order of the batch arguments
+	 * @throws org.springframework.dao.DataAccessException if there is any problem
+	 * issuing the update
+	 */
+	public <T> int[][] batchUpdate(String sql, Iterator<T> batchArgs, ParameterizedPreparedStatementSetter<T> pss) {
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.notNull(batchArgs, "Batch arguments must not be null");
+		Assert.notNull(pss, "ParameterizedPreparedStatementSetter must not be null");
+		if (!batchArgs.hasNext()) {
+			return new int[0][];
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing SQL batch update [" + sql + "] with a batch size of " + this.batchSize +
+					" across " + this.concurrency + " partitions");
+		}
+
+		try {
+			BatchExecution<T> execution = new BatchExecution<>(sql, pss);
+			execution.start();
+			int batchCount = execution.produce(batchArgs);
+			execution.await();
+			return execution.getResult(batchCount);
+		}
+		finally {
+			if (pss instanceof ParameterDisposer) {
+				((ParameterDisposer) pss).cleanupParameters();
+			}
+		}
+	}
+
+	/**
+	 * Execute the given SQL statement with named parameters in batches,
+	 * in parallel, using the batch arguments from the supplied {@link Stream}.
+	 * @param sql the SQL statement to execute, with named parameters
+	 * @param batchArgs the stream of {@link SqlParameterSource} containing
+	 * the batch arguments
+	 * @return an array containing an array of the number of rows affected by
+	 * each update statement, for each batch in the order of the batch arguments
+	 * @throws org.springframework.dao.DataAccessException if there is any problem
+	 * issuing the update
+	 * @see #batchUpdate(String, Iterator)
+	 */
+	public int[][] batchUpdate(String sql, Stream<? extends SqlParameterSource> batchArgs) {
+		return batchUpdate(sql, batchArgs.iterator());
+	}
+
+	/**
+	 * Execute the given SQL statement with named parameters in batches,
+	 * in parallel, using the batch arguments from the supplied {@link Iterator}.
+	 * <p>As with {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate#batchUpdate},
+	 * the first batch argument determines the SQL statement to execute,
+	 * e.g. the number of placeholders for a collection value.
+	 * @param sql the SQL statement to execute, with named parameters
+	 * @param batchArgs the iterator over the {@link SqlParameterSource} containing
+	 * the batch arguments
+	 * @return an array containing an array of the number of rows affected by
+	 * each update statement, for each batch in the order of the batch arguments
+	 * @throws org.springframework.dao.DataAccessException if there is any problem
+	 * issuing the update
+	 */
+	public int[][] batchUpdate(String sql, Iterator<? extends SqlParameterSource> batchArgs) {
+		Assert.notNull(batchArgs, "Batch arguments must not be null");
+		if (!batchArgs.hasNext()) {
+			return new int[0][];
+		}
+
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		SqlParameterSource first = batchArgs.next();
+		PreparedStatementCreatorFactory pscf = new PreparedStatementCreatorFactory(
+				NamedParameterUtils.substituteNamedParameters(parsedSql, first),
+				NamedParameterUtils.buildSqlParameterList(parsedSql, first));
+
+		Iterator<SqlParameterSource> allBatchArgs = new Iterator<SqlParameterSource>() {
+			@Nullable
+			private SqlParameterSource next = first;
+			@Override
+			public boolean hasNext() {
+				return (this.next != null || batchArgs.hasNext());
+			}
+			@Override
+			public SqlParameterSource next() {
+				SqlParameterSource current = this.next;
+				if (current != null) {
+					this.next = null;
+					return current;
+				}
+				return batchArgs.next();
+			}
+		};
+		return batchUpdate(pscf.getSql(), allBatchArgs, (ps, paramSource) -> {
+			Object[] values = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+			pscf.newPreparedStatementSetter(values).setValues(ps);
+		});
+	}
+
+
+	/**
+	 * A batch of arguments, with its index in the overall sequence of batches.
+	 */
+	private static final class Batch<T> {
+
+		static final Batch<?> END = new Batch<>(-1, Collections.emptyList());
+
+		final int index;
+
+		final List<T> items;
+
+		Batch(int index, List<T> items) {
+			this.index = index;
+			this.items = items;
+		}
+	}
+
+
+	/**
+	 * The state of a single parallel batch update: a bounded queue of batches
+	 * consumed by the partitions, the results per batch and the first failure.
+	 */
+	private class BatchExecution<T> {
+
+		private final String sql;
+
+		private final ParameterizedPreparedStatementSetter<T> pss;
+
+		private final BlockingQueue<Batch<?>> queue =
+				new ArrayBlockingQueue<>(ParallelBatchUpdater.this.concurrency * 2);
+
+		private final Map<Integer, int[]> results = new ConcurrentHashMap<>();
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		private final CountDownLatch completion = new CountDownLatch(ParallelBatchUpdater.this.concurrency);
+
+		BatchExecution(String sql, ParameterizedPreparedStatementSetter<T> pss) {
+			this.sql = sql;
+			this.pss = pss;
+		}
+
+		/**
+		 * Start the partitions on the executor.
+		 */
+		void start() {
+			for (int i = 0; i < ParallelBatchUpdater.this.concurrency; i++) {
+				try {
+					ParallelBatchUpdater.this.taskExecutor.execute(this::runPartition);
+				}
+				catch (RuntimeException ex) {
+					fail(ex);
+					for (int j = i; j < ParallelBatchUpdater.this.concurrency; j++) {
+						this.completion.countDown();
+					}
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Read the batch arguments into batches and hand them to the partitions.
+		 * @return the number of batches
+		 */
+		int produce(Iterator<T> batchArgs) {
+			int batchSize = ParallelBatchUpdater.this.batchSize;
+			int batchCount = 0;
+			try {
+				while (batchArgs.hasNext() && this.failure.get() == null) {
+					List<T> items = new ArrayList<>(batchSize);
+					while (items.size() < batchSize && batchArgs.hasNext()) {
+						items.add(batchArgs.next());
+					}
+					if (!offer(new Batch<>(batchCount, items))) {
+						break;
+					}
+					batchCount++;
+				}
+				for (int i = 0; i < ParallelBatchUpdater.this.concurrency; i++) {
+					if (!offer(Batch.END)) {
+						break;
+					}
+				}
+			}
+			catch (RuntimeException | Error ex) {
+				fail(ex);
+			}
+			return batchCount;
+		}
+
+		/**
+		 * Wait for all partitions to complete.
+		 */
+		void await() {
+			try {
+				this.completion.await();
+			}
+			catch (InterruptedException ex) {
+				fail(ex);
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Return the results per batch, or rethrow the first failure.
+		 */
+		int[][] getResult(int batchCount) {
+			Throwable ex = this.failure.get();
+			if (ex instanceof RuntimeException) {
+				throw (RuntimeException) ex;
+			}
+			else if (ex instanceof Error) {
+				throw (Error) ex;
+			}
+			else if (ex instanceof InterruptedException) {
+				throw new IllegalStateException("Interrupted while waiting for batch update partitions", ex);
+			}
+			else if (ex != null) {
+				throw new IllegalStateException("Batch update partition failed", ex);
+			}
+			int[][] result = new int[batchCount][];
+			for (int i = 0; i < batchCount; i++) {
+				result[i] = this.results.get(i);
+			}
+			return result;
+		}
+
+		private void runPartition() {
+			try {
+				ParallelBatchUpdater.this.transactionTemplate.executeWithoutResult(status -> {
+					getJdbcTemplate().execute(this.sql, (PreparedStatementCallback<Void>) ps -> {
+						boolean batchSupported = JdbcUtils.supportsBatchUpdates(ps.getConnection());
+						Batch<T> batch;
+						while ((batch = take()) != null) {
+							if (logger.isTraceEnabled()) {
+								logger.trace("Sending SQL batch update #" + (batch.index + 1) + " with " +
+										batch.items.size() + " items");
+							}
+							this.results.put(batch.index, executeBatch(ps, batch.items, batchSupported));
+						}
+						return null;
+					});
+					if (this.failure.get() != null) {
+						// Another partition failed: do not commit
+						status.setRollbackOnly();
+					}
+				});
+			}
+			catch (Throwable ex) {
+				fail(ex);
+			}
+			finally {
+				this.completion.countDown();
+			}
+		}
+
+		private int[] executeBatch(PreparedStatement ps, List<T> items, boolean batchSupported)
+				throws SQLException {
+
+			if (batchSupported) {
+				for (T item : items) {
+					this.pss.setValues(ps, item);
+					ps.addBatch();
+				}
+				return ps.executeBatch();
+			}
+			int[] rowsAffected = new int[items.size()];
+			for (int i = 0; i < rowsAffected.length; i++) {
+				this.pss.setValues(ps, items.get(i));
+				rowsAffected[i] = ps.executeUpdate();
+			}
+			return rowsAffected;
+		}
+
+		/**
+		 * Hand the given batch to the partitions, waiting for space in the queue.
+		 * @return {@code false} if the execution has failed in the meantime
+		 */
+		private boolean offer(Batch<?> batch) {
+			try {
+				while (this.failure.get() == null) {
+					if (this.queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+						return true;
+					}
+				}
+			}
+			catch (InterruptedException ex) {
+				fail(ex);
+				Thread.currentThread().interrupt();
+			}
+			return false;
+		}
+
+		/**
+		 * Take the next batch to execute, waiting for it to become available.
+		 * @return the batch, or {@code null} if there are no further batches
+		 * or if the execution has failed
+		 */
+		@Nullable
+		@SuppressWarnings("unchecked")
+		private Batch<T> take() {
+			try {
+				while (this.failure.get() == null) {
+					Batch<?> batch = this.queue.poll(100, TimeUnit.MILLISECONDS);
+					if (batch == Batch.END) {
+						return null;
+					}
+					if (batch != null) {
+						return (Batch<T>) batch;
+					}
+				}
+			}
+			catch (InterruptedException ex) {
+				fail(ex);
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		}
+
+		private void fail(Throwable ex) {
+			this.failure.compareAndSet(null, ex);
+		}
+	}
+
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Proxy for a target DataSource, caching {@link PreparedStatement} and
+ * {@link CallableStatement} instances per JDBC Connection. Statements are keyed
+ * by their SQL String and creation arguments (result set type, concurrency,
+ * holdability, generated keys), with the least recently used Statement being
+ * closed once the cache exceeds its {@link #setCacheSize size limit}.
+ *
+ * <p>Useful for JDBC drivers and connection pools which do not cache Statements
+ * themselves: {@link org.springframework.jdbc.core.JdbcTemplate} prepares a new
+ * Statement for every operation, which typically implies a round trip to the
+ * database for parsing the SQL. With this proxy in place, a {@code close()} call
+ * on a Statement handle merely resets the Statement (clearing its parameters,
+ * pending batch and warnings, closing remaining ResultSets and restoring
+ * modified fetch size, max rows, query timeout, max field size and fetch
+ * direction settings) and returns it to the cache for the next
+ * {@code prepareStatement} call with the same SQL on the same Connection.
+ *
+ * <p>Cached Statements are physically closed along with their Connection. It is
+ * therefore most effective to define this proxy as the DataSource that a
+ * connection pool draws its physical Connections from, letting the cache live
+ * as long as each physical Connection. When wrapping a connection pool instead,
+ * the cache only spans a single Connection checkout (e.g. a transaction).
+ *
+ * <p>If a Statement for the same key is requested while the cached one is still
+ * in use, a new uncached Statement will be created for the time being.
+ *
+ * <p><b>NOTE:</b> This DataSource proxy needs to return wrapped Connections (which
+ * implement the {@link ConnectionProxy} interface) and wrapped Statements. Use
+ * {@link Connection#unwrap} to retrieve the native JDBC Connection or Statement.
+ *
+ * @since 5.3.23
+ * @see #setCacheSize
+ * @see LazyConnectionDataSourceProxy
+ */
+public class StatementCachingDataSource extends DelegatingDataSource {
+
+	/**
+	 * The default number of Statements to cache per Connection: 64.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 64;
+
+
+	private int cacheSize = DEFAULT_CACHE_SIZE;
+
+
+	/**
+	 * Create a new StatementCachingDataSource.
+	 * @see #setTargetDataSource
+	 */
+	public StatementCachingDataSource() {
+	}
+
+	/**
+	 * Create a new StatementCachingDataSource.
+	 * @param targetDataSource the target DataSource
+	 */
+	public StatementCachingDataSource(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+
+	/**
+	 * Specify the maximum number of Statements to cache per Connection.
+	 * <p>Default is {@link #DEFAULT_CACHE_SIZE}. Once exceeded, the least
+	 * recently used Statement will be closed.
+	 */
+	public void setCacheSize(int cacheSize) {
+		Assert.isTrue(cacheSize > 0, "Cache size must be greater than 0");
+		this.cacheSize = cacheSize;
+	}
+
+	/**
+	 * Return the maximum number of Statements to cache per Connection.
+	 */
+	public int getCacheSize() {
+		return this.cacheSize;
+	}
+
+
+	/**
+	 * Return a statement-caching Connection proxy for a target Connection.
+	 * <p>The returned Connection handle implements the ConnectionProxy interface,
+	 * allowing to retrieve the underlying target Connection.
+	 * @see ConnectionProxy#getTargetConnection
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		return getStatementCachingConnectionProxy(obtainTargetDataSource().getConnection());
+	}
+
+	/**
+	 * Return a statement-caching Connection proxy for a target Connection.
+	 * @see #getConnection()
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return getStatementCachingConnectionProxy(obtainTargetDataSource().getConnection(username, password));
+	}
+
+	/**
+	 * Wrap the given Connection with a proxy that caches the Statements
+	 * prepared on it until the Connection gets closed.
+	 * @param target the original Connection to wrap
+	 * @return the wrapped Connection
+	 */
+	protected Connection getStatementCachingConnectionProxy(Connection target) {
+		return (Connection) Proxy.newProxyInstance(
+				ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] {ConnectionProxy.class},
+				new StatementCachingInvocationHandler(target, this.cacheSize));
+	}
+
+
+	/**
+	 * Invocation handler that caches PreparedStatements and CallableStatements
+	 * per target Connection.
+	 */
+	private static class StatementCachingInvocationHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		private final Map<StatementKey, CachedStatement> statementCache;
+
+		private boolean closed = false;
+
+		public StatementCachingInvocationHandler(Connection target, int cacheSize) {
+			this.target = target;
+			this.statementCache = new LinkedHashMap<StatementKey, CachedStatement>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+					if (size() > cacheSize) {
+						eldest.getValue().evict();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on ConnectionProxy interface coming in...
+
+			switch (method.getName()) {
+				case "equals":
+					// Only consider equal when proxies are identical.
+					return (proxy == args[0]);
+				case "hashCode":
+					// Use hashCode of Connection proxy.
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Statement-caching proxy for target Connection [" + this.target + "]";
+				case "getTargetConnection":
+					// Handle getTargetConnection method: return underlying Connection.
+					return this.target;
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+				case "prepareStatement":
+				case "prepareCall":
+					if (!this.closed) {
+						return getStatement((Connection) proxy, method, args);
+					}
+					break;
+				case "close":
+				case "abort":
+					closeCachedStatements();
+					break;
+			}
+
+			// Invoke method on target Connection.
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		private synchronized Object getStatement(Connection connectionProxy, Method method, Object[] args)
+				throws Throwable {
+
+			StatementKey key = new StatementKey(method.getName(), args);
+			CachedStatement cachedStatement = this.statementCache.get(key);
+			if (cachedStatement != null) {
+				if (cachedStatement.isInUse()) {
+					// Concurrent use of the same SQL: hand out an uncached Statement.
+					return invokeTarget(method, args);
+				}
+				return cachedStatement.checkout();
+			}
+			PreparedStatement statement = (PreparedStatement) invokeTarget(method, args);
+			cachedStatement = new CachedStatement(this, key, statement, connectionProxy,
+					(method.getName().equals("prepareCall") ? CallableStatement.class : PreparedStatement.class));
+			this.statementCache.put(key, cachedStatement);
+			return cachedStatement.checkout();
+		}
+
+		private Object invokeTarget(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		synchronized void discard(CachedStatement cachedStatement) {
+			this.statementCache.remove(cachedStatement.key, cachedStatement);
+		}
+
+		private synchronized void closeCachedStatements() {
+			this.closed = true;
+			for (CachedStatement cachedStatement : this.statementCache.values()) {
+				cachedStatement.evict();
+			}
+			this.statementCache.clear();
+		}
+	}
+
+
+	/**
+	 * Cache key for a Statement: the creation method name and its arguments.
+	 */
+	private static final class StatementKey {
+
+		private final String methodName;
+
+		private final Object[] args;
+
+		private final int hashCode;
+
+		public StatementKey(String methodName, Object[] args) {
+			this.methodName = methodName;
+			this.args = args;
+			this.hashCode = methodName.hashCode() * 29 + Arrays.deepHashCode(args);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof StatementKey)) {
+				return false;
+			}
+			StatementKey otherKey = (StatementKey) other;
+			return (this.methodName.equals(otherKey.methodName) && Arrays.deepEquals(this.args, otherKey.args));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+
+	/**
+	 * A cached target Statement, handing out proxies which reset
+	 * the Statement on {@code close()} instead of closing it.
+	 */
+	private static class CachedStatement implements InvocationHandler {
+
+		private final StatementCachingInvocationHandler owner;
+
+		private final StatementKey key;
+
+		private final PreparedStatement target;
+
+		private final Connection connectionProxy;
+
+		private final PreparedStatement proxy;
+
+		private final int defaultFetchSize;
+
+		private final int defaultMaxRows;
+
+		private final int defaultQueryTimeout;
+
+		private final int defaultMaxFieldSize;
+
+		private final int defaultFetchDirection;
+
+		private final List<ResultSet> resultSets = new ArrayList<>(1);
+
+		private boolean inUse = false;
+
+		private boolean evicted = false;
+
+		private boolean batched = false;
+
+		private boolean modified = false;
+
+		private boolean reusable = true;
+
+		public CachedStatement(StatementCachingInvocationHandler owner, StatementKey key,
+				PreparedStatement target, Connection connectionProxy, Class<?> statementType) throws SQLException {
+
+			this.owner = owner;
+			this.key = key;
+			this.target = target;
+			this.connectionProxy = connectionProxy;
+			this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+					statementType.getClassLoader(), new Class<?>[] {statementType}, this);
+			this.defaultFetchSize = target.getFetchSize();
+			this.defaultMaxRows = target.getMaxRows();
+			this.defaultQueryTimeout = target.getQueryTimeout();
+			this.defaultMaxFieldSize = target.getMaxFieldSize();
+			this.defaultFetchDirection = target.getFetchDirection();
+		}
+
+		public boolean isInUse() {
+			return this.inUse;
+		}
+
+		public PreparedStatement checkout() {
+			this.inUse = true;
+			return this.proxy;
+		}
+
+		public void evict() {
+			this.evicted = true;
+			if (!this.inUse) {
+				JdbcUtils.closeStatement(this.target);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on PreparedStatement/CallableStatement interface coming in...
+
+			switch (method.getName()) {
+				case "equals":
+					// Only consider equal when proxies are identical.
+					return (proxy == args[0]);
+				case "hashCode":
+					// Use hashCode of Statement proxy.
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Cached proxy for target Statement [" + this.target + "]";
+				case "close":
+					synchronized (this.owner) {
+						if (this.inUse) {
+							release();
+						}
+					}
+					return null;
+				case "isClosed":
+					return (!this.inUse || this.target.isClosed());
+				case "getConnection":
+					return this.connectionProxy;
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+			}
+
+			if (!this.inUse) {
+				throw new SQLException("Statement handle already closed");
+			}
+
+			switch (method.getName()) {
+				case "addBatch":
+					this.batched = true;
+					break;
+				case "executeBatch":
+				case "executeLargeBatch":
+				case "clearBatch":
+					this.batched = false;
+					break;
+				case "setFetchSize":
+				case "setMaxRows":
+				case "setLargeMaxRows":
+				case "setQueryTimeout":
+				case "setMaxFieldSize":
+				case "setFetchDirection":
+					this.modified = true;
+					break;
+				case "setCursorName":
+				case "setEscapeProcessing":
+				case "setPoolable":
+				case "closeOnCompletion":
+					// Settings that we cannot reliably reset: do not reuse the Statement.
+					this.reusable = false;
+					break;
+			}
+
+			// Invoke method on target Statement.
+			try {
+				Object retVal = method.invoke(this.target, args);
+				if (retVal instanceof ResultSet) {
+					this.resultSets.add((ResultSet) retVal);
+				}
+				return retVal;
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		private void release() throws SQLException {
+			this.inUse = false;
+			for (ResultSet resultSet : this.resultSets) {
+				JdbcUtils.closeResultSet(resultSet);
+			}
+			this.resultSets.clear();
+			if (this.evicted || !this.reusable) {
+				discard();
+				return;
+			}
+			try {
+				this.target.clearParameters();
+				if (this.batched) {
+					this.target.clearBatch();
+					this.batched = false;
+				}
+				this.target.clearWarnings();
+				if (this.modified) {
+					this.target.setFetchSize(this.defaultFetchSize);
+					this.target.setMaxRows(this.defaultMaxRows);
+					this.target.setQueryTimeout(this.defaultQueryTimeout);
+					this.target.setMaxFieldSize(this.defaultMaxFieldSize);
+					this.target.setFetchDirection(this.defaultFetchDirection);
+					this.modified = false;
+				}
+			}
+			catch (SQLException | RuntimeException ex) {
+				discard();
+				throw ex;
+			}
+		}
+
+		private void discard() {
+			this.owner.discard(this);
+			this.evicted = true;
+			JdbcUtils.closeStatement(this.target);
+		}
+	}
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.test.ConcretePerson;
+import org.springframework.jdbc.core.test.ConstructorPerson;
+import org.springframework.jdbc.core.test.ConstructorPersonWithGenerics;
+import org.springframework.jdbc.core.test.ConstructorPersonWithSetters;
+import org.springframework.jdbc.core.test.DatePerson;
+import org.springframework.jdbc.core.test.ExtendedPerson;
+import org.springframework.jdbc.core.test.Person;
+import org.springframework.jdbc.core.test.SpacePerson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link PrecompiledRowMapper}.
+ */
+class PrecompiledRowMapperTests extends AbstractRowMapperTests {
+
+	@Test
+	void staticQueryWithRowMapper() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new PrecompiledRowMapper<>(Person.class));
+		assertThat(result).hasSize(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void mappingWithInheritance() throws Exception {
+		Mock mock = new Mock();
+		List<ConcretePerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new PrecompiledRowMapper<>(ConcretePerson.class));
+		assertThat(result).hasSize(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void mappingWithUnpopulatedFieldsNotAccepted() throws Exception {
+		Mock mock = new Mock();
+		PrecompiledRowMapper<ExtendedPerson> mapper = new PrecompiledRowMapper<>(ExtendedPerson.class);
+		mapper.setCheckFullyPopulated(true);
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, age, birth_date, balance from people", mapper));
+	}
+
+	@Test
+	void mappingNullValue() throws Exception {
+		PrecompiledRowMapper<Person> mapper = new PrecompiledRowMapper<>(Person.class);
+		Mock mock = new Mock(MockType.TWO);
+		assertThatExceptionOfType(TypeMismatchException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, null as age, birth_date, balance from people", mapper));
+	}
+
+	@Test
+	void mappingNullValueWithPrimitivesDefaulted() throws Exception {
+		PrecompiledRowMapper<Person> mapper = new PrecompiledRowMapper<>(Person.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		Mock mock = new Mock(MockType.TWO);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertThat(result).hasSize(1);
+		assertThat(result.get(0).getAge()).isEqualTo(0L);
+	}
+
+	@Test
+	void queryWithSpaceInColumnNameAndLocalDateTime() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<SpacePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new PrecompiledRowMapper<>(SpacePerson.class));
+		assertThat(result).hasSize(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void queryWithSpaceInColumnNameAndLocalDate() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<DatePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new PrecompiledRowMapper<>(DatePerson.class));
+		assertThat(result).hasSize(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void staticQueryWithDataClass() throws Exception {
+		Mock mock = new Mock();
+		List<ConstructorPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new PrecompiledRowMapper<>(ConstructorPerson.class));
+		assertThat(result).hasSize(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void staticQueryWithDataClassAndGenerics() throws Exception {
+		Mock mock = new Mock();
+		List<ConstructorPersonWithGenerics> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new PrecompiledRowMapper<>(ConstructorPersonWithGenerics.class));
+		assertThat(result).hasSize(1);
+		ConstructorPersonWithGenerics person = result.get(0);
+		assertThat(person.name()).isEqualTo("Bubba");
+		assertThat(person.age()).isEqualTo(22L);
+		assertThat(person.birthDate()).usingComparator(Date::compareTo).isEqualTo(new java.util.Date(1221222L));
+		assertThat(person.balance()).isEqualTo(Collections.singletonList(new BigDecimal("1234.56")));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void staticQueryWithDataClassAndSetters() throws Exception {
+		Mock mock = new Mock(MockType.FOUR);
+		List<ConstructorPersonWithSetters> result = mock.getJdbcTemplate().query(
+				"select name, age, birthdate, balance from people",
+				new PrecompiledRowMapper<>(ConstructorPersonWithSetters.class));
+		assertThat(result).hasSize(1);
+		ConstructorPersonWithSetters person = result.get(0);
+		assertThat(person.name()).isEqualTo("BUBBA");
+		assertThat(person.age()).isEqualTo(22L);
+		assertThat(person.birthDate()).usingComparator(Date::compareTo).isEqualTo(new java.util.Date(1221222L));
+		assertThat(person.balance()).isEqualTo(new BigDecimal("1234.56"));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void mappingPlanReusedAcrossRowsAndResultSets() throws Exception {
+		PrecompiledRowMapper<Person> mapper = new PrecompiledRowMapper<>(Person.class);
+		ResultSet rs1 = mockResultSet();
+		ResultSet rs2 = mockResultSet();
+
+		assertThat(mapper.mapRow(rs1, 0).getAge()).isEqualTo(22L);
+		assertThat(mapper.mapRow(rs1, 1).getAge()).isEqualTo(22L);
+		assertThat(mapper.mapRow(rs1, 2).getName()).isEqualTo("Bubba");
+		verify(rs1, times(1)).getMetaData();
+
+		assertThat(mapper.mapRow(rs2, 0).getAge()).isEqualTo(22L);
+		assertThat(mapper.mapRow(rs2, 1).getAge()).isEqualTo(22L);
+		verify(rs2, times(1)).getMetaData();
+	}
+
+	private ResultSet mockResultSet() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rsmd.getColumnCount()).willReturn(2);
+		given(rsmd.getColumnLabel(1)).willReturn("name");
+		given(rsmd.getColumnLabel(2)).willReturn("age");
+		given(rs.getString(1)).willReturn("Bubba");
+		given(rs.getLong(2)).willReturn(22L);
+		return rs;
+	}
+
+}
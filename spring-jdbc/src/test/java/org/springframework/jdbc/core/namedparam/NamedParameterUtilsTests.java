@@ -16,6 +16,7 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -70,6 +71,30 @@ public class NamedParameterUtilsTests {
 		assertThat(NamedParameterUtils.substituteNamedParameters("xxx :a :b :c xx :a :a", namedParams)).isEqualTo("xxx ? ? ? xx ? ?");
 	}
 
+	@Test
+	public void substituteNamedParametersWithCachedCardinalities() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement("select * from t where a = :a and b in (:b)");
+		MapSqlParameterSource namedParams = new MapSqlParameterSource("a", "a").addValue("b", "b");
+		String sql = NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams);
+		assertThat(sql).isEqualTo("select * from t where a = ? and b in (?)");
+		assertThat(NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams)).isSameAs(sql);
+
+		namedParams.addValue("b", Arrays.asList(1, 2, 3));
+		sql = NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams);
+		assertThat(sql).isEqualTo("select * from t where a = ? and b in (?, ?, ?)");
+		namedParams.addValue("b", Arrays.asList(4, 5, 6));
+		assertThat(NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams)).isSameAs(sql);
+		namedParams.addValue("b", Arrays.asList(4, 5));
+		assertThat(NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams))
+				.isEqualTo("select * from t where a = ? and b in (?, ?)");
+		namedParams.addValue("b", Collections.singletonList(new Object[] {1, 2}));
+		assertThat(NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams))
+				.isEqualTo("select * from t where a = ? and b in ((?, ?))");
+		namedParams.addValue("b", Collections.singletonList(7));
+		assertThat(NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams))
+				.isEqualTo("select * from t where a = ? and b in (?)");
+	}
+
 	@Test
 	public void convertParamMapToArray() {
 		Map<String, String> paramMap = new HashMap<>();
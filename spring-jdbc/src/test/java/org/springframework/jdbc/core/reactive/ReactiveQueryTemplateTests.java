@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.reactive;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link ReactiveQueryTemplate}.
+ */
+class ReactiveQueryTemplateTests {
+
+	private EmbeddedDatabase database;
+
+	private ReactiveQueryTemplate template;
+
+
+	@BeforeEach
+	void setup() {
+		this.database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.database);
+		jdbcTemplate.execute("create table item (id integer primary key, name varchar(50))");
+		this.template = new ReactiveQueryTemplate(jdbcTemplate);
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	void queryForPublisher() {
+		for (int i = 0; i < 100; i++) {
+			this.template.getJdbcTemplate().update("insert into item (id, name) values (?, ?)", i, "item" + i);
+		}
+		Flux<String> names = this.template.queryForPublisher(
+				"select name from item where id >= ? order by id", (rs, rowNum) -> rs.getString(1), 90);
+		StepVerifier.create(names)
+				.expectNext("item90", "item91")
+				.expectNextCount(8)
+				.verifyComplete();
+	}
+
+	@Test
+	void queryForPublisherWithNamedParameters() {
+		this.template.getJdbcTemplate().update("insert into item (id, name) values (1, 'one'), (2, 'two'), (3, 'three')");
+		Flux<String> names = this.template.queryForPublisher("select name from item where id in (:ids) order by id",
+				new MapSqlParameterSource("ids", Arrays.asList(1, 3)), (rs, rowNum) -> rs.getString(1));
+		StepVerifier.create(names).expectNext("one", "three").verifyComplete();
+	}
+
+	@Test
+	void queryForPublisherWithBadSql() {
+		Flux<String> names = this.template.queryForPublisher(
+				"select nothing from nowhere", (rs, rowNum) -> rs.getString(1));
+		StepVerifier.create(names).verifyError(BadSqlGrammarException.class);
+	}
+
+	@Test
+	void queryForPublisherHonorsDemandAndReleasesResourcesOnCancel() throws Exception {
+		DataSource dataSource = mock(DataSource.class);
+		Connection connection = mock(Connection.class);
+		PreparedStatement ps = mock(PreparedStatement.class);
+		ResultSet rs = mock(ResultSet.class);
+		given(dataSource.getConnection()).willReturn(connection);
+		given(connection.prepareStatement(anyString())).willReturn(ps);
+		given(ps.executeQuery()).willReturn(rs);
+		given(ps.getConnection()).willReturn(connection);
+		given(rs.next()).willReturn(true);
+		given(rs.getInt(1)).willReturn(42);
+
+		ReactiveQueryTemplate template = new ReactiveQueryTemplate(dataSource);
+		Flux<Integer> values = template.queryForPublisher("select value from item", (r, rowNum) -> r.getInt(1));
+
+		StepVerifier.create(values, 3)
+				.expectNext(42, 42, 42)
+				.then(() -> {
+					try {
+						verify(ps).setFetchSize(3);
+						verify(rs, times(3)).next();
+						verify(rs, never()).close();
+					}
+					catch (Exception ex) {
+						throw new IllegalStateException(ex);
+					}
+				})
+				.thenRequest(2)
+				.expectNext(42, 42)
+				.thenCancel()
+				.verify();
+
+		verify(rs, timeout(1000)).close();
+		verify(ps, timeout(1000)).close();
+		verify(connection, timeout(1000)).close();
+		verify(rs, times(5)).next();
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Integration tests for {@link ParallelBatchUpdater}.
+ */
+class ParallelBatchUpdaterTests {
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private ParallelBatchUpdater batchUpdater;
+
+
+	@BeforeEach
+	void setup() {
+		this.database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("create table item (id integer primary key, name varchar(50))");
+		this.batchUpdater = new ParallelBatchUpdater(this.jdbcTemplate);
+		this.batchUpdater.setBatchSize(100);
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	void batchUpdateWithStream() {
+		int[][] result = this.batchUpdater.batchUpdate("insert into item (id, name) values (?, ?)",
+				IntStream.range(0, 10050).boxed(), (ps, id) -> {
+					ps.setInt(1, id);
+					ps.setString(2, "item" + id);
+				});
+
+		assertThat(result).hasNumberOfRows(101);
+		assertThat(result[0]).hasSize(100).containsOnly(1);
+		assertThat(result[100]).hasSize(50).containsOnly(1);
+		assertThat(countItems()).isEqualTo(10050);
+		assertThat(this.jdbcTemplate.queryForObject("select name from item where id = 4711", String.class))
+				.isEqualTo("item4711");
+	}
+
+	@Test
+	void batchUpdateWithIterator() {
+		this.batchUpdater.setConcurrency(2);
+		this.batchUpdater.setBatchSize(2);
+		int[][] result = this.batchUpdater.batchUpdate("update item set name = ? where id = ?",
+				Arrays.asList(1, 2, 3).iterator(), (ps, id) -> {
+					ps.setString(1, "updated");
+					ps.setInt(2, id);
+				});
+
+		assertThat(result).hasNumberOfRows(2);
+		assertThat(result[0]).containsExactly(0, 0);
+		assertThat(result[1]).containsExactly(0);
+	}
+
+	@Test
+	void batchUpdateWithEmptyInput() {
+		int[][] result = this.batchUpdater.batchUpdate("insert into item (id, name) values (?, ?)",
+				Collections.<Integer>emptyIterator(), (ps, id) -> ps.setInt(1, id));
+		assertThat(result).isEmpty();
+	}
+
+	@Test
+	void batchUpdateWithNamedParameters() {
+		Stream<SqlParameterSource> batchArgs = IntStream.range(0, 1000).mapToObj(id ->
+				new MapSqlParameterSource("id", id).addValue("name", "item" + id));
+		int[][] result = this.batchUpdater.batchUpdate("insert into item (id, name) values (:id, :name)", batchArgs);
+
+		assertThat(result).hasNumberOfRows(10);
+		assertThat(countItems()).isEqualTo(1000);
+	}
+
+	@Test
+	void batchUpdateRollsBackOnFailure() {
+		this.jdbcTemplate.update("insert into item (id, name) values (500, 'existing')");
+		this.batchUpdater.setConcurrency(1);
+
+		assertThatExceptionOfType(DuplicateKeyException.class).isThrownBy(() ->
+				this.batchUpdater.batchUpdate("insert into item (id, name) values (?, ?)",
+						IntStream.range(0, 1000).boxed(), (ps, id) -> {
+							ps.setInt(1, id);
+							ps.setString(2, "item" + id);
+						}));
+		assertThat(countItems()).isEqualTo(1);
+	}
+
+	@Test
+	void batchUpdateWithCustomExecutorAndTransactionManager() {
+		AtomicInteger commits = new AtomicInteger();
+		this.batchUpdater.setTransactionManager(new DataSourceTransactionManager(this.database) {
+			@Override
+			protected void doCommit(DefaultTransactionStatus status) {
+				commits.incrementAndGet();
+				super.doCommit(status);
+			}
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			this.batchUpdater.setTaskExecutor(executor);
+			this.batchUpdater.setConcurrency(3);
+			this.batchUpdater.batchUpdate("insert into item (id, name) values (?, ?)",
+					IntStream.range(0, 1000).boxed(), (ps, id) -> {
+						ps.setInt(1, id);
+						ps.setString(2, "item" + id);
+					});
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		assertThat(commits.get()).isEqualTo(3);
+		assertThat(countItems()).isEqualTo(1000);
+	}
+
+	private int countItems() {
+		Integer count = this.jdbcTemplate.queryForObject("select count(*) from item", Integer.class);
+		return (count != null ? count : 0);
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link StatementCachingDataSource}.
+ */
+class StatementCachingDataSourceTests {
+
+	private final DataSource targetDataSource = mock(DataSource.class);
+
+	private final Connection targetConnection = mock(Connection.class);
+
+	private final List<PreparedStatement> targetStatements = new ArrayList<>();
+
+	private final StatementCachingDataSource dataSource = new StatementCachingDataSource(this.targetDataSource);
+
+
+	@BeforeEach
+	void setup() throws SQLException {
+		given(this.targetDataSource.getConnection()).willReturn(this.targetConnection);
+		given(this.targetConnection.prepareStatement(anyString())).willAnswer(invocation -> {
+			PreparedStatement ps = mock(PreparedStatement.class);
+			given(ps.getFetchSize()).willReturn(10);
+			given(ps.executeQuery()).willReturn(mock(ResultSet.class));
+			this.targetStatements.add(ps);
+			return ps;
+		});
+	}
+
+
+	@Test
+	void reusesStatementForSameSql() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		assertThat(con).isInstanceOf(ConnectionProxy.class);
+		assertThat(((ConnectionProxy) con).getTargetConnection()).isSameAs(this.targetConnection);
+
+		PreparedStatement ps1 = con.prepareStatement("select 1");
+		ps1.setString(1, "a");
+		ps1.close();
+		assertThat(ps1.isClosed()).isTrue();
+		PreparedStatement ps2 = con.prepareStatement("select 1");
+		assertThat(ps2.isClosed()).isFalse();
+		assertThat(ps2.getConnection()).isSameAs(con);
+
+		assertThat(this.targetStatements).hasSize(1);
+		PreparedStatement target = this.targetStatements.get(0);
+		verify(this.targetConnection, times(1)).prepareStatement("select 1");
+		verify(target).setString(1, "a");
+		verify(target).clearParameters();
+		verify(target, never()).close();
+
+		ps2.close();
+		con.close();
+		verify(target).close();
+		verify(this.targetConnection).close();
+	}
+
+	@Test
+	void resetsStatementOnClose() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("update t set a = ?");
+		PreparedStatement target = this.targetStatements.get(0);
+		ps.setFetchSize(100);
+		ps.addBatch();
+		ResultSet rs = ps.executeQuery();
+		ps.close();
+
+		verify(target).clearParameters();
+		verify(target).clearBatch();
+		verify(target).clearWarnings();
+		verify(target).setFetchSize(10);
+		verify(rs).close();
+		verify(target, never()).close();
+		assertThatExceptionOfType(SQLException.class).isThrownBy(ps::executeUpdate);
+	}
+
+	@Test
+	void createsUncachedStatementWhileCachedOneIsInUse() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps1 = con.prepareStatement("select 1");
+		PreparedStatement ps2 = con.prepareStatement("select 1");
+		assertThat(ps2).isNotSameAs(ps1);
+		assertThat(ps2.isClosed()).isFalse();
+		assertThat(this.targetStatements).hasSize(2);
+		verify(this.targetConnection, times(2)).prepareStatement("select 1");
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedStatement() throws SQLException {
+		this.dataSource.setCacheSize(2);
+		Connection con = this.dataSource.getConnection();
+		con.prepareStatement("select 1").close();
+		PreparedStatement target1 = this.targetStatements.get(0);
+		con.prepareStatement("select 2").close();
+		con.prepareStatement("select 1").close();
+		con.prepareStatement("select 3").close();
+		verify(target1, never()).close();
+
+		con.prepareStatement("select 4").close();
+		con.prepareStatement("select 1").close();
+		verify(this.targetConnection, times(1)).prepareStatement("select 2");
+		verify(this.targetConnection, times(2)).prepareStatement("select 1");
+		verify(target1).close();
+	}
+
+	@Test
+	void distinguishesStatementVariants() throws SQLException {
+		CallableStatement cs = mock(CallableStatement.class);
+		given(this.targetConnection.prepareCall("{call p}")).willReturn(cs);
+		PreparedStatement keyed = mock(PreparedStatement.class);
+		given(this.targetConnection.prepareStatement("insert", new String[] {"id"})).willReturn(keyed);
+
+		Connection con = this.dataSource.getConnection();
+		CallableStatement call = con.prepareCall("{call p}");
+		call.setInt(1, 42);
+		call.close();
+		verify(cs).setInt(1, 42);
+		verify(cs).clearParameters();
+		assertThat(con.prepareCall("{call p}")).isInstanceOf(CallableStatement.class);
+		verify(this.targetConnection, times(1)).prepareCall("{call p}");
+
+		con.prepareStatement("insert", new String[] {"id"}).close();
+		con.prepareStatement("insert", new String[] {"id"}).close();
+		con.prepareStatement("insert").close();
+		verify(this.targetConnection, times(1)).prepareStatement("insert", new String[] {"id"});
+		verify(this.targetConnection, times(1)).prepareStatement("insert");
+	}
+
+	@Test
+	void worksWithJdbcTemplate() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		SingleConnectionDataSource singleConnectionDataSource = new SingleConnectionDataSource(con, true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(singleConnectionDataSource);
+		jdbcTemplate.setFetchSize(50);
+		for (int i = 0; i < 3; i++) {
+			jdbcTemplate.query("select 1", (rs, rowNum) -> rowNum, i);
+		}
+		verify(this.targetConnection, times(1)).prepareStatement("select 1");
+	}
+
+}
@@ -22,7 +22,6 @@ import java.util.List;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
 import org.springframework.messaging.handler.annotation.support.MessageHandlerMethodFactory;
@@ -57,7 +56,7 @@ public class JmsListenerEndpointRegistrar implements BeanFactoryAware, Initializ
 
 	private boolean startImmediately;
 
-	private Object mutex = this.endpointDescriptors;
+	private final Object mutex = this.endpointDescriptors;
 
 
 	/**
@@ -124,9 +123,6 @@ public class JmsListenerEndpointRegistrar implements BeanFactoryAware, Initializ
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
-		if (beanFactory instanceof ConfigurableBeanFactory) {
-			this.mutex = ((ConfigurableBeanFactory) beanFactory).getSingletonMutex();
-		}
 	}
 
 
@@ -137,12 +133,22 @@ public class JmsListenerEndpointRegistrar implements BeanFactoryAware, Initializ
 
 	protected void registerAllEndpoints() {
 		Assert.state(this.endpointRegistry != null, "No JmsListenerEndpointRegistry set");
-		synchronized (this.mutex) {
-			for (JmsListenerEndpointDescriptor descriptor : this.endpointDescriptors) {
+		// Container factories are resolved outside of the mutex, since a lookup by
+		// bean name may have to wait for another thread creating that bean...
+		while (true) {
+			List<JmsListenerEndpointDescriptor> descriptors;
+			synchronized (this.mutex) {
+				if (this.endpointDescriptors.isEmpty()) {
+					this.startImmediately = true;  // trigger immediate startup
+					return;
+				}
+				descriptors = new ArrayList<>(this.endpointDescriptors);
+				this.endpointDescriptors.clear();
+			}
+			for (JmsListenerEndpointDescriptor descriptor : descriptors) {
 				this.endpointRegistry.registerListenerContainer(
 						descriptor.endpoint, resolveContainerFactory(descriptor));
 			}
-			this.startImmediately = true;  // trigger immediate startup
 		}
 	}
 
@@ -181,15 +187,15 @@ public class JmsListenerEndpointRegistrar implements BeanFactoryAware, Initializ
 		JmsListenerEndpointDescriptor descriptor = new JmsListenerEndpointDescriptor(endpoint, factory);
 
 		synchronized (this.mutex) {
-			if (this.startImmediately) {  // register and start immediately
-				Assert.state(this.endpointRegistry != null, "No JmsListenerEndpointRegistry set");
-				this.endpointRegistry.registerListenerContainer(descriptor.endpoint,
-						resolveContainerFactory(descriptor), true);
-			}
-			else {
+			if (!this.startImmediately) {
 				this.endpointDescriptors.add(descriptor);
+				return;
 			}
 		}
+		// Register and start immediately
+		Assert.state(this.endpointRegistry != null, "No JmsListenerEndpointRegistry set");
+		this.endpointRegistry.registerListenerContainer(descriptor.endpoint,
+				resolveContainerFactory(descriptor), true);
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,14 @@
 
 package org.springframework.jms.config;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.support.StaticListableBeanFactory;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -100,4 +105,49 @@ public class JmsListenerEndpointRegistrarTests {
 		assertThat(this.registry.getListenerContainerIds().iterator().next()).isEqualTo("myEndpoint");
 	}
 
+	@Test
+	public void registerEndpointWhileContainerFactoryIsCreatedConcurrently() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		CountDownLatch factoryCreating = new CountDownLatch(1);
+		Thread[] registering = new Thread[1];
+		beanFactory.registerBeanDefinition("containerFactory", new RootBeanDefinition(
+				JmsListenerContainerTestFactory.class, () -> {
+					factoryCreating.countDown();
+					awaitWaiting(registering[0]);
+					// Registering an endpoint while the container factory is being created
+					SimpleJmsListenerEndpoint endpoint = new SimpleJmsListenerEndpoint();
+					endpoint.setId("second");
+					this.registrar.registerEndpoint(endpoint);
+					return this.containerFactory;
+				}));
+		this.registrar.setBeanFactory(beanFactory);
+		this.registrar.setContainerFactoryBeanName("containerFactory");
+		SimpleJmsListenerEndpoint endpoint = new SimpleJmsListenerEndpoint();
+		endpoint.setId("first");
+		this.registrar.registerEndpoint(endpoint);
+
+		Thread creating = new Thread(() -> beanFactory.getBean("containerFactory"));
+		registering[0] = new Thread(this.registrar::afterPropertiesSet);
+		creating.start();
+		assertThat(factoryCreating.await(10, TimeUnit.SECONDS)).isTrue();
+		registering[0].start();
+		creating.join(10000);
+		registering[0].join(10000);
+
+		assertThat(creating.isAlive()).as("Deadlock on container factory creation").isFalse();
+		assertThat(registering[0].isAlive()).as("Deadlock on endpoint registration").isFalse();
+		assertThat(this.registry.getListenerContainerIds()).containsExactlyInAnyOrder("first", "second");
+	}
+
+	private static void awaitWaiting(Thread thread) {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (thread == null || thread.getState() == Thread.State.NEW ||
+				thread.getState() == Thread.State.RUNNABLE) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new IllegalStateException("Thread did not block: " + thread);
+			}
+			Thread.yield();
+		}
+	}
+
 }
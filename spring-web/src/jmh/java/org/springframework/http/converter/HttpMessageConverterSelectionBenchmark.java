@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.converter;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Project;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.support.AllEncompassingFormHttpMessageConverter;
+
+/**
+ * Benchmark for selecting an {@link HttpMessageConverter} for a return value,
+ * going through the generic type checks of each converter like the Spring MVC
+ * return value handlers do. Run with "-prof gc" for allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class HttpMessageConverterSelectionBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"string", "project", "projectList"})
+		public String returnType;
+
+		public List<HttpMessageConverter<?>> converters;
+
+		public Type targetType;
+
+		public Class<?> valueClass;
+
+		public MediaType mediaType = MediaType.APPLICATION_JSON;
+
+		@Setup
+		public void setup() {
+			this.converters = new ArrayList<>();
+			this.converters.add(new ByteArrayHttpMessageConverter());
+			this.converters.add(new StringHttpMessageConverter());
+			this.converters.add(new ResourceHttpMessageConverter());
+			this.converters.add(new ResourceRegionHttpMessageConverter());
+			this.converters.add(new AllEncompassingFormHttpMessageConverter());
+			this.converters.add(new MappingJackson2HttpMessageConverter());
+			switch (this.returnType) {
+				case "string":
+					this.targetType = String.class;
+					this.valueClass = String.class;
+					break;
+				case "project":
+					this.targetType = Project.class;
+					this.valueClass = Project.class;
+					break;
+				case "projectList":
+					this.targetType = new ParameterizedTypeReference<List<Project>>() {}.getType();
+					this.valueClass = ArrayList.class;
+					break;
+			}
+		}
+	}
+
+	@Benchmark
+	@SuppressWarnings("rawtypes")
+	public HttpMessageConverter<?> selectConverter(BenchmarkData data) {
+		for (HttpMessageConverter<?> converter : data.converters) {
+			if (converter instanceof GenericHttpMessageConverter ?
+					((GenericHttpMessageConverter) converter).canWrite(data.targetType, data.valueClass, data.mediaType) :
+					converter.canWrite(data.valueClass, data.mediaType)) {
+				return converter;
+			}
+		}
+		return null;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,9 @@ import org.springframework.util.AntPathMatcher;
  * Benchmarks for matching requests paths against path patterns in a web context.
  * We're considering here the {@link org.springframework.util.AntPathMatcher} and
  * {@link PathPatternParser} implementations with typical sets of patterns.
+ * <p>The single route benchmarks perform one operation per invocation, so
+ * running them with "-prof gc" reports the allocations per match as
+ * "gc.alloc.rate.norm".
  * @author Brian Clozel
  */
 @BenchmarkMode(Mode.Throughput)
@@ -60,6 +63,16 @@ public class PathMatchingBenchmark {
 		}
 	}
 
+	@Benchmark
+	public void matchAllRoutesWithMatchState(AllRoutesPatternParser data, Blackhole bh) {
+		PathPattern.MatchState matchState = new PathPattern.MatchState();
+		for (PathContainer path : data.requestPaths) {
+			for (PathPattern pattern : data.patterns) {
+				bh.consume(pattern.matches(path, matchState));
+			}
+		}
+	}
+
 	@Benchmark
 	public void matchAndSortAllRoutesWithPathPatternParser(AllRoutesPatternParser data, Blackhole bh) {
 		for (PathContainer path : data.requestPaths) {
@@ -74,6 +87,110 @@ public class PathMatchingBenchmark {
 		}
 	}
 
+	@State(Scope.Benchmark)
+	public static class AllRoutesPatternIndex extends PatternIndexData {
+
+		@Setup(Level.Trial)
+		public void registerPatterns() {
+			parseRoutes(RouteGenerator.allRoutes());
+		}
+	}
+
+	@Benchmark
+	public void matchAndSortAllRoutesWithPathPatternIndex(AllRoutesPatternIndex data, Blackhole bh) {
+		for (PathContainer path : data.requestPaths) {
+			bh.consume(data.matchAndSort(path));
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class ManyRoutesPatternParser extends PatternParserData {
+
+		@Setup(Level.Trial)
+		public void registerPatterns() {
+			parseRoutes(RouteGenerator.manyRoutes(500));
+		}
+	}
+
+	@Benchmark
+	public void matchAndSortManyRoutesWithPathPatternParser(ManyRoutesPatternParser data, Blackhole bh) {
+		for (PathContainer path : data.requestPaths) {
+			List<PathPattern> matches = new ArrayList<>();
+			for (PathPattern pattern : data.patterns) {
+				if (pattern.matches(path)) {
+					matches.add(pattern);
+				}
+			}
+			Collections.sort(matches);
+			bh.consume(matches);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class ManyRoutesPatternIndex extends PatternIndexData {
+
+		@Setup(Level.Trial)
+		public void registerPatterns() {
+			parseRoutes(RouteGenerator.manyRoutes(500));
+		}
+	}
+
+	@Benchmark
+	public void matchAndSortManyRoutesWithPathPatternIndex(ManyRoutesPatternIndex data, Blackhole bh) {
+		for (PathContainer path : data.requestPaths) {
+			bh.consume(data.matchAndSort(path));
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class SingleRoutePatternParser {
+
+		PathPattern pattern;
+
+		PathContainer requestPath;
+
+		String rawRequestPath = "/api/projects/spring-boot/releases/2.3.0";
+
+		@Setup(Level.Trial)
+		public void registerPattern() {
+			this.pattern = new PathPatternParser().parse("/api/projects/{projectId}/releases/{version}");
+			this.requestPath = PathContainer.parsePath(this.rawRequestPath);
+		}
+	}
+
+	@Benchmark
+	public boolean matchSingleRouteWithPathPatternParser(SingleRoutePatternParser data) {
+		return data.pattern.matches(data.requestPath);
+	}
+
+	@Benchmark
+	public String matchAndExtractSingleRouteWithPathPatternParser(SingleRoutePatternParser data) {
+		PathPattern.PathMatchInfo info = data.pattern.matchAndExtract(data.requestPath);
+		return (info != null ? info.getUriVariables().get("version") : null);
+	}
+
+	@State(Scope.Thread)
+	public static class MatchStateData {
+
+		PathPattern.MatchState matchState = new PathPattern.MatchState();
+	}
+
+	@Benchmark
+	public boolean matchSingleRouteWithMatchState(SingleRoutePatternParser data, MatchStateData state) {
+		return data.pattern.matches(data.requestPath, state.matchState);
+	}
+
+	@Benchmark
+	public String matchAndExtractSingleRouteWithMatchState(SingleRoutePatternParser data, MatchStateData state) {
+		PathPattern.PathMatchInfo info = data.pattern.matchAndExtract(data.requestPath, state.matchState);
+		return (info != null ? info.getUriVariables().get("version") : null);
+	}
+
+	@Benchmark
+	public PathContainer parseSingleRequestPath(SingleRoutePatternParser data) {
+		return PathContainer.parsePath(data.rawRequestPath);
+	}
+
 	@State(Scope.Benchmark)
 	public static class StaticRoutesPatternParser extends PatternParserData {
 
@@ -159,6 +276,29 @@ public class PathMatchingBenchmark {
 
 	}
 
+	static class PatternIndexData extends PatternParserData {
+
+		PathPatternIndex<PathPattern> index = new PathPatternIndex<>();
+
+		@Override
+		void parseRoutes(List<Route> routes) {
+			super.parseRoutes(routes);
+			this.patterns.forEach(pattern -> this.index.add(pattern, Collections.singleton(pattern)));
+		}
+
+		List<PathPattern> matchAndSort(PathContainer path) {
+			List<PathPattern> matches = new ArrayList<>();
+			for (PathPattern pattern : this.index.getCandidates(path)) {
+				if (pattern.matches(path)) {
+					matches.add(pattern);
+				}
+			}
+			Collections.sort(matches);
+			return matches;
+		}
+
+	}
+
 	static class AntPathMatcherData {
 
 		AntPathMatcher matcher = new AntPathMatcher();
@@ -264,6 +404,23 @@ public class PathMatchingBenchmark {
 			);
 		}
 
+		/**
+		 * Routes of an API with the given number of resources, each with
+		 * five patterned endpoints.
+		 */
+		static List<Route> manyRoutes(int resourceCount) {
+			List<Route> routes = new ArrayList<>();
+			for (int i = 0; i < resourceCount; i++) {
+				String resource = "/api/resource" + i;
+				routes.add(new Route(resource + "/{id}", resource + "/42"));
+				routes.add(new Route(resource + "/{id}/items", resource + "/42/items"));
+				routes.add(new Route(resource + "/{id}/items/{itemId}", resource + "/42/items/7"));
+				routes.add(new Route(resource + "/{id}/history/{version}", resource + "/42/history/3"));
+				routes.add(new Route(resource + "/search/{query}", resource + "/search/spring"));
+			}
+			return routes;
+		}
+
 		static List<Route> allRoutes() {
 			List<Route> routes = new ArrayList<>();
 			routes.addAll(staticRoutes());
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -126,6 +126,8 @@ public final class WebAsyncManager {
 	 * Configure an AsyncTaskExecutor for use with concurrent processing via
 	 * {@link #startCallableProcessing(Callable, Object...)}.
 	 * <p>By default a {@link SimpleAsyncTaskExecutor} instance is used.
+	 * On JDK 21+, consider a {@link org.springframework.core.task.VirtualThreadTaskExecutor}
+	 * for a large number of concurrent, mostly blocking {@code Callable} tasks.
 	 */
 	public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
 		this.taskExecutor = taskExecutor;
@@ -357,8 +359,8 @@ public final class WebAsyncManager {
 		if (taskExecutorWarning && logger.isWarnEnabled()) {
 			synchronized (DEFAULT_TASK_EXECUTOR) {
 				AsyncTaskExecutor executor = this.taskExecutor;
-				if (taskExecutorWarning &&
-						(executor instanceof SimpleAsyncTaskExecutor || executor instanceof SyncTaskExecutor)) {
+				if (taskExecutorWarning && ((executor instanceof SimpleAsyncTaskExecutor &&
+						!((SimpleAsyncTaskExecutor) executor).isVirtualThreads()) || executor instanceof SyncTaskExecutor)) {
 					String executorTypeName = executor.getClass().getSimpleName();
 					logger.warn("\n!!!\n" +
 							"An Executor is required to handle java.util.concurrent.Callable return values.\n" +
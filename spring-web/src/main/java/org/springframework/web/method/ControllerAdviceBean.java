@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -239,6 +239,15 @@ public class ControllerAdviceBean implements Ordered {
 		return this.resolvedBean;
 	}
 
+	/**
+	 * Return whether the bean is a singleton, i.e. whether {@link #resolveBean()}
+	 * always returns the same instance.
+	 * @since 5.3.23
+	 */
+	public boolean isSingleton() {
+		return this.isSingleton;
+	}
+
 	private BeanFactory obtainBeanFactory() {
 		Assert.state(this.beanFactory != null, "No BeanFactory set");
 		return this.beanFactory;
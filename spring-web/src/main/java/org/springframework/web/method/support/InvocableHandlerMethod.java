@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,12 @@
 
 package org.springframework.web.method.support;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 
 import org.springframework.context.MessageSource;
@@ -27,6 +31,7 @@ import org.springframework.core.KotlinDetector;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.support.SessionStatus;
@@ -48,6 +53,11 @@ public class InvocableHandlerMethod extends HandlerMethod {
 
 	private static final Object[] EMPTY_ARGS = new Object[0];
 
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+	/** Marker for a method without a method handle. */
+	private static final MethodHandle NO_METHOD_HANDLE = MethodHandles.constant(Object.class, null);
+
 
 	private HandlerMethodArgumentResolverComposite resolvers = new HandlerMethodArgumentResolverComposite();
 
@@ -56,6 +66,17 @@ public class InvocableHandlerMethod extends HandlerMethod {
 	@Nullable
 	private WebDataBinderFactory dataBinderFactory;
 
+	/** Argument resolvers per method parameter, as obtained from the resolver composite. */
+	@Nullable
+	private volatile HandlerMethodArgumentResolver[] parameterResolvers;
+
+	@Nullable
+	private volatile MethodHandle methodHandle;
+
+	private Class<?>[] methodHandleParameterTypes = new Class<?>[0];
+
+	private volatile boolean invoked;
+
 
 	/**
 	 * Create an instance from a {@code HandlerMethod}.
@@ -100,6 +121,7 @@ public class InvocableHandlerMethod extends HandlerMethod {
 	 */
 	public void setHandlerMethodArgumentResolvers(HandlerMethodArgumentResolverComposite argumentResolvers) {
 		this.resolvers = argumentResolvers;
+		this.parameterResolvers = null;
 	}
 
 	/**
@@ -172,11 +194,15 @@ public class InvocableHandlerMethod extends HandlerMethod {
 			if (args[i] != null) {
 				continue;
 			}
-			if (!this.resolvers.supportsParameter(parameter)) {
-				throw new IllegalStateException(formatArgumentError(parameter, "No suitable resolver"));
+			HandlerMethodArgumentResolver resolver = getParameterResolver(i, parameter);
+			if (resolver == null) {
+				if (!this.resolvers.supportsParameter(parameter)) {
+					throw new IllegalStateException(formatArgumentError(parameter, "No suitable resolver"));
+				}
+				resolver = this.resolvers;
 			}
 			try {
-				args[i] = this.resolvers.resolveArgument(parameter, mavContainer, request, this.dataBinderFactory);
+				args[i] = resolver.resolveArgument(parameter, mavContainer, request, this.dataBinderFactory);
 			}
 			catch (Exception ex) {
 				// Leave stack trace for later, exception may actually be resolved and handled...
@@ -192,12 +218,60 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		return args;
 	}
 
+	/**
+	 * Return the argument resolver for the given parameter, as selected by the
+	 * resolver composite and kept for subsequent invocations, or {@code null}
+	 * to go through the composite itself, e.g. if it is a custom subclass.
+	 */
+	@Nullable
+	private HandlerMethodArgumentResolver getParameterResolver(int index, MethodParameter parameter) {
+		if (this.resolvers.getClass() != HandlerMethodArgumentResolverComposite.class) {
+			return null;
+		}
+		HandlerMethodArgumentResolver[] parameterResolvers = this.parameterResolvers;
+		if (parameterResolvers == null) {
+			parameterResolvers = new HandlerMethodArgumentResolver[getMethodParameters().length];
+			this.parameterResolvers = parameterResolvers;
+		}
+		HandlerMethodArgumentResolver resolver = parameterResolvers[index];
+		if (resolver == null) {
+			resolver = this.resolvers.getArgumentResolver(parameter);
+			parameterResolvers[index] = resolver;
+		}
+		return resolver;
+	}
+
 	/**
 	 * Invoke the handler method with the given argument values.
+	 * <p>As of 5.3.23, an instance that is invoked repeatedly, e.g. as part of an
+	 * invocation plan kept across requests, invokes the method through a
+	 * {@link MethodHandle} rather than through reflection. Exceptions thrown
+	 * are the same in either case.
 	 */
 	@Nullable
 	protected Object doInvoke(Object... args) throws Exception {
 		Method method = getBridgedMethod();
+		MethodHandle methodHandle = getMethodHandle(method);
+		if (methodHandle != null && isApplicable(method, args)) {
+			try {
+				return (Object) methodHandle.invokeExact(getBean(), args);
+			}
+			catch (Throwable ex) {
+				// Same as for the unwrapped target exception below...
+				if (ex instanceof RuntimeException) {
+					throw (RuntimeException) ex;
+				}
+				else if (ex instanceof Error) {
+					throw (Error) ex;
+				}
+				else if (ex instanceof Exception) {
+					throw (Exception) ex;
+				}
+				else {
+					throw new IllegalStateException(formatInvokeError("Invocation failure", args), ex);
+				}
+			}
+		}
 		try {
 			if (KotlinDetector.isSuspendingFunction(method)) {
 				return CoroutinesUtils.invokeSuspendingFunction(method, getBean(), args);
@@ -227,4 +301,61 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		}
 	}
 
+	/**
+	 * Return the method handle for the given method, created on the second
+	 * invocation of this instance, or {@code null} if not available (yet).
+	 */
+	@Nullable
+	private MethodHandle getMethodHandle(Method method) {
+		MethodHandle methodHandle = this.methodHandle;
+		if (methodHandle == null) {
+			if (!this.invoked) {
+				// Not worth it for an instance that is only invoked once
+				this.invoked = true;
+				return null;
+			}
+			this.methodHandleParameterTypes = method.getParameterTypes();
+			methodHandle = createMethodHandle(method);
+			this.methodHandle = methodHandle;
+		}
+		return (methodHandle != NO_METHOD_HANDLE ? methodHandle : null);
+	}
+
+	private static MethodHandle createMethodHandle(Method method) {
+		if (KotlinDetector.isKotlinType(method.getDeclaringClass())) {
+			return NO_METHOD_HANDLE;
+		}
+		try {
+			MethodHandle methodHandle = MethodHandles.lookup().unreflect(method).asFixedArity();
+			if (Modifier.isStatic(method.getModifiers())) {
+				methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+			}
+			return methodHandle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE);
+		}
+		catch (ReflectiveOperationException | RuntimeException ex) {
+			// e.g. a method not accessible through a method handle
+			return NO_METHOD_HANDLE;
+		}
+	}
+
+	/**
+	 * Check whether the given arguments can be passed to the method handle as-is,
+	 * i.e. without the argument checks of reflective invocation failing.
+	 */
+	private boolean isApplicable(Method method, Object[] args) {
+		if (!Modifier.isStatic(method.getModifiers()) && !method.getDeclaringClass().isInstance(getBean())) {
+			return false;
+		}
+		Class<?>[] parameterTypes = this.methodHandleParameterTypes;
+		if (args.length != parameterTypes.length) {
+			return false;
+		}
+		for (int i = 0; i < args.length; i++) {
+			if (!ClassUtils.isAssignableValue(parameterTypes[i], args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 }
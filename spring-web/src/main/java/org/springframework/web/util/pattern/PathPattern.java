@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,17 @@
 
 package org.springframework.web.util.pattern;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.StringJoiner;
 
 import org.springframework.http.server.PathContainer;
@@ -198,6 +204,22 @@ public class PathPattern implements Comparable<PathPattern> {
 	 * @return {@code true} if the path matches this pattern
 	 */
 	public boolean matches(PathContainer pathContainer) {
+		return matchesInternal(pathContainer, null);
+	}
+
+	/**
+	 * Variant of {@link #matches(PathContainer)} that reuses the given state
+	 * rather than allocating new matching state for every match.
+	 * @param pathContainer the candidate path to attempt to match against
+	 * @param matchState the state to reuse for this match
+	 * @return {@code true} if the path matches this pattern
+	 * @since 5.3.23
+	 */
+	public boolean matches(PathContainer pathContainer, MatchState matchState) {
+		return matchesInternal(pathContainer, matchState);
+	}
+
+	private boolean matchesInternal(PathContainer pathContainer, @Nullable MatchState matchState) {
 		if (this.head == null) {
 			return !hasLength(pathContainer) ||
 				(this.matchOptionalTrailingSeparator && pathContainerIsJustSeparator(pathContainer));
@@ -210,7 +232,7 @@ public class PathPattern implements Comparable<PathPattern> {
 				return false;
 			}
 		}
-		MatchingContext matchingContext = new MatchingContext(pathContainer, false);
+		MatchingContext matchingContext = obtainMatchingContext(pathContainer, false, matchState);
 		return this.head.matches(0, matchingContext);
 	}
 
@@ -222,6 +244,24 @@ public class PathPattern implements Comparable<PathPattern> {
 	 */
 	@Nullable
 	public PathMatchInfo matchAndExtract(PathContainer pathContainer) {
+		return matchAndExtractInternal(pathContainer, null);
+	}
+
+	/**
+	 * Variant of {@link #matchAndExtract(PathContainer)} that reuses the given
+	 * state rather than allocating new matching state for every match.
+	 * @param pathContainer the candidate path to attempt to match against
+	 * @param matchState the state to reuse for this match
+	 * @return info object with the extracted variables, or {@code null} for no match
+	 * @since 5.3.23
+	 */
+	@Nullable
+	public PathMatchInfo matchAndExtract(PathContainer pathContainer, MatchState matchState) {
+		return matchAndExtractInternal(pathContainer, matchState);
+	}
+
+	@Nullable
+	private PathMatchInfo matchAndExtractInternal(PathContainer pathContainer, @Nullable MatchState matchState) {
 		if (this.head == null) {
 			return (hasLength(pathContainer) &&
 					!(this.matchOptionalTrailingSeparator && pathContainerIsJustSeparator(pathContainer)) ?
@@ -235,7 +275,7 @@ public class PathPattern implements Comparable<PathPattern> {
 				return null;
 			}
 		}
-		MatchingContext matchingContext = new MatchingContext(pathContainer, true);
+		MatchingContext matchingContext = obtainMatchingContext(pathContainer, true, matchState);
 		return this.head.matches(0, matchingContext) ? matchingContext.getPathMatchResult() : null;
 	}
 
@@ -255,7 +295,7 @@ public class PathPattern implements Comparable<PathPattern> {
 			return null;
 		}
 
-		MatchingContext matchingContext = new MatchingContext(pathContainer, true);
+		MatchingContext matchingContext = new MatchingContext(this, pathContainer, true);
 		matchingContext.setMatchAllowExtraPath();
 		boolean matches = this.head.matches(0, matchingContext);
 		if (!matches) {
@@ -545,6 +585,24 @@ public class PathPattern implements Comparable<PathPattern> {
 				pathContainer.value().charAt(0) == getSeparator();
 	}
 
+	private MatchingContext obtainMatchingContext(
+			PathContainer pathContainer, boolean extractVariables, @Nullable MatchState matchState) {
+
+		if (matchState == null) {
+			return new MatchingContext(this, pathContainer, extractVariables);
+		}
+		MatchingContext matchingContext = matchState.matchingContext;
+		if (matchingContext == null) {
+			matchingContext = new MatchingContext(this, pathContainer, extractVariables);
+			matchingContext.shareUriVariables = false;
+			matchState.matchingContext = matchingContext;
+		}
+		else {
+			matchingContext.reset(this, pathContainer, extractVariables);
+		}
+		return matchingContext;
+	}
+
 
 	/**
 	 * Holder for URI variables and path parameters (matrix variables) extracted
@@ -564,6 +622,12 @@ public class PathPattern implements Comparable<PathPattern> {
 					Collections.unmodifiableMap(matrixVars) : Collections.emptyMap());
 		}
 
+		PathMatchInfo(String[] uriVars, @Nullable Map<String, MultiValueMap<String, String>> matrixVars) {
+			this.uriVariables = new UriVariablesMap(uriVars);
+			this.matrixVariables = (matrixVars != null ?
+					Collections.unmodifiableMap(matrixVars) : Collections.emptyMap());
+		}
+
 		/**
 		 * Return the extracted URI variables.
 		 */
@@ -644,21 +708,44 @@ public class PathPattern implements Comparable<PathPattern> {
 	}
 
 
+	/**
+	 * Matching state that a caller can hold on to and reuse across matches,
+	 * e.g. when matching the lookup path of a request against all candidate
+	 * patterns, in order to avoid allocating new state for every match.
+	 * <p>A {@code MatchState} may be used with any number of patterns, but it
+	 * is not thread-safe: it is meant to be confined to a single request or
+	 * thread, with one match at a time.
+	 * @since 5.3.23
+	 * @see #matches(PathContainer, MatchState)
+	 * @see #matchAndExtract(PathContainer, MatchState)
+	 */
+	public static final class MatchState {
+
+		@Nullable
+		MatchingContext matchingContext;
+	}
+
+
 	/**
 	 * Encapsulates context when attempting a match. Includes some fixed state like the
 	 * candidate currently being considered for a match but also some accumulators for
 	 * extracted variables.
 	 */
-	class MatchingContext {
+	static class MatchingContext {
+
+		PathPattern pattern;
 
-		final PathContainer candidate;
+		PathContainer candidate;
 
-		final List<Element> pathElements;
+		List<Element> pathElements;
 
-		final int pathLength;
+		int pathLength;
 
+		// extracted URI variables as name/value pairs
 		@Nullable
-		private Map<String, String> extractedUriVariables;
+		private String[] extractedUriVariables;
+
+		private int extractedUriVariableCount;
 
 		@Nullable
 		private Map<String, MultiValueMap<String, String>> extractedMatrixVariables;
@@ -672,26 +759,58 @@ public class PathPattern implements Comparable<PathPattern> {
 		// points to the remaining path that wasn't consumed
 		int remainingPathIndex;
 
-		public MatchingContext(PathContainer pathContainer, boolean extractVariables) {
+		// whether the result of a match may wrap the URI variable storage,
+		// or needs a copy since the storage is reused for the next match
+		boolean shareUriVariables = true;
+
+		public MatchingContext(PathPattern pattern, PathContainer pathContainer, boolean extractVariables) {
+			this.pattern = pattern;
 			this.candidate = pathContainer;
 			this.pathElements = pathContainer.elements();
 			this.pathLength = this.pathElements.size();
 			this.extractingVariables = extractVariables;
 		}
 
+		/**
+		 * Reset this context for a new match, keeping the storage for URI variables.
+		 */
+		void reset(PathPattern pattern, PathContainer pathContainer, boolean extractVariables) {
+			this.pattern = pattern;
+			if (this.candidate != pathContainer) {
+				this.candidate = pathContainer;
+				this.pathElements = pathContainer.elements();
+				this.pathLength = this.pathElements.size();
+			}
+			this.extractingVariables = extractVariables;
+			this.extractedUriVariableCount = 0;
+			this.extractedMatrixVariables = null;
+			this.determineRemainingPath = false;
+			this.remainingPathIndex = 0;
+		}
+
 		public void setMatchAllowExtraPath() {
 			this.determineRemainingPath = true;
 		}
 
 		public boolean isMatchOptionalTrailingSeparator() {
-			return matchOptionalTrailingSeparator;
+			return this.pattern.matchOptionalTrailingSeparator;
 		}
 
 		public void set(String key, String value, MultiValueMap<String,String> parameters) {
-			if (this.extractedUriVariables == null) {
-				this.extractedUriVariables = new HashMap<>();
+			int index = indexOfUriVariable(key);
+			if (index == -1) {
+				if (this.extractedUriVariables == null) {
+					// sized for the variables of the pattern, grown for regex segments if needed
+					this.extractedUriVariables = new String[Math.max(this.pattern.capturedVariableCount, 1) * 2];
+				}
+				else if (this.extractedUriVariables.length == this.extractedUriVariableCount * 2) {
+					this.extractedUriVariables = Arrays.copyOf(
+							this.extractedUriVariables, this.extractedUriVariables.length * 2);
+				}
+				index = this.extractedUriVariableCount++ * 2;
+				this.extractedUriVariables[index] = key;
 			}
-			this.extractedUriVariables.put(key, value);
+			this.extractedUriVariables[index + 1] = value;
 
 			if (!parameters.isEmpty()) {
 				if (this.extractedMatrixVariables == null) {
@@ -701,12 +820,25 @@ public class PathPattern implements Comparable<PathPattern> {
 			}
 		}
 
+		private int indexOfUriVariable(String key) {
+			for (int i = 0; i < this.extractedUriVariableCount * 2; i += 2) {
+				if (key.equals(this.extractedUriVariables[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
 		public PathMatchInfo getPathMatchResult() {
-			if (this.extractedUriVariables == null) {
+			if (this.extractedUriVariableCount == 0) {
 				return PathMatchInfo.EMPTY;
 			}
 			else {
-				return new PathMatchInfo(this.extractedUriVariables, this.extractedMatrixVariables);
+				String[] uriVariables = this.extractedUriVariables;
+				if (!this.shareUriVariables || uriVariables.length != this.extractedUriVariableCount * 2) {
+					uriVariables = Arrays.copyOf(uriVariables, this.extractedUriVariableCount * 2);
+				}
+				return new PathMatchInfo(uriVariables, this.extractedMatrixVariables);
 			}
 		}
 
@@ -733,4 +865,74 @@ public class PathPattern implements Comparable<PathPattern> {
 		}
 	}
 
+
+	/**
+	 * Read-only view of extracted URI variables, stored as name/value pairs,
+	 * that avoids building a {@code Map} for every match.
+	 */
+	private static final class UriVariablesMap extends AbstractMap<String, String> {
+
+		private final String[] variables;
+
+		UriVariablesMap(String[] variables) {
+			this.variables = variables;
+		}
+
+		@Override
+		public int size() {
+			return this.variables.length / 2;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return (indexOf(key) != -1);
+		}
+
+		@Override
+		@Nullable
+		public String get(Object key) {
+			int index = indexOf(key);
+			return (index != -1 ? this.variables[index + 1] : null);
+		}
+
+		private int indexOf(Object key) {
+			for (int i = 0; i < this.variables.length; i += 2) {
+				if (this.variables[i].equals(key)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public Set<Entry<String, String>> entrySet() {
+			return new AbstractSet<Entry<String, String>>() {
+				@Override
+				public Iterator<Entry<String, String>> iterator() {
+					return new Iterator<Entry<String, String>>() {
+						private int index;
+						@Override
+						public boolean hasNext() {
+							return (this.index < variables.length);
+						}
+						@Override
+						public Entry<String, String> next() {
+							if (this.index >= variables.length) {
+								throw new NoSuchElementException();
+							}
+							Entry<String, String> entry =
+									new SimpleImmutableEntry<>(variables[this.index], variables[this.index + 1]);
+							this.index += 2;
+							return entry;
+						}
+					};
+				}
+				@Override
+				public int size() {
+					return UriVariablesMap.this.size();
+				}
+			};
+		}
+	}
+
 }
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Index of values, typically request mappings, by the {@link PathPattern PathPatterns}
+ * they are mapped to, used to narrow down the values that need to be checked
+ * against a given path.
+ *
+ * <p>The index is a tree over the leading separators and case-sensitive literal
+ * segments of each pattern, with the value stored at the node where the first
+ * wildcard, capture, or regex segment of the pattern begins. For example, a
+ * value for {@code "/api/orders/{id}"} is stored under {@code "/api/orders/"},
+ * while values for {@code "/{*path}"} or {@code "/**"} are stored under the root.
+ * A lookup walks down the tree along the elements of the path and collects the
+ * values of every node on the way, so a value is only returned if the literal
+ * prefix of at least one of its patterns is a prefix of the path.
+ *
+ * <p>The returned candidates are a superset of the values with a pattern that
+ * matches the path, so they still need to be matched via {@link PathPattern#matches}.
+ *
+ * <p>This class is not thread-safe. Concurrent lookups are fine but
+ * modifications need to be guarded, e.g. with a read-write lock.
+ *
+ * @param <T> the type of indexed values
+ * @since 5.3.23
+ */
+public class PathPatternIndex<T> {
+
+	private final Node<T> root = new Node<>(null, null);
+
+	private final Map<T, IndexEntry<T>> entries = new HashMap<>();
+
+	private long order;
+
+
+	/**
+	 * Add the given value under the given patterns, replacing a previously
+	 * added equal value.
+	 * @param value the value to add
+	 * @param patterns the patterns of the value, or {@code null} (or an empty
+	 * collection) if the value is to be a candidate for every path
+	 */
+	public void add(T value, @Nullable Collection<PathPattern> patterns) {
+		Assert.notNull(value, "Value must not be null");
+		remove(value);
+		IndexEntry<T> entry = new IndexEntry<>(value, this.order++);
+		if (CollectionUtils.isEmpty(patterns)) {
+			this.root.addEntry(entry);
+		}
+		else {
+			for (PathPattern pattern : patterns) {
+				getOrCreateNode(pattern).addEntry(entry);
+			}
+		}
+		this.entries.put(value, entry);
+	}
+
+	private Node<T> getOrCreateNode(PathPattern pattern) {
+		Node<T> node = this.root;
+		PathElement element = pattern.getHeadSection();
+		while (element != null) {
+			if (element instanceof SeparatorPathElement) {
+				node = node.getOrCreateChild(null);
+			}
+			else if (element instanceof LiteralPathElement && ((LiteralPathElement) element).isCaseSensitive()) {
+				node = node.getOrCreateChild(String.valueOf(element.getChars()));
+			}
+			else {
+				break;
+			}
+			element = element.next;
+		}
+		return node;
+	}
+
+	/**
+	 * Remove the given value from the index.
+	 * @param value the value to remove
+	 * @return {@code true} if the value was present, {@code false} otherwise
+	 */
+	public boolean remove(T value) {
+		IndexEntry<T> entry = this.entries.remove(value);
+		if (entry == null) {
+			return false;
+		}
+		for (Node<T> node : entry.nodes) {
+			node.removeEntry(entry);
+		}
+		return true;
+	}
+
+	/**
+	 * Return the number of values in the index.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Return the values with a pattern that may match the given path, in the
+	 * order in which they were added. The returned list must not be modified.
+	 * @param path the path to find candidates for
+	 * @return the candidate values, possibly empty
+	 */
+	public List<T> getCandidates(PathContainer path) {
+		List<PathContainer.Element> elements = path.elements();
+		Node<T> first = null;
+		List<IndexEntry<T>> merged = null;
+		Node<T> node = this.root;
+		int index = 0;
+		while (node != null) {
+			if (!node.entries.isEmpty()) {
+				if (first == null) {
+					first = node;
+				}
+				else {
+					if (merged == null) {
+						merged = new ArrayList<>(first.entries);
+					}
+					merged.addAll(node.entries);
+				}
+			}
+			node = (index < elements.size() ? node.getChild(elements.get(index++)) : null);
+		}
+		if (first == null) {
+			return Collections.emptyList();
+		}
+		if (merged == null) {
+			return first.valuesView;
+		}
+		// Restore the order, and drop values added under several patterns
+		merged.sort(null);
+		List<T> result = new ArrayList<>(merged.size());
+		IndexEntry<T> previous = null;
+		for (IndexEntry<T> entry : merged) {
+			if (entry != previous) {
+				result.add(entry.value);
+				previous = entry;
+			}
+		}
+		return result;
+	}
+
+
+	private static final class IndexEntry<T> implements Comparable<IndexEntry<T>> {
+
+		final T value;
+
+		final long order;
+
+		final List<Node<T>> nodes = new ArrayList<>(1);
+
+		IndexEntry(T value, long order) {
+			this.value = value;
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(IndexEntry<T> other) {
+			return Long.compare(this.order, other.order);
+		}
+	}
+
+
+	private static final class Node<T> {
+
+		@Nullable
+		private final Node<T> parent;
+
+		/** The literal segment of this node, or {@code null} for a separator. */
+		@Nullable
+		private final String segment;
+
+		@Nullable
+		private Node<T> separatorChild;
+
+		@Nullable
+		private Map<String, Node<T>> segmentChildren;
+
+		/** Entries in the order in which they were added. */
+		final List<IndexEntry<T>> entries = new ArrayList<>(1);
+
+		private final List<T> values = new ArrayList<>(1);
+
+		/** Read-only view of the entry values, for lookups that end at this node. */
+		final List<T> valuesView = Collections.unmodifiableList(this.values);
+
+		Node(@Nullable Node<T> parent, @Nullable String segment) {
+			this.parent = parent;
+			this.segment = segment;
+		}
+
+		@Nullable
+		Node<T> getChild(PathContainer.Element element) {
+			if (element instanceof PathContainer.Separator) {
+				return this.separatorChild;
+			}
+			if (this.segmentChildren != null && element instanceof PathContainer.PathSegment) {
+				return this.segmentChildren.get(((PathContainer.PathSegment) element).valueToMatch());
+			}
+			return null;
+		}
+
+		Node<T> getOrCreateChild(@Nullable String segment) {
+			if (segment == null) {
+				if (this.separatorChild == null) {
+					this.separatorChild = new Node<>(this, null);
+				}
+				return this.separatorChild;
+			}
+			if (this.segmentChildren == null) {
+				this.segmentChildren = new HashMap<>();
+			}
+			return this.segmentChildren.computeIfAbsent(segment, key -> new Node<>(this, key));
+		}
+
+		void addEntry(IndexEntry<T> entry) {
+			if (!this.entries.isEmpty() && this.entries.get(this.entries.size() - 1) == entry) {
+				// Another pattern of the same value with the same literal prefix
+				return;
+			}
+			this.entries.add(entry);
+			this.values.add(entry.value);
+			entry.nodes.add(this);
+		}
+
+		void removeEntry(IndexEntry<T> entry) {
+			int index = this.entries.indexOf(entry);
+			if (index != -1) {
+				this.entries.remove(index);
+				this.values.remove(index);
+			}
+			Node<T> node = this;
+			while (node.parent != null && node.isEmpty()) {
+				node.parent.removeChild(node);
+				node = node.parent;
+			}
+		}
+
+		private boolean isEmpty() {
+			return (this.entries.isEmpty() && this.separatorChild == null &&
+					CollectionUtils.isEmpty(this.segmentChildren));
+		}
+
+		private void removeChild(Node<T> child) {
+			if (child.segment == null) {
+				this.separatorChild = null;
+			}
+			else if (this.segmentChildren != null) {
+				this.segmentChildren.remove(child.segment);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.server.PathContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PathPatternIndex}.
+ *
+ * @since 5.3.23
+ */
+class PathPatternIndexTests {
+
+	private final PathPatternParser parser = new PathPatternParser();
+
+	private final PathPatternIndex<String> index = new PathPatternIndex<>();
+
+
+	@Test
+	void candidatesByLiteralPrefix() {
+		add("orders", "/api/orders/{id}");
+		add("orderItems", "/api/orders/{id}/items");
+		add("customers", "/api/customers/{id}");
+		add("root", "/{page}");
+
+		assertThat(candidates("/api/orders/42")).containsExactly("orders", "orderItems", "root");
+		assertThat(candidates("/api/customers/42")).containsExactly("customers", "root");
+		assertThat(candidates("/api/other")).containsExactly("root");
+		assertThat(candidates("/api;v=1/orders/42")).containsExactly("orders", "orderItems", "root");
+		assertThat(candidates("api/orders/42")).isEmpty();
+	}
+
+	@Test
+	void candidatesForCatchAllPatterns() {
+		add("static", "/static/**");
+		add("rest", "/files/{*path}");
+		add("all", "/**");
+
+		assertThat(candidates("/static")).containsExactly("static", "all");
+		assertThat(candidates("/static/css/main.css")).containsExactly("static", "all");
+		assertThat(candidates("/files")).containsExactly("rest", "all");
+		assertThat(candidates("/favicon.ico")).containsExactly("all");
+		assertThat(candidates("")).containsExactly("all");
+	}
+
+	@Test
+	void candidatesWithSeveralPatterns() {
+		add("first", "/a/{x}");
+		add("multi", "/a/{y}", "/a/b/{z}", "/c/{z}");
+		add("last", "/a/b/{z}");
+
+		assertThat(candidates("/a/b/c")).containsExactly("first", "multi", "last");
+		assertThat(candidates("/c/d")).containsExactly("multi");
+	}
+
+	@Test
+	void candidatesWithoutPatterns() {
+		this.index.add("none", null);
+		add("orders", "/orders/{id}");
+
+		assertThat(candidates("/orders/1")).containsExactly("none", "orders");
+		assertThat(candidates("/customers/1")).containsExactly("none");
+	}
+
+	@Test
+	void candidatesForCaseInsensitivePatterns() {
+		PathPatternParser parser = new PathPatternParser();
+		parser.setCaseSensitive(false);
+		this.index.add("orders", Arrays.asList(parser.parse("/Orders/{id}")));
+
+		assertThat(candidates("/orders/1")).containsExactly("orders");
+		assertThat(candidates("/ORDERS/1")).containsExactly("orders");
+	}
+
+	@Test
+	void addEqualValueReplacesEntry() {
+		add("orders", "/orders/{id}");
+		add("orders", "/customers/{id}");
+
+		assertThat(this.index.size()).isEqualTo(1);
+		assertThat(candidates("/orders/1")).isEmpty();
+		assertThat(candidates("/customers/1")).containsExactly("orders");
+	}
+
+	@Test
+	void remove() {
+		add("orders", "/orders/{id}", "/orders/{id}/items");
+		add("customers", "/customers/{id}");
+
+		assertThat(this.index.remove("orders")).isTrue();
+		assertThat(this.index.remove("orders")).isFalse();
+		assertThat(this.index.size()).isEqualTo(1);
+		assertThat(candidates("/orders/1")).isEmpty();
+		assertThat(candidates("/customers/1")).containsExactly("customers");
+	}
+
+	@Test
+	void candidatesIncludeAllMatches() {
+		List<String> patterns = Arrays.asList("", "/", "/a", "/a/", "/a/b", "/a/{b}", "/a/b*", "/{a}/b",
+				"/a/**", "/a/{*rest}", "/**", "/A/b", "a/b", "/a/b/c", "/a/?/c", "/a/{b:[a-z]+}/c");
+		patterns.forEach(pattern -> add(pattern, pattern));
+
+		List<String> paths = Arrays.asList("", "/", "/a", "/a/", "/a/b", "/a/b/", "/a/bc", "/A/b",
+				"a/b", "/a/b/c", "/a/x/c", "/b", "/a//b", "/a/b;p=1");
+		for (String path : paths) {
+			PathContainer container = PathContainer.parsePath(path);
+			List<String> matching = new ArrayList<>();
+			for (String pattern : patterns) {
+				if (this.parser.parse(pattern).matches(container)) {
+					matching.add(pattern);
+				}
+			}
+			assertThat(this.index.getCandidates(container)).as(path).containsAll(matching);
+		}
+	}
+
+
+	private void add(String value, String... patterns) {
+		List<PathPattern> pathPatterns = new ArrayList<>();
+		for (String pattern : patterns) {
+			pathPatterns.add(this.parser.parse(pattern));
+		}
+		this.index.add(value, pathPatterns);
+	}
+
+	private List<String> candidates(String path) {
+		return this.index.getCandidates(PathContainer.parsePath(path));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import org.springframework.util.AntPathMatcher;
 import org.springframework.web.util.pattern.PathPattern.PathRemainingMatchInfo;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 /**
@@ -1144,6 +1145,61 @@ public class PathPatternTests {
 		assertThat(result).isNotNull();
 	}
 
+	@Test
+	public void uriVariablesAfterSubsequentMatches() {
+		PathPattern pattern = parse("/projects/{project}/releases/{version}");
+		PathPattern.PathMatchInfo first = pattern.matchAndExtract(toPathContainer("/projects/spring/releases/5.3"));
+		PathPattern.PathMatchInfo second = pattern.matchAndExtract(toPathContainer("/projects/reactor/releases/2020"));
+		assertThat(pattern.matches(toPathContainer("/projects/boot"))).isFalse();
+
+		Map<String, String> expected = new HashMap<>();
+		expected.put("project", "spring");
+		expected.put("version", "5.3");
+		assertThat(first.getUriVariables()).isEqualTo(expected).hasSameHashCodeAs(expected);
+		assertThat(first.getUriVariables()).containsOnlyKeys("project", "version");
+		assertThat(first.getUriVariables().get("other")).isNull();
+		assertThat(second.getUriVariables()).containsEntry("project", "reactor").containsEntry("version", "2020");
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+				.isThrownBy(() -> first.getUriVariables().put("other", "value"));
+		assertThat(parse("/projects").matchAndExtract(toPathContainer("/projects")).getUriVariables()).isEmpty();
+	}
+
+	@Test
+	public void matchesWithMatchState() {
+		PathPattern.MatchState matchState = new PathPattern.MatchState();
+		PathContainer path = toPathContainer("/projects/spring/releases/5.3");
+		assertThat(parse("/projects/{project}/releases/{version}").matches(path, matchState)).isTrue();
+		assertThat(parse("/projects/{project}").matches(path, matchState)).isFalse();
+		assertThat(parse("/projects/**").matches(path, matchState)).isTrue();
+		assertThat(parse("/projects/{project}").matches(toPathContainer("/projects/spring"), matchState)).isTrue();
+		assertThat(parse("/resources/*.png").matches(toPathContainer("/resources/test.png"), matchState)).isTrue();
+		assertThat(parse("/resources/*.png").matches(toPathContainer("/resources/test.jpg"), matchState)).isFalse();
+	}
+
+	@Test
+	public void matchAndExtractWithMatchState() {
+		PathPattern.MatchState matchState = new PathPattern.MatchState();
+		PathPattern pattern = parse("/projects/{project}/releases/{version}");
+		PathPattern.PathMatchInfo first =
+				pattern.matchAndExtract(toPathContainer("/projects/spring/releases/5.3"), matchState);
+		PathPattern.PathMatchInfo second =
+				parse("/{group}/{name}/{type}/{id}").matchAndExtract(toPathContainer("/a/b/c/d"), matchState);
+		PathPattern.PathMatchInfo third =
+				parse("/{id}").matchAndExtract(toPathContainer("/abc;x=y"), matchState);
+		assertThat(pattern.matchAndExtract(toPathContainer("/projects/boot"), matchState)).isNull();
+
+		assertThat(first.getUriVariables()).containsOnlyKeys("project", "version");
+		assertThat(first.getUriVariables()).containsEntry("project", "spring").containsEntry("version", "5.3");
+		assertThat(first.getMatrixVariables()).isEmpty();
+		assertThat(second.getUriVariables()).containsOnlyKeys("group", "name", "type", "id");
+		assertThat(second.getUriVariables()).containsEntry("group", "a").containsEntry("id", "d");
+		assertThat(third.getUriVariables()).containsOnlyKeys("id");
+		assertThat(third.getUriVariables()).containsEntry("id", "abc");
+		assertThat(third.getMatrixVariables().get("id").getFirst("x")).isEqualTo("y");
+		assertThat(parse("/projects").matchAndExtract(toPathContainer("/projects"), matchState).getUriVariables())
+				.isEmpty();
+	}
+
 	private PathPattern.PathMatchInfo matchAndExtract(String pattern, String path) {
 		return parse(pattern).matchAndExtract(PathPatternTests.toPathContainer(path));
 	}
@@ -48,6 +48,8 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 
 	private static final Set<String> EMPTY_PATH = Collections.singleton("");
 
+	private static final String MATCH_STATE_ATTRIBUTE = PatternsRequestCondition.class.getName() + ".MATCH_STATE";
+
 
 	private final SortedSet<PathPattern> patterns;
 
@@ -158,9 +160,10 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	@Nullable
 	private SortedSet<PathPattern> getMatchingPatterns(ServerWebExchange exchange) {
 		PathContainer lookupPath = exchange.getRequest().getPath().pathWithinApplication();
+		PathPattern.MatchState matchState = getMatchState(exchange);
 		TreeSet<PathPattern> result = null;
 		for (PathPattern pattern : this.patterns) {
-			if (pattern.matches(lookupPath)) {
+			if (pattern.matches(lookupPath, matchState)) {
 				result = (result != null ? result : new TreeSet<>());
 				result.add(pattern);
 			}
@@ -199,4 +202,31 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		}
 	}
 
+
+	/**
+	 * Return the {@link PathPattern.MatchState} to reuse for pattern matches
+	 * against the given exchange, creating it on first access.
+	 * @param exchange the current exchange
+	 * @since 5.3.23
+	 * @see #clearMatchStateAttribute(ServerWebExchange)
+	 */
+	public static PathPattern.MatchState getMatchState(ServerWebExchange exchange) {
+		PathPattern.MatchState matchState = exchange.getAttribute(MATCH_STATE_ATTRIBUTE);
+		if (matchState == null) {
+			matchState = new PathPattern.MatchState();
+			exchange.getAttributes().put(MATCH_STATE_ATTRIBUTE, matchState);
+		}
+		return matchState;
+	}
+
+	/**
+	 * Use this to clear the {@link PathPattern.MatchState} reused for pattern
+	 * matches against the given exchange.
+	 * @param exchange the current exchange
+	 * @since 5.3.23
+	 */
+	public static void clearMatchStateAttribute(ServerWebExchange exchange) {
+		exchange.getAttributes().remove(MATCH_STATE_ATTRIBUTE);
+	}
+
 }
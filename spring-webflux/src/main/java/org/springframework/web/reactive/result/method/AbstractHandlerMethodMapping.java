@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -36,6 +36,7 @@ import reactor.core.publisher.Mono;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
+import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.RequestPath;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -49,6 +50,8 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.handler.AbstractHandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternIndex;
 
 /**
  * Abstract base class for {@link HandlerMapping} implementations that define
@@ -326,7 +329,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, exchange);
 		}
 		if (matches.isEmpty()) {
-			addMatchingMappings(this.mappingRegistry.getRegistrations().keySet(), matches, exchange);
+			addMatchingMappings(this.mappingRegistry.getMappingsByPath(exchange), matches, exchange);
 		}
 		if (!matches.isEmpty()) {
 			Comparator<Match> comparator = new MatchComparator(getMappingComparator(exchange));
@@ -443,6 +446,22 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Return the parsed patterns of the given mapping. These are used to index
+	 * mappings by the literal prefix of their patterns, so that only mappings
+	 * that may match the lookup path need to be checked for a request.
+	 * <p>By default this returns {@code null}, in which case the mapping is
+	 * checked for every request that has no direct path match.
+	 * @param mapping the mapping to get the patterns for
+	 * @return the patterns, or {@code null} if not available
+	 * @since 5.3.23
+	 * @see PathPatternIndex
+	 */
+	@Nullable
+	protected Set<PathPattern> getPathPatterns(T mapping) {
+		return null;
+	}
+
 	/**
 	 * Check if a mapping matches the current request and return a (potentially
 	 * new) mapping with conditions relevant to the current request.
@@ -474,6 +493,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> pathLookup = new LinkedMultiValueMap<>();
 
+		private final PathPatternIndex<T> patternIndex = new PathPatternIndex<>();
+
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
 
 		private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
@@ -497,6 +518,18 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.pathLookup.get(path);
 		}
 
+		/**
+		 * Return the mappings that may match the URL path, i.e. excluding
+		 * mappings with patterns that can be ruled out by their literal prefix.
+		 * Not thread-safe.
+		 * @since 5.3.23
+		 * @see #acquireReadLock()
+		 */
+		public Collection<T> getMappingsByPath(ServerWebExchange exchange) {
+			PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+			return this.patternIndex.getCandidates(path);
+		}
+
 		/**
 		 * Return CORS configuration. Thread-safe for concurrent use.
 		 */
@@ -530,6 +563,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				for (String path : directPaths) {
 					this.pathLookup.add(path, mapping);
 				}
+				this.patternIndex.add(mapping, AbstractHandlerMethodMapping.this.getPathPatterns(mapping));
 
 				CorsConfiguration corsConfig = initCorsConfiguration(handler, method, mapping);
 				if (corsConfig != null) {
@@ -574,6 +608,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					}
 				}
 
+				this.patternIndex.remove(registration.getMapping());
 				this.corsLookup.remove(registration.getHandlerMethod());
 			}
 			finally {
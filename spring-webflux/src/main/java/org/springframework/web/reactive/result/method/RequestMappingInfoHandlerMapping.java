@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.result.condition.NameValueExpression;
+import org.springframework.web.reactive.result.condition.PatternsRequestCondition;
 import org.springframework.web.reactive.result.condition.ProducesRequestCondition;
 import org.springframework.web.server.MethodNotAllowedException;
 import org.springframework.web.server.NotAcceptableStatusException;
@@ -77,6 +78,11 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		return info.getDirectPaths();
 	}
 
+	@Override
+	protected Set<PathPattern> getPathPatterns(RequestMappingInfo info) {
+		return info.getPatternsCondition().getPatterns();
+	}
+
 	/**
 	 * Check if the given RequestMappingInfo matches the current request and
 	 * return a (potentially new) instance with conditions that match the
@@ -100,7 +106,10 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 	public Mono<HandlerMethod> getHandlerInternal(ServerWebExchange exchange) {
 		exchange.getAttributes().remove(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
 		return super.getHandlerInternal(exchange)
-				.doOnTerminate(() -> ProducesRequestCondition.clearMediaTypesAttribute(exchange));
+				.doOnTerminate(() -> {
+					ProducesRequestCondition.clearMediaTypesAttribute(exchange);
+					PatternsRequestCondition.clearMatchStateAttribute(exchange);
+				});
 	}
 
 	/**
@@ -129,7 +138,8 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		}
 		else {
 			bestPattern = patterns.iterator().next();
-			PathPattern.PathMatchInfo result = bestPattern.matchAndExtract(lookupPath);
+			PathPattern.PathMatchInfo result =
+					bestPattern.matchAndExtract(lookupPath, PatternsRequestCondition.getMatchState(exchange));
 			Assert.notNull(result, () ->
 					"Expected bestPattern: " + bestPattern + " to match lookupPath " + lookupPath);
 			uriVariables = result.getUriVariables();
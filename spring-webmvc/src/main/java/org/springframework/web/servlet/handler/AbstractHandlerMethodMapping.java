@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,7 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -49,6 +50,9 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternIndex;
 import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
@@ -405,7 +409,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			addMatchingMappings(this.mappingRegistry.getRegistrations().keySet(), matches, request);
+			PathContainer path = (ServletRequestPathUtils.hasParsedRequestPath(request) ?
+					ServletRequestPathUtils.getParsedRequestPath(request).pathWithinApplication() : null);
+			addMatchingMappings(this.mappingRegistry.getMappingsByPath(path), matches, request);
 		}
 		if (!matches.isEmpty()) {
 			Match bestMatch = matches.get(0);
@@ -545,6 +551,22 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		return urls;
 	}
 
+	/**
+	 * Return the parsed patterns of the given mapping. These are used to index
+	 * mappings by the literal prefix of their patterns, so that only mappings
+	 * that may match the lookup path need to be checked for a request.
+	 * <p>By default this returns {@code null}, in which case the mapping is
+	 * checked for every request that has no direct path match.
+	 * @param mapping the mapping to get the patterns for
+	 * @return the patterns, or {@code null} if not available
+	 * @since 5.3.23
+	 * @see PathPatternIndex
+	 */
+	@Nullable
+	protected Set<PathPattern> getPathPatterns(T mapping) {
+		return null;
+	}
+
 	/**
 	 * Check if a mapping matches the current request and return a (potentially
 	 * new) mapping with conditions relevant to the current request.
@@ -575,6 +597,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> pathLookup = new LinkedMultiValueMap<>();
 
+		private final PathPatternIndex<T> patternIndex = new PathPatternIndex<>();
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -598,6 +622,19 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.pathLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings that may match the given path, i.e. excluding
+		 * mappings with patterns that can be ruled out by their literal prefix.
+		 * Not thread-safe.
+		 * @param path the parsed path within the application, or {@code null}
+		 * to return all mappings
+		 * @since 5.3.23
+		 * @see #acquireReadLock()
+		 */
+		public Collection<T> getMappingsByPath(@Nullable PathContainer path) {
+			return (path != null ? this.patternIndex.getCandidates(path) : this.registry.keySet());
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -638,6 +675,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				for (String path : directPaths) {
 					this.pathLookup.add(path, mapping);
 				}
+				this.patternIndex.add(mapping, AbstractHandlerMethodMapping.this.getPathPatterns(mapping));
 
 				String name = null;
 				if (getNamingStrategy() != null) {
@@ -706,6 +744,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					}
 				}
 
+				this.patternIndex.remove(registration.getMapping());
 				removeMappingName(registration);
 
 				this.corsLookup.remove(registration.getHandlerMethod());
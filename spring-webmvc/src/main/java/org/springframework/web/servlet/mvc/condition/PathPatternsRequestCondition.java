@@ -52,6 +52,8 @@ public final class PathPatternsRequestCondition extends AbstractRequestCondition
 
 	private static final Set<String> EMPTY_PATH = Collections.singleton("");
 
+	private static final String MATCH_STATE_ATTRIBUTE = PathPatternsRequestCondition.class.getName() + ".MATCH_STATE";
+
 
 	private final SortedSet<PathPattern> patterns;
 
@@ -190,15 +192,15 @@ public final class PathPatternsRequestCondition extends AbstractRequestCondition
 	@Nullable
 	public PathPatternsRequestCondition getMatchingCondition(HttpServletRequest request) {
 		PathContainer path = ServletRequestPathUtils.getParsedRequestPath(request).pathWithinApplication();
-		SortedSet<PathPattern> matches = getMatchingPatterns(path);
+		SortedSet<PathPattern> matches = getMatchingPatterns(path, getMatchState(request));
 		return (matches != null ? new PathPatternsRequestCondition(matches) : null);
 	}
 
 	@Nullable
-	private SortedSet<PathPattern> getMatchingPatterns(PathContainer path) {
+	private SortedSet<PathPattern> getMatchingPatterns(PathContainer path, PathPattern.MatchState matchState) {
 		TreeSet<PathPattern> result = null;
 		for (PathPattern pattern : this.patterns) {
-			if (pattern.matches(path)) {
+			if (pattern.matches(path, matchState)) {
 				result = (result != null ? result : new TreeSet<>());
 				result.add(pattern);
 			}
@@ -237,4 +239,31 @@ public final class PathPatternsRequestCondition extends AbstractRequestCondition
 		}
 	}
 
+
+	/**
+	 * Return the {@link PathPattern.MatchState} to reuse for pattern matches
+	 * against the given request, creating it on first access.
+	 * @param request the current request
+	 * @since 5.3.23
+	 * @see #clearMatchStateAttribute(HttpServletRequest)
+	 */
+	public static PathPattern.MatchState getMatchState(HttpServletRequest request) {
+		PathPattern.MatchState matchState = (PathPattern.MatchState) request.getAttribute(MATCH_STATE_ATTRIBUTE);
+		if (matchState == null) {
+			matchState = new PathPattern.MatchState();
+			request.setAttribute(MATCH_STATE_ATTRIBUTE, matchState);
+		}
+		return matchState;
+	}
+
+	/**
+	 * Use this to clear the {@link PathPattern.MatchState} reused for pattern
+	 * matches against the given request.
+	 * @param request the current request
+	 * @since 5.3.23
+	 */
+	public static void clearMatchStateAttribute(HttpServletRequest request) {
+		request.removeAttribute(MATCH_STATE_ATTRIBUTE);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -98,6 +98,13 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		return info.getDirectPaths();
 	}
 
+	@Override
+	@Nullable
+	protected Set<PathPattern> getPathPatterns(RequestMappingInfo info) {
+		PathPatternsRequestCondition condition = info.getPathPatternsCondition();
+		return (condition != null ? condition.getPatterns() : null);
+	}
+
 	/**
 	 * Check if the given RequestMappingInfo matches the current request and
 	 * return a (potentially new) instance with conditions that match the
@@ -126,6 +133,7 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		}
 		finally {
 			ProducesRequestCondition.clearMediaTypesAttribute(request);
+			PathPatternsRequestCondition.clearMatchStateAttribute(request);
 		}
 	}
 
@@ -165,7 +173,8 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		else {
 			PathContainer path = ServletRequestPathUtils.getParsedRequestPath(request).pathWithinApplication();
 			bestPattern = condition.getFirstPattern();
-			PathPattern.PathMatchInfo result = bestPattern.matchAndExtract(path);
+			PathPattern.PathMatchInfo result =
+					bestPattern.matchAndExtract(path, PathPatternsRequestCondition.getMatchState(request));
 			Assert.notNull(result, () ->
 					"Expected bestPattern: " + bestPattern + " to match lookupPath " + path);
 			uriVariables = result.getUriVariables();
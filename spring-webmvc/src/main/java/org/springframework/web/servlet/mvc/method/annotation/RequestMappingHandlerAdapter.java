@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,6 +51,7 @@ import org.springframework.http.converter.xml.SourceHttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.InitBinder;
@@ -186,6 +187,8 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 
 	private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
+	private boolean cacheInvocationPlans = true;
+
 	@Nullable
 	private ConfigurableBeanFactory beanFactory;
 
@@ -199,6 +202,8 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 
 	private final Map<ControllerAdviceBean, Set<Method>> modelAttributeAdviceCache = new LinkedHashMap<>();
 
+	private final Map<HandlerMethod, InvocationPlan> invocationPlanCache = new ConcurrentReferenceHashMap<>(256);
+
 
 	public RequestMappingHandlerAdapter() {
 		this.messageConverters = new ArrayList<>(4);
@@ -543,6 +548,23 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 		this.parameterNameDiscoverer = parameterNameDiscoverer;
 	}
 
+	/**
+	 * Set whether to keep the invocation plan for a handler method, i.e. the
+	 * {@link ServletInvocableHandlerMethod} along with its data binder factory
+	 * and its {@code @ModelAttribute} methods, for reuse across requests.
+	 * <p>Default is "true". Plans are only kept for handler methods obtained from a
+	 * handler mapping, on singleton controllers with singleton controller advice
+	 * beans; in all other cases, they are created for each request.
+	 * Switch this to "false" to create them for each request in any case, e.g. if
+	 * {@link #createInvocableHandlerMethod} returns instances with request state.
+	 * @since 5.3.23
+	 * @see HandlerMethod#getResolvedFromHandlerMethod()
+	 */
+	public void setCacheInvocationPlans(boolean cacheInvocationPlans) {
+		this.cacheInvocationPlans = cacheInvocationPlans;
+		this.invocationPlanCache.clear();
+	}
+
 	/**
 	 * A {@link ConfigurableBeanFactory} is expected for resolving expressions
 	 * in method argument default values.
@@ -854,18 +876,9 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 
 		ServletWebRequest webRequest = new ServletWebRequest(request, response);
 		try {
-			WebDataBinderFactory binderFactory = getDataBinderFactory(handlerMethod);
-			ModelFactory modelFactory = getModelFactory(handlerMethod, binderFactory);
-
-			ServletInvocableHandlerMethod invocableMethod = createInvocableHandlerMethod(handlerMethod);
-			if (this.argumentResolvers != null) {
-				invocableMethod.setHandlerMethodArgumentResolvers(this.argumentResolvers);
-			}
-			if (this.returnValueHandlers != null) {
-				invocableMethod.setHandlerMethodReturnValueHandlers(this.returnValueHandlers);
-			}
-			invocableMethod.setDataBinderFactory(binderFactory);
-			invocableMethod.setParameterNameDiscoverer(this.parameterNameDiscoverer);
+			InvocationPlan invocationPlan = getInvocationPlan(handlerMethod);
+			ModelFactory modelFactory = invocationPlan.createModelFactory();
+			ServletInvocableHandlerMethod invocableMethod = invocationPlan.invocableMethod;
 
 			ModelAndViewContainer mavContainer = new ModelAndViewContainer();
 			mavContainer.addAllAttributes(RequestContextUtils.getInputFlashMap(request));
@@ -904,8 +917,72 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 		}
 	}
 
+	/**
+	 * Return the invocation plan for the given handler method, reusing the plan
+	 * from a previous request for the same controller instance if possible.
+	 */
+	private InvocationPlan getInvocationPlan(HandlerMethod handlerMethod) throws Exception {
+		HandlerMethod registeredHandlerMethod = handlerMethod.getResolvedFromHandlerMethod();
+		if (!this.cacheInvocationPlans || registeredHandlerMethod == null) {
+			return createInvocationPlan(handlerMethod);
+		}
+		InvocationPlan invocationPlan = this.invocationPlanCache.get(registeredHandlerMethod);
+		if (invocationPlan != null && invocationPlan.bean == handlerMethod.getBean()) {
+			return invocationPlan;
+		}
+		invocationPlan = createInvocationPlan(handlerMethod);
+		if (isSingletonHandler(registeredHandlerMethod) && hasSingletonAdviceOnly(handlerMethod.getBeanType())) {
+			this.invocationPlanCache.put(registeredHandlerMethod, invocationPlan);
+		}
+		return invocationPlan;
+	}
+
+	private InvocationPlan createInvocationPlan(HandlerMethod handlerMethod) throws Exception {
+		WebDataBinderFactory binderFactory = getDataBinderFactory(handlerMethod);
+		SessionAttributesHandler sessionAttrHandler = getSessionAttributesHandler(handlerMethod);
+		List<InvocableHandlerMethod> attrMethods = getModelAttributeMethods(handlerMethod, binderFactory);
+
+		ServletInvocableHandlerMethod invocableMethod = createInvocableHandlerMethod(handlerMethod);
+		if (this.argumentResolvers != null) {
+			invocableMethod.setHandlerMethodArgumentResolvers(this.argumentResolvers);
+		}
+		if (this.returnValueHandlers != null) {
+			invocableMethod.setHandlerMethodReturnValueHandlers(this.returnValueHandlers);
+		}
+		invocableMethod.setDataBinderFactory(binderFactory);
+		invocableMethod.setParameterNameDiscoverer(this.parameterNameDiscoverer);
+
+		return new InvocationPlan(handlerMethod.getBean(), invocableMethod, binderFactory, attrMethods, sessionAttrHandler);
+	}
+
+	private boolean isSingletonHandler(HandlerMethod registeredHandlerMethod) {
+		Object bean = registeredHandlerMethod.getBean();
+		if (!(bean instanceof String)) {
+			return true;
+		}
+		String beanName = (String) bean;
+		ConfigurableBeanFactory beanFactory = getBeanFactory();
+		return (beanFactory != null && beanFactory.containsBean(beanName) && beanFactory.isSingleton(beanName));
+	}
+
+	private boolean hasSingletonAdviceOnly(Class<?> handlerType) {
+		for (ControllerAdviceBean adviceBean : this.modelAttributeAdviceCache.keySet()) {
+			if (!adviceBean.isSingleton() && adviceBean.isApplicableToBeanType(handlerType)) {
+				return false;
+			}
+		}
+		for (ControllerAdviceBean adviceBean : this.initBinderAdviceCache.keySet()) {
+			if (!adviceBean.isSingleton() && adviceBean.isApplicableToBeanType(handlerType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Create a {@link ServletInvocableHandlerMethod} from the given {@link HandlerMethod} definition.
+	 * <p>As of 5.3.23, the returned instance may be reused for subsequent requests
+	 * to the same handler method, unless {@link #setCacheInvocationPlans} is "false".
 	 * @param handlerMethod the {@link HandlerMethod} definition
 	 * @return the corresponding {@link ServletInvocableHandlerMethod} (or custom subclass thereof)
 	 * @since 4.2
@@ -914,8 +991,9 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 		return new ServletInvocableHandlerMethod(handlerMethod);
 	}
 
-	private ModelFactory getModelFactory(HandlerMethod handlerMethod, WebDataBinderFactory binderFactory) {
-		SessionAttributesHandler sessionAttrHandler = getSessionAttributesHandler(handlerMethod);
+	private List<InvocableHandlerMethod> getModelAttributeMethods(
+			HandlerMethod handlerMethod, WebDataBinderFactory binderFactory) {
+
 		Class<?> handlerType = handlerMethod.getBeanType();
 		Set<Method> methods = this.modelAttributeCache.get(handlerType);
 		if (methods == null) {
@@ -936,7 +1014,7 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 			Object bean = handlerMethod.getBean();
 			attrMethods.add(createModelAttributeMethod(binderFactory, bean, method));
 		}
-		return new ModelFactory(attrMethods, binderFactory, sessionAttrHandler);
+		return attrMethods;
 	}
 
 	private InvocableHandlerMethod createModelAttributeMethod(WebDataBinderFactory factory, Object bean, Method method) {
@@ -1020,4 +1098,42 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 		return mav;
 	}
 
+
+	/**
+	 * The components for invoking a handler method, created once per controller
+	 * instance: the invocable handler method itself, its data binder factory
+	 * with the applicable {@code @InitBinder} methods, and the applicable
+	 * {@code @ModelAttribute} methods.
+	 */
+	private static final class InvocationPlan {
+
+		final Object bean;
+
+		final ServletInvocableHandlerMethod invocableMethod;
+
+		final WebDataBinderFactory binderFactory;
+
+		final List<InvocableHandlerMethod> modelAttributeMethods;
+
+		final SessionAttributesHandler sessionAttributesHandler;
+
+		InvocationPlan(Object bean, ServletInvocableHandlerMethod invocableMethod, WebDataBinderFactory binderFactory,
+				List<InvocableHandlerMethod> modelAttributeMethods, SessionAttributesHandler sessionAttributesHandler) {
+
+			this.bean = bean;
+			this.invocableMethod = invocableMethod;
+			this.binderFactory = binderFactory;
+			this.modelAttributeMethods = modelAttributeMethods;
+			this.sessionAttributesHandler = sessionAttributesHandler;
+		}
+
+		/**
+		 * Create a new {@link ModelFactory} for the current request,
+		 * since it keeps track of the model attribute methods invoked.
+		 */
+		ModelFactory createModelFactory() {
+			return new ModelFactory(this.modelAttributeMethods, this.binderFactory, this.sessionAttributesHandler);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,8 @@ import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -76,7 +78,14 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 	/** Fast access cache for Views, returning already cached instances without a global lock. */
 	private final Map<Object, View> viewAccessCache = new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
 
-	/** Map from view key to View instance, synchronized for View creation. */
+	/**
+	 * Guards View creation and {@link #viewCreationCache} access, as a lock
+	 * rather than a monitor so that blocking in {@link #createView} does not
+	 * pin the carrier thread when running on virtual threads.
+	 */
+	private final Lock viewCreationLock = new ReentrantLock();
+
+	/** Map from view key to View instance, guarded by the lock for View creation. */
 	@SuppressWarnings("serial")
 	private final Map<Object, View> viewCreationCache =
 			new LinkedHashMap<Object, View>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
@@ -177,7 +186,8 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 			Object cacheKey = getCacheKey(viewName, locale);
 			View view = this.viewAccessCache.get(cacheKey);
 			if (view == null) {
-				synchronized (this.viewCreationCache) {
+				this.viewCreationLock.lock();
+				try {
 					view = this.viewCreationCache.get(cacheKey);
 					if (view == null) {
 						// Ask the subclass to create the View object.
@@ -191,6 +201,9 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 						}
 					}
 				}
+				finally {
+					this.viewCreationLock.unlock();
+				}
 			}
 			else {
 				if (logger.isTraceEnabled()) {
@@ -232,10 +245,14 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 		else {
 			Object cacheKey = getCacheKey(viewName, locale);
 			Object cachedView;
-			synchronized (this.viewCreationCache) {
+			this.viewCreationLock.lock();
+			try {
 				this.viewAccessCache.remove(cacheKey);
 				cachedView = this.viewCreationCache.remove(cacheKey);
 			}
+			finally {
+				this.viewCreationLock.unlock();
+			}
 			if (logger.isDebugEnabled()) {
 				// Some debug output might be useful...
 				logger.debug(formatKey(cacheKey) +
@@ -250,10 +267,14 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 	 */
 	public void clearCache() {
 		logger.debug("Clearing all views from the cache");
-		synchronized (this.viewCreationCache) {
+		this.viewCreationLock.lock();
+		try {
 			this.viewAccessCache.clear();
 			this.viewCreationCache.clear();
 		}
+		finally {
+			this.viewCreationLock.unlock();
+		}
 	}
 
 
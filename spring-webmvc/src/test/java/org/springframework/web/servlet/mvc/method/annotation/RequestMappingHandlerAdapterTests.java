@@ -272,6 +272,94 @@ public class RequestMappingHandlerAdapterTests {
 		assertThat(this.response.getContentAsString()).isEqualTo("{\"status\":400,\"message\":\"body\"}");
 	}
 
+	@Test
+	public void invocationPlanForSingletonController() throws Exception {
+		this.webAppContext.registerSingleton("controller", SimpleController.class);
+		this.webAppContext.registerSingleton("maa", ModelAttributeAdvice.class);
+		this.webAppContext.refresh();
+
+		CountingHandlerAdapter adapter = countingHandlerAdapter();
+		HandlerMethod handlerMethod = registeredHandlerMethod("controller", "handle");
+		Map<String, Object> model1 = adapter.handle(this.request, this.response, handlerMethod.createWithResolvedBean()).getModel();
+		Map<String, Object> model2 = adapter.handle(this.request, this.response, handlerMethod.createWithResolvedBean()).getModel();
+
+		assertThat(adapter.invocableHandlerMethodCount).isEqualTo(1);
+		assertThat(model1.get("attr1")).isEqualTo("lAttr1");
+		assertThat(model2.get("attr1")).isEqualTo("lAttr1");
+		assertThat(model2.get("attr2")).isEqualTo("gAttr2");
+		assertThat(model1).isNotSameAs(model2);
+	}
+
+	@Test
+	public void invocationPlanReusedAcrossGarbageCollection() throws Exception {
+		this.webAppContext.registerSingleton("controller", SimpleController.class);
+		this.webAppContext.refresh();
+
+		CountingHandlerAdapter adapter = countingHandlerAdapter();
+		HandlerMethod handlerMethod = registeredHandlerMethod("controller", "handle");
+		for (int i = 0; i < 3; i++) {
+			adapter.handle(this.request, this.response, handlerMethod.createWithResolvedBean());
+			System.gc();
+		}
+
+		assertThat(adapter.invocableHandlerMethodCount).isEqualTo(1);
+	}
+
+	@Test
+	public void invocationPlanForPrototypeController() throws Exception {
+		this.webAppContext.registerPrototype("controller", SimpleController.class);
+		this.webAppContext.refresh();
+
+		CountingHandlerAdapter adapter = countingHandlerAdapter();
+		HandlerMethod handlerMethod = registeredHandlerMethod("controller", "handle");
+		adapter.handle(this.request, this.response, handlerMethod.createWithResolvedBean());
+		adapter.handle(this.request, this.response, handlerMethod.createWithResolvedBean());
+
+		assertThat(adapter.invocableHandlerMethodCount).isEqualTo(2);
+	}
+
+	@Test
+	public void invocationPlanForPrototypeControllerAdvice() throws Exception {
+		this.webAppContext.registerSingleton("controller", SimpleController.class);
+		this.webAppContext.registerPrototype("maa", ModelAttributeAdvice.class);
+		this.webAppContext.refresh();
+
+		CountingHandlerAdapter adapter = countingHandlerAdapter();
+		HandlerMethod handlerMethod = registeredHandlerMethod("controller", "handle");
+		Map<String, Object> model1 = adapter.handle(this.request, this.response, handlerMethod.createWithResolvedBean()).getModel();
+		Map<String, Object> model2 = adapter.handle(this.request, this.response, handlerMethod.createWithResolvedBean()).getModel();
+
+		assertThat(adapter.invocableHandlerMethodCount).isEqualTo(2);
+		assertThat(model1.get("instance")).isNotSameAs(model2.get("instance"));
+	}
+
+	@Test
+	public void invocationPlanNotCached() throws Exception {
+		this.webAppContext.registerSingleton("controller", SimpleController.class);
+		this.webAppContext.refresh();
+
+		CountingHandlerAdapter adapter = countingHandlerAdapter();
+		adapter.setCacheInvocationPlans(false);
+		HandlerMethod handlerMethod = registeredHandlerMethod("controller", "handle");
+		adapter.handle(this.request, this.response, handlerMethod.createWithResolvedBean());
+		adapter.handle(this.request, this.response, handlerMethod.createWithResolvedBean());
+
+		assertThat(adapter.invocableHandlerMethodCount).isEqualTo(2);
+	}
+
+	private CountingHandlerAdapter countingHandlerAdapter() {
+		CountingHandlerAdapter adapter = new CountingHandlerAdapter();
+		adapter.setApplicationContext(this.webAppContext);
+		adapter.setBeanFactory(this.webAppContext.getBeanFactory());
+		adapter.afterPropertiesSet();
+		return adapter;
+	}
+
+	private HandlerMethod registeredHandlerMethod(String beanName, String methodName) throws Exception {
+		Method method = SimpleController.class.getDeclaredMethod(methodName);
+		return new HandlerMethod(beanName, this.webAppContext.getBeanFactory(), method);
+	}
+
 	private HandlerMethod handlerMethod(Object handler, String methodName, Class<?>... paramTypes) throws Exception {
 		Method method = handler.getClass().getDeclaredMethod(methodName, paramTypes);
 		return new InvocableHandlerMethod(handler, method);
@@ -284,6 +372,18 @@ public class RequestMappingHandlerAdapterTests {
 	}
 
 
+	private static class CountingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+		private int invocableHandlerMethodCount;
+
+		@Override
+		protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+			this.invocableHandlerMethodCount++;
+			return super.createInvocableHandlerMethod(handlerMethod);
+		}
+	}
+
+
 	@SuppressWarnings("unused")
 	private static class SimpleController {
 